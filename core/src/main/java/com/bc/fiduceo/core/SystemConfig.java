@@ -38,6 +38,8 @@ public class SystemConfig {
     private ArchiveConfig archiveConfig;
     private int readerCacheSize;
     private String tempDir;
+    private long decompressionCacheSizeMb;
+    private long inMemoryDecompressionLimitMb;
 
     public static SystemConfig loadFrom(File configDirectory) throws IOException {
         final File systemPropertiesFile = new File(configDirectory, "system-config.xml");
@@ -63,6 +65,8 @@ public class SystemConfig {
     public SystemConfig() {
         geometryLibraryType = "S2";
         readerCacheSize = 8;
+        decompressionCacheSizeMb = 4096;
+        inMemoryDecompressionLimitMb = 32;
     }
 
     public String getGeometryLibraryType() {
@@ -81,6 +85,14 @@ public class SystemConfig {
         return tempDir;
     }
 
+    public long getDecompressionCacheSizeMb() {
+        return decompressionCacheSizeMb;
+    }
+
+    public long getInMemoryDecompressionLimitMb() {
+        return inMemoryDecompressionLimitMb;
+    }
+
     private SystemConfig(Document document) {
         this();
 
@@ -104,5 +116,15 @@ public class SystemConfig {
         if (tempDirElement != null) {
             this.tempDir = tempDirElement.getTextTrim();
         }
+
+        final Element decompressionCacheSizeElement = rootElement.getChild("decompression-cache-size-mb");
+        if (decompressionCacheSizeElement != null) {
+            this.decompressionCacheSizeMb = Long.parseLong(decompressionCacheSizeElement.getTextTrim());
+        }
+
+        final Element inMemoryDecompressionLimitElement = rootElement.getChild("in-memory-decompression-limit-mb");
+        if (inMemoryDecompressionLimitElement != null) {
+            this.inMemoryDecompressionLimitMb = Long.parseLong(inMemoryDecompressionLimitElement.getTextTrim());
+        }
     }
 }
@@ -24,90 +24,190 @@ package com.bc.fiduceo.db;
 
 import com.bc.fiduceo.core.SatelliteObservation;
 import com.bc.fiduceo.core.Sensor;
+import com.bc.fiduceo.geometry.Geometry;
+import com.bc.fiduceo.geometry.GeometryCollection;
+import com.bc.fiduceo.geometry.GeometryFactory;
+import com.bc.fiduceo.geometry.Point;
+import com.bc.fiduceo.log.FiduceoLogger;
 import com.bc.fiduceo.util.TimeUtils;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.esa.snap.core.util.StringUtils;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 abstract class AbstractDriver implements Driver {
 
-    private static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss.S";
+    private static final String OBSERVATION_JOINS = " INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId";
+    private static final int MIGRATION_BATCH_SIZE = 512;
+    private static final int MAX_OPEN_PREPARED_STATEMENTS = 64;
 
-    Connection connection;
+    private final Map<String, Integer> sensorIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> sensorNames = new ConcurrentHashMap<>();
+
+    BasicDataSource dataSource;
+    GeometryFactory geometryFactory;
+    // false for databases created by previous versions until converted with db-maintenance-tool -g
+    private volatile boolean geometryDataColumns = true;
 
+    @Override
+    public void setGeometryFactory(GeometryFactory geometryFactory) {
+        this.geometryFactory = geometryFactory;
+    }
+
+    /**
+     * Opens a connection pool for the data source. Each operation borrows a connection from the pool, so the
+     * driver can be used by concurrent threads. Prepared statements are pooled per connection.
+     *
+     * @param dataSource the data source configuration
+     * @throws SQLException on database errors
+     */
     @Override
     public void open(BasicDataSource dataSource) throws SQLException {
-        try {
-            final java.sql.Driver driverClass = (java.sql.Driver) Class.forName(dataSource.getDriverClassName()).newInstance();
-            DriverManager.registerDriver(driverClass);
-        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
-            throw new SQLException(e.getMessage());
+        final BasicDataSource pool = createConnectionPool(dataSource);
+        configureConnectionPool(pool);
+        this.dataSource = pool;
+
+        // fail early on wrong configurations, the pooled connection also keeps in-memory databases alive
+        try (Connection connection = getConnection()) {
+            checkSchema(connection);
+        } catch (SQLException e) {
+            close();
+            throw e;
         }
-        connection = DriverManager.getConnection(dataSource.getUrl(),
-                dataSource.getUsername(),
-                dataSource.getPassword());
+    }
+
+    /**
+     * Inspects the schema of an existing database once at open time. Databases created by previous versions
+     * lack the binary geometry columns; these are written and read via the GEOMETRY columns only. Missing
+     * query indexes are created.
+     *
+     * @param connection the connection
+     * @throws SQLException on database errors
+     */
+    void checkSchema(Connection connection) throws SQLException {
+        if (!tableExists(connection, "SATELLITE_OBSERVATION")) {
+            geometryDataColumns = true;
+            return;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            createIndexes(statement);
+        }
+
+        geometryDataColumns = hasColumn(connection, "SATELLITE_OBSERVATION", "GeoBoundsData") && hasColumn(connection, "TIMEAXIS", "AxisData");
+        if (!geometryDataColumns) {
+            FiduceoLogger.getLogger().warning("Database has no binary geometry columns, geometries are converted from the GEOMETRY columns. " +
+                    "Run 'db-maintenance-tool -g' to convert the database.");
+        }
+    }
+
+    /**
+     * @return true if the database has the binary geometry columns GeoBoundsData and AxisData
+     */
+    boolean hasGeometryDataColumns() {
+        return geometryDataColumns;
     }
 
     @Override
     public void initialize() throws SQLException {
-        Statement statement = connection.createStatement();
-        statement.executeUpdate("CREATE TABLE SATELLITE_OBSERVATION (ID INT AUTO_INCREMENT PRIMARY KEY, " +
-                "StartDate TIMESTAMP," +
-                "StopDate TIMESTAMP," +
-                "NodeType TINYINT," +
-                "GeoBounds GEOMETRY, " +
-                "SensorId INT," +
-                "Version VARCHAR(16)," +
-                "DataFile VARCHAR(256))");
-
-        statement = connection.createStatement();
-        statement.executeUpdate("CREATE TABLE SENSOR (ID INT AUTO_INCREMENT PRIMARY KEY, " +
-                "Name VARCHAR(64))");
-
-        statement = connection.createStatement();
-        statement.executeUpdate("CREATE TABLE TIMEAXIS (ID INT AUTO_INCREMENT PRIMARY KEY, " +
-                "ObservationId INT," +
-                "Axis GEOMETRY," +
-                "StartTime TIMESTAMP, " +
-                "StopTime TIMESTAMP, " +
-                "FOREIGN KEY (ObservationId) REFERENCES SATELLITE_OBSERVATION(ID) ON DELETE CASCADE)");
+        try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE SATELLITE_OBSERVATION (ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "StartDate TIMESTAMP," +
+                    "StopDate TIMESTAMP," +
+                    "NodeType TINYINT," +
+                    "GeoBounds GEOMETRY, " +
+                    "SensorId INT," +
+                    "Version VARCHAR(16)," +
+                    "DataFile VARCHAR(256)," +
+                    "GeoBoundsData " + getBinaryType() + ")");
+
+            statement.executeUpdate("CREATE TABLE SENSOR (ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "Name VARCHAR(64))");
+
+            statement.executeUpdate("CREATE TABLE TIMEAXIS (ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "ObservationId INT," +
+                    "Axis GEOMETRY," +
+                    "StartTime TIMESTAMP, " +
+                    "StopTime TIMESTAMP, " +
+                    "AxisData " + getBinaryType() + ", " +
+                    "FOREIGN KEY (ObservationId) REFERENCES SATELLITE_OBSERVATION(ID) ON DELETE CASCADE)");
+
+            createIndexes(statement);
+        }
+    }
+
+    /**
+     * Creates the query indexes. Also run when opening existing databases, to add indexes introduced after the
+     * database was created. Databases without CREATE INDEX IF NOT EXISTS need to override this.
+     *
+     * @param statement the statement to execute on
+     * @throws SQLException on database errors
+     */
+    void createIndexes(Statement statement) throws SQLException {
+        statement.execute("CREATE INDEX IF NOT EXISTS SENSOR_TIME ON SATELLITE_OBSERVATION(SensorId, StartDate, StopDate)");
+
+        statement.execute("CREATE INDEX IF NOT EXISTS START_TIME ON SATELLITE_OBSERVATION(StartDate, ID)");
+    }
+
+    /**
+     * Adds the binary geometry columns to databases created by previous versions and fills them from the
+     * GEOMETRY columns. Rows already converted are skipped, the method can be run repeatedly.
+     *
+     * @return the number of converted geometries
+     * @throws SQLException on database errors
+     */
+    @Override
+    public int migrateGeometries() throws SQLException {
+        try (Connection connection = getConnection()) {
+            addColumnIfMissing(connection, "SATELLITE_OBSERVATION", "GeoBoundsData");
+            addColumnIfMissing(connection, "TIMEAXIS", "AxisData");
+            geometryDataColumns = true;
+
+            int numConverted = migrateGeometryColumn(connection, "SATELLITE_OBSERVATION", "GeoBounds", "GeoBoundsData");
+            numConverted += migrateGeometryColumn(connection, "TIMEAXIS", "Axis", "AxisData");
+            return numConverted;
+        }
     }
 
     @Override
     public void clear() throws SQLException {
-        Statement statement = connection.createStatement();
-        statement.execute("DROP TABLE IF EXISTS TIMEAXIS");
+        sensorIds.clear();
+        sensorNames.clear();
 
-        statement = connection.createStatement();
-        statement.execute("DROP TABLE IF EXISTS SATELLITE_OBSERVATION");
+        try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS TIMEAXIS");
 
-        connection.createStatement();
-        statement.execute("DROP TABLE IF EXISTS SENSOR");
+            statement.execute("DROP TABLE IF EXISTS SATELLITE_OBSERVATION");
+
+            statement.execute("DROP TABLE IF EXISTS SENSOR");
+        }
     }
 
     @Override
     public void close() throws SQLException {
-        connection.close();
+        if (dataSource != null) {
+            dataSource.close();
+            dataSource = null;
+        }
     }
 
     @Override
     public int insert(Sensor sensor) throws SQLException {
-        final PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO SENSOR VALUES(default, ?)", Statement.RETURN_GENERATED_KEYS);
-        preparedStatement.setString(1, sensor.getName());
-        preparedStatement.executeUpdate();
-
-        final ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
-        if (generatedKeys.next()) {
-            return generatedKeys.getInt(1);
+        try (Connection connection = getConnection()) {
+            return insert(connection, sensor);
         }
-        return -1;
     }
 
     @Override
@@ -116,118 +216,407 @@ abstract class AbstractDriver implements Driver {
         return observations.size() > 0;
     }
 
-    Sensor getSensor(int id) throws SQLException {
-        final Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_UPDATABLE);
-        final ResultSet resultSet = statement.executeQuery("SELECT * FROM SENSOR where ID = " + id);
-        if (resultSet.next()) {
-            final Sensor sensor = new Sensor();
-            sensor.setName(resultSet.getString("Name"));
-            return sensor;
-        } else {
-            throw new SQLException("No Sensor available for ID '" + id + "'");
+    /**
+     * Hook for database specific connection properties.
+     *
+     * @param pool the connection pool, not yet started
+     */
+    void configureConnectionPool(BasicDataSource pool) {
+    }
+
+    Connection getConnection() throws SQLException {
+        final BasicDataSource pool = dataSource;
+        if (pool == null) {
+            throw new SQLException("Database driver is not opened");
         }
+        return pool.getConnection();
+    }
+
+    /**
+     * Prepares a query on the connection. All queries are parametrized, so the SQL only differs with the shape of
+     * the query; the connection pool keeps the prepared statements per connection and shape.
+     *
+     * @param connection the connection
+     * @param sql        the SQL statement
+     * @return the prepared statement, scrollable and read only
+     * @throws SQLException on database errors
+     */
+    PreparedStatement getPreparedStatement(Connection connection, String sql) throws SQLException {
+        return connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
     }
 
-    Integer getSensorId(String sensorName) throws SQLException {
-        final Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_UPDATABLE);
-        final ResultSet resultSet = statement.executeQuery("SELECT ID FROM SENSOR WHERE NAME = '" + sensorName + "'");
+    Sensor getSensor(Connection connection, int id) throws SQLException {
+        String name = sensorNames.get(id);
+        if (name == null) {
+            try (PreparedStatement preparedStatement = getPreparedStatement(connection, "SELECT * FROM SENSOR WHERE ID = ?")) {
+                preparedStatement.setInt(1, id);
+                final ResultSet resultSet = preparedStatement.executeQuery();
+                if (!resultSet.next()) {
+                    throw new SQLException("No Sensor available for ID '" + id + "'");
+                }
+                name = resultSet.getString("Name");
+            }
+            sensorNames.put(id, name);
+        }
 
-        if (resultSet.first()) {
-            return resultSet.getInt("ID");
-        } else {
+        final Sensor sensor = new Sensor();
+        sensor.setName(name);
+        return sensor;
+    }
+
+    Integer getSensorId(Connection connection, String sensorName) throws SQLException {
+        final Integer sensorId = sensorIds.get(sensorName);
+        if (sensorId != null) {
+            return sensorId;
+        }
+
+        try (PreparedStatement preparedStatement = getPreparedStatement(connection, "SELECT ID FROM SENSOR WHERE NAME = ?")) {
+            preparedStatement.setString(1, sensorName);
+            final ResultSet resultSet = preparedStatement.executeQuery();
+
+            if (resultSet.first()) {
+                final int id = resultSet.getInt("ID");
+                sensorIds.put(sensorName, id);
+                return id;
+            } else {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Returns the ID of the sensor, the sensor is inserted when not yet registered. Concurrent inserts of
+     * observations of a new sensor must not register the sensor twice, lookup and insert are synchronized.
+     *
+     * @param connection the connection, in auto commit mode
+     * @param sensor     the sensor
+     * @return the sensor ID
+     * @throws SQLException on database errors
+     */
+    int getOrInsertSensorId(Connection connection, Sensor sensor) throws SQLException {
+        final Integer sensorId = sensorIds.get(sensor.getName());
+        if (sensorId != null) {
+            return sensorId;
+        }
+
+        synchronized (sensorIds) {
+            Integer id = getSensorId(connection, sensor.getName());
+            if (id == null) {
+                id = insert(connection, sensor);
+                sensorIds.put(sensor.getName(), id);
+            }
+            return id;
+        }
+    }
+
+    int insert(Connection connection, Sensor sensor) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO SENSOR VALUES(default, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            preparedStatement.setString(1, sensor.getName());
+            preparedStatement.executeUpdate();
+
+            final ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
+            if (generatedKeys.next()) {
+                return generatedKeys.getInt(1);
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Runs the statements of an insert in a single transaction, so that concurrent queries never see an
+     * observation without its time axes.
+     *
+     * @param connection the connection
+     * @param insert     the statements to run
+     * @throws SQLException on database errors, the transaction is rolled back
+     */
+    static void runInTransaction(Connection connection, SqlOperation insert) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            insert.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    String getBinaryType() {
+        return "BLOB";
+    }
+
+    /**
+     * Reads a geometry from a database specific GEOMETRY column. The default implementation expects the column
+     * to deliver storage format or WKT bytes, drivers with own geometry types override it.
+     *
+     * @param resultSet  the result set
+     * @param columnName the column name
+     * @return the geometry or null if the column is empty
+     * @throws SQLException on database errors
+     */
+    Geometry readGeometry(ResultSet resultSet, String columnName) throws SQLException {
+        final byte[] geometryBytes = resultSet.getBytes(columnName);
+        if (geometryBytes == null) {
             return null;
         }
+        return geometryFactory.fromStorageFormat(geometryBytes);
+    }
+
+    Geometry getGeometry(ResultSet resultSet, String dataColumnName, String geometryColumnName) throws SQLException {
+        if (!geometryDataColumns) {
+            return readGeometry(resultSet, geometryColumnName);
+        }
+
+        final byte[] geometryData = resultSet.getBytes(dataColumnName);
+        if (geometryData != null) {
+            return geometryFactory.fromStorageFormat(geometryData);
+        }
+        // not yet migrated, fall back to the slow text based conversion
+        return readGeometry(resultSet, geometryColumnName);
+    }
+
+    void setGeometryData(PreparedStatement preparedStatement, int index, Geometry geometry) throws SQLException {
+        if (geometry != null) {
+            preparedStatement.setBytes(index, geometryFactory.toStorageFormat(geometry));
+        } else {
+            preparedStatement.setNull(index, Types.BINARY);
+        }
+    }
+
+    /**
+     * Checks the geometry constraint of a query against a database without spatial index for the stored
+     * geometries. Such drivers filter the query result, which would shorten or empty pages before the end of
+     * the data, so paged queries with a geometry are rejected.
+     *
+     * @param parameter the query parameter, may be null
+     */
+    static void checkGeometryConstraint(QueryParameter parameter) {
+        if (parameter != null && parameter.getGeometry() != null && isPaged(parameter)) {
+            throw new IllegalArgumentException("Geometry constraints are not supported for paged queries on this storage");
+        }
+    }
+
+    /**
+     * Removes the observations not intersecting the geometry of the query.
+     *
+     * @param observations the observations read
+     * @param parameter    the query parameter, may be null
+     * @return the observations intersecting the query geometry, all observations when the query has no geometry
+     */
+    static List<SatelliteObservation> filterByGeometry(List<SatelliteObservation> observations, QueryParameter parameter) {
+        if (parameter == null || parameter.getGeometry() == null) {
+            return observations;
+        }
+
+        final Geometry geometry = parameter.getGeometry();
+        final List<SatelliteObservation> resultList = new ArrayList<>(observations.size());
+        for (final SatelliteObservation observation : observations) {
+            final Geometry geoBounds = observation.getGeoBounds();
+            if (geoBounds != null && intersects(geometry, geoBounds)) {
+                resultList.add(observation);
+            }
+        }
+        return resultList;
+    }
+
+    // package access for testing only
+    static boolean intersects(Geometry geometry, Geometry geoBounds) {
+        if (geoBounds instanceof GeometryCollection) {
+            for (final Geometry part : ((GeometryCollection) geoBounds).getGeometries()) {
+                if (intersects(geometry, part)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // points only intersect other points, let the bounds do the point in polygon test
+        final Geometry intersection = geometry instanceof Point ? geoBounds.getIntersection(geometry) : geometry.getIntersection(geoBounds);
+        return intersection != null && !intersection.isEmpty();
     }
 
     // package access for testing only tb 2016-11-29
-    static String createSql(QueryParameter parameter) {
+    static String createSql(QueryParameter parameter, List<Object> values) {
         final StringBuilder sql = new StringBuilder();
-        sql.append("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId");
-
-        boolean hasWhereClause = hasWhereClause(parameter);
-        if (!hasWhereClause) {
-            appendLimitAndOffset(parameter, sql);
+        if (!isPaged(parameter)) {
+            sql.append("SELECT * FROM SATELLITE_OBSERVATION obs");
+            sql.append(OBSERVATION_JOINS);
+            if (hasWhereClause(parameter)) {
+                appendWhereClause(parameter, sql, values);
+            }
             return sql.toString();
         }
 
-        appendWhereClause(parameter, sql);
-
-        appendLimitAndOffset(parameter, sql);
+        // pages are cut on the observations, not on the rows of the time axis join
+        sql.append("SELECT * FROM (SELECT * FROM SATELLITE_OBSERVATION obs");
+        appendWhereClause(parameter, sql, values);
+        sql.append(" ORDER BY obs.StartDate, obs.ID");
+        appendLimitAndOffset(parameter, sql, values);
+        sql.append(") obs");
+        sql.append(OBSERVATION_JOINS);
+        sql.append(" ORDER BY obs.StartDate, obs.ID, axis.ID");
         return sql.toString();
     }
 
-    static void appendWhereClause(QueryParameter parameter, StringBuilder sql) {
-        sql.append(" WHERE ");
-
-        boolean appendAnd = false;
+    /**
+     * Appends the WHERE clause for the query parameter to the SQL statement. All values are appended as
+     * placeholders, the values are added to the list in placeholder order. Nothing is appended when the
+     * parameter does not restrict the query.
+     *
+     * @param parameter the query parameter
+     * @param sql       the SQL statement
+     * @param values    the list receiving the values to be bound
+     */
+    static void appendWhereClause(QueryParameter parameter, StringBuilder sql, List<Object> values) {
+        final List<String> conditions = new ArrayList<>();
 
         final java.util.Date startTime = parameter.getStartTime();
         if (startTime != null) {
-            sql.append("obs.stopDate >= '");
-            sql.append(TimeUtils.format(startTime, DATE_PATTERN));
-            sql.append("'");
-
-            appendAnd = true;
+            conditions.add("obs.StopDate >= ?");
+            values.add(TimeUtils.toTimestamp(startTime));
         }
 
         final java.util.Date stopTime = parameter.getStopTime();
         if (stopTime != null) {
-            if (appendAnd) {
-                sql.append(" AND ");
-            }
-            sql.append("obs.startDate <= '");
-            sql.append(TimeUtils.format(stopTime, DATE_PATTERN));
-            sql.append("'");
-            appendAnd = true;
+            conditions.add("obs.StartDate <= ?");
+            values.add(TimeUtils.toTimestamp(stopTime));
         }
 
         final String sensorName = parameter.getSensorName();
         if (StringUtils.isNotNullAndNotEmpty(sensorName)) {
-            if (appendAnd) {
-                sql.append(" AND ");
-            }
-
-            sql.append("sen.Name = '");
-            sql.append(sensorName);
-            sql.append("'");
-            appendAnd = true;
+            // the sensor is resolved by a sub-select, so that the (SensorId, StartDate, StopDate) index applies
+            conditions.add("obs.SensorId = (SELECT ID FROM SENSOR WHERE Name = ?)");
+            values.add(sensorName);
         }
 
         final String path = parameter.getPath();
         if (StringUtils.isNotNullAndNotEmpty(path)) {
-            if (appendAnd) {
-                sql.append(" AND ");
-            }
-
-            sql.append("obs.DataFile = '");
-            sql.append(path);
-            sql.append("'");
-            appendAnd = true;
+            conditions.add("obs.DataFile = ?");
+            values.add(path);
         }
 
         final String version = parameter.getVersion();
         if (StringUtils.isNotNullAndNotEmpty(version)) {
-            if (appendAnd) {
-                sql.append(" AND ");
-            }
+            conditions.add("obs.Version = ?");
+            values.add(version);
+        }
+
+        final java.util.Date pageStartTime = parameter.getPageStartTime();
+        if (parameter.isKeysetPaging() && pageStartTime != null) {
+            // (StartDate, ID) > (pageStart, pageId), written to keep the StartDate range usable by the indices
+            conditions.add("obs.StartDate >= ? AND (obs.StartDate > ? OR obs.ID > ?)");
+            final Timestamp pageStartTimestamp = TimeUtils.toTimestamp(pageStartTime);
+            values.add(pageStartTimestamp);
+            values.add(pageStartTimestamp);
+            values.add(parameter.getPageStartId());
+        }
 
-            sql.append("obs.Version = '");
-            sql.append(version);
-            sql.append("'");
+        if (conditions.isEmpty()) {
+            return;
         }
+
+        sql.append(" WHERE ");
+        sql.append(String.join(" AND ", conditions));
     }
 
     // package access for testing only tb 2019-04-01
-    static void appendLimitAndOffset(QueryParameter parameter, StringBuilder sql) {
+    static void appendLimitAndOffset(QueryParameter parameter, StringBuilder sql, List<Object> values) {
         if (parameter != null) {
             if (parameter.getPageSize() >= 0) {
-                sql.append(" LIMIT ");
-                sql.append(parameter.getPageSize());
+                sql.append(" LIMIT ?");
+                values.add(parameter.getPageSize());
             }
             if (parameter.getOffset() >= 0) {
-                sql.append(" OFFSET ");
-                sql.append(parameter.getOffset());
+                sql.append(" OFFSET ?");
+                values.add(parameter.getOffset());
+            }
+        }
+    }
+
+    static void setValues(PreparedStatement preparedStatement, List<Object> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            preparedStatement.setObject(i + 1, values.get(i));
+        }
+    }
+
+    /**
+     * Stores the key of the last observation of a page in the query parameter, when the query is paged by key.
+     *
+     * @param parameter     the query parameter, may be null
+     * @param startTime     the start time of the last observation
+     * @param observationId the database ID of the last observation
+     */
+    static void updatePageStart(QueryParameter parameter, Timestamp startTime, int observationId) {
+        if (parameter != null && parameter.isKeysetPaging()) {
+            parameter.setPageStart(TimeUtils.toDate(startTime), observationId);
+        }
+    }
+
+    private void addColumnIfMissing(Connection connection, String tableName, String columnName) throws SQLException {
+        if (hasColumn(connection, tableName, columnName)) {
+            return;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE " + tableName + " ADD COLUMN " + columnName + " " + getBinaryType());
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String tableName, String columnName) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM " + tableName + " WHERE 1 = 0")) {
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                if (columnName.equalsIgnoreCase(metaData.getColumnName(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // the case of unquoted identifiers differs between databases, H2 stores upper case, PostgreSQL lower case
+    private static boolean tableExists(Connection connection, String tableName) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        for (final String name : new String[]{tableName.toUpperCase(), tableName.toLowerCase()}) {
+            try (ResultSet tables = metaData.getTables(null, null, name, null)) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int migrateGeometryColumn(Connection connection, String tableName, String geometryColumnName, String dataColumnName) throws SQLException {
+        try (PreparedStatement selectStatement = connection.prepareStatement("SELECT ID, " + geometryColumnName + " FROM " + tableName +
+                " WHERE " + dataColumnName + " IS NULL AND " + geometryColumnName + " IS NOT NULL AND ID > ? ORDER BY ID LIMIT " + MIGRATION_BATCH_SIZE);
+             PreparedStatement updateStatement = connection.prepareStatement("UPDATE " + tableName + " SET " + dataColumnName + " = ? WHERE ID = ?")) {
+
+            int numConverted = 0;
+            int lastId = -1;
+            while (true) {
+                selectStatement.setInt(1, lastId);
+                int numRows = 0;
+                try (ResultSet resultSet = selectStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        lastId = resultSet.getInt(1);
+                        setGeometryData(updateStatement, 1, readGeometry(resultSet, geometryColumnName));
+                        updateStatement.setInt(2, lastId);
+                        updateStatement.addBatch();
+                        ++numRows;
+                    }
+                }
+
+                if (numRows == 0) {
+                    break;
+                }
+                updateStatement.executeBatch();
+                numConverted += numRows;
             }
+            return numConverted;
         }
     }
 
@@ -247,4 +636,29 @@ abstract class AbstractDriver implements Driver {
         }
         return hasWhereClause;
     }
+
+    // package access for testing only
+    // the configured data source only holds the settings, storages may be created and closed repeatedly from it
+    static BasicDataSource createConnectionPool(BasicDataSource config) {
+        final BasicDataSource pool = new BasicDataSource();
+        pool.setDriverClassName(config.getDriverClassName());
+        pool.setUrl(config.getUrl());
+        pool.setUsername(config.getUsername());
+        pool.setPassword(config.getPassword());
+        pool.setMaxTotal(config.getMaxTotal());
+        pool.setMaxIdle(config.getMaxIdle());
+        pool.setMinIdle(config.getMinIdle());
+        pool.setMaxWaitMillis(config.getMaxWaitMillis());
+        pool.setPoolPreparedStatements(true);
+        pool.setMaxOpenPreparedStatements(MAX_OPEN_PREPARED_STATEMENTS);
+        return pool;
+    }
+
+    private static boolean isPaged(QueryParameter parameter) {
+        return parameter != null && (parameter.getPageSize() >= 0 || parameter.getOffset() >= 0);
+    }
+
+    interface SqlOperation {
+        void run() throws SQLException;
+    }
 }
@@ -8,6 +8,7 @@ import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
+import org.apache.commons.dbcp2.BasicDataSource;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -25,6 +26,7 @@ class DbMaintenanceTool {
     private static final int PAGE_SIZE = 512;
     private final Logger logger;
     private Storage storage;
+    private GeometryFactory geometryFactory;
 
     DbMaintenanceTool() {
         this.logger = FiduceoLogger.getLogger();
@@ -46,6 +48,12 @@ class DbMaintenanceTool {
         final Option replaceOption = new Option("r", "replace", true, "Observation path segment replacement.");
         options.addOption(replaceOption);
 
+        final Option geometriesOption = new Option("g", "geometries", false, "Converts the stored geometries to the binary storage format.");
+        options.addOption(geometriesOption);
+
+        final Option exportOption = new Option("e", "export", true, "Exports all observations to a local index file.");
+        options.addOption(exportOption);
+
         return options;
     }
 
@@ -68,14 +76,24 @@ class DbMaintenanceTool {
 
         initialize(commandLine);
 
+        if (commandLine.hasOption("geometries")) {
+            migrateGeometries();
+            return;
+        }
+
+        if (commandLine.hasOption("export")) {
+            exportObservations(commandLine.getOptionValue("export"));
+            return;
+        }
+
         final String oldPathSegment = commandLine.getOptionValue("path");
         final String newPathSegment = commandLine.getOptionValue("replace");
 
         logger.info("Replacing paths  old: " + oldPathSegment +  "  new: " + newPathSegment);
 
         try {
+            // paged by key, each call continues after the last observation of the previous page
             final QueryParameter queryParameter = new QueryParameter();
-            queryParameter.setOffset(0);
             queryParameter.setPageSize(PAGE_SIZE);
 
             int total_count = 0;
@@ -87,8 +105,6 @@ class DbMaintenanceTool {
                 total_count += satelliteObservations.size();
                 logger.info("processed " + total_count + " datasets");
 
-                final int newOffset = queryParameter.getOffset() + PAGE_SIZE;
-                queryParameter.setOffset(newOffset);
                 satelliteObservations = storage.get(queryParameter);
             }
         } finally {
@@ -96,6 +112,53 @@ class DbMaintenanceTool {
         }
     }
 
+    private void migrateGeometries() throws SQLException {
+        logger.info("Converting geometries to binary storage format");
+
+        try {
+            final long startTime = System.currentTimeMillis();
+            final int numConverted = storage.migrateGeometries();
+            logger.info("converted " + numConverted + " geometries in " + (System.currentTimeMillis() - startTime) + " ms");
+        } finally {
+            cleanup();
+        }
+    }
+
+    private void exportObservations(String indexFilePath) throws SQLException {
+        logger.info("Exporting observations to local index file: " + indexFilePath);
+
+        Storage indexStorage = null;
+        try {
+            final BasicDataSource indexDataSource = new BasicDataSource();
+            indexDataSource.setUrl("localindex:" + indexFilePath);
+            indexStorage = Storage.create(indexDataSource, geometryFactory);
+            // an export always replaces an existing index file
+            indexStorage.clear();
+
+            final QueryParameter queryParameter = new QueryParameter();
+            queryParameter.setPageSize(PAGE_SIZE);
+
+            int total_count = 0;
+
+            List<SatelliteObservation> satelliteObservations = storage.get(queryParameter);
+            while (satelliteObservations.size() > 0) {
+                for (final SatelliteObservation observation : satelliteObservations) {
+                    indexStorage.insert(observation);
+                }
+
+                total_count += satelliteObservations.size();
+                logger.info("exported " + total_count + " datasets");
+
+                satelliteObservations = storage.get(queryParameter);
+            }
+        } finally {
+            if (indexStorage != null) {
+                indexStorage.close();
+            }
+            cleanup();
+        }
+    }
+
     private void updatePaths(String oldPathSegment, String newPathSegment, List<SatelliteObservation> satelliteObservations) throws SQLException {
         for (final SatelliteObservation observation : satelliteObservations) {
             final String oldPath = observation.getDataFilePath().toString();
@@ -120,7 +183,7 @@ class DbMaintenanceTool {
         databaseConfig.loadFrom(confDirPath.toFile());
 
         final SystemConfig systemConfig = SystemConfig.loadFrom(confDirPath.toFile());
-        final GeometryFactory geometryFactory = new GeometryFactory(systemConfig.getGeometryLibraryType());
+        geometryFactory = new GeometryFactory(systemConfig.getGeometryLibraryType());
 
         storage = Storage.create(databaseConfig.getDataSource(), geometryFactory);
         if (!storage.isInitialized()) {
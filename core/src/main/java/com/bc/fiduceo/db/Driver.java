@@ -63,4 +63,12 @@ public interface Driver {
     int insert(Sensor sensor) throws SQLException;
 
     boolean isAlreadyRegistered(QueryParameter queryParameter) throws SQLException;
+
+    /**
+     * Converts the geometries of a database created by a previous version to the binary storage format.
+     *
+     * @return the number of converted geometries
+     * @throws SQLException on database errors
+     */
+    int migrateGeometries() throws SQLException;
 }
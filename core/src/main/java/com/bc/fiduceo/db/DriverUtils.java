@@ -43,10 +43,27 @@ class DriverUtils {
 
         for (Driver driver : driverSet) {
             final String driverPattern = driver.getUrlPattern().toLowerCase();
-            if (driverUrl.contains(driverPattern)) {
+            // match the url scheme only, a local index file path may contain the pattern of another driver
+            if (driverUrl.startsWith(driverPattern)) {
                 return driver;
             }
         }
         throw new IllegalArgumentException("No database driver with the name: " + driverUrl);
     }
+
+    /**
+     * Creates a new driver instance for the url. The registered drivers are shared, each storage needs its own
+     * instance to hold its connections.
+     *
+     * @param driverUrl the database url
+     * @return a new driver
+     */
+    Driver createDriver(String driverUrl) {
+        final Driver driver = getDriver(driverUrl);
+        try {
+            return driver.getClass().newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException("Unable to create database driver: " + e.getMessage(), e);
+        }
+    }
 }
@@ -23,7 +23,6 @@ package com.bc.fiduceo.db;
 import com.bc.fiduceo.core.NodeType;
 import com.bc.fiduceo.core.SatelliteObservation;
 import com.bc.fiduceo.core.Sensor;
-import com.bc.fiduceo.geometry.GeometryFactory;
 import com.bc.fiduceo.geometry.LineString;
 import com.bc.fiduceo.geometry.TimeAxis;
 import com.bc.fiduceo.util.TimeUtils;
@@ -38,76 +37,24 @@ import java.util.List;
 
 public class H2Driver extends AbstractDriver {
 
-    private GeometryFactory geometryFactory;
-    private WKTWriter wktWriter;
-
     @Override
     public String getUrlPattern() {
         return "jdbc:h2";
     }
 
-    @Override
-    public void setGeometryFactory(GeometryFactory geometryFactory) {
-        this.geometryFactory = geometryFactory;
-        wktWriter = new WKTWriter();
-    }
-
     @Override
     public boolean isInitialized() throws SQLException {
-        final ResultSet tables = connection.getMetaData().getTables(null, null, "SATELLITE_OBSERVATION", null);
-        return tables.next();
+        try (Connection connection = getConnection()) {
+            final ResultSet tables = connection.getMetaData().getTables(null, null, "SATELLITE_OBSERVATION", null);
+            return tables.next();
+        }
     }
 
     @Override
     public void insert(SatelliteObservation observation) throws SQLException {
-        final Sensor sensor = observation.getSensor();
-        Integer sensorId = getSensorId(sensor.getName());
-        if (sensorId == null) {
-            sensorId = insert(sensor);
-        }
-
-        PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO SATELLITE_OBSERVATION VALUES(default, ?, ?, ?, ?, ?, ?, ?)");
-        preparedStatement.setTimestamp(1, TimeUtils.toTimestamp(observation.getStartTime()));
-        preparedStatement.setTimestamp(2, TimeUtils.toTimestamp(observation.getStopTime()));
-        preparedStatement.setByte(3, (byte) observation.getNodeType().toId());
-        final com.bc.fiduceo.geometry.Geometry geoBounds = observation.getGeoBounds();
-        if (geoBounds != null) {
-            final String wkt = geometryFactory.format(geoBounds);
-            preparedStatement.setString(4, wkt);
-        } else {
-            preparedStatement.setNull(4, Types.VARCHAR);
-        }
-        preparedStatement.setInt(5, sensorId);
-        preparedStatement.setString(6, observation.getVersion());
-        preparedStatement.setString(7, observation.getDataFilePath().toString());
-        preparedStatement.executeUpdate();
-
-        final ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
-        final int observationId;
-        if (generatedKeys.next()) {
-            observationId = generatedKeys.getInt(1);
-        } else {
-            throw new SQLException("Internal driver error: no ID generated for SATELLITE_OBSERVATION");
-        }
-
-        final TimeAxis[] timeAxes = observation.getTimeAxes();
-        if (timeAxes != null) {
-            for (final TimeAxis timeAxis : timeAxes) {
-                preparedStatement = connection.prepareStatement("INSERT INTO TIMEAXIS VALUES(default, ?, ?, ?, ?)");
-                preparedStatement.setInt(1, observationId);
-                final String wkt = geometryFactory.format(timeAxis.getGeometry());
-                preparedStatement.setString(2, wkt);
-                preparedStatement.setTimestamp(3, TimeUtils.toTimestamp(timeAxis.getStartTime()));
-                preparedStatement.setTimestamp(4, TimeUtils.toTimestamp(timeAxis.getEndTime()));
-                preparedStatement.executeUpdate();
-            }
-        } else {
-            preparedStatement = connection.prepareStatement("INSERT INTO TIMEAXIS VALUES(default, ?, ?, ?, ?)");
-            preparedStatement.setInt(1, observationId);
-            preparedStatement.setNull(2, Types.VARCHAR);
-            preparedStatement.setTimestamp(3, TimeUtils.toTimestamp(observation.getStartTime()));
-            preparedStatement.setTimestamp(4, TimeUtils.toTimestamp(observation.getStopTime()));
-            preparedStatement.executeUpdate();
+        try (Connection connection = getConnection()) {
+            final int sensorId = getOrInsertSensorId(connection, observation.getSensor());
+            runInTransaction(connection, () -> insert(connection, observation, sensorId));
         }
     }
 
@@ -119,19 +66,24 @@ public class H2Driver extends AbstractDriver {
         queryParameter.setVersion(satelliteObservation.getVersion());
         queryParameter.setPath(satelliteObservation.getDataFilePath().toString());
 
-        final Integer sensorId = getSensorId(satelliteObservation.getSensor().getName());
+        try (Connection connection = getConnection()) {
+            final Integer sensorId = getSensorId(connection, satelliteObservation.getSensor().getName());
+
+            final List<Object> values = new ArrayList<>();
+            values.add(newPath);
 
-        final StringBuilder sql = new StringBuilder();
-        sql.append("UPDATE SATELLITE_OBSERVATION AS obs SET DataFile = '");
-        sql.append(newPath);
-        sql.append("' ");
+            final StringBuilder sql = new StringBuilder();
+            sql.append("UPDATE SATELLITE_OBSERVATION AS obs SET DataFile = ?");
 
-        appendWhereClause(queryParameter, sql);
-        sql.append(" AND obs.SensorId = ");
-        sql.append(sensorId);
+            appendWhereClause(queryParameter, sql, values);
+            sql.append(" AND obs.SensorId = ?");
+            values.add(sensorId);
 
-        final PreparedStatement preparedStatement = connection.prepareStatement(sql.toString());
-        preparedStatement.executeUpdate();
+            try (PreparedStatement preparedStatement = getPreparedStatement(connection, sql.toString())) {
+                setValues(preparedStatement, values);
+                preparedStatement.executeUpdate();
+            }
+        }
     }
 
     @Override
@@ -141,17 +93,24 @@ public class H2Driver extends AbstractDriver {
 
     @Override
     public List<SatelliteObservation> get(QueryParameter parameter) throws SQLException {
+        checkGeometryConstraint(parameter);
+        try (Connection connection = getConnection()) {
+            final List<Object> values = new ArrayList<>();
+            try (PreparedStatement preparedStatement = getPreparedStatement(connection, createSql(parameter, values))) {
+                setValues(preparedStatement, values);
+                return filterByGeometry(readObservations(connection, preparedStatement.executeQuery(), parameter), parameter);
+            }
+        }
+    }
 
-        //org.h2.tools.Server.startWebServer(connection);
-
-        final Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_UPDATABLE);
-        final String sql = createSql(parameter);
-        final ResultSet resultSet = statement.executeQuery(sql);
+    private List<SatelliteObservation> readObservations(Connection connection, ResultSet resultSet, QueryParameter parameter) throws SQLException {
         resultSet.last();
         final int numValues = resultSet.getRow();
         resultSet.beforeFirst();
 
         final List<SatelliteObservation> resultList = new ArrayList<>(numValues);
+        Timestamp lastStartDate = null;
+        int lastObservationId = -1;
         while (resultSet.next()) {
             final SatelliteObservation observation = new SatelliteObservation();
 
@@ -166,15 +125,13 @@ public class H2Driver extends AbstractDriver {
             final int nodeTypeId = resultSet.getInt("NodeType");
             observation.setNodeType(NodeType.fromId(nodeTypeId));
 
-            final Geometry geoBounds = (Geometry) resultSet.getObject("GeoBounds");
+            final com.bc.fiduceo.geometry.Geometry geoBounds = getGeometry(resultSet, "GeoBoundsData", "GeoBounds");
             if (geoBounds != null) {
-                final String geoBoundsWkt = wktWriter.write(geoBounds);
-                final com.bc.fiduceo.geometry.Geometry geometry = geometryFactory.fromStorageFormat(geoBoundsWkt.getBytes());
-                observation.setGeoBounds(geometry);
+                observation.setGeoBounds(geoBounds);
             }
 
             final int sensorId = resultSet.getInt("SensorId");
-            final Sensor sensor = getSensor(sensorId);
+            final Sensor sensor = getSensor(connection, sensorId);
             observation.setSensor(sensor);
 
             final String version = resultSet.getString("Version");
@@ -199,20 +156,97 @@ public class H2Driver extends AbstractDriver {
             observation.setTimeAxes(timeAxesList.toArray(new TimeAxis[timeAxesList.size()]));
 
             resultList.add(observation);
+
+            lastStartDate = startDate;
+            lastObservationId = observationId;
         }
 
-        //org.h2.tools.Server.startWebServer(connection);
+        if (lastStartDate != null) {
+            updatePageStart(parameter, lastStartDate, lastObservationId);
+        }
 
         return resultList;
     }
 
+    private void insert(Connection connection, SatelliteObservation observation, int sensorId) throws SQLException {
+        final int observationId;
+        final boolean withGeometryData = hasGeometryDataColumns();
+        final String observationSql = withGeometryData ?
+                "INSERT INTO SATELLITE_OBSERVATION (StartDate, StopDate, NodeType, GeoBounds, SensorId, Version, DataFile, GeoBoundsData) VALUES(?, ?, ?, ?, ?, ?, ?, ?)" :
+                "INSERT INTO SATELLITE_OBSERVATION (StartDate, StopDate, NodeType, GeoBounds, SensorId, Version, DataFile) VALUES(?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(observationSql)) {
+            preparedStatement.setTimestamp(1, TimeUtils.toTimestamp(observation.getStartTime()));
+            preparedStatement.setTimestamp(2, TimeUtils.toTimestamp(observation.getStopTime()));
+            preparedStatement.setByte(3, (byte) observation.getNodeType().toId());
+            final com.bc.fiduceo.geometry.Geometry geoBounds = observation.getGeoBounds();
+            if (geoBounds != null) {
+                final String wkt = geometryFactory.format(geoBounds);
+                preparedStatement.setString(4, wkt);
+            } else {
+                preparedStatement.setNull(4, Types.VARCHAR);
+            }
+            preparedStatement.setInt(5, sensorId);
+            preparedStatement.setString(6, observation.getVersion());
+            preparedStatement.setString(7, observation.getDataFilePath().toString());
+            if (withGeometryData) {
+                setGeometryData(preparedStatement, 8, geoBounds);
+            }
+            preparedStatement.executeUpdate();
+
+            final ResultSet generatedKeys = preparedStatement.getGeneratedKeys();
+            if (generatedKeys.next()) {
+                observationId = generatedKeys.getInt(1);
+            } else {
+                throw new SQLException("Internal driver error: no ID generated for SATELLITE_OBSERVATION");
+            }
+        }
+
+        final String axisSql = withGeometryData ?
+                "INSERT INTO TIMEAXIS (ObservationId, Axis, StartTime, StopTime, AxisData) VALUES(?, ?, ?, ?, ?)" :
+                "INSERT INTO TIMEAXIS (ObservationId, Axis, StartTime, StopTime) VALUES(?, ?, ?, ?)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(axisSql)) {
+            final TimeAxis[] timeAxes = observation.getTimeAxes();
+            if (timeAxes != null) {
+                for (final TimeAxis timeAxis : timeAxes) {
+                    preparedStatement.setInt(1, observationId);
+                    final LineString axisGeometry = timeAxis.getGeometry();
+                    final String wkt = geometryFactory.format(axisGeometry);
+                    preparedStatement.setString(2, wkt);
+                    preparedStatement.setTimestamp(3, TimeUtils.toTimestamp(timeAxis.getStartTime()));
+                    preparedStatement.setTimestamp(4, TimeUtils.toTimestamp(timeAxis.getEndTime()));
+                    if (withGeometryData) {
+                        setGeometryData(preparedStatement, 5, axisGeometry);
+                    }
+                    preparedStatement.executeUpdate();
+                }
+            } else {
+                preparedStatement.setInt(1, observationId);
+                preparedStatement.setNull(2, Types.VARCHAR);
+                preparedStatement.setTimestamp(3, TimeUtils.toTimestamp(observation.getStartTime()));
+                preparedStatement.setTimestamp(4, TimeUtils.toTimestamp(observation.getStopTime()));
+                if (withGeometryData) {
+                    preparedStatement.setNull(5, Types.BINARY);
+                }
+                preparedStatement.executeUpdate();
+            }
+        }
+    }
+
+    @Override
+    com.bc.fiduceo.geometry.Geometry readGeometry(ResultSet resultSet, String columnName) throws SQLException {
+        final Geometry geometry = (Geometry) resultSet.getObject(columnName);
+        if (geometry == null) {
+            return null;
+        }
+        final String wkt = new WKTWriter().write(geometry);
+        return geometryFactory.fromStorageFormat(wkt.getBytes());
+    }
+
     private TimeAxis getTimeAxis(ResultSet resultSet) throws SQLException {
-        final Geometry axis = (Geometry) resultSet.getObject("Axis");
-        if (axis == null) {
+        final LineString axisGeometry = (LineString) getGeometry(resultSet, "AxisData", "Axis");
+        if (axisGeometry == null) {
             return null;
         }
-        final String axisWkt = wktWriter.write(axis);
-        final LineString axisGeometry = (LineString) geometryFactory.fromStorageFormat(axisWkt.getBytes());
 
         final Timestamp startTime = resultSet.getTimestamp("StartTime");
         final Date axisStartTime = TimeUtils.toDate(startTime);
@@ -0,0 +1,599 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.db;
+
+import com.bc.fiduceo.core.NodeType;
+import com.bc.fiduceo.core.SatelliteObservation;
+import com.bc.fiduceo.core.Sensor;
+import com.bc.fiduceo.geometry.Geometry;
+import com.bc.fiduceo.geometry.GeometryCollection;
+import com.bc.fiduceo.geometry.LineString;
+import com.bc.fiduceo.geometry.TimeAxis;
+import com.google.common.geometry.S2CellId;
+import com.google.common.geometry.S2CellUnion;
+import com.google.common.geometry.S2LatLng;
+import com.google.common.geometry.S2Region;
+import com.google.common.geometry.S2RegionCoverer;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.esa.snap.core.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Storage driver for a local observation index file. The file is memory mapped and queried in-process, batch
+ * processing on compute nodes thus needs no database server. The url has the form "localindex:/path/to/file",
+ * an index file is exported from any other storage with the db-maintenance-tool.
+ * <p>
+ * Inserted observations are kept in memory and written when the driver is closed, the file is always rewritten
+ * completely. The driver is meant for read mostly usage, ingestion should go to one of the database drivers.
+ * Concurrent calls are serialized on the driver instance.
+ * <p>
+ * Record layout (big endian): number of covering cell ranges and the ranges as pairs of cell ids, node type id,
+ * version, data file path, binary geo bounds, number of time axes and per axis start, end and binary geometry.
+ * Strings and geometries are prefixed with their byte length, -1 marks a null value.
+ */
+public class LocalIndexDriver extends AbstractDriver {
+
+    private static final int COVERING_MAX_CELLS = 8;
+
+    private static final Comparator<IndexEntry> ENTRY_ORDER = Comparator.<IndexEntry, String>comparing(entry -> entry.sensorName)
+            .thenComparingLong(entry -> entry.startTime);
+
+    private Path indexPath;
+    private LocalIndexFile indexFile;
+    private List<IndexEntry> pendingEntries;
+    private boolean dirty;
+
+    @Override
+    public String getUrlPattern() {
+        return "localindex";
+    }
+
+    @Override
+    public synchronized void open(BasicDataSource dataSource) throws SQLException {
+        final String url = dataSource.getUrl();
+        indexPath = Paths.get(url.substring(url.indexOf(':') + 1));
+        pendingEntries = new ArrayList<>();
+        dirty = false;
+
+        if (Files.isRegularFile(indexPath)) {
+            try {
+                indexFile = new LocalIndexFile(indexPath);
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean isInitialized() {
+        return indexFile != null || dirty || Files.isRegularFile(indexPath);
+    }
+
+    @Override
+    public synchronized void initialize() throws SQLException {
+        if (Files.isRegularFile(indexPath)) {
+            return;
+        }
+
+        try {
+            new LocalIndexWriter(indexPath).close();
+            indexFile = new LocalIndexFile(indexPath);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void clear() throws SQLException {
+        pendingEntries.clear();
+        dirty = false;
+
+        try {
+            closeIndexFile();
+            Files.deleteIfExists(indexPath);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        try {
+            flush();
+            closeIndexFile();
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        } finally {
+            pendingEntries = null;
+            indexPath = null;
+        }
+    }
+
+    @Override
+    public synchronized void insert(SatelliteObservation satelliteObservation) throws SQLException {
+        try {
+            pendingEntries.add(createEntry(satelliteObservation));
+            dirty = true;
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void updatePath(SatelliteObservation satelliteObservation, String newPath) throws SQLException {
+        final String sensorName = satelliteObservation.getSensor().getName();
+        final long startTime = satelliteObservation.getStartTime().getTime();
+        final long stopTime = satelliteObservation.getStopTime().getTime();
+        final String oldPath = satelliteObservation.getDataFilePath().toString();
+
+        try {
+            // the file is rewritten anyway, move everything to memory
+            loadIndexFile();
+
+            for (int i = 0; i < pendingEntries.size(); i++) {
+                final IndexEntry entry = pendingEntries.get(i);
+                if (entry.sensorName.equals(sensorName) && entry.startTime == startTime && entry.stopTime == stopTime) {
+                    final SatelliteObservation observation = decode(entry);
+                    if (oldPath.equals(observation.getDataFilePath().toString()) && isEqual(satelliteObservation.getVersion(), observation.getVersion())) {
+                        observation.setDataFilePath(newPath);
+                        pendingEntries.set(i, createEntry(observation));
+                        dirty = true;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<SatelliteObservation> get() throws SQLException {
+        return get(null);
+    }
+
+    @Override
+    public synchronized List<SatelliteObservation> get(QueryParameter parameter) throws SQLException {
+        final QueryParameter queryParameter = parameter != null ? parameter : new QueryParameter();
+        final Geometry queryGeometry = queryParameter.getGeometry();
+        final long[] queryRanges = queryGeometry != null ? getCellRanges(queryGeometry) : null;
+
+        try {
+            final List<IndexEntry> matches = new ArrayList<>();
+            if (indexFile != null) {
+                collectMatches(queryParameter, queryRanges, matches);
+            }
+
+            if (!pendingEntries.isEmpty()) {
+                for (final IndexEntry entry : pendingEntries) {
+                    if (isMatchingSensor(entry.sensorName, queryParameter) && isInTimeRange(entry.startTime, entry.stopTime, queryParameter)
+                            && isMatchingRecord(entry, queryParameter, queryRanges)) {
+                        matches.add(entry);
+                    }
+                }
+                matches.sort(ENTRY_ORDER);
+            }
+
+            // the index has no observation IDs, the page start is the number of observations already returned
+            final int pageStart = queryParameter.isKeysetPaging() ? queryParameter.getPageStartId() : queryParameter.getOffset();
+            final int first = Math.min(Math.max(pageStart, 0), matches.size());
+            int last = matches.size();
+            if (queryParameter.getPageSize() >= 0) {
+                last = Math.min(last, first + queryParameter.getPageSize());
+            }
+
+            final List<SatelliteObservation> resultList = new ArrayList<>(last - first);
+            for (int i = first; i < last; i++) {
+                resultList.add(decode(matches.get(i)));
+            }
+
+            if (queryParameter.isKeysetPaging()) {
+                queryParameter.setPageStart(null, last);
+            }
+            return resultList;
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int insert(Sensor sensor) {
+        // sensors are stored by name in the index header
+        return -1;
+    }
+
+    @Override
+    public int migrateGeometries() {
+        // geometries are always written in the binary storage format
+        return 0;
+    }
+
+    // package access for testing only
+    byte[] encode(SatelliteObservation observation) throws IOException {
+        final ByteArrayOutputStream byteStream = new ByteArrayOutputStream(1024);
+        final DataOutputStream outputStream = new DataOutputStream(byteStream);
+
+        final Geometry geoBounds = observation.getGeoBounds();
+        final long[] cellRanges = geoBounds != null ? getCellRanges(geoBounds) : null;
+        if (cellRanges != null) {
+            outputStream.writeInt(cellRanges.length / 2);
+            for (final long cellId : cellRanges) {
+                outputStream.writeLong(cellId);
+            }
+        } else {
+            outputStream.writeInt(0);
+        }
+
+        outputStream.writeInt(observation.getNodeType().toId());
+        writeString(observation.getVersion(), outputStream);
+        final Path dataFilePath = observation.getDataFilePath();
+        writeString(dataFilePath != null ? dataFilePath.toString() : null, outputStream);
+
+        if (geoBounds != null) {
+            writeBytes(geometryFactory.toStorageFormat(geoBounds), outputStream);
+        } else {
+            outputStream.writeInt(-1);
+        }
+
+        final TimeAxis[] timeAxes = observation.getTimeAxes();
+        if (timeAxes != null) {
+            outputStream.writeInt(timeAxes.length);
+            for (final TimeAxis timeAxis : timeAxes) {
+                outputStream.writeLong(timeAxis.getStartTime().getTime());
+                outputStream.writeLong(timeAxis.getEndTime().getTime());
+                writeBytes(geometryFactory.toStorageFormat(timeAxis.getGeometry()), outputStream);
+            }
+        } else {
+            outputStream.writeInt(-1);
+        }
+
+        outputStream.flush();
+        return byteStream.toByteArray();
+    }
+
+    /**
+     * Calculates a coarse S2 cell covering of the geometry, expressed as ranges of leaf cell ids.
+     *
+     * @param geometry the geometry
+     * @return the cell id ranges as pairs of min and max id, or null if the geometry is no S2 geometry
+     */
+    // package access for testing only
+    static long[] getCellRanges(Geometry geometry) {
+        final S2CellUnion covering = getCovering(geometry);
+        if (covering == null) {
+            return null;
+        }
+
+        final long[] ranges = new long[2 * covering.size()];
+        for (int i = 0; i < covering.size(); i++) {
+            final S2CellId cellId = covering.cellId(i);
+            ranges[2 * i] = cellId.rangeMin().id();
+            ranges[2 * i + 1] = cellId.rangeMax().id();
+        }
+        return ranges;
+    }
+
+    private void collectMatches(QueryParameter parameter, long[] queryRanges, List<IndexEntry> matches) throws IOException {
+        final long startTime = parameter.getStartTime() != null ? parameter.getStartTime().getTime() : Long.MIN_VALUE;
+        final long stopTime = parameter.getStopTime() != null ? parameter.getStopTime().getTime() : Long.MAX_VALUE;
+
+        final int numSensors = indexFile.getNumSensors();
+        for (int sensorIndex = 0; sensorIndex < numSensors; sensorIndex++) {
+            final String sensorName = indexFile.getSensorName(sensorIndex);
+            if (!isMatchingSensor(sensorName, parameter)) {
+                continue;
+            }
+
+            final int[] range = indexFile.getCandidateRange(sensorIndex, startTime, stopTime);
+            for (int entry = range[0]; entry < range[1]; entry++) {
+                final long entryStopTime = indexFile.getStopTime(entry);
+                if (entryStopTime < startTime) {
+                    continue;
+                }
+
+                final IndexEntry indexEntry = new IndexEntry(sensorName, indexFile.getStartTime(entry), entryStopTime, indexFile.getRecord(entry));
+                if (isMatchingRecord(indexEntry, parameter, queryRanges)) {
+                    matches.add(indexEntry);
+                }
+            }
+        }
+    }
+
+    private boolean isMatchingRecord(IndexEntry entry, QueryParameter parameter, long[] queryRanges) {
+        final ByteBuffer record = entry.record.duplicate();
+        final int numRanges = record.getInt();
+        if (queryRanges != null && numRanges > 0 && !rangesIntersect(record, numRanges, queryRanges)) {
+            return false;
+        }
+        record.position(4 + numRanges * 16);
+        record.getInt();
+
+        final String version = parameter.getVersion();
+        final String recordVersion = readString(record);
+        if (StringUtils.isNotNullAndNotEmpty(version) && !version.equals(recordVersion)) {
+            return false;
+        }
+
+        final String path = parameter.getPath();
+        final String recordPath = readString(record);
+        if (StringUtils.isNotNullAndNotEmpty(path) && !path.equals(recordPath)) {
+            return false;
+        }
+
+        final Geometry queryGeometry = parameter.getGeometry();
+        if (queryGeometry != null) {
+            final byte[] geoBoundsData = readBytes(record);
+            if (geoBoundsData == null) {
+                return false;
+            }
+            final Geometry geoBounds = geometryFactory.fromStorageFormat(geoBoundsData);
+            if (!intersects(queryGeometry, geoBounds)) {
+                return false;
+            }
+            entry.geoBounds = geoBounds;
+        }
+        return true;
+    }
+
+    private SatelliteObservation decode(IndexEntry entry) {
+        final ByteBuffer record = entry.record.duplicate();
+        final int numRanges = record.getInt();
+        record.position(4 + numRanges * 16);
+
+        final SatelliteObservation observation = new SatelliteObservation();
+        observation.setSensor(new Sensor(entry.sensorName));
+        observation.setStartTime(new Date(entry.startTime));
+        observation.setStopTime(new Date(entry.stopTime));
+        observation.setNodeType(NodeType.fromId(record.getInt()));
+        observation.setVersion(readString(record));
+
+        final String dataFile = readString(record);
+        if (dataFile != null) {
+            observation.setDataFilePath(dataFile);
+        }
+
+        final byte[] geoBoundsData = readBytes(record);
+        if (entry.geoBounds != null) {
+            observation.setGeoBounds(entry.geoBounds);
+        } else if (geoBoundsData != null) {
+            observation.setGeoBounds(geometryFactory.fromStorageFormat(geoBoundsData));
+        }
+
+        final int numAxes = record.getInt();
+        if (numAxes >= 0) {
+            final TimeAxis[] timeAxes = new TimeAxis[numAxes];
+            for (int i = 0; i < numAxes; i++) {
+                final Date startTime = new Date(record.getLong());
+                final Date endTime = new Date(record.getLong());
+                final LineString axis = (LineString) geometryFactory.fromStorageFormat(readBytes(record));
+                timeAxes[i] = geometryFactory.createTimeAxis(axis, startTime, endTime);
+            }
+            observation.setTimeAxes(timeAxes);
+        }
+
+        return observation;
+    }
+
+    private IndexEntry createEntry(SatelliteObservation observation) throws IOException {
+        return new IndexEntry(observation.getSensor().getName(),
+                observation.getStartTime().getTime(),
+                observation.getStopTime().getTime(),
+                ByteBuffer.wrap(encode(observation)));
+    }
+
+    private void loadIndexFile() throws IOException {
+        if (indexFile == null) {
+            return;
+        }
+
+        final int numSensors = indexFile.getNumSensors();
+        for (int sensorIndex = 0; sensorIndex < numSensors; sensorIndex++) {
+            final String sensorName = indexFile.getSensorName(sensorIndex);
+            final int first = indexFile.getFirstEntry(sensorIndex);
+            final int end = first + indexFile.getNumEntries(sensorIndex);
+            for (int entry = first; entry < end; entry++) {
+                final ByteBuffer record = indexFile.getRecord(entry);
+                final byte[] recordData = new byte[record.remaining()];
+                record.get(recordData);
+                pendingEntries.add(new IndexEntry(sensorName, indexFile.getStartTime(entry), indexFile.getStopTime(entry), ByteBuffer.wrap(recordData)));
+            }
+        }
+
+        closeIndexFile();
+        dirty = true;
+    }
+
+    private void flush() throws IOException {
+        if (!dirty) {
+            return;
+        }
+
+        final LocalIndexWriter writer = new LocalIndexWriter(indexPath);
+        if (indexFile != null) {
+            final int numSensors = indexFile.getNumSensors();
+            for (int sensorIndex = 0; sensorIndex < numSensors; sensorIndex++) {
+                final String sensorName = indexFile.getSensorName(sensorIndex);
+                final int first = indexFile.getFirstEntry(sensorIndex);
+                final int end = first + indexFile.getNumEntries(sensorIndex);
+                for (int entry = first; entry < end; entry++) {
+                    writer.add(sensorName, indexFile.getStartTime(entry), indexFile.getStopTime(entry), indexFile.getRecord(entry));
+                }
+            }
+        }
+
+        for (final IndexEntry entry : pendingEntries) {
+            writer.add(entry.sensorName, entry.startTime, entry.stopTime, entry.record.duplicate());
+        }
+
+        closeIndexFile();
+        writer.close();
+
+        pendingEntries.clear();
+        dirty = false;
+        indexFile = new LocalIndexFile(indexPath);
+    }
+
+    private void closeIndexFile() throws IOException {
+        if (indexFile != null) {
+            indexFile.close();
+            indexFile = null;
+        }
+    }
+
+    private static boolean isMatchingSensor(String sensorName, QueryParameter parameter) {
+        final String querySensorName = parameter.getSensorName();
+        return StringUtils.isNullOrEmpty(querySensorName) || querySensorName.equals(sensorName);
+    }
+
+    private static boolean isInTimeRange(long startTime, long stopTime, QueryParameter parameter) {
+        final Date queryStartTime = parameter.getStartTime();
+        if (queryStartTime != null && stopTime < queryStartTime.getTime()) {
+            return false;
+        }
+
+        final Date queryStopTime = parameter.getStopTime();
+        return queryStopTime == null || startTime <= queryStopTime.getTime();
+    }
+
+    // cell ids are unsigned, the ranges of two cells overlap if each one starts before the other one ends
+    private static boolean rangesIntersect(ByteBuffer record, int numRanges, long[] queryRanges) {
+        for (int i = 0; i < numRanges; i++) {
+            final long rangeMin = record.getLong(4 + i * 16);
+            final long rangeMax = record.getLong(4 + i * 16 + 8);
+            for (int k = 0; k < queryRanges.length; k += 2) {
+                if (Long.compareUnsigned(rangeMin, queryRanges[k + 1]) <= 0 && Long.compareUnsigned(queryRanges[k], rangeMax) <= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static S2CellUnion getCovering(Geometry geometry) {
+        if (geometry instanceof GeometryCollection) {
+            final Geometry[] geometries = ((GeometryCollection) geometry).getGeometries();
+            S2CellUnion covering = new S2CellUnion();
+            for (final Geometry part : geometries) {
+                final S2CellUnion partCovering = getCovering(part);
+                if (partCovering == null) {
+                    return null;
+                }
+                covering = getUnion(covering, partCovering);
+            }
+            return covering;
+        }
+        return getCovering(geometry.getInner());
+    }
+
+    private static S2CellUnion getCovering(Object inner) {
+        if (inner instanceof S2Region) {
+            final S2RegionCoverer coverer = new S2RegionCoverer();
+            coverer.setMaxCells(COVERING_MAX_CELLS);
+            return coverer.getCovering((S2Region) inner);
+        } else if (inner instanceof S2LatLng) {
+            final ArrayList<S2CellId> cellIds = new ArrayList<>();
+            cellIds.add(S2CellId.fromLatLng((S2LatLng) inner));
+            final S2CellUnion covering = new S2CellUnion();
+            covering.initFromCellIds(cellIds);
+            return covering;
+        } else if (inner instanceof List) {
+            // multi geometries wrap lists of S2 polygons or polylines
+            S2CellUnion covering = new S2CellUnion();
+            for (final Object part : (List<?>) inner) {
+                final S2CellUnion partCovering = getCovering(part);
+                if (partCovering == null) {
+                    return null;
+                }
+                covering = getUnion(covering, partCovering);
+            }
+            return covering;
+        }
+        return null;
+    }
+
+    private static S2CellUnion getUnion(S2CellUnion first, S2CellUnion second) {
+        final S2CellUnion union = new S2CellUnion();
+        union.getUnion(first, second);
+        return union;
+    }
+
+    private static boolean isEqual(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+    private static void writeString(String value, DataOutputStream outputStream) throws IOException {
+        if (value != null) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8), outputStream);
+        } else {
+            outputStream.writeInt(-1);
+        }
+    }
+
+    private static void writeBytes(byte[] bytes, DataOutputStream outputStream) throws IOException {
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private static String readString(ByteBuffer record) {
+        final byte[] bytes = readBytes(record);
+        if (bytes == null) {
+            return null;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer record) {
+        final int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        record.get(bytes);
+        return bytes;
+    }
+
+    private static class IndexEntry {
+        private final String sensorName;
+        private final long startTime;
+        private final long stopTime;
+        private final ByteBuffer record;
+        private Geometry geoBounds;
+
+        IndexEntry(String sensorName, long startTime, long stopTime, ByteBuffer record) {
+            this.sensorName = sensorName;
+            this.startTime = startTime;
+            this.stopTime = stopTime;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.db;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read access to a local observation index file. The entry table and the record data are memory mapped, nothing
+ * is read from disk before a query touches it.
+ * <p>
+ * Layout (big endian):
+ * <ul>
+ * <li>header: magic, version, number of sensors, per sensor the name, first entry, number of entries and maximal
+ * observation duration, then total number of entries and the file offset of the record data</li>
+ * <li>entry table: per observation start time, stop time, record offset and record length, sorted by sensor
+ * name and start time</li>
+ * <li>record data: per observation the covering cell ranges, node type, version, path, binary geo bounds and
+ * time axes, see {@link LocalIndexDriver}</li>
+ * </ul>
+ */
+class LocalIndexFile implements Closeable {
+
+    static final int MAGIC = 0x46494458;
+    static final int VERSION = 1;
+    static final int ENTRY_SIZE = 3 * 8 + 4;
+
+    // MappedByteBuffer is int indexed, records are mapped in segments of this size
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final String[] sensorNames;
+    private final int[] firstEntries;
+    private final int[] numSensorEntries;
+    private final long[] maxDurations;
+    private final int numEntries;
+    private final long dataStart;
+    private final MappedByteBuffer entryTable;
+    private final MappedByteBuffer[] dataSegments;
+
+    LocalIndexFile(Path indexFile) throws IOException {
+        final long tableStart;
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            final int magic = inputStream.readInt();
+            if (magic != MAGIC) {
+                throw new IOException("Not a local observation index file: " + indexFile);
+            }
+            final int version = inputStream.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported local observation index version: " + version);
+            }
+
+            final int numSensors = inputStream.readInt();
+            sensorNames = new String[numSensors];
+            firstEntries = new int[numSensors];
+            numSensorEntries = new int[numSensors];
+            maxDurations = new long[numSensors];
+            long headerSize = 3 * 4;
+            for (int i = 0; i < numSensors; i++) {
+                final byte[] nameBytes = new byte[inputStream.readInt()];
+                inputStream.readFully(nameBytes);
+                sensorNames[i] = new String(nameBytes, StandardCharsets.UTF_8);
+                firstEntries[i] = inputStream.readInt();
+                numSensorEntries[i] = inputStream.readInt();
+                maxDurations[i] = inputStream.readLong();
+                headerSize += 4 + nameBytes.length + 4 + 4 + 8;
+            }
+            numEntries = inputStream.readInt();
+            dataStart = inputStream.readLong();
+            tableStart = headerSize + 4 + 8;
+        }
+
+        channel = FileChannel.open(indexFile, StandardOpenOption.READ);
+        entryTable = channel.map(FileChannel.MapMode.READ_ONLY, tableStart, (long) numEntries * ENTRY_SIZE);
+
+        final long dataSize = channel.size() - dataStart;
+        final int numSegments = (int) ((dataSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        dataSegments = new MappedByteBuffer[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            final long segmentStart = i * SEGMENT_SIZE;
+            final long segmentSize = Math.min(SEGMENT_SIZE, dataSize - segmentStart);
+            dataSegments[i] = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + segmentStart, segmentSize);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    int getNumEntries() {
+        return numEntries;
+    }
+
+    int getNumSensors() {
+        return sensorNames.length;
+    }
+
+    String getSensorName(int sensorIndex) {
+        return sensorNames[sensorIndex];
+    }
+
+    int getSensorIndex(String sensorName) {
+        for (int i = 0; i < sensorNames.length; i++) {
+            if (sensorNames[i].equals(sensorName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int getFirstEntry(int sensorIndex) {
+        return firstEntries[sensorIndex];
+    }
+
+    int getNumEntries(int sensorIndex) {
+        return numSensorEntries[sensorIndex];
+    }
+
+    long getStartTime(int entry) {
+        return entryTable.getLong(entry * ENTRY_SIZE);
+    }
+
+    long getStopTime(int entry) {
+        return entryTable.getLong(entry * ENTRY_SIZE + 8);
+    }
+
+    /**
+     * Finds the entries of a sensor overlapping the time interval, the interval borders are inclusive. The
+     * start times are searched binary, the maximal observation duration of the sensor limits the entries
+     * that have to be checked for the stop time.
+     *
+     * @param sensorIndex the sensor
+     * @param startTime   interval start in milliseconds since epoch, Long.MIN_VALUE for an open interval
+     * @param stopTime    interval stop in milliseconds since epoch, Long.MAX_VALUE for an open interval
+     * @return the candidate entry range [first, last), entries in between still need the stop time check
+     */
+    int[] getCandidateRange(int sensorIndex, long startTime, long stopTime) {
+        final int first = firstEntries[sensorIndex];
+        final int end = first + numSensorEntries[sensorIndex];
+
+        int lower = first;
+        if (startTime != Long.MIN_VALUE) {
+            lower = lowerBound(first, end, startTime - maxDurations[sensorIndex]);
+        }
+
+        int upper = end;
+        if (stopTime != Long.MAX_VALUE) {
+            upper = lowerBound(lower, end, stopTime + 1);
+        }
+        return new int[]{lower, upper};
+    }
+
+    /**
+     * Returns the record of an entry. The buffer is a view on the mapped file whenever the record lies within
+     * a single segment.
+     *
+     * @param entry the entry index
+     * @return the record data, positioned at the record start
+     * @throws IOException on disk errors
+     */
+    ByteBuffer getRecord(int entry) throws IOException {
+        final long offset = entryTable.getLong(entry * ENTRY_SIZE + 16);
+        final int length = entryTable.getInt(entry * ENTRY_SIZE + 24);
+
+        final int segment = (int) (offset / SEGMENT_SIZE);
+        final int segmentOffset = (int) (offset % SEGMENT_SIZE);
+        if (segmentOffset + length <= dataSegments[segment].capacity()) {
+            final ByteBuffer record = dataSegments[segment].duplicate();
+            record.position(segmentOffset);
+            record.limit(segmentOffset + length);
+            return record.slice();
+        }
+
+        final ByteBuffer record = ByteBuffer.allocate(length);
+        long position = dataStart + offset;
+        while (record.hasRemaining()) {
+            final int numRead = channel.read(record, position);
+            if (numRead < 0) {
+                throw new IOException("Unexpected end of local observation index file");
+            }
+            position += numRead;
+        }
+        record.flip();
+        return record;
+    }
+
+    private int lowerBound(int first, int end, long time) {
+        int low = first;
+        int high = end;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (getStartTime(mid) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.db;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes a local observation index file, see {@link LocalIndexFile} for the layout. The records are streamed to a
+ * temporary file in the order they are added, only the entry keys are kept in memory. On close the entry table
+ * is sorted and written together with the records to the target file, which is replaced in a single move.
+ */
+class LocalIndexWriter {
+
+    private final Path targetFile;
+    private final Path recordFile;
+    private final DataOutputStream recordStream;
+    private final List<String> sensorNames;
+
+    private int[] sensorIndices;
+    private long[] startTimes;
+    private long[] stopTimes;
+    private long[] offsets;
+    private int[] lengths;
+    private int numEntries;
+    private long dataSize;
+
+    LocalIndexWriter(Path targetFile) throws IOException {
+        this.targetFile = targetFile;
+        recordFile = targetFile.resolveSibling(targetFile.getFileName() + ".records");
+        recordStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(recordFile)));
+        sensorNames = new ArrayList<>();
+
+        sensorIndices = new int[1024];
+        startTimes = new long[1024];
+        stopTimes = new long[1024];
+        offsets = new long[1024];
+        lengths = new int[1024];
+    }
+
+    void add(String sensorName, long startTime, long stopTime, ByteBuffer record) throws IOException {
+        if (numEntries == startTimes.length) {
+            final int newLength = 2 * numEntries;
+            sensorIndices = Arrays.copyOf(sensorIndices, newLength);
+            startTimes = Arrays.copyOf(startTimes, newLength);
+            stopTimes = Arrays.copyOf(stopTimes, newLength);
+            offsets = Arrays.copyOf(offsets, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+        }
+
+        int sensorIndex = sensorNames.indexOf(sensorName);
+        if (sensorIndex < 0) {
+            sensorIndex = sensorNames.size();
+            sensorNames.add(sensorName);
+        }
+
+        final int length = record.remaining();
+        sensorIndices[numEntries] = sensorIndex;
+        startTimes[numEntries] = startTime;
+        stopTimes[numEntries] = stopTime;
+        offsets[numEntries] = dataSize;
+        lengths[numEntries] = length;
+        ++numEntries;
+
+        if (record.hasArray()) {
+            recordStream.write(record.array(), record.arrayOffset() + record.position(), length);
+        } else {
+            final byte[] bytes = new byte[length];
+            record.duplicate().get(bytes);
+            recordStream.write(bytes);
+        }
+        dataSize += length;
+    }
+
+    void close() throws IOException {
+        recordStream.close();
+
+        try {
+            final List<String> sortedNames = new ArrayList<>(sensorNames);
+            Collections.sort(sortedNames);
+            final int[] sensorRanks = new int[sensorNames.size()];
+            for (int i = 0; i < sensorRanks.length; i++) {
+                sensorRanks[i] = sortedNames.indexOf(sensorNames.get(i));
+            }
+
+            final Integer[] order = new Integer[numEntries];
+            for (int i = 0; i < numEntries; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (first, second) -> {
+                final int rankCompare = Integer.compare(sensorRanks[sensorIndices[first]], sensorRanks[sensorIndices[second]]);
+                if (rankCompare != 0) {
+                    return rankCompare;
+                }
+                return Long.compare(startTimes[first], startTimes[second]);
+            });
+
+            final Path tempFile = targetFile.resolveSibling(targetFile.getFileName() + ".tmp");
+            try (OutputStream fileStream = Files.newOutputStream(tempFile)) {
+                final DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(fileStream));
+                writeHeader(outputStream, sortedNames, sensorRanks, order);
+
+                for (final int entry : order) {
+                    outputStream.writeLong(startTimes[entry]);
+                    outputStream.writeLong(stopTimes[entry]);
+                    outputStream.writeLong(offsets[entry]);
+                    outputStream.writeInt(lengths[entry]);
+                }
+                outputStream.flush();
+            }
+
+            try (FileChannel source = FileChannel.open(recordFile, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long position = 0;
+                while (position < dataSize) {
+                    position += source.transferTo(position, dataSize - position, target);
+                }
+            }
+
+            Files.move(tempFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(recordFile);
+        }
+    }
+
+    private void writeHeader(DataOutputStream outputStream, List<String> sortedNames, int[] sensorRanks, Integer[] order) throws IOException {
+        final int numSensors = sortedNames.size();
+        final int[] numSensorEntries = new int[numSensors];
+        final long[] maxDurations = new long[numSensors];
+        for (int i = 0; i < numEntries; i++) {
+            final int rank = sensorRanks[sensorIndices[i]];
+            ++numSensorEntries[rank];
+            maxDurations[rank] = Math.max(maxDurations[rank], stopTimes[i] - startTimes[i]);
+        }
+
+        outputStream.writeInt(LocalIndexFile.MAGIC);
+        outputStream.writeInt(LocalIndexFile.VERSION);
+        outputStream.writeInt(numSensors);
+
+        long headerSize = 3 * 4;
+        int firstEntry = 0;
+        for (int i = 0; i < numSensors; i++) {
+            final byte[] nameBytes = sortedNames.get(i).getBytes(StandardCharsets.UTF_8);
+            outputStream.writeInt(nameBytes.length);
+            outputStream.write(nameBytes);
+            outputStream.writeInt(firstEntry);
+            outputStream.writeInt(numSensorEntries[i]);
+            outputStream.writeLong(maxDurations[i]);
+            headerSize += 4 + nameBytes.length + 4 + 4 + 8;
+            firstEntry += numSensorEntries[i];
+        }
+
+        final long dataStart = headerSize + 4 + 8 + (long) order.length * LocalIndexFile.ENTRY_SIZE;
+        outputStream.writeInt(numEntries);
+        outputStream.writeLong(dataStart);
+    }
+}
@@ -25,7 +25,6 @@ import com.bc.fiduceo.core.SatelliteObservation;
 import com.bc.fiduceo.core.Sensor;
 import com.bc.fiduceo.geometry.Geometry;
 import com.bc.fiduceo.geometry.GeometryCollection;
-import com.bc.fiduceo.geometry.GeometryFactory;
 import com.bc.fiduceo.geometry.LineString;
 import com.bc.fiduceo.geometry.MultiPolygon;
 import com.bc.fiduceo.geometry.Point;
@@ -40,11 +39,17 @@ import com.mongodb.client.model.geojson.PolygonCoordinates;
 import com.mongodb.client.model.geojson.Position;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.bson.Document;
+import org.bson.types.Binary;
 import org.esa.snap.core.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @SuppressWarnings("unchecked")
 public class MongoDbDriver extends AbstractDriver {
@@ -54,14 +59,19 @@ public class MongoDbDriver extends AbstractDriver {
     private static final String STOP_TIME_KEY = "stopTime";
     private static final String NODE_TYPE_KEY = "nodeType";
     private static final String GEO_BOUNDS_KEY = "geoBounds";
+    private static final String GEO_BOUNDS_DATA_KEY = "geoBoundsData";
+    private static final String GEOMETRY_DATA_KEY = "geometryData";
     private static final String SENSOR_KEY = "sensor";
     private static final String SATELLITE_DATA_COLLECTION = "SATELLITE_OBSERVATION";
     private static final String TIME_AXES_KEY = "timeAxes";
     private static final String VERSION_KEY = "version";
     private static final String DATABASE_NAME = "FIDUCEO";
 
+    // MongoClient is thread safe and pools its connections, all drivers connected to the same server share one client
+    private static final Map<String, SharedClient> SHARED_CLIENTS = new HashMap<>();
+
+    private String clientKey;
     private MongoClient mongoClient;
-    private GeometryFactory geometryFactory;
     private MongoDatabase database;
 
     @Override
@@ -75,29 +85,20 @@ public class MongoDbDriver extends AbstractDriver {
         final String port = parsePort(dataSource.getUrl());
         final ServerAddress serverAddress = new ServerAddress(address, Integer.parseInt(port));
 
-        final MongoClientOptions clientOptions = MongoClientOptions.builder().
-                connectTimeout(120000).
-                socketTimeout(120000).
-                serverSelectionTimeout(120000).build();
-
         final String username = dataSource.getUsername();
         final String password = dataSource.getPassword();
-        if (StringUtils.isNotNullAndNotEmpty(password) && StringUtils.isNotNullAndNotEmpty(username)) {
-            final MongoCredential credential = MongoCredential.createCredential(username, DATABASE_NAME, password.toCharArray());
-            final List<MongoCredential> credentialsList = new ArrayList<>();
-            credentialsList.add(credential);
-            mongoClient = new MongoClient(serverAddress, credentialsList, clientOptions);
-        } else {
-            mongoClient = new MongoClient(serverAddress, clientOptions);
-        }
+
+        clientKey = createClientKey(serverAddress, username, password);
+        mongoClient = acquireClient(clientKey, serverAddress, username, password);
         database = mongoClient.getDatabase(DATABASE_NAME);
     }
 
     @Override
     public void close() {
         if (mongoClient != null) {
-            mongoClient.close();
+            releaseClient(clientKey);
             mongoClient = null;
+            database = null;
         }
     }
 
@@ -127,11 +128,6 @@ public class MongoDbDriver extends AbstractDriver {
         satelliteObservation.drop();
     }
 
-    @Override
-    public void setGeometryFactory(GeometryFactory geometryFactory) {
-        this.geometryFactory = geometryFactory;
-    }
-
     @Override
     public void insert(SatelliteObservation satelliteObservation) {
         final MongoCollection<Document> observationCollection = database.getCollection(SATELLITE_DATA_COLLECTION);
@@ -144,6 +140,7 @@ public class MongoDbDriver extends AbstractDriver {
         final Geometry geoBounds = satelliteObservation.getGeoBounds();
         if (geoBounds != null) {
             document.append(GEO_BOUNDS_KEY, convertToGeoJSON(geoBounds));
+            document.append(GEO_BOUNDS_DATA_KEY, new Binary(geometryFactory.toStorageFormat(geoBounds)));
         }
 
         // @todo 2 tb/tb does not work correctly when we extend the sensor class, improve here 2016-02-09
@@ -151,7 +148,7 @@ public class MongoDbDriver extends AbstractDriver {
 
         final TimeAxis[] timeAxes = satelliteObservation.getTimeAxes();
         if (timeAxes != null) {
-            document.append(TIME_AXES_KEY, convertToDocument(timeAxes));
+            document.append(TIME_AXES_KEY, convertToBinaryDocument(timeAxes));
         }
 
         document.append(VERSION_KEY, satelliteObservation.getVersion());
@@ -174,6 +171,33 @@ public class MongoDbDriver extends AbstractDriver {
         observationCollection.updateOne(queryDocument, new Document("$set", new Document(DATA_FILE_KEY, newPath)));
     }
 
+    /**
+     * Adds the binary geometries to documents ingested by previous versions. The GeoJSON geometries are kept.
+     *
+     * @return the number of converted documents
+     */
+    @Override
+    public int migrateGeometries() {
+        final MongoCollection<Document> observationCollection = database.getCollection(SATELLITE_DATA_COLLECTION);
+        final Document queryDocument = new Document(GEO_BOUNDS_KEY, new Document("$exists", true))
+                .append(GEO_BOUNDS_DATA_KEY, new Document("$exists", false));
+
+        int numConverted = 0;
+        for (final Document document : observationCollection.find(queryDocument)) {
+            final Geometry geoBounds = convertToGeometry((Document) document.get(GEO_BOUNDS_KEY));
+            final Document updateDocument = new Document(GEO_BOUNDS_DATA_KEY, new Binary(geometryFactory.toStorageFormat(geoBounds)));
+
+            final Document jsonTimeAxes = (Document) document.get(TIME_AXES_KEY);
+            if (jsonTimeAxes != null) {
+                updateDocument.append(TIME_AXES_KEY, convertToBinaryDocument(convertToTimeAxes(jsonTimeAxes)));
+            }
+
+            observationCollection.updateOne(new Document("_id", document.get("_id")), new Document("$set", updateDocument));
+            ++numConverted;
+        }
+        return numConverted;
+    }
+
     @Override
     public int insert(Sensor sensor) {
         // we use embedded storage at the moment, no need to separately ingest the sensor tb 2016-02-09
@@ -187,6 +211,7 @@ public class MongoDbDriver extends AbstractDriver {
 
     @Override
     public List<SatelliteObservation> get(QueryParameter parameter) {
+        checkGeometryConstraint(parameter);
         final MongoCollection<Document> observationCollection = database.getCollection(SATELLITE_DATA_COLLECTION);
         final List<SatelliteObservation> resultList = new ArrayList<>();
 
@@ -194,20 +219,29 @@ public class MongoDbDriver extends AbstractDriver {
         int offset = 0;
         int pageSize = -1;
         if (parameter != null) {
-            offset = parameter.getOffset();
+            // without keys to page on, the page start is the number of observations already returned
+            offset = parameter.isKeysetPaging() ? Math.max(parameter.getPageStartId(), 0) : parameter.getOffset();
             pageSize = parameter.getPageSize();
         }
-        FindIterable<Document> documents;
+        FindIterable<Document> documents = observationCollection.find(queryDocument);
+        if (pageSize >= 0 || offset > 0) {
+            // pages need a stable order, same as the SQL drivers
+            documents = documents.sort(new BasicDBObject(START_TIME_KEY, 1).append("_id", 1));
+        }
         if (pageSize >= 0) {
-            documents = observationCollection.find(queryDocument).skip(offset).limit(pageSize);
+            documents = documents.skip(offset).limit(pageSize);
         } else {
-            documents = observationCollection.find(queryDocument).skip(offset);
+            documents = documents.skip(offset);
         }
         for (Document document : documents) {
             final SatelliteObservation satelliteObservation = getSatelliteObservation(document);
             resultList.add(satelliteObservation);
         }
-        return resultList;
+
+        if (parameter != null && parameter.isKeysetPaging()) {
+            parameter.setPageStart(null, offset + resultList.size());
+        }
+        return filterByGeometry(resultList, parameter);
     }
 
     private SatelliteObservation getSatelliteObservation(Document document) {
@@ -228,10 +262,15 @@ public class MongoDbDriver extends AbstractDriver {
         final Integer nodeTypeId = document.getInteger(NODE_TYPE_KEY);
         satelliteObservation.setNodeType(NodeType.fromId(nodeTypeId));
 
-        final Document geoBounds = (Document) document.get(GEO_BOUNDS_KEY);
-        if (geoBounds != null) {
-            final Geometry geometry = convertToGeometry(geoBounds);
-            satelliteObservation.setGeoBounds(geometry);
+        final Binary geoBoundsData = (Binary) document.get(GEO_BOUNDS_DATA_KEY);
+        if (geoBoundsData != null) {
+            satelliteObservation.setGeoBounds(geometryFactory.fromStorageFormat(geoBoundsData.getData()));
+        } else {
+            final Document geoBounds = (Document) document.get(GEO_BOUNDS_KEY);
+            if (geoBounds != null) {
+                final Geometry geometry = convertToGeometry(geoBounds);
+                satelliteObservation.setGeoBounds(geometry);
+            }
         }
 
         // @todo 2 tb/tb does not work correctly when we extend the sensor class, improve here 2016-02-09
@@ -322,12 +361,27 @@ public class MongoDbDriver extends AbstractDriver {
             final Document timeAxisDocument = timeAxesDocuments.get(i);
             final Date startTime = timeAxisDocument.getDate("startTime");
             final Date endTime = timeAxisDocument.getDate("endTime");
-            final LineString geometry = (LineString) convertToGeometry((Document) timeAxisDocument.get("geometry"));
+            final Binary geometryData = (Binary) timeAxisDocument.get(GEOMETRY_DATA_KEY);
+            final LineString geometry;
+            if (geometryData != null) {
+                geometry = (LineString) geometryFactory.fromStorageFormat(geometryData.getData());
+            } else {
+                geometry = (LineString) convertToGeometry((Document) timeAxisDocument.get("geometry"));
+            }
             timeAxes[i] = geometryFactory.createTimeAxis(geometry, startTime, endTime);
         }
         return timeAxes;
     }
 
+    private Document convertToBinaryDocument(TimeAxis[] timeAxes) {
+        final Document timeAxesDocument = convertToDocument(timeAxes);
+        final List<Document> timeAxesList = (List<Document>) timeAxesDocument.get("timeAxes");
+        for (int i = 0; i < timeAxes.length; i++) {
+            timeAxesList.get(i).append(GEOMETRY_DATA_KEY, new Binary(geometryFactory.toStorageFormat(timeAxes[i].getGeometry())));
+        }
+        return timeAxesDocument;
+    }
+
     // package access for testing only tb 2016-04-20
     @SuppressWarnings("unchecked")
     static List<PolygonCoordinates> gePolygonCoordinates(MultiPolygon multiPolygon) {
@@ -459,4 +513,86 @@ public class MongoDbDriver extends AbstractDriver {
             return databaseUrl.substring(colonIndex + 1);
         }
     }
+
+    // package access for testing only
+    // clients are authenticated, drivers share a client only for identical credentials. The password enters
+    // the key as digest, so it is not kept in plain text in the client map
+    static String createClientKey(ServerAddress serverAddress, String username, String password) {
+        final String key = serverAddress.toString() + "/" + (username != null ? username : "");
+        if (password == null) {
+            return key;
+        }
+
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] hash = digest.digest(password.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(key).append("/");
+            for (final byte value : hash) {
+                hex.append(String.format("%02x", value));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    // package access for testing only
+    static int getNumSharedClients() {
+        synchronized (SHARED_CLIENTS) {
+            return SHARED_CLIENTS.size();
+        }
+    }
+
+    private static MongoClient acquireClient(String clientKey, ServerAddress serverAddress, String username, String password) {
+        synchronized (SHARED_CLIENTS) {
+            SharedClient sharedClient = SHARED_CLIENTS.get(clientKey);
+            if (sharedClient == null) {
+                sharedClient = new SharedClient(createClient(serverAddress, username, password));
+                SHARED_CLIENTS.put(clientKey, sharedClient);
+            }
+            ++sharedClient.numReferences;
+            return sharedClient.client;
+        }
+    }
+
+    private static void releaseClient(String clientKey) {
+        synchronized (SHARED_CLIENTS) {
+            final SharedClient sharedClient = SHARED_CLIENTS.get(clientKey);
+            if (sharedClient == null) {
+                return;
+            }
+
+            --sharedClient.numReferences;
+            if (sharedClient.numReferences <= 0) {
+                SHARED_CLIENTS.remove(clientKey);
+                sharedClient.client.close();
+            }
+        }
+    }
+
+    private static MongoClient createClient(ServerAddress serverAddress, String username, String password) {
+        final MongoClientOptions clientOptions = MongoClientOptions.builder().
+                connectTimeout(120000).
+                socketTimeout(120000).
+                serverSelectionTimeout(120000).build();
+
+        if (StringUtils.isNotNullAndNotEmpty(password) && StringUtils.isNotNullAndNotEmpty(username)) {
+            final MongoCredential credential = MongoCredential.createCredential(username, DATABASE_NAME, password.toCharArray());
+            final List<MongoCredential> credentialsList = new ArrayList<>();
+            credentialsList.add(credential);
+            return new MongoClient(serverAddress, credentialsList, clientOptions);
+        } else {
+            return new MongoClient(serverAddress, clientOptions);
+        }
+    }
+
+    private static class SharedClient {
+
+        private final MongoClient client;
+        private int numReferences;
+
+        SharedClient(MongoClient client) {
+            this.client = client;
+        }
+    }
 }
@@ -26,54 +26,61 @@ import com.bc.fiduceo.core.NodeType;
 import com.bc.fiduceo.core.SatelliteObservation;
 import com.bc.fiduceo.core.Sensor;
 import com.bc.fiduceo.geometry.Geometry;
-import com.bc.fiduceo.geometry.GeometryFactory;
 import com.bc.fiduceo.util.TimeUtils;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class MySQLDriver extends AbstractDriver {
 
-    private GeometryFactory geometryFactory;
-
     @Override
     public String getUrlPattern() {
         return "jdbc:mysql";
     }
 
-    @Override
-    public void setGeometryFactory(GeometryFactory geometryFactory) {
-        this.geometryFactory = geometryFactory;
-    }
-
     @Override
     public boolean isInitialized() {
         throw new RuntimeException("not implemented");
     }
 
+    // MySQL does not support CREATE INDEX IF NOT EXISTS, existing indexes are looked up in the metadata
     @Override
-    public void insert(SatelliteObservation observation) throws SQLException {
-        final Sensor sensor = observation.getSensor();
-        Integer sensorId = getSensorId(sensor.getName());
-        if (sensorId == null) {
-            sensorId = insert(sensor);
+    void createIndexes(Statement statement) throws SQLException {
+        final Set<String> indexNames = getIndexNames(statement.getConnection(), "SATELLITE_OBSERVATION");
+        if (!indexNames.contains("SENSOR_TIME")) {
+            statement.execute("CREATE INDEX SENSOR_TIME ON SATELLITE_OBSERVATION(SensorId, StartDate, StopDate)");
         }
 
-        final PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO SATELLITE_OBSERVATION VALUES(default, ?, ?, ?, GeomFromWKB(?), ?, ?, ?, ?)");
-        preparedStatement.setTimestamp(1, TimeUtils.toTimestamp(observation.getStartTime()));
-        preparedStatement.setTimestamp(2, TimeUtils.toTimestamp(observation.getStopTime()));
-        preparedStatement.setByte(3, (byte) observation.getNodeType().toId());
-        preparedStatement.setObject(4, geometryFactory.toStorageFormat(observation.getGeoBounds()));
-        preparedStatement.setInt(5, sensorId);
-        preparedStatement.setString(6, observation.getDataFilePath().toString());
-        // @todo 2 tb/tb insert TimeAxes here 2013-03-07
+        if (!indexNames.contains("START_TIME")) {
+            statement.execute("CREATE INDEX START_TIME ON SATELLITE_OBSERVATION(StartDate, ID)");
+        }
+    }
 
-        preparedStatement.executeUpdate();
+    @Override
+    public void insert(SatelliteObservation observation) throws SQLException {
+        try (Connection connection = getConnection()) {
+            final int sensorId = getOrInsertSensorId(connection, observation.getSensor());
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO SATELLITE_OBSERVATION VALUES(default, ?, ?, ?, GeomFromWKB(?), ?, ?, ?, ?)")) {
+                preparedStatement.setTimestamp(1, TimeUtils.toTimestamp(observation.getStartTime()));
+                preparedStatement.setTimestamp(2, TimeUtils.toTimestamp(observation.getStopTime()));
+                preparedStatement.setByte(3, (byte) observation.getNodeType().toId());
+                preparedStatement.setObject(4, geometryFactory.toStorageFormat(observation.getGeoBounds()));
+                preparedStatement.setInt(5, sensorId);
+                preparedStatement.setString(6, observation.getDataFilePath().toString());
+                // @todo 2 tb/tb insert TimeAxes here 2013-03-07
+
+                preparedStatement.executeUpdate();
+            }
+        }
     }
 
     @Override
@@ -83,8 +90,14 @@ public class MySQLDriver extends AbstractDriver {
 
     @Override
     public List<SatelliteObservation> get() throws SQLException {
-        final Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_UPDATABLE);
-        final ResultSet resultSet = statement.executeQuery("SELECT StartDate, StopDate,NodeType, AsWKB(GeoBounds), SensorId, DataFile, TimeAxisStartIndex, TimeAxisEndIndex FROM SATELLITE_OBSERVATION");
+        try (Connection connection = getConnection();
+             Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY)) {
+            final ResultSet resultSet = statement.executeQuery("SELECT StartDate, StopDate,NodeType, AsWKB(GeoBounds), SensorId, DataFile, TimeAxisStartIndex, TimeAxisEndIndex FROM SATELLITE_OBSERVATION");
+            return readObservations(connection, resultSet);
+        }
+    }
+
+    private List<SatelliteObservation> readObservations(Connection connection, ResultSet resultSet) throws SQLException {
         resultSet.last();
         final int numValues = resultSet.getRow();
         resultSet.beforeFirst();
@@ -107,7 +120,7 @@ public class MySQLDriver extends AbstractDriver {
             observation.setGeoBounds(geometry);
 
             final int sensorId = resultSet.getInt("SensorId");
-            final Sensor sensor = getSensor(sensorId);
+            final Sensor sensor = getSensor(connection, sensorId);
             observation.setSensor(sensor);
 
             final String dataFile = resultSet.getString("DataFile");
@@ -125,4 +138,17 @@ public class MySQLDriver extends AbstractDriver {
     public List<SatelliteObservation> get(QueryParameter parameter) throws SQLException {
         throw new RuntimeException("not implemented");
     }
+
+    private static Set<String> getIndexNames(Connection connection, String tableName) throws SQLException {
+        final Set<String> indexNames = new HashSet<>();
+        try (ResultSet indexInfo = connection.getMetaData().getIndexInfo(null, null, tableName, false, false)) {
+            while (indexInfo.next()) {
+                final String indexName = indexInfo.getString("INDEX_NAME");
+                if (indexName != null) {
+                    indexNames.add(indexName.toUpperCase());
+                }
+            }
+        }
+        return indexNames;
+    }
 }
@@ -24,7 +24,6 @@ import com.bc.fiduceo.core.NodeType;
 import com.bc.fiduceo.core.SatelliteObservation;
 import com.bc.fiduceo.core.Sensor;
 import com.bc.fiduceo.geometry.Geometry;
-import com.bc.fiduceo.geometry.GeometryFactory;
 import com.bc.fiduceo.geometry.LineString;
 import com.bc.fiduceo.geometry.TimeAxis;
 import com.bc.fiduceo.util.TimeUtils;
@@ -35,126 +34,73 @@ import org.postgis.PGgeometry;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Properties;
 
 public class PostGISDriver extends AbstractDriver {
 
-    private GeometryFactory geometryFactory;
-
     @Override
     public String getUrlPattern() {
         return "jdbc:postgresql";
     }
 
     @Override
-    public void setGeometryFactory(GeometryFactory geometryFactory) {
-        this.geometryFactory = geometryFactory;
+    void configureConnectionPool(BasicDataSource pool) {
+        pool.addConnectionProperty("loginTimeout", "120");
+        pool.addConnectionProperty("connectTimeout", "120");
     }
 
     @Override
-    public void open(BasicDataSource dataSource) throws SQLException {
-        try {
-            final java.sql.Driver driverClass = (java.sql.Driver) Class.forName(dataSource.getDriverClassName()).newInstance();
-            DriverManager.registerDriver(driverClass);
-        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
-            throw new SQLException(e.getMessage());
+    public boolean isInitialized() throws SQLException {
+        try (Connection connection = getConnection()) {
+            final ResultSet tables = connection.getMetaData().getTables(null, null, "satellite_observation", null);
+            return tables.next();
         }
-
-        final String url = dataSource.getUrl();
-        final Properties properties = new Properties();
-        properties.put("user", dataSource.getUsername());
-        properties.put("password", dataSource.getPassword());
-        properties.put("loginTimeout", "120");
-        properties.put("connectTimeout", "120");
-
-        connection = DriverManager.getConnection(url, properties);
     }
 
     @Override
-    public boolean isInitialized() throws SQLException {
-        final ResultSet tables = connection.getMetaData().getTables(null, null, "satellite_observation", null);
-        return tables.next();
+    public void initialize() throws SQLException {
+        try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE SATELLITE_OBSERVATION (ID SERIAL PRIMARY KEY, " +
+                    "StartDate TIMESTAMP," +
+                    "StopDate TIMESTAMP," +
+                    "NodeType SMALLINT," +
+                    "GeoBounds GEOMETRY, " +
+                    "SensorId INT," +
+                    "Version VARCHAR(16)," +
+                    "DataFile VARCHAR(256)," +
+                    "GeoBoundsData " + getBinaryType() + ")");
+
+            statement.executeUpdate("CREATE TABLE SENSOR (ID SERIAL PRIMARY KEY, " +
+                    "Name VARCHAR(64))");
+
+            statement.executeUpdate("CREATE TABLE TIMEAXIS (ID SERIAL PRIMARY KEY, " +
+                    "ObservationId INT," +
+                    "Axis GEOMETRY," +
+                    "StartTime TIMESTAMP, " +
+                    "StopTime TIMESTAMP, " +
+                    "AxisData " + getBinaryType() + ", " +
+                    "FOREIGN KEY (ObservationId) REFERENCES SATELLITE_OBSERVATION(ID) ON DELETE CASCADE )");
+
+            createIndexes(statement);
+        }
     }
 
     @Override
-    public void initialize() throws SQLException {
-        Statement statement = connection.createStatement();
-        statement.executeUpdate("CREATE TABLE SATELLITE_OBSERVATION (ID SERIAL PRIMARY KEY, " +
-                "StartDate TIMESTAMP," +
-                "StopDate TIMESTAMP," +
-                "NodeType SMALLINT," +
-                "GeoBounds GEOMETRY, " +
-                "SensorId INT," +
-                "Version VARCHAR(16)," +
-                "DataFile VARCHAR(256))");
-
-        statement = connection.createStatement();
-        statement.executeUpdate("CREATE TABLE SENSOR (ID SERIAL PRIMARY KEY, " +
-                "Name VARCHAR(64))");
-
-        statement = connection.createStatement();
-        statement.executeUpdate("CREATE TABLE TIMEAXIS (ID SERIAL PRIMARY KEY, " +
-                "ObservationId INT," +
-                "Axis GEOMETRY," +
-                "StartTime TIMESTAMP, " +
-                "StopTime TIMESTAMP, " +
-                "FOREIGN KEY (ObservationId) REFERENCES SATELLITE_OBSERVATION(ID) ON DELETE CASCADE )");
-
-        statement = connection.createStatement();
-        statement.execute("CREATE INDEX START_TIME ON SATELLITE_OBSERVATION(StartDate)");
-
-        statement = connection.createStatement();
-        statement.execute("CREATE INDEX STOP_TIME ON SATELLITE_OBSERVATION(StopDate)");
-
-        statement = connection.createStatement();
-        statement.execute("CREATE INDEX OBSERVATION_ID ON TIMEAXIS(ObservationId)");
+    void createIndexes(Statement statement) throws SQLException {
+        statement.execute("CREATE INDEX IF NOT EXISTS START_TIME ON SATELLITE_OBSERVATION(StartDate)");
+
+        statement.execute("CREATE INDEX IF NOT EXISTS STOP_TIME ON SATELLITE_OBSERVATION(StopDate)");
+
+        statement.execute("CREATE INDEX IF NOT EXISTS OBSERVATION_ID ON TIMEAXIS(ObservationId)");
+
+        statement.execute("CREATE INDEX IF NOT EXISTS SENSOR_TIME ON SATELLITE_OBSERVATION(SensorId, StartDate, StopDate)");
     }
 
     @Override
     public void insert(SatelliteObservation observation) throws SQLException {
-        final Sensor sensor = observation.getSensor();
-        Integer sensorId = getSensorId(sensor.getName());
-        if (sensorId == null) {
-            sensorId = insert(sensor);
-        }
-
-        PreparedStatement preparedStatement = connection.prepareStatement("INSERT INTO SATELLITE_OBSERVATION VALUES(default, ?, ?, ?, ST_GeomFromText(?), ?, ?, ?) RETURNING ID");
-        preparedStatement.setTimestamp(1, TimeUtils.toTimestamp(observation.getStartTime()));
-        preparedStatement.setTimestamp(2, TimeUtils.toTimestamp(observation.getStopTime()));
-        preparedStatement.setByte(3, (byte) observation.getNodeType().toId());
-        final Geometry geoBounds = observation.getGeoBounds();
-        if (geoBounds != null) {
-            preparedStatement.setString(4, new String(geometryFactory.toStorageFormat(geoBounds)));
-        } else {
-            preparedStatement.setNull(4, Types.OTHER);
+        try (Connection connection = getConnection()) {
+            final int sensorId = getOrInsertSensorId(connection, observation.getSensor());
+            runInTransaction(connection, () -> insert(connection, observation, sensorId));
         }
-        preparedStatement.setInt(5, sensorId);
-        preparedStatement.setString(6, observation.getVersion());
-        preparedStatement.setString(7, observation.getDataFilePath().toString());
-
-        final ResultSet resultSet = preparedStatement.executeQuery();
-        resultSet.next();
-        final int observationId = resultSet.getInt(1);
-        final TimeAxis[] timeAxes = observation.getTimeAxes();
-        if (timeAxes != null) {
-            for (final TimeAxis timeAxis : timeAxes) {
-                preparedStatement = connection.prepareStatement("INSERT INTO TIMEAXIS VALUES(default, ?, ST_GeomFromText(?), ?, ?)");
-                preparedStatement.setInt(1, observationId);
-                final String wkt = geometryFactory.format(timeAxis.getGeometry());
-                preparedStatement.setString(2, wkt);
-                preparedStatement.setTimestamp(3, TimeUtils.toTimestamp(timeAxis.getStartTime()));
-                preparedStatement.setTimestamp(4, TimeUtils.toTimestamp(timeAxis.getEndTime()));
-                preparedStatement.executeUpdate();
-            }
-        }
-//        else {
-//            preparedStatement = connection.prepareStatement("INSERT INTO TIMEAXIS VALUES(default, ?, ?, ?, ?)");
-//            preparedStatement.setInt(1, observationId);
-//            preparedStatement.setNull(2, Types.OTHER);
-//            preparedStatement.setTimestamp(3, TimeUtils.toTimestamp(observation.getStartTime()));
-//            preparedStatement.setTimestamp(4, TimeUtils.toTimestamp(observation.getStopTime()));
-//            preparedStatement.executeUpdate();
-//        }
     }
 
     @Override
@@ -166,17 +112,19 @@ public class PostGISDriver extends AbstractDriver {
         queryParameter.setVersion(satelliteObservation.getVersion());
         queryParameter.setPath(satelliteObservation.getDataFilePath().toString());
 
+        final List<Object> values = new ArrayList<>();
+        values.add(newPath);
+
         final StringBuilder sql = new StringBuilder();
-        sql.append("UPDATE SATELLITE_OBSERVATION AS obs SET DataFile = '");
-        sql.append(newPath);
-        sql.append("' ");
-        sql.append("FROM SENSOR AS sen"); //ON obs.SensorId = sen.ID
+        sql.append("UPDATE SATELLITE_OBSERVATION AS obs SET DataFile = ?");
 
-        appendWhereClause(queryParameter, sql);
-        sql.append(" AND obs.SensorId = sen.ID");
+        appendWhereClause(queryParameter, sql, values);
 
-        final PreparedStatement preparedStatement = connection.prepareStatement(sql.toString());
-        preparedStatement.executeUpdate();
+        try (Connection connection = getConnection();
+             PreparedStatement preparedStatement = getPreparedStatement(connection, sql.toString())) {
+            setValues(preparedStatement, values);
+            preparedStatement.executeUpdate();
+        }
     }
 
     @Override
@@ -186,14 +134,24 @@ public class PostGISDriver extends AbstractDriver {
 
     @Override
     public List<SatelliteObservation> get(QueryParameter parameter) throws SQLException {
-        final Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_UPDATABLE);
-        final String sql = createSql(parameter);
-        final ResultSet resultSet = statement.executeQuery(sql);
+        checkGeometryConstraint(parameter);
+        try (Connection connection = getConnection()) {
+            final List<Object> values = new ArrayList<>();
+            try (PreparedStatement preparedStatement = getPreparedStatement(connection, createSql(parameter, values))) {
+                setValues(preparedStatement, values);
+                return filterByGeometry(readObservations(connection, preparedStatement.executeQuery(), parameter), parameter);
+            }
+        }
+    }
+
+    private List<SatelliteObservation> readObservations(Connection connection, ResultSet resultSet, QueryParameter parameter) throws SQLException {
         resultSet.last();
         final int numValues = resultSet.getRow();
         resultSet.beforeFirst();
 
         final List<SatelliteObservation> resultList = new ArrayList<>(numValues);
+        Timestamp lastStartDate = null;
+        int lastObservationId = -1;
         while (resultSet.next()) {
             final SatelliteObservation observation = new SatelliteObservation();
 
@@ -208,14 +166,13 @@ public class PostGISDriver extends AbstractDriver {
             final int nodeTypeId = resultSet.getInt("NodeType");
             observation.setNodeType(NodeType.fromId(nodeTypeId));
 
-            final PGgeometry geoBounds = (PGgeometry) resultSet.getObject("GeoBounds");
+            final Geometry geoBounds = getGeometry(resultSet, "GeoBoundsData", "GeoBounds");
             if (geoBounds != null) {
-                final Geometry geometry = geometryFactory.fromStorageFormat(geoBounds.getValue().getBytes());
-                observation.setGeoBounds(geometry);
+                observation.setGeoBounds(geoBounds);
             }
 
             final int sensorId = resultSet.getInt("SensorId");
-            final Sensor sensor = getSensor(sensorId);
+            final Sensor sensor = getSensor(connection, sensorId);
             observation.setSensor(sensor);
 
             final String version = resultSet.getString("Version");
@@ -243,37 +200,108 @@ public class PostGISDriver extends AbstractDriver {
             }
 
             resultList.add(observation);
+
+            lastStartDate = startDate;
+            lastObservationId = observationId;
+        }
+
+        if (lastStartDate != null) {
+            updatePageStart(parameter, lastStartDate, lastObservationId);
         }
 
         return resultList;
     }
 
     public boolean isAlreadyRegistered(QueryParameter queryParameter) throws SQLException {
+        final List<Object> values = new ArrayList<>();
         final StringBuilder sql = new StringBuilder("SELECT count(*) FROM satellite_observation WHERE ");
         final String sensorName = queryParameter.getSensorName();
         if (StringUtils.isNotNullAndNotEmpty(sensorName)) {
-            sql.append("sensorid = (SELECT id FROM sensor WHERE name = '")
-                    .append(sensorName)
-                    .append("') AND ");
+            sql.append("sensorid = (SELECT id FROM sensor WHERE name = ?) AND ");
+            values.add(sensorName);
+        }
+        sql.append("datafile = ?");
+        values.add(queryParameter.getPath());
+
+        try (Connection connection = getConnection();
+             PreparedStatement preparedStatement = getPreparedStatement(connection, sql.toString())) {
+            setValues(preparedStatement, values);
+            final ResultSet resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            final int numValues = resultSet.getInt(1);
+            return numValues > 0;
+        }
+    }
+
+    @Override
+    String getBinaryType() {
+        return "BYTEA";
+    }
+
+    @Override
+    Geometry readGeometry(ResultSet resultSet, String columnName) throws SQLException {
+        final PGgeometry geometry = (PGgeometry) resultSet.getObject(columnName);
+        if (geometry == null) {
+            return null;
+        }
+        return geometryFactory.fromStorageFormat(geometry.getValue().getBytes());
+    }
+
+    private void insert(Connection connection, SatelliteObservation observation, int sensorId) throws SQLException {
+        final int observationId;
+        final boolean withGeometryData = hasGeometryDataColumns();
+        final String observationSql = withGeometryData ?
+                "INSERT INTO SATELLITE_OBSERVATION (StartDate, StopDate, NodeType, GeoBounds, SensorId, Version, DataFile, GeoBoundsData) VALUES(?, ?, ?, ST_GeomFromText(?), ?, ?, ?, ?) RETURNING ID" :
+                "INSERT INTO SATELLITE_OBSERVATION (StartDate, StopDate, NodeType, GeoBounds, SensorId, Version, DataFile) VALUES(?, ?, ?, ST_GeomFromText(?), ?, ?, ?) RETURNING ID";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(observationSql)) {
+            preparedStatement.setTimestamp(1, TimeUtils.toTimestamp(observation.getStartTime()));
+            preparedStatement.setTimestamp(2, TimeUtils.toTimestamp(observation.getStopTime()));
+            preparedStatement.setByte(3, (byte) observation.getNodeType().toId());
+            final Geometry geoBounds = observation.getGeoBounds();
+            if (geoBounds != null) {
+                preparedStatement.setString(4, geometryFactory.format(geoBounds));
+            } else {
+                preparedStatement.setNull(4, Types.OTHER);
+            }
+            preparedStatement.setInt(5, sensorId);
+            preparedStatement.setString(6, observation.getVersion());
+            preparedStatement.setString(7, observation.getDataFilePath().toString());
+            if (withGeometryData) {
+                setGeometryData(preparedStatement, 8, geoBounds);
+            }
+
+            final ResultSet resultSet = preparedStatement.executeQuery();
+            resultSet.next();
+            observationId = resultSet.getInt(1);
+        }
+
+        final TimeAxis[] timeAxes = observation.getTimeAxes();
+        if (timeAxes != null) {
+            final String axisSql = withGeometryData ?
+                    "INSERT INTO TIMEAXIS (ObservationId, Axis, StartTime, StopTime, AxisData) VALUES(?, ST_GeomFromText(?), ?, ?, ?)" :
+                    "INSERT INTO TIMEAXIS (ObservationId, Axis, StartTime, StopTime) VALUES(?, ST_GeomFromText(?), ?, ?)";
+            try (PreparedStatement preparedStatement = connection.prepareStatement(axisSql)) {
+                for (final TimeAxis timeAxis : timeAxes) {
+                    preparedStatement.setInt(1, observationId);
+                    final LineString axisGeometry = timeAxis.getGeometry();
+                    final String wkt = geometryFactory.format(axisGeometry);
+                    preparedStatement.setString(2, wkt);
+                    preparedStatement.setTimestamp(3, TimeUtils.toTimestamp(timeAxis.getStartTime()));
+                    preparedStatement.setTimestamp(4, TimeUtils.toTimestamp(timeAxis.getEndTime()));
+                    if (withGeometryData) {
+                        setGeometryData(preparedStatement, 5, axisGeometry);
+                    }
+                    preparedStatement.executeUpdate();
+                }
+            }
         }
-        final String path = queryParameter.getPath();
-        sql.append(" datafile = '")
-                .append(path)
-                .append("';");
-        final Statement statement = connection.createStatement();
-        final ResultSet resultSet = statement.executeQuery(sql.toString());
-        resultSet.next();
-        final int numValues = resultSet.getInt(1);
-        return numValues > 0;
     }
 
     private TimeAxis getTimeAxis(ResultSet resultSet) throws SQLException {
-        final PGgeometry axis = (PGgeometry) resultSet.getObject("Axis");
-        if (axis == null) {
+        final LineString axisGeometry = (LineString) getGeometry(resultSet, "AxisData", "Axis");
+        if (axisGeometry == null) {
             return null;
         }
-        final String axisWkt = axis.getValue();
-        final LineString axisGeometry = (LineString) geometryFactory.fromStorageFormat(axisWkt.getBytes());
 
         final Timestamp startTime = resultSet.getTimestamp("StartTime");
         final java.util.Date axisStartTime = TimeUtils.toDate(startTime);
@@ -20,6 +20,8 @@
 
 package com.bc.fiduceo.db;
 
+import com.bc.fiduceo.geometry.Geometry;
+
 import java.util.Date;
 
 public class QueryParameter {
@@ -30,10 +32,14 @@ public class QueryParameter {
     private String path;
     private int pageSize;
     private int offset;
+    private Geometry geometry;
+    private Date pageStartTime;
+    private int pageStartId;
 
     public QueryParameter() {
         pageSize = -1;
         offset = -1;
+        pageStartId = -1;
     }
 
     public void setStartTime(Date startDate) {
@@ -91,4 +97,49 @@ public class QueryParameter {
     public void setOffset(int offset) {
         this.offset = offset;
     }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Restricts the query to observations intersecting the geometry. The local index driver evaluates it on
+     * its cell index, the database drivers filter the query result and reject paged queries with a geometry.
+     *
+     * @param geometry the search geometry
+     */
+    public void setGeometry(Geometry geometry) {
+        this.geometry = geometry;
+    }
+
+    public Date getPageStartTime() {
+        return pageStartTime;
+    }
+
+    public int getPageStartId() {
+        return pageStartId;
+    }
+
+    /**
+     * Sets the key of the last observation of the previous page. A paged query with a page size and without
+     * offset continues after this key, the drivers update it after each page, so that passing the same
+     * parameter again returns the next page. The SQL drivers use the start time and database ID of the
+     * observation, the other drivers the number of observations already returned.
+     *
+     * @param startTime the start time of the last observation returned, null for the first page
+     * @param id        the ID of the last observation returned, -1 for the first page
+     */
+    public void setPageStart(Date startTime, int id) {
+        this.pageStartTime = startTime;
+        this.pageStartId = id;
+    }
+
+    /**
+     * Checks whether the query is paged by key (page size set, no offset).
+     *
+     * @return true when the drivers continue the query from the page start key
+     */
+    public boolean isKeysetPaging() {
+        return pageSize >= 0 && offset < 0;
+    }
 }
@@ -30,64 +30,87 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.TimeZone;
 
+/**
+ * Access to the observation storage. A storage may be shared by concurrent threads, each storage has its own
+ * driver instance and the database drivers borrow a pooled connection per operation.
+ */
 public class Storage {
 
-    private Driver driver;
+    private volatile Driver driver;
 
     public static Storage create(BasicDataSource dataSource, GeometryFactory geometryFactory) throws SQLException {
         return new Storage(dataSource, geometryFactory);
     }
 
     public void close() throws SQLException {
-        if (driver != null) {
-            driver.close();
+        final Driver openDriver;
+        synchronized (this) {
+            openDriver = driver;
             driver = null;
         }
+
+        if (openDriver != null) {
+            openDriver.close();
+        }
     }
 
     public boolean isInitialized() throws SQLException {
-        if (driver == null) {
+        final Driver openDriver = driver;
+        if (openDriver == null) {
             return false;
         }
-        return driver.isInitialized();
+        return openDriver.isInitialized();
     }
 
     public void initialize() throws SQLException {
-        driver.initialize();
+        getDriver().initialize();
     }
 
     public void clear() throws SQLException {
-        driver.clear();
+        getDriver().clear();
     }
 
     public void insert(SatelliteObservation satelliteObservation) throws SQLException {
-        driver.insert(satelliteObservation);
+        getDriver().insert(satelliteObservation);
     }
 
     public void updatePath(SatelliteObservation satelliteObservation, String newPath) throws SQLException {
-        driver.updatePath(satelliteObservation, newPath);
+        getDriver().updatePath(satelliteObservation, newPath);
     }
 
     public List<SatelliteObservation> get() throws SQLException {
-        return driver.get();
+        return getDriver().get();
     }
 
     public List<SatelliteObservation> get(QueryParameter parameter) throws SQLException {
-        return driver.get(parameter);
+        return getDriver().get(parameter);
     }
 
     public int insert(Sensor sensor) throws SQLException {
-        return driver.insert(sensor);
+        return getDriver().insert(sensor);
     }
 
     private Storage(BasicDataSource dataSource, GeometryFactory geometryFactory) throws SQLException {
-        driver = createDriver(dataSource);
-        driver.setGeometryFactory(geometryFactory);
-        driver.open(dataSource);
+        final Driver newDriver = createDriver(dataSource);
+        newDriver.setGeometryFactory(geometryFactory);
+        newDriver.open(dataSource);
+        driver = newDriver;
     }
 
     public boolean isAlreadyRegistered(QueryParameter queryParameter) throws SQLException {
-        return driver.isAlreadyRegistered(queryParameter);
+        return getDriver().isAlreadyRegistered(queryParameter);
+    }
+
+    public int migrateGeometries() throws SQLException {
+        return getDriver().migrateGeometries();
+    }
+
+    private Driver getDriver() throws SQLException {
+        final Driver openDriver = driver;
+        if (openDriver == null) {
+            throw new SQLException("Storage is closed");
+        }
+        return openDriver;
     }
 
     private Driver createDriver(BasicDataSource dataSource) {
@@ -97,6 +120,6 @@ public class Storage {
         final String dbUrl = dataSource.getUrl().toLowerCase();
 
         final DriverUtils syDriverUtils = new DriverUtils();
-        return syDriverUtils.getDriver(dbUrl);
+        return syDriverUtils.createDriver(dbUrl);
     }
 }
@@ -80,11 +80,21 @@ public class GeometryFactory extends AbstractGeometryFactory {
         return factoryImpl.createPolygon(points);
     }
 
+    @Override
+    public Polygon createPolygon(double[] lons, double[] lats, int numPoints) {
+        return factoryImpl.createPolygon(lons, lats, numPoints);
+    }
+
     @Override
     public LineString createLineString(List<Point> points) {
         return factoryImpl.createLineString(points);
     }
 
+    @Override
+    public LineString createLineString(double[] lons, double[] lats, int numPoints) {
+        return factoryImpl.createLineString(lons, lats, numPoints);
+    }
+
     @Override
     public MultiPolygon createMultiPolygon(List<Polygon> polygonList) {
         return factoryImpl.createMultiPolygon(polygonList);
@@ -37,8 +37,28 @@ public interface GeometryFactoryInterface {
 
     Polygon createPolygon(List<Point> points);
 
+    /**
+     * Creates a polygon from the first numPoints entries of the coordinate arrays, without intermediate points.
+     *
+     * @param lons      the longitudes in degrees
+     * @param lats      the latitudes in degrees
+     * @param numPoints the number of vertices
+     * @return the polygon
+     */
+    Polygon createPolygon(double[] lons, double[] lats, int numPoints);
+
     LineString createLineString(List<Point> points);
 
+    /**
+     * Creates a line string from the first numPoints entries of the coordinate arrays, without intermediate points.
+     *
+     * @param lons      the longitudes in degrees
+     * @param lats      the latitudes in degrees
+     * @param numPoints the number of vertices
+     * @return the line string
+     */
+    LineString createLineString(double[] lons, double[] lats, int numPoints);
+
     MultiPolygon createMultiPolygon(List<Polygon> polygonList);
 
     TimeAxis createTimeAxis(LineString lineString, Date startTime, Date endTime);
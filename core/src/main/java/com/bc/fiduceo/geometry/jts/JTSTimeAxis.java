@@ -28,11 +28,14 @@ import com.bc.fiduceo.geometry.TimeAxis;
 import com.bc.fiduceo.math.TimeInterval;
 import com.bc.fiduceo.util.TimeUtils;
 import com.vividsolutions.jts.geom.Coordinate;
-import com.vividsolutions.jts.geom.LineSegment;
 import com.vividsolutions.jts.linearref.LengthIndexedLine;
 
 import java.util.Date;
 
+/**
+ * Time axis on a planar line string. Vertex coordinates, segment lengths and the cumulative length up to each
+ * vertex are tabulated on construction, time lookups project onto the segments without creating geometries.
+ */
 class JTSTimeAxis implements TimeAxis {
 
     private final Date startTime;
@@ -41,12 +44,33 @@ class JTSTimeAxis implements TimeAxis {
     private final LengthIndexedLine lengthIndexedLine;
     private final long timeInterval;
 
+    private final int numPoints;
+    private final double[] pointX;
+    private final double[] pointY;
+    private final double[] segmentLength;
+    private final double[] cumulativeLength;
+
     JTSTimeAxis(com.vividsolutions.jts.geom.LineString lineString, Date startTime, Date endTime) {
         this.startTime = startTime;
         this.lineString = lineString;
         this.inverseAxisLength = 1.0 / lineString.getLength();
         lengthIndexedLine = new LengthIndexedLine(lineString);
         timeInterval = endTime.getTime() - startTime.getTime();
+
+        final Coordinate[] coordinates = lineString.getCoordinates();
+        numPoints = coordinates.length;
+        pointX = new double[numPoints];
+        pointY = new double[numPoints];
+        cumulativeLength = new double[numPoints];
+        segmentLength = new double[Math.max(numPoints - 1, 0)];
+        for (int i = 0; i < numPoints; i++) {
+            pointX[i] = coordinates[i].x;
+            pointY[i] = coordinates[i].y;
+            if (i > 0) {
+                segmentLength[i - 1] = coordinates[i].distance(coordinates[i - 1]);
+                cumulativeLength[i] = cumulativeLength[i - 1] + segmentLength[i - 1];
+            }
+        }
     }
 
     @Override
@@ -76,15 +100,11 @@ class JTSTimeAxis implements TimeAxis {
         final com.vividsolutions.jts.geom.LineString inner = (com.vividsolutions.jts.geom.LineString) polygonSide.getInner();
         final int numPoints = inner.getNumPoints();
 
-        Coordinate startProjection;
-        final com.vividsolutions.jts.geom.Point startPoint = inner.getPointN(0);
-        startProjection = findProjection(startPoint.getCoordinate());
-
-        final com.vividsolutions.jts.geom.Point endPoint = inner.getPointN(numPoints - 1);
-        final Coordinate endProjection = findProjection(endPoint.getCoordinate());
+        final Coordinate startPoint = inner.getCoordinateN(0);
+        final double startOffset = getProjectionLength(startPoint.x, startPoint.y);
 
-        final double startOffset = lengthIndexedLine.indexOf(startProjection);
-        final double endOffset = lengthIndexedLine.indexOf(endProjection);
+        final Coordinate endPoint = inner.getCoordinateN(numPoints - 1);
+        final double endOffset = getProjectionLength(endPoint.x, endPoint.y);
 
         final double relativeStartOffset;
         final double relativeEndOffset;
@@ -108,12 +128,11 @@ class JTSTimeAxis implements TimeAxis {
     @Override
     public Date getTime(Point coordinate) {
         final com.vividsolutions.jts.geom.Coordinate inner = (Coordinate) coordinate.getInner();
-        final Coordinate projection = findProjection(inner);
-        if (projection == null) {
+        final double pointLength = getProjectionLength(inner.x, inner.y);
+        if (Double.isNaN(pointLength)) {
             return null;
         }
 
-        final double pointLength = lengthIndexedLine.indexOf(projection);
         final double relativeOffset = pointLength * inverseAxisLength;
         final long offsetTime = (long) (timeInterval * relativeOffset);
         final long startMillis = startTime.getTime() + offsetTime;
@@ -141,23 +160,63 @@ class JTSTimeAxis implements TimeAxis {
         throw new RuntimeException("not implemented");
     }
 
-    private Coordinate findProjection(Coordinate coordinate) {
-        // @todo 2 tb/tb we can speed up this routine by starting searching in the middle of the line
-        // go to one direction, if the abs-value of the projectionFactor increases, search in the other direction
-        // projectionFactor abs-value should decrease if we`re going in the right direction 2015-08-14
-
-        final int numPoints = lineString.getNumPoints();
-
+    // package access for testing only
+    /**
+     * Projects the point onto the first segment whose normal through the point hits the segment and returns the
+     * line length from the start to the projected point. The segment fractions are calculated like in JTS
+     * LineSegment, the result equals LengthIndexedLine.indexOf() of the projected point. The first hit is defined
+     * by the segment order and the band of points projecting onto a segment is unbounded, so segments cannot be
+     * skipped by their location and the search stays a scan.
+     *
+     * @param x the point x coordinate
+     * @param y the point y coordinate
+     * @return the length along the line or NaN if the point does not project onto any segment
+     */
+    double getProjectionLength(double x, double y) {
         for (int n = 0; n < numPoints - 1; n++) {
-            final com.vividsolutions.jts.geom.Point point1 = lineString.getPointN(n);
-            final com.vividsolutions.jts.geom.Point point2 = lineString.getPointN(n + 1);
-            final LineSegment lineSegment = new LineSegment(point1.getCoordinate(), point2.getCoordinate());
-            final double projectionFactor = lineSegment.projectionFactor(coordinate);
+            final double projectionFactor = getProjectionFactor(n, x, y);
             if (projectionFactor >= 0.0 && projectionFactor <= 1.0) {
-                return lineSegment.project(coordinate);
+                final double projectedX;
+                final double projectedY;
+                if (isVertex(n, x, y) || isVertex(n + 1, x, y)) {
+                    projectedX = x;
+                    projectedY = y;
+                } else {
+                    projectedX = pointX[n] + projectionFactor * (pointX[n + 1] - pointX[n]);
+                    projectedY = pointY[n] + projectionFactor * (pointY[n + 1] - pointY[n]);
+                }
+
+                double segmentFraction = getProjectionFactor(n, projectedX, projectedY);
+                if (segmentFraction < 0.0) {
+                    segmentFraction = 0.0;
+                } else if (segmentFraction > 1.0 || Double.isNaN(segmentFraction)) {
+                    segmentFraction = 1.0;
+                }
+                return cumulativeLength[n] + segmentLength[n] * segmentFraction;
             }
         }
 
-        return null;
+        return Double.NaN;
+    }
+
+    private double getProjectionFactor(int segment, double x, double y) {
+        if (isVertex(segment, x, y)) {
+            return 0.0;
+        }
+        if (isVertex(segment + 1, x, y)) {
+            return 1.0;
+        }
+
+        final double dx = pointX[segment + 1] - pointX[segment];
+        final double dy = pointY[segment + 1] - pointY[segment];
+        final double length2 = dx * dx + dy * dy;
+        if (length2 <= 0.0) {
+            return Double.NaN;
+        }
+        return ((x - pointX[segment]) * dx + (y - pointY[segment]) * dy) / length2;
+    }
+
+    private boolean isVertex(int index, double x, double y) {
+        return pointX[index] == x && pointY[index] == y;
     }
 }
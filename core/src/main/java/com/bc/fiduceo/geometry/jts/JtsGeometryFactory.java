@@ -30,9 +30,11 @@ import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.MultiPolygon;
 import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBConstants;
 import com.vividsolutions.jts.io.WKBReader;
 import com.vividsolutions.jts.io.WKBWriter;
 import com.vividsolutions.jts.io.WKTReader;
+import com.vividsolutions.jts.io.WKTWriter;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -44,15 +46,10 @@ public class JtsGeometryFactory extends AbstractGeometryFactory {
     private final com.vividsolutions.jts.geom.Polygon eastShiftedGlobe;
     private final com.vividsolutions.jts.geom.Polygon centralGlobe;
 
-    private final WKTReader wktReader;
+    // the JTS WKT and WKB readers and writers are not thread safe, they are created per call
     private final GeometryFactory geometryFactory;
-    private final WKBWriter wkbWriter;
-    private final WKBReader wkbReader;
 
     public JtsGeometryFactory() {
-        wktReader = new WKTReader();
-        wkbWriter = new WKBWriter();
-        wkbReader = new WKBReader();
         geometryFactory = new GeometryFactory();
 
         centralGlobe = createCentralGlobe();
@@ -97,7 +94,7 @@ public class JtsGeometryFactory extends AbstractGeometryFactory {
     public Geometry parse(String wkt) {
         final com.vividsolutions.jts.geom.Geometry geometry;
         try {
-            geometry = wktReader.read(wkt);
+            geometry = new WKTReader().read(wkt);
         } catch (ParseException e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -107,28 +104,29 @@ public class JtsGeometryFactory extends AbstractGeometryFactory {
 
     @Override
     public String format(Geometry geometry) {
-        throw new RuntimeException("not implemented");
+        return new WKTWriter().write(toJtsGeometry(geometry));
     }
 
     @Override
     public byte[] toStorageFormat(Geometry geometry) {
-        com.vividsolutions.jts.geom.Geometry jtsGeometry;
-        final Object inner = geometry.getInner();
-        if (inner instanceof Coordinate) {
-            final Coordinate jtsCoordinate = (Coordinate) inner;
-            jtsGeometry = geometryFactory.createPoint(jtsCoordinate);
-        } else {
-            jtsGeometry = (com.vividsolutions.jts.geom.Geometry) inner;
-        }
-
-        return wkbWriter.write(jtsGeometry);
+        return new WKBWriter().write(toJtsGeometry(geometry));
     }
 
+    /**
+     * Decodes WKB. WKT byte arrays, as delivered by the text based geometry columns, are still accepted.
+     *
+     * @param rawData the stored geometry
+     * @return the geometry
+     */
     @Override
     public Geometry fromStorageFormat(byte[] rawData) {
+        if (!isWkb(rawData)) {
+            return parse(new String(rawData));
+        }
+
         final com.vividsolutions.jts.geom.Geometry geometry;
         try {
-            geometry = wkbReader.read(rawData);
+            geometry = new WKBReader().read(rawData);
         } catch (ParseException e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -136,6 +134,21 @@ public class JtsGeometryFactory extends AbstractGeometryFactory {
         return convertGeometry(geometry);
     }
 
+    // package access for testing only
+    static boolean isWkb(byte[] rawData) {
+        // WKB starts with the byte order flag, WKT with a letter
+        return rawData.length > 0 && (rawData[0] == WKBConstants.wkbXDR || rawData[0] == WKBConstants.wkbNDR);
+    }
+
+    private com.vividsolutions.jts.geom.Geometry toJtsGeometry(Geometry geometry) {
+        final Object inner = geometry.getInner();
+        if (inner instanceof Coordinate) {
+            final Coordinate jtsCoordinate = (Coordinate) inner;
+            return geometryFactory.createPoint(jtsCoordinate);
+        }
+        return (com.vividsolutions.jts.geom.Geometry) inner;
+    }
+
     @Override
     public Point createPoint(double lon, double lat) {
         final Coordinate coordinate = new Coordinate(lon, lat);
@@ -147,6 +160,10 @@ public class JtsGeometryFactory extends AbstractGeometryFactory {
         ensureClosedPolygon(points);
         final Coordinate[] coordinates = extractCoordinates(points);
 
+        return createPolygon(coordinates);
+    }
+
+    private Polygon createPolygon(Coordinate[] coordinates) {
         JtsUtils.normalizePolygon(coordinates);
         final com.vividsolutions.jts.geom.Polygon polygon = geometryFactory.createPolygon(coordinates);
         final com.vividsolutions.jts.geom.Polygon[] polygons = mapToGlobe(polygon);
@@ -158,6 +175,20 @@ public class JtsGeometryFactory extends AbstractGeometryFactory {
         }
     }
 
+    @Override
+    public Polygon createPolygon(double[] lons, double[] lats, int numPoints) {
+        final boolean closed = lons[0] == lons[numPoints - 1] && lats[0] == lats[numPoints - 1];
+        final int numCoordinates = closed ? numPoints : numPoints + 1;
+        final Coordinate[] coordinates = new Coordinate[numCoordinates];
+        for (int i = 0; i < numCoordinates - 1; i++) {
+            coordinates[i] = new Coordinate(lons[i], lats[i]);
+        }
+        // the ring is closed with the first coordinate instance, like the closed point lists of the readers
+        coordinates[numCoordinates - 1] = coordinates[0];
+
+        return createPolygon(coordinates);
+    }
+
     @Override
     public LineString createLineString(List<Point> points) {
         final Coordinate[] coordinates = extractCoordinates(points);
@@ -166,6 +197,17 @@ public class JtsGeometryFactory extends AbstractGeometryFactory {
         return new JTSLineString(lineString);
     }
 
+    @Override
+    public LineString createLineString(double[] lons, double[] lats, int numPoints) {
+        final Coordinate[] coordinates = new Coordinate[numPoints];
+        for (int i = 0; i < numPoints; i++) {
+            coordinates[i] = new Coordinate(lons[i], lats[i]);
+        }
+
+        final com.vividsolutions.jts.geom.LineString lineString = geometryFactory.createLineString(coordinates);
+        return new JTSLineString(lineString);
+    }
+
     @Override
     public com.bc.fiduceo.geometry.MultiPolygon createMultiPolygon(List<Polygon> polygonList) {
         return null;
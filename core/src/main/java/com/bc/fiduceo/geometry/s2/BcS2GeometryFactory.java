@@ -26,21 +26,17 @@ import com.bc.geometry.s2.S2WKTWriter;
 import com.google.common.geometry.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
 public class BcS2GeometryFactory extends AbstractGeometryFactory {
 
-    private final S2WKTReader s2WKTReader;
-
-    public BcS2GeometryFactory() {
-        s2WKTReader = new S2WKTReader();
-    }
-
     @SuppressWarnings("unchecked")
     @Override
     public Geometry parse(String wkt) {
-        final Object geometry = s2WKTReader.read(wkt);
+        // the reader keeps its tokenizer as state, it is not thread safe
+        final Object geometry = new S2WKTReader().read(wkt);
         if (geometry instanceof S2Polygon) {
             return new BcS2Polygon(geometry);
         } else if (geometry instanceof S2Polyline) {
@@ -65,12 +61,20 @@ public class BcS2GeometryFactory extends AbstractGeometryFactory {
 
     @Override
     public byte[] toStorageFormat(Geometry geometry) {
-        final String wkt = S2WKTWriter.write(geometry.getInner());
-        return wkt.getBytes();
+        return BcS2StorageFormat.encode(geometry);
     }
 
+    /**
+     * Decodes the binary storage format. WKT byte arrays, as written by previous versions, are still accepted.
+     *
+     * @param rawData the stored geometry
+     * @return the geometry
+     */
     @Override
     public Geometry fromStorageFormat(byte[] rawData) {
+        if (BcS2StorageFormat.isBinary(rawData)) {
+            return BcS2StorageFormat.decode(rawData);
+        }
         final String geometryWkt = new String(rawData);
         return parse(geometryWkt);
     }
@@ -98,6 +102,20 @@ public class BcS2GeometryFactory extends AbstractGeometryFactory {
         return new BcS2Polygon(googlePolygon);
     }
 
+    @Override
+    public Polygon createPolygon(double[] lons, double[] lats, int numPoints) {
+        final S2Point[] loopPoints = toS2Points(lons, lats, numPoints);
+        int numLoopPoints = numPoints;
+        if (loopPoints[0].equals(loopPoints[numPoints - 1])) {
+            --numLoopPoints;
+        }
+
+        final S2Loop s2Loop = new S2Loop(Arrays.asList(loopPoints).subList(0, numLoopPoints));
+
+        final S2Polygon googlePolygon = new S2Polygon(s2Loop);
+        return new BcS2Polygon(googlePolygon);
+    }
+
     @Override
     public LineString createLineString(List<Point> points) {
         final List<S2Point> loopPoints = extractS2Points(points);
@@ -106,6 +124,14 @@ public class BcS2GeometryFactory extends AbstractGeometryFactory {
         return new BcS2LineString(s2Polyline);
     }
 
+    @Override
+    public LineString createLineString(double[] lons, double[] lats, int numPoints) {
+        final S2Point[] points = toS2Points(lons, lats, numPoints);
+
+        final S2Polyline s2Polyline = new S2Polyline(Arrays.asList(points));
+        return new BcS2LineString(s2Polyline);
+    }
+
     @Override
     public MultiPolygon createMultiPolygon(List<Polygon> polygonList) {
         return new BcS2MultiPolygon(polygonList);
@@ -117,6 +143,18 @@ public class BcS2GeometryFactory extends AbstractGeometryFactory {
         return new BcS2TimeAxis(lineString, startTime, endTime);
     }
 
+    // same conversion as S2LatLng.fromDegrees(lat, lon).toPoint()
+    static S2Point[] toS2Points(double[] lons, double[] lats, int numPoints) {
+        final S2Point[] points = new S2Point[numPoints];
+        for (int i = 0; i < numPoints; i++) {
+            final double phi = lats[i] * (Math.PI / 180);
+            final double theta = lons[i] * (Math.PI / 180);
+            final double cosPhi = Math.cos(phi);
+            points[i] = new S2Point(Math.cos(theta) * cosPhi, Math.sin(theta) * cosPhi, Math.sin(phi));
+        }
+        return points;
+    }
+
     static List<S2Point> extractS2Points(List<Point> points) {
         final ArrayList<S2Point> loopPoints = new ArrayList<>();
 
@@ -21,6 +21,7 @@ package com.bc.fiduceo.geometry.s2;
 
 import com.bc.fiduceo.geometry.*;
 import com.google.common.geometry.S2LatLng;
+import com.google.common.geometry.S2LatLngRect;
 import com.google.common.geometry.S2Polygon;
 import com.google.common.geometry.S2Polyline;
 
@@ -33,6 +34,7 @@ import java.util.List;
  */
 class BcS2MultiPolygon implements MultiPolygon {
     private List<Polygon> polygonList;
+    private S2LatLngRect rectBound;
 
     BcS2MultiPolygon(List<Polygon> polygonList) {
         this.polygonList = polygonList;
@@ -143,8 +145,27 @@ class BcS2MultiPolygon implements MultiPolygon {
         return BcS2MultiLineString.createFrom(lineStrings);
     }
 
+    /**
+     * @return the union of the bounding rectangles of the polygons, calculated on first use
+     */
+    S2LatLngRect getRectBound() {
+        if (rectBound == null) {
+            S2LatLngRect bound = S2LatLngRect.empty();
+            for (final Polygon polygon : polygonList) {
+                bound = bound.union(((BcS2Polygon) polygon).getRectBound());
+            }
+            rectBound = bound;
+        }
+        return rectBound;
+    }
+
     private Geometry intersectPolygon(BcS2Polygon other) {
         final List<Polygon> resultList = new ArrayList<>();
+        if (!getRectBound().intersects(other.getRectBound())) {
+            // disjoint for sure, no need to intersect the polygons one by one
+            return new BcS2MultiPolygon(resultList);
+        }
+
         for (final Polygon s2Polygon : polygonList) {
 
             final Polygon intersection = (Polygon) s2Polygon.getIntersection(other);
@@ -161,6 +182,10 @@ class BcS2MultiPolygon implements MultiPolygon {
 
     private Geometry intersectMultiPolygon(BcS2MultiPolygon other) {
         final List<Polygon> resultList = new ArrayList<>();
+        if (!getRectBound().intersects(other.getRectBound())) {
+            return new BcS2MultiPolygon(resultList);
+        }
+
         for (final Polygon otherPolygon : other.polygonList) {
             final Geometry intersection = intersectPolygon((BcS2Polygon) otherPolygon);
             if (intersection.isValid()) {
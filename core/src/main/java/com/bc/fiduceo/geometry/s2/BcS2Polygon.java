@@ -24,18 +24,26 @@ package com.bc.fiduceo.geometry.s2;
 import com.bc.fiduceo.geometry.Geometry;
 import com.bc.fiduceo.geometry.Point;
 import com.bc.fiduceo.geometry.Polygon;
+import com.google.common.geometry.S2Cap;
+import com.google.common.geometry.S2CellUnion;
 import com.google.common.geometry.S2LatLng;
+import com.google.common.geometry.S2LatLngRect;
 import com.google.common.geometry.S2Loop;
 import com.google.common.geometry.S2Point;
 import com.google.common.geometry.S2Polygon;
 import com.google.common.geometry.S2Polyline;
+import com.google.common.geometry.S2RegionCoverer;
 
 import java.util.ArrayList;
 import java.util.List;
 
 class BcS2Polygon implements Polygon {
 
+    private static final int COVERING_MAX_CELLS = 8;
+
     private final S2Polygon googlePolygon;
+    private S2Cap capBound;
+    private S2CellUnion covering;
 
     BcS2Polygon(Object geometry) {
         this.googlePolygon = (S2Polygon) geometry;
@@ -195,13 +203,20 @@ class BcS2Polygon implements Polygon {
         return new BcS2MultiLineString(intersection);
     }
 
-    @SuppressWarnings("unchecked")
     private Geometry intersectMultiPolygon(Geometry other) {
-        final List<S2Polygon> polygonList = (List<S2Polygon>) other.getInner();
+        final BcS2MultiPolygon multiPolygon = (BcS2MultiPolygon) other;
+        if (!getRectBound().intersects(multiPolygon.getRectBound())) {
+            return new BcS2MultiPolygon(new ArrayList<>());
+        }
+
+        final List<Polygon> polygonList = multiPolygon.getPolygons();
         List<S2Polygon> intersectionResult = new ArrayList<>();
-        for (final S2Polygon polygon : polygonList) {
+        for (final Polygon polygon : polygonList) {
+            if (!mayIntersect((BcS2Polygon) polygon)) {
+                continue;
+            }
             final S2Polygon intersection = new S2Polygon();
-            intersection.initToIntersection(googlePolygon, polygon);
+            intersection.initToIntersection(googlePolygon, (S2Polygon) polygon.getInner());
             if (intersection.numLoops() != 0) {
                 intersectionResult.add(intersection);
             }
@@ -219,7 +234,67 @@ class BcS2Polygon implements Polygon {
 
     private Geometry intersectPolygon(Geometry other) {
         final S2Polygon intersection = new S2Polygon();
-        intersection.initToIntersection(googlePolygon, (S2Polygon) other.getInner());
+        if (mayIntersect((BcS2Polygon) other)) {
+            intersection.initToIntersection(googlePolygon, (S2Polygon) other.getInner());
+        }
         return new BcS2Polygon(intersection);
     }
+
+    /**
+     * Cheap conservative test, rejects most disjoint polygon pairs before the exact intersection is calculated.
+     * Tests the bounding caps, then the bounding rectangles and finally coarse cell coverings, which are
+     * calculated on first use and kept with the polygon.
+     *
+     * @param other the other polygon
+     * @return false if the polygons are disjoint for sure
+     */
+    boolean mayIntersect(BcS2Polygon other) {
+        if (isEmpty() || other.isEmpty()) {
+            return false;
+        }
+
+        if (!capsIntersect(getCapBound(), other.getCapBound())) {
+            return false;
+        }
+
+        if (!getRectBound().intersects(other.getRectBound())) {
+            return false;
+        }
+
+        return getCovering().intersects(other.getCovering());
+    }
+
+    S2Cap getCapBound() {
+        if (capBound == null) {
+            capBound = googlePolygon.getCapBound();
+        }
+        return capBound;
+    }
+
+    S2LatLngRect getRectBound() {
+        // cached by the S2Polygon
+        return googlePolygon.getRectBound();
+    }
+
+    S2CellUnion getCovering() {
+        if (covering == null) {
+            final S2RegionCoverer coverer = new S2RegionCoverer();
+            coverer.setMaxCells(COVERING_MAX_CELLS);
+            covering = coverer.getCovering(googlePolygon);
+        }
+        return covering;
+    }
+
+    // package access for testing only
+    static boolean capsIntersect(S2Cap cap, S2Cap other) {
+        if (cap.isEmpty() || other.isEmpty()) {
+            return false;
+        }
+        if (cap.isFull() || other.isFull()) {
+            return true;
+        }
+
+        final double axisDistance = cap.axis().angle(other.axis());
+        return axisDistance <= cap.angle().radians() + other.angle().radians();
+    }
 }
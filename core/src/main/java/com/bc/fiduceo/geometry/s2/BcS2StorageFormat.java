@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.geometry.s2;
+
+import com.bc.fiduceo.geometry.Geometry;
+import com.bc.fiduceo.geometry.Polygon;
+import com.google.common.geometry.R1Interval;
+import com.google.common.geometry.S1Interval;
+import com.google.common.geometry.S2LatLng;
+import com.google.common.geometry.S2LatLngRect;
+import com.google.common.geometry.S2Loop;
+import com.google.common.geometry.S2Point;
+import com.google.common.geometry.S2Polygon;
+import com.google.common.geometry.S2Polyline;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary storage format for S2 geometries. Vertices are stored as packed S2Point coordinates, loops additionally
+ * carry their precomputed bounding rectangle, origin flag and first logical vertex. Decoding thus needs neither
+ * number parsing nor trigonometry and skips the loop initialisation the S2Loop constructor runs on plain vertex lists.
+ * <p>
+ * Layout (big endian): marker byte 0x00, version byte, type byte, followed by the type specific body.
+ */
+class BcS2StorageFormat {
+
+    static final byte VERSION = 1;
+
+    static final byte TYPE_POINT = 1;
+    static final byte TYPE_LINESTRING = 2;
+    static final byte TYPE_POLYGON = 3;
+    static final byte TYPE_MULTIPOLYGON = 4;
+    static final byte TYPE_MULTILINESTRING = 5;
+
+    // WKT always starts with a letter, a leading zero byte can never be confused with the legacy text format
+    private static final byte MARKER = 0;
+    private static final int HEADER_SIZE = 3;
+
+    static boolean isBinary(byte[] rawData) {
+        return rawData.length >= HEADER_SIZE && rawData[0] == MARKER;
+    }
+
+    @SuppressWarnings("unchecked")
+    static byte[] encode(Geometry geometry) {
+        final Object inner = geometry.getInner();
+        if (inner instanceof S2LatLng) {
+            final ByteBuffer buffer = allocate(TYPE_POINT, 2 * 8);
+            final S2LatLng latLng = (S2LatLng) inner;
+            buffer.putDouble(latLng.latRadians());
+            buffer.putDouble(latLng.lngRadians());
+            return buffer.array();
+        } else if (inner instanceof S2Polyline) {
+            final S2Polyline polyline = (S2Polyline) inner;
+            final ByteBuffer buffer = allocate(TYPE_LINESTRING, getSize(polyline));
+            putPolyline(polyline, buffer);
+            return buffer.array();
+        } else if (inner instanceof S2Polygon) {
+            final S2Polygon polygon = (S2Polygon) inner;
+            final ByteBuffer buffer = allocate(TYPE_POLYGON, getSize(polygon));
+            putPolygon(polygon, buffer);
+            return buffer.array();
+        } else if (geometry instanceof BcS2MultiPolygon) {
+            final List<S2Polygon> polygons = (List<S2Polygon>) inner;
+            int size = 4;
+            for (final S2Polygon polygon : polygons) {
+                size += getSize(polygon);
+            }
+            final ByteBuffer buffer = allocate(TYPE_MULTIPOLYGON, size);
+            buffer.putInt(polygons.size());
+            for (final S2Polygon polygon : polygons) {
+                putPolygon(polygon, buffer);
+            }
+            return buffer.array();
+        } else if (geometry instanceof BcS2MultiLineString) {
+            final List<S2Polyline> polylines = (List<S2Polyline>) inner;
+            int size = 4;
+            for (final S2Polyline polyline : polylines) {
+                size += getSize(polyline);
+            }
+            final ByteBuffer buffer = allocate(TYPE_MULTILINESTRING, size);
+            buffer.putInt(polylines.size());
+            for (final S2Polyline polyline : polylines) {
+                putPolyline(polyline, buffer);
+            }
+            return buffer.array();
+        }
+
+        throw new IllegalArgumentException("unsupported geometry type: " + geometry.toString());
+    }
+
+    static Geometry decode(byte[] rawData) {
+        if (!isBinary(rawData)) {
+            throw new IllegalArgumentException("not a binary S2 geometry");
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(rawData);
+        buffer.get();
+        final byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("unsupported binary geometry version: " + version);
+        }
+
+        final byte type = buffer.get();
+        switch (type) {
+            case TYPE_POINT:
+                final double latRadians = buffer.getDouble();
+                final double lngRadians = buffer.getDouble();
+                return new BcS2Point(S2LatLng.fromRadians(latRadians, lngRadians));
+
+            case TYPE_LINESTRING:
+                return new BcS2LineString(getPolyline(buffer));
+
+            case TYPE_POLYGON:
+                return new BcS2Polygon(getPolygon(buffer));
+
+            case TYPE_MULTIPOLYGON:
+                final int numPolygons = buffer.getInt();
+                final List<Polygon> polygons = new ArrayList<>(numPolygons);
+                for (int i = 0; i < numPolygons; i++) {
+                    polygons.add(new BcS2Polygon(getPolygon(buffer)));
+                }
+                return new BcS2MultiPolygon(polygons);
+
+            case TYPE_MULTILINESTRING:
+                final int numPolylines = buffer.getInt();
+                final List<S2Polyline> polylines = new ArrayList<>(numPolylines);
+                for (int i = 0; i < numPolylines; i++) {
+                    polylines.add(getPolyline(buffer));
+                }
+                return new BcS2MultiLineString(polylines);
+
+            default:
+                throw new IllegalArgumentException("unsupported binary geometry type: " + type);
+        }
+    }
+
+    private static ByteBuffer allocate(byte type, int bodySize) {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bodySize);
+        buffer.put(MARKER);
+        buffer.put(VERSION);
+        buffer.put(type);
+        return buffer;
+    }
+
+    private static int getSize(S2Polyline polyline) {
+        return 4 + polyline.numVertices() * 3 * 8;
+    }
+
+    private static int getSize(S2Polygon polygon) {
+        int size = 4;
+        final int numLoops = polygon.numLoops();
+        for (int i = 0; i < numLoops; i++) {
+            // numVertices, originInside, firstLogicalVertex, bound, vertices
+            size += 4 + 1 + 4 + 4 * 8 + polygon.loop(i).numVertices() * 3 * 8;
+        }
+        return size;
+    }
+
+    private static void putPolyline(S2Polyline polyline, ByteBuffer buffer) {
+        final int numVertices = polyline.numVertices();
+        buffer.putInt(numVertices);
+        for (int i = 0; i < numVertices; i++) {
+            putPoint(polyline.vertex(i), buffer);
+        }
+    }
+
+    private static S2Polyline getPolyline(ByteBuffer buffer) {
+        final int numVertices = buffer.getInt();
+        final List<S2Point> vertices = new ArrayList<>(numVertices);
+        for (int i = 0; i < numVertices; i++) {
+            vertices.add(getPoint(buffer));
+        }
+        return new S2Polyline(vertices);
+    }
+
+    private static void putPolygon(S2Polygon polygon, ByteBuffer buffer) {
+        final int numLoops = polygon.numLoops();
+        buffer.putInt(numLoops);
+        for (int i = 0; i < numLoops; i++) {
+            final S2Loop loop = polygon.loop(i);
+            final int numVertices = loop.numVertices();
+            buffer.putInt(numVertices);
+            buffer.put((byte) (loop.isOriginInside() ? 1 : 0));
+            buffer.putInt(loop.getFirstLogicalVertex());
+
+            final S2LatLngRect bound = loop.getRectBound();
+            buffer.putDouble(bound.lat().lo());
+            buffer.putDouble(bound.lat().hi());
+            buffer.putDouble(bound.lng().lo());
+            buffer.putDouble(bound.lng().hi());
+
+            for (int k = 0; k < numVertices; k++) {
+                putPoint(loop.vertex(k), buffer);
+            }
+        }
+    }
+
+    private static S2Polygon getPolygon(ByteBuffer buffer) {
+        final int numLoops = buffer.getInt();
+        if (numLoops == 0) {
+            return new S2Polygon();
+        }
+
+        final List<S2Loop> loops = new ArrayList<>(numLoops);
+        for (int i = 0; i < numLoops; i++) {
+            final int numVertices = buffer.getInt();
+            final boolean originInside = buffer.get() != 0;
+            final int firstLogicalVertex = buffer.getInt();
+
+            final R1Interval lat = new R1Interval(buffer.getDouble(), buffer.getDouble());
+            final S1Interval lng = new S1Interval(buffer.getDouble(), buffer.getDouble());
+            final S2LatLngRect bound = new S2LatLngRect(lat, lng);
+
+            final S2Point[] vertices = new S2Point[numVertices];
+            for (int k = 0; k < numVertices; k++) {
+                vertices[k] = getPoint(buffer);
+            }
+            loops.add(new S2Loop(vertices, bound, firstLogicalVertex, originInside));
+        }
+
+        if (numLoops == 1) {
+            return new S2Polygon(loops.get(0));
+        }
+        // sets up the loop nesting depths, the loops are already stored in nesting order
+        return new S2Polygon(loops);
+    }
+
+    private static void putPoint(S2Point point, ByteBuffer buffer) {
+        buffer.putDouble(point.get(0));
+        buffer.putDouble(point.get(1));
+        buffer.putDouble(point.get(2));
+    }
+
+    private static S2Point getPoint(ByteBuffer buffer) {
+        return new S2Point(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    }
+}
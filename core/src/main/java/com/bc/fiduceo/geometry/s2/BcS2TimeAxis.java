@@ -29,20 +29,94 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+/**
+ * Time axis on an S2 polyline. The edge normals and the cumulative arc length up to each vertex are computed on
+ * construction, a time lookup projects the point onto the nearest edge in place and adds the arc length on that
+ * edge to the table value - no sub-polylines or intermediate points are created. The nearest edge is searched in a
+ * binary tree of bounding caps over the edges.
+ */
 class BcS2TimeAxis implements TimeAxis {
 
+    private static final double BOUND_MARGIN = 1.0 + 1e-9;
+    private static final double CAP_MARGIN = 1e-12;
+    private static final int MAX_LEAF_EDGES = 8;
+
     private final S2Polyline polyline;
     private LineString originalGeometry;
     private final double invLength;
     private final Date startTime;
     private final long timeInterval;
 
+    private final int numVertices;
+    private final double[] vertexX;
+    private final double[] vertexY;
+    private final double[] vertexZ;
+    private final double[] normalX;
+    private final double[] normalY;
+    private final double[] normalZ;
+    private final double[] normalNorm;
+    private final double[] normalNorm2;
+    private final double[] cumulativeLength;
+
+    // edge tree in pre-order: each node bounds the edges [nodeStart, nodeEnd) by a cap, nodeSkip is the index of the
+    // node following its subtree
+    private final int[] nodeStart;
+    private final int[] nodeEnd;
+    private final int[] nodeSkip;
+    private final double[] capX;
+    private final double[] capY;
+    private final double[] capZ;
+    private final double[] capRadius;
+
     BcS2TimeAxis(LineString lineString, Date startTime, Date endTime) {
         originalGeometry = lineString;
         this.polyline = (S2Polyline) lineString.getInner();
 
-        final S1Angle arclengthAngle = polyline.getArclengthAngle();
-        this.invLength = 1.0 / arclengthAngle.radians();
+        numVertices = polyline.numVertices();
+        vertexX = new double[numVertices];
+        vertexY = new double[numVertices];
+        vertexZ = new double[numVertices];
+        cumulativeLength = new double[numVertices];
+        for (int i = 0; i < numVertices; i++) {
+            final S2Point vertex = polyline.vertex(i);
+            vertexX[i] = vertex.getX();
+            vertexY[i] = vertex.getY();
+            vertexZ[i] = vertex.getZ();
+            if (i > 0) {
+                cumulativeLength[i] = cumulativeLength[i - 1] + polyline.vertex(i - 1).angle(vertex);
+            }
+        }
+
+        final int numEdges = Math.max(numVertices - 1, 0);
+        normalX = new double[numEdges];
+        normalY = new double[numEdges];
+        normalZ = new double[numEdges];
+        normalNorm = new double[numEdges];
+        normalNorm2 = new double[numEdges];
+        for (int i = 0; i < numEdges; i++) {
+            final S2Point normal = S2.robustCrossProd(polyline.vertex(i), polyline.vertex(i + 1));
+            normalX[i] = normal.getX();
+            normalY[i] = normal.getY();
+            normalZ[i] = normal.getZ();
+            normalNorm[i] = normal.norm();
+            normalNorm2[i] = normal.norm2();
+        }
+
+        final int numNodes = countNodes(0, numEdges);
+        nodeStart = new int[numNodes];
+        nodeEnd = new int[numNodes];
+        nodeSkip = new int[numNodes];
+        capX = new double[numNodes];
+        capY = new double[numNodes];
+        capZ = new double[numNodes];
+        capRadius = new double[numNodes];
+        if (numEdges > 0) {
+            createNodes(0, 0, numEdges);
+        }
+
+        // same summation as S2Polyline.getArclengthAngle()
+        final double arcLength = numVertices > 0 ? cumulativeLength[numVertices - 1] : 0.0;
+        this.invLength = 1.0 / arcLength;
 
         this.startTime = startTime;
         this.timeInterval = endTime.getTime() - startTime.getTime();
@@ -63,10 +137,10 @@ class BcS2TimeAxis implements TimeAxis {
         final S2Polyline intersection = s2Polylines.get(0);
 
         final S2Point intersectionStartPoint = intersection.vertex(0);
-        final long offsetTime = calculateLineDuration(intersectionStartPoint);
+        final long offsetTime = calculateLineDuration(intersectionStartPoint.getX(), intersectionStartPoint.getY(), intersectionStartPoint.getZ());
 
         final S2Point intersectionEndPoint = intersection.vertex(intersection.numVertices() - 1);
-        final long totalTime = calculateLineDuration(intersectionEndPoint);
+        final long totalTime = calculateLineDuration(intersectionEndPoint.getX(), intersectionEndPoint.getY(), intersectionEndPoint.getZ());
 
         final long duration = totalTime - offsetTime;
 
@@ -87,13 +161,20 @@ class BcS2TimeAxis implements TimeAxis {
 
     @Override
     public Date getTime(Point coordinate) {
-        final S2Point searchPoint = ((S2LatLng) coordinate.getInner()).toPoint();
-        final int nearestEdgeIndex = polyline.getNearestEdgeIndex(searchPoint);
+        // same as S2LatLng.toPoint(), without creating the point
+        final S2LatLng latLng = (S2LatLng) coordinate.getInner();
+        final double cosPhi = Math.cos(latLng.latRadians());
+        final double lngRadians = latLng.lngRadians();
+        final double x = Math.cos(lngRadians) * cosPhi;
+        final double y = Math.sin(lngRadians) * cosPhi;
+        final double z = Math.sin(latLng.latRadians());
+
+        final int nearestEdgeIndex = getNearestEdgeIndex(x, y, z);
         if (nearestEdgeIndex < 0) {
             return null;
         }
 
-        final long offsetTime = calculateLineDuration(searchPoint);
+        final long offsetTime = calculateLineDuration(nearestEdgeIndex, x, y, z);
         if (offsetTime > timeInterval) {
             return null;    // projection is outside the time axis range, beyond the last point tb 2015-11-23
         }
@@ -141,9 +222,229 @@ class BcS2TimeAxis implements TimeAxis {
         return new S2Polyline(vertices);
     }
 
-    private long calculateLineDuration(S2Point point) {
-        final S2Polyline offsetGeometry = createSubLineTo(point);
-        final S1Angle offsetAngle = offsetGeometry.getArclengthAngle();
-        return (long) (timeInterval * offsetAngle.radians() * invLength);
+    // package access for testing only
+    double getArcLengthTo(double x, double y, double z) {
+        final int nearestEdgeIndex = getNearestEdgeIndex(x, y, z);
+        if (nearestEdgeIndex < 0) {
+            return Double.NaN;
+        }
+        return getArcLengthTo(nearestEdgeIndex, x, y, z);
+    }
+
+    private long calculateLineDuration(double x, double y, double z) {
+        final int nearestEdgeIndex = getNearestEdgeIndex(x, y, z);
+        return calculateLineDuration(nearestEdgeIndex, x, y, z);
+    }
+
+    private long calculateLineDuration(int edgeIndex, double x, double y, double z) {
+        final double arcLength = getArcLengthTo(edgeIndex, x, y, z);
+        return (long) (timeInterval * arcLength * invLength);
+    }
+
+    // follows S2Polyline.getNearestEdgeIndex() and S2EdgeUtil.getDistance(), using the precomputed edge normals.
+    // The edges of the leaf with the closest cap give a first distance bound. Then all subtrees with a cap closer
+    // than the bound are visited in edge order, so ties resolve as in S2. The bounds carry a margin so the selected
+    // edge is exactly the one S2 would select, the arcsine is only evaluated for edges within the bound
+    private int getNearestEdgeIndex(double x, double y, double z) {
+        if (numVertices == 1) {
+            return 0;
+        }
+
+        double bound = Double.POSITIVE_INFINITY;
+        int node = 0;
+        if (!isLeaf(node)) {
+            while (!isLeaf(node)) {
+                final int left = node + 1;
+                final int right = nodeSkip[left];
+                node = getCapDistance(left, x, y, z) <= getCapDistance(right, x, y, z) ? left : right;
+            }
+            for (int i = nodeStart[node]; i < nodeEnd[node]; i++) {
+                bound = Math.min(bound, getEdgeDistance(i, x, y, z, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY));
+            }
+        }
+
+        double maxSinDist = getMaxSinDistance(bound);
+        double maxLinearDist2 = getMaxLinearDistance2(bound);
+        double minDistance = 10.0;
+        int minIndex = -1;
+        node = 0;
+        while (node < nodeStart.length) {
+            if (getCapDistance(node, x, y, z) > bound * BOUND_MARGIN + CAP_MARGIN) {
+                node = nodeSkip[node];
+                continue;
+            }
+            if (!isLeaf(node)) {
+                ++node;
+                continue;
+            }
+
+            for (int i = nodeStart[node]; i < nodeEnd[node]; i++) {
+                final double distance = getEdgeDistance(i, x, y, z, maxSinDist, maxLinearDist2);
+                if (distance < minDistance) {
+                    minDistance = distance;
+                    minIndex = i;
+
+                    if (minDistance < bound) {
+                        bound = minDistance;
+                        maxSinDist = getMaxSinDistance(bound);
+                        maxLinearDist2 = getMaxLinearDistance2(bound);
+                    }
+                }
+            }
+            ++node;
+        }
+        return minIndex;
+    }
+
+    // the angular distance to the edge, or infinity if it is beyond one of the maximal distances
+    private double getEdgeDistance(int i, double x, double y, double z, double maxSinDist, double maxLinearDist2) {
+        final double nx = normalX[i];
+        final double ny = normalY[i];
+        final double nz = normalZ[i];
+
+        if (simpleCCW(nx, ny, nz, vertexX[i], vertexY[i], vertexZ[i], x, y, z) &&
+                simpleCCW(x, y, z, vertexX[i + 1], vertexY[i + 1], vertexZ[i + 1], nx, ny, nz)) {
+            final double sinDist = Math.abs(x * nx + y * ny + z * nz) / normalNorm[i];
+            if (sinDist > maxSinDist) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return Math.asin(Math.min(1.0, sinDist));
+        }
+
+        final double linearDist2 = Math.min(getDistance2(x, y, z, i), getDistance2(x, y, z, i + 1));
+        if (linearDist2 > maxLinearDist2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return 2 * Math.asin(Math.min(1.0, 0.5 * Math.sqrt(linearDist2)));
+    }
+
+    private static double getMaxSinDistance(double distance) {
+        return distance < 0.5 * Math.PI ? Math.sin(distance) * BOUND_MARGIN : Double.POSITIVE_INFINITY;
+    }
+
+    private static double getMaxLinearDistance2(double distance) {
+        if (distance >= Math.PI) {
+            return Double.POSITIVE_INFINITY;
+        }
+        final double chord = 2.0 * Math.sin(0.5 * distance);
+        return chord * chord * BOUND_MARGIN;
+    }
+
+    private boolean isLeaf(int node) {
+        return nodeEnd[node] - nodeStart[node] <= MAX_LEAF_EDGES;
+    }
+
+    // lower bound of the angular distance to all edges of the node, the edges of a cap smaller than a hemisphere
+    // stay within the cap
+    private double getCapDistance(int node, double x, double y, double z) {
+        return angle(x, y, z, capX[node], capY[node], capZ[node]) - capRadius[node];
+    }
+
+    private static int countNodes(int start, int end) {
+        if (end - start <= MAX_LEAF_EDGES) {
+            return 1;
+        }
+        final int mid = (start + end) >>> 1;
+        return 1 + countNodes(start, mid) + countNodes(mid, end);
+    }
+
+    // returns the index of the node following the subtree
+    private int createNodes(int node, int start, int end) {
+        nodeStart[node] = start;
+        nodeEnd[node] = end;
+
+        // the edges [start, end) run over the vertices start to end
+        double sumX = 0.0;
+        double sumY = 0.0;
+        double sumZ = 0.0;
+        for (int i = start; i <= end; i++) {
+            sumX += vertexX[i];
+            sumY += vertexY[i];
+            sumZ += vertexZ[i];
+        }
+        final double norm = Math.sqrt(sumX * sumX + sumY * sumY + sumZ * sumZ);
+        double radius = Double.POSITIVE_INFINITY;
+        if (norm > 0.0) {
+            capX[node] = sumX / norm;
+            capY[node] = sumY / norm;
+            capZ[node] = sumZ / norm;
+            radius = 0.0;
+            for (int i = start; i <= end; i++) {
+                radius = Math.max(radius, angle(vertexX[i], vertexY[i], vertexZ[i], capX[node], capY[node], capZ[node]));
+            }
+        }
+        // no pruning for caps of a hemisphere or more
+        capRadius[node] = radius + CAP_MARGIN < 0.5 * Math.PI ? radius + CAP_MARGIN : Double.POSITIVE_INFINITY;
+
+        int next = node + 1;
+        if (end - start > MAX_LEAF_EDGES) {
+            final int mid = (start + end) >>> 1;
+            next = createNodes(next, start, mid);
+            next = createNodes(next, mid, end);
+        }
+        nodeSkip[node] = next;
+        return next;
+    }
+
+    // follows S2EdgeUtil.getClosestPoint() and S2Point.angle()
+    private double getArcLengthTo(int edgeIndex, double x, double y, double z) {
+        if (numVertices == 1) {
+            return 0.0;
+        }
+
+        final double nx = normalX[edgeIndex];
+        final double ny = normalY[edgeIndex];
+        final double nz = normalZ[edgeIndex];
+        final double factor = (x * nx + y * ny + z * nz) / normalNorm2[edgeIndex];
+        double px = x - factor * nx;
+        double py = y - factor * ny;
+        double pz = z - factor * nz;
+
+        final double ax = vertexX[edgeIndex];
+        final double ay = vertexY[edgeIndex];
+        final double az = vertexZ[edgeIndex];
+        if (simpleCCW(nx, ny, nz, ax, ay, az, px, py, pz) &&
+                simpleCCW(px, py, pz, vertexX[edgeIndex + 1], vertexY[edgeIndex + 1], vertexZ[edgeIndex + 1], nx, ny, nz)) {
+            double norm = Math.sqrt(px * px + py * py + pz * pz);
+            if (norm != 0) {
+                norm = 1.0 / norm;
+            }
+            px = norm * px;
+            py = norm * py;
+            pz = norm * pz;
+        } else if (getDistance2(x, y, z, edgeIndex) <= getDistance2(x, y, z, edgeIndex + 1)) {
+            return cumulativeLength[edgeIndex];
+        } else {
+            return cumulativeLength[edgeIndex + 1];
+        }
+
+        final double cx = ay * pz - az * py;
+        final double cy = az * px - ax * pz;
+        final double cz = ax * py - ay * px;
+        final double edgeLength = Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), ax * px + ay * py + az * pz);
+        return cumulativeLength[edgeIndex] + edgeLength;
+    }
+
+    private double getDistance2(double x, double y, double z, int vertexIndex) {
+        final double dx = x - vertexX[vertexIndex];
+        final double dy = y - vertexY[vertexIndex];
+        final double dz = z - vertexZ[vertexIndex];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // S2Point.angle() on plain coordinates
+    private static double angle(double ax, double ay, double az, double bx, double by, double bz) {
+        final double crossX = ay * bz - az * by;
+        final double crossY = az * bx - ax * bz;
+        final double crossZ = ax * by - ay * bx;
+        return Math.atan2(Math.sqrt(crossX * crossX + crossY * crossY + crossZ * crossZ), ax * bx + ay * by + az * bz);
+    }
+
+    // S2.simpleCCW(a, b, c) on plain coordinates
+    private static boolean simpleCCW(double ax, double ay, double az, double bx, double by, double bz, double cx, double cy, double cz) {
+        final double crossX = cy * az - cz * ay;
+        final double crossY = cz * ax - cx * az;
+        final double crossZ = cx * ay - cy * ax;
+        return crossX * bx + crossY * by + crossZ * bz > 0;
     }
 }
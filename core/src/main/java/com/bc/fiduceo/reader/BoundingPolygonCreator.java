@@ -22,12 +22,9 @@ package com.bc.fiduceo.reader;
 
 import com.bc.fiduceo.core.Interval;
 import com.bc.fiduceo.geometry.*;
-import com.bc.fiduceo.util.NetCDFUtils;
-import com.google.common.collect.Lists;
 import ucar.ma2.Array;
 import ucar.ma2.Index;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -48,45 +45,35 @@ public class BoundingPolygonCreator {
     }
 
     public Polygon createBoundingGeometry(Array longitudes, Array latitudes) {
-        final List<Point> coordinates = extractBoundaryCoordinates(longitudes, latitudes);
-
-        closePolygon(coordinates);
-
-        return geometryFactory.createPolygon(coordinates);
+        return createBoundingGeometry(longitudes, latitudes, 0, longitudes.getShape()[0] - 1, false);
     }
 
+    /**
+     * Creates the bounding polygon of a range of scanlines, directly on the full lon/lat arrays of the reader.
+     *
+     * @param longitudes the longitudes
+     * @param latitudes  the latitudes
+     * @param minY       the first scanline
+     * @param maxY       the last scanline, inclusive
+     * @return the polygon
+     */
+    public Polygon createBoundingGeometry(Array longitudes, Array latitudes, int minY, int maxY) {
+        return createBoundingGeometry(longitudes, latitudes, minY, maxY, false);
+    }
 
     public Polygon createBoundingGeometryClockwise(Array longitudes, Array latitudes) {
-        final List<Point> coordinates = extractBoundaryCoordinates(longitudes, latitudes);
-
-        closePolygon(coordinates);
-        final List<Point> reverse = Lists.reverse(coordinates);
-
-        return geometryFactory.createPolygon(reverse);
+        return createBoundingGeometry(longitudes, latitudes, 0, longitudes.getShape()[0] - 1, true);
     }
 
-    public Geometry createBoundingGeometrySplitted(Array longitudes, Array latitudes, int numSplits, boolean clockwise) throws IOException {
+    public Geometry createBoundingGeometrySplitted(Array longitudes, Array latitudes, int numSplits, boolean clockwise) {
         final List<Polygon> geometries = new ArrayList<>(numSplits);
 
-        final int[] shape = longitudes.getShape();
-        final int height = shape[0];
-
-        final int[] offsets = new int[]{0, 0};
+        final int height = longitudes.getShape()[0];
 
         int yOffset = 0;
         int subsetHeight = getSubsetHeight(height, numSplits);
         for (int i = 0; i < numSplits; i++) {
-            shape[0] = subsetHeight;
-            offsets[0] = yOffset;
-
-            final Array longitudesSubset = NetCDFUtils.section(longitudes, offsets, shape);
-            final Array latitudesSubset = NetCDFUtils.section(latitudes, offsets, shape);
-
-            if (clockwise) {
-                geometries.add(createBoundingGeometryClockwise(longitudesSubset, latitudesSubset));
-            } else {
-                geometries.add(createBoundingGeometry(longitudesSubset, latitudesSubset));
-            }
+            geometries.add(createBoundingGeometry(longitudes, latitudes, yOffset, yOffset + subsetHeight - 1, clockwise));
 
             yOffset += subsetHeight - 1;
             if (yOffset + subsetHeight > height) {
@@ -97,51 +84,57 @@ public class BoundingPolygonCreator {
     }
 
     public LineString createTimeAxisGeometry(Array longitudes, Array latitudes) {
+        return createTimeAxisGeometry(longitudes, latitudes, 0, longitudes.getShape()[0] - 1);
+    }
+
+    /**
+     * Creates the time axis of a range of scanlines, directly on the full lon/lat arrays of the reader.
+     *
+     * @param longitudes the longitudes
+     * @param latitudes  the latitudes
+     * @param minY       the first scanline
+     * @param maxY       the last scanline, inclusive
+     * @return the time axis geometry
+     */
+    public LineString createTimeAxisGeometry(Array longitudes, Array latitudes, int minY, int maxY) {
         final int[] shape = longitudes.getShape();
         final int xIndex = shape[1] / 2;
-        final int maxY = shape[0] - 1;
+        final int height = maxY - minY;
 
-        int maxYLoop = 0;
-        final Index index = longitudes.getIndex();
-        final List<Point> coordinates = new ArrayList<>();
-        for (int y = 0; y <= maxY; y += intervalY) {
-            index.set(y, xIndex);
-            final double lon = longitudes.getDouble(index);
-            final double lat = latitudes.getDouble(index);
-            coordinates.add(geometryFactory.createPoint(lon, lat));
+        final int numSteps = height / intervalY + 1;
+        final int lastStepY = (numSteps - 1) * intervalY;
+        // ensure that we always have one point from the last scanline tb 2016-03-04
+        final int numPoints = lastStepY < height ? numSteps + 1 : numSteps;
 
-            maxYLoop = y;
+        final double[] lons = new double[numPoints];
+        final double[] lats = new double[numPoints];
+        final Index index = longitudes.getIndex();
+        int pointIndex = 0;
+        for (int y = 0; y <= height; y += intervalY) {
+            index.set(minY + y, xIndex);
+            lons[pointIndex] = longitudes.getDouble(index);
+            lats[pointIndex] = latitudes.getDouble(index);
+            ++pointIndex;
         }
 
-        // ensure that we always have one point from the last scanline tb 2016-03-04
-        if (maxYLoop < maxY) {
+        if (pointIndex < numPoints) {
             index.set(maxY, xIndex);
-            final double lon = longitudes.getDouble(index);
-            final double lat = latitudes.getDouble(index);
-            coordinates.add(geometryFactory.createPoint(lon, lat));
+            lons[pointIndex] = longitudes.getDouble(index);
+            lats[pointIndex] = latitudes.getDouble(index);
         }
 
-        return geometryFactory.createLineString(coordinates);
+        return geometryFactory.createLineString(lons, lats, numPoints);
     }
 
-    public Geometry createTimeAxisGeometrySplitted(Array longitudes, Array latitudes, int numSplits) throws IOException {
+    public Geometry createTimeAxisGeometrySplitted(Array longitudes, Array latitudes, int numSplits) {
         final Geometry[] geometries = new Geometry[numSplits];
 
-        final int[] shape = longitudes.getShape();
-        int height = shape[0];
-
-        final int[] offsets = new int[]{0, 0};
+        final int height = longitudes.getShape()[0];
 
         int yOffset = 0;
         int subsetHeight = getSubsetHeight(height, numSplits);
         for (int i = 0; i < numSplits; i++) {
-            shape[0] = subsetHeight;
-            offsets[0] = yOffset;
-
-            final Array longitudesSubset = NetCDFUtils.section(longitudes, offsets, shape);
-            final Array latitudesSubset = NetCDFUtils.section(latitudes, offsets, shape);
-
-            geometries[i] = createTimeAxisGeometry(longitudesSubset, latitudesSubset);
+            geometries[i] = createTimeAxisGeometry(longitudes, latitudes, yOffset, yOffset + subsetHeight - 1);
 
             yOffset += subsetHeight - 1;
             if (yOffset + subsetHeight > height) {
@@ -209,40 +202,67 @@ public class BoundingPolygonCreator {
         return Math.abs(value - fillValue) < 1e-6;
     }
 
-    private List<Point> extractBoundaryCoordinates(Array longitudes, Array latitudes) {
+    // the boundary is collected in primitive arrays and handed to the factory in one go, no intermediate
+    // points are created
+    private Polygon createBoundingGeometry(Array longitudes, Array latitudes, int minY, int maxY, boolean clockwise) {
         final int[] shape = longitudes.getShape();
-        int maxX = shape[1] - 1;
-        int maxY = shape[0] - 1;
+        final int maxX = shape[1] - 1;
+        final int height = maxY - minY;
+
+        final int numAlongTrack = (height + intervalY - 1) / intervalY;
+        final int numAcrossTrack = (maxX + intervalX - 1) / intervalX;
+        final int numBoundaryPoints = 2 * numAlongTrack + 2 * numAcrossTrack;
+        final int numPoints = numBoundaryPoints > 1 ? numBoundaryPoints + 1 : numBoundaryPoints;
 
+        final double[] lons = new double[numPoints];
+        final double[] lats = new double[numPoints];
         final Index index = longitudes.getIndex();
-        final List<Point> coordinates = new ArrayList<>();
-        for (int y = 0; y < maxY; y += intervalY) {
-            index.set(y, 0);
-            final double lon = longitudes.getDouble(index);
-            final double lat = latitudes.getDouble(index);
-            coordinates.add(geometryFactory.createPoint(lon, lat));
+        int pointIndex = 0;
+        for (int y = 0; y < height; y += intervalY) {
+            index.set(minY + y, 0);
+            pointIndex = addPoint(longitudes, latitudes, index, lons, lats, pointIndex);
         }
 
         for (int x = 0; x < maxX; x += intervalX) {
             index.set(maxY, x);
-            final double lon = longitudes.getDouble(index);
-            final double lat = latitudes.getDouble(index);
-            coordinates.add(geometryFactory.createPoint(lon, lat));
+            pointIndex = addPoint(longitudes, latitudes, index, lons, lats, pointIndex);
         }
 
-        for (int y = maxY; y > 0; y -= intervalY) {
-            index.set(y, maxX);
-            final double lon = longitudes.getDouble(index);
-            final double lat = latitudes.getDouble(index);
-            coordinates.add(geometryFactory.createPoint(lon, lat));
+        for (int y = height; y > 0; y -= intervalY) {
+            index.set(minY + y, maxX);
+            pointIndex = addPoint(longitudes, latitudes, index, lons, lats, pointIndex);
         }
 
         for (int x = maxX; x > 0; x -= intervalX) {
-            index.set(0, x);
-            final double lon = longitudes.getDouble(index);
-            final double lat = latitudes.getDouble(index);
-            coordinates.add(geometryFactory.createPoint(lon, lat));
+            index.set(minY, x);
+            pointIndex = addPoint(longitudes, latitudes, index, lons, lats, pointIndex);
+        }
+
+        if (numPoints > numBoundaryPoints) {
+            lons[pointIndex] = lons[0];
+            lats[pointIndex] = lats[0];
+        }
+
+        if (clockwise) {
+            reverse(lons, numPoints);
+            reverse(lats, numPoints);
+        }
+
+        return geometryFactory.createPolygon(lons, lats, numPoints);
+    }
+
+    private static int addPoint(Array longitudes, Array latitudes, Index index, double[] lons, double[] lats, int pointIndex) {
+        lons[pointIndex] = longitudes.getDouble(index);
+        lats[pointIndex] = latitudes.getDouble(index);
+        return pointIndex + 1;
+    }
+
+    // package access for testing only
+    static void reverse(double[] values, int length) {
+        for (int i = 0, k = length - 1; i < k; i++, k--) {
+            final double swap = values[i];
+            values[i] = values[k];
+            values[k] = swap;
         }
-        return coordinates;
     }
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.fiduceo.reader;
+
+import com.bc.fiduceo.log.FiduceoLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps decompressed copies of gzipped granules in a directory, so that a granule evicted from a reader cache
+ * and opened again later is not decompressed a second time. Entries are identified by source path, modification
+ * time and size. When the byte budget is exceeded, least recently used files not opened by a reader are deleted.
+ */
+public class DecompressedFileCache {
+
+    private final File cacheDir;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<File, Entry> entriesByFile;
+
+    private long sizeInBytes;
+    private int hits;
+    private int misses;
+    private int fileCounter;
+
+    public DecompressedFileCache(File cacheDir, long maxBytes) {
+        this.cacheDir = cacheDir;
+        this.maxBytes = maxBytes;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        entriesByFile = new HashMap<>();
+    }
+
+    /**
+     * Returns the decompressed version of the gzip file, decompressing it if not yet in the cache. The file
+     * is locked against eviction until released.
+     *
+     * @param gzipFile the compressed file
+     * @return the decompressed file
+     * @throws IOException on disk access or decompression failures
+     */
+    public synchronized File acquire(File gzipFile) throws IOException {
+        final String key = createKey(gzipFile);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.file.isFile()) {
+            ++hits;
+        } else {
+            if (entry != null) {
+                remove(key, entry);
+            }
+            ++misses;
+            entry = decompress(gzipFile);
+            entries.put(key, entry);
+            entriesByFile.put(entry.file, entry);
+            sizeInBytes += entry.size;
+        }
+
+        ++entry.refCount;
+        evictIfNecessary();
+        return entry.file;
+    }
+
+    /**
+     * Releases a file obtained by acquire(). The file stays in the cache until evicted.
+     *
+     * @param decompressedFile the decompressed file
+     */
+    public synchronized void release(File decompressedFile) {
+        final Entry entry = entriesByFile.get(decompressedFile);
+        if (entry != null && entry.refCount > 0) {
+            --entry.refCount;
+        }
+        evictIfNecessary();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    // package access for testing only
+    static String createKey(File file) {
+        return file.getAbsolutePath() + "|" + file.lastModified() + "|" + file.length();
+    }
+
+    private Entry decompress(File gzipFile) throws IOException {
+        final String name = gzipFile.getName();
+        final int extensionIndex = name.lastIndexOf('.');
+        final String targetName = (fileCounter++) + "_" + (extensionIndex > 0 ? name.substring(0, extensionIndex) : name);
+        final File targetFile = new File(cacheDir, targetName);
+
+        final long startTime = System.currentTimeMillis();
+        try {
+            ReaderUtils.decompress(gzipFile, targetFile);
+        } catch (IOException e) {
+            if (targetFile.isFile() && !targetFile.delete()) {
+                FiduceoLogger.getLogger().warning("Unable to delete file: " + targetFile.getAbsolutePath());
+            }
+            throw e;
+        }
+        FiduceoLogger.getLogger().fine("Decompressed " + name + " to cache in " + (System.currentTimeMillis() - startTime) + " ms");
+
+        return new Entry(targetFile, targetFile.length());
+    }
+
+    private void evictIfNecessary() {
+        final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (sizeInBytes > maxBytes && iterator.hasNext()) {
+            final Entry entry = iterator.next().getValue();
+            if (entry.refCount == 0) {
+                iterator.remove();
+                delete(entry);
+            }
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        if (entry.refCount == 0) {
+            delete(entry);
+        } else {
+            // still opened by a reader, forget about it but keep the file - it is removed with the temp directory
+            entriesByFile.remove(entry.file);
+            sizeInBytes -= entry.size;
+        }
+    }
+
+    private void delete(Entry entry) {
+        entriesByFile.remove(entry.file);
+        sizeInBytes -= entry.size;
+        if (entry.file.isFile() && !entry.file.delete()) {
+            FiduceoLogger.getLogger().warning("Unable to delete file: " + entry.file.getAbsolutePath());
+        }
+    }
+
+    private static class Entry {
+        private final File file;
+        private final long size;
+        private int refCount;
+
+        Entry(File file, long size) {
+            this.file = file;
+            this.size = size;
+        }
+    }
+}
@@ -39,6 +39,7 @@ public class ReaderCache extends LinkedHashMap<Path, Reader> {
     private final int cacheSize;
     private final ReaderFactory readerFactory;
     private final FileServer fileServer;
+    private int numOpened;
 
     public ReaderCache(int cacheSize, ReaderFactory readerFactory, Archive archive) {
         super(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, true);
@@ -73,11 +74,19 @@ public class ReaderCache extends LinkedHashMap<Path, Reader> {
             final Reader reader = readerFactory.getReader(sensorName);
             final File observationFile = fileServer.getFile(reader, observationPath, sensorName, processingVersion);
             reader.open(observationFile);
+            numOpened++;
             add(reader, observationPath);
             return reader;
         }
     }
 
+    /**
+     * @return the number of readers opened by this cache, including the ones closed again
+     */
+    public int getNumOpened() {
+        return numOpened;
+    }
+
     @Override
     protected boolean removeEldestEntry(Map.Entry<Path, Reader> eldest) {
         final boolean remove = size() > cacheSize;
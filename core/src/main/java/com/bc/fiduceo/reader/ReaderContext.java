@@ -28,9 +28,16 @@ import java.io.File;
 import java.io.IOException;
 
 public class ReaderContext {
+
+    static final long DEFAULT_DECOMPRESSION_CACHE_SIZE = 4L * 1024L * 1024L * 1024L;
+    static final long DEFAULT_IN_MEMORY_DECOMPRESSION_LIMIT = 32L * 1024L * 1024L;
+
     private GeometryFactory geometryFactory;
     private TempFileUtils tempFileUtils;
     private Archive archive;
+    private DecompressedFileCache decompressedFileCache;
+    private long decompressionCacheSize = DEFAULT_DECOMPRESSION_CACHE_SIZE;
+    private long inMemoryDecompressionLimit = DEFAULT_IN_MEMORY_DECOMPRESSION_LIMIT;
 
     public GeometryFactory getGeometryFactory() {
         return geometryFactory;
@@ -56,6 +63,33 @@ public class ReaderContext {
         tempFileUtils.delete(tempFile);
     }
 
+    /**
+     * @return the cache of decompressed granules, shared by all readers of this context. Created in the temp directory on first access.
+     * @throws IOException if the cache directory can not be created
+     */
+    public synchronized DecompressedFileCache getDecompressedFileCache() throws IOException {
+        if (decompressedFileCache == null) {
+            final File cacheDir = tempFileUtils.createDir("decompressed_" + Math.abs(System.nanoTime()));
+            decompressedFileCache = new DecompressedFileCache(cacheDir, decompressionCacheSize);
+        }
+        return decompressedFileCache;
+    }
+
+    public void setDecompressionCacheSize(long decompressionCacheSize) {
+        this.decompressionCacheSize = decompressionCacheSize;
+    }
+
+    /**
+     * @return the maximal uncompressed size in bytes of a granule to be decompressed into memory instead of the file cache
+     */
+    public long getInMemoryDecompressionLimit() {
+        return inMemoryDecompressionLimit;
+    }
+
+    public void setInMemoryDecompressionLimit(long inMemoryDecompressionLimit) {
+        this.inMemoryDecompressionLimit = inMemoryDecompressionLimit;
+    }
+
     public Archive getArchive() {
         return archive;
     }
@@ -23,6 +23,7 @@ package com.bc.fiduceo.reader;
 import com.bc.ceres.core.ServiceRegistry;
 import com.bc.ceres.core.ServiceRegistryManager;
 import com.bc.fiduceo.archive.Archive;
+import com.bc.fiduceo.core.SystemConfig;
 import com.bc.fiduceo.geometry.GeometryFactory;
 import com.bc.fiduceo.util.TempFileUtils;
 import org.esa.snap.core.util.ServiceLoader;
@@ -47,6 +48,15 @@ public class ReaderFactory {
         return readerFactory;
     }
 
+    public static ReaderFactory create(GeometryFactory geometryFactory, TempFileUtils tempFileUtils, Archive archive, SystemConfig systemConfig) {
+        if (readerFactory == null) {
+            readerFactory = new ReaderFactory(geometryFactory, tempFileUtils, archive);
+            readerFactory.readerContext.setDecompressionCacheSize(systemConfig.getDecompressionCacheSizeMb() * 1024L * 1024L);
+            readerFactory.readerContext.setInMemoryDecompressionLimit(systemConfig.getInMemoryDecompressionLimitMb() * 1024L * 1024L);
+        }
+        return readerFactory;
+    }
+
     public static void close() {
         readerFactory = null;
     }
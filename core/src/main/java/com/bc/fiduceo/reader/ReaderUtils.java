@@ -132,4 +132,58 @@ public class ReaderUtils {
             }
         }
     }
+
+    /**
+     * Decompresses a file in gzip format into memory, as long as the uncompressed content does not exceed the
+     * limit given.
+     *
+     * @param gzipFile existing file in gzip format
+     * @param maxBytes the maximal uncompressed size in bytes
+     * @return the uncompressed content or null if the content is larger than maxBytes
+     * @throws IOException if reading the input or decompression fails
+     */
+    public static byte[] decompressToMemory(File gzipFile, long maxBytes) throws IOException {
+        // the gzip trailer is a lower bound of the size only, it is stored modulo 2^32
+        final long uncompressedSize = getUncompressedSize(gzipFile);
+        final int initialSize = (int) Math.min(Math.max(uncompressedSize, 32768L), Math.min(maxBytes, Integer.MAX_VALUE - 8));
+        final byte[] buffer = new byte[32768];
+
+        try (InputStream in = new GZIPInputStream(new FileInputStream(gzipFile), 32768);
+             ByteArrayOutputStream out = new ByteArrayOutputStream(initialSize)) {
+            long totalBytes = 0;
+            int noOfBytesRead;
+            while ((noOfBytesRead = in.read(buffer)) > 0) {
+                totalBytes += noOfBytesRead;
+                if (totalBytes > maxBytes) {
+                    return null;
+                }
+                out.write(buffer, 0, noOfBytesRead);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Retrieves the uncompressed size of a gzip file from the ISIZE field of the gzip trailer. Note that this
+     * field stores the size modulo 2^32, so for files of 4GB and more the value is too small. It is a lower
+     * bound of the uncompressed size, never an upper bound.
+     *
+     * @param gzipFile existing file in gzip format
+     * @return the uncompressed size modulo 2^32 in bytes or -1 if the file is too small to be a gzip file
+     * @throws IOException on disk access failures
+     */
+    public static long getUncompressedSize(File gzipFile) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(gzipFile, "r")) {
+            final long length = raf.length();
+            if (length < 18) {
+                return -1;
+            }
+            raf.seek(length - 4);
+            final int b0 = raf.read();
+            final int b1 = raf.read();
+            final int b2 = raf.read();
+            final int b3 = raf.read();
+            return ((long) b3 << 24) | (b2 << 16) | (b1 << 8) | b0;
+        }
+    }
 }
@@ -7,6 +7,7 @@ import com.bc.fiduceo.geometry.LineString;
 import com.bc.fiduceo.geometry.Polygon;
 import com.bc.fiduceo.location.PixelLocator;
 import com.bc.fiduceo.location.PixelLocatorFactory;
+import com.bc.fiduceo.log.FiduceoLogger;
 import com.bc.fiduceo.reader.*;
 import com.bc.fiduceo.reader.amsr.AmsrUtils;
 import com.bc.fiduceo.reader.netcdf.NetCDFReader;
@@ -25,7 +26,6 @@ import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 import static com.bc.fiduceo.util.NetCDFUtils.CF_FILL_VALUE_NAME;
@@ -41,7 +41,7 @@ public class AMSR2_Reader extends NetCDFReader {
     private final ReaderContext readerContext;
     private PixelLocator pixelLocator;
     private BoundingPolygonCreator boundingPolygonCreator;
-    private File tempFile;
+    private File decompressedFile;
 
     AMSR2_Reader(ReaderContext readerContext) {
         this.readerContext = readerContext;
@@ -50,9 +50,22 @@ public class AMSR2_Reader extends NetCDFReader {
     @Override
     public void open(File file) throws IOException {
         if (ReaderUtils.isCompressed(file)) {
-            tempFile = readerContext.createTempFile("amsr2", "h5");
-            ReaderUtils.decompress(file, tempFile);
-            netcdfFile = NetcdfFile.open(tempFile.getPath());
+            final long startTime = System.currentTimeMillis();
+            final long inMemoryLimit = readerContext.getInMemoryDecompressionLimit();
+            // the size from the gzip trailer is a lower bound, the in-memory decompression aborts at the limit for granules of 4GB and more
+            final long uncompressedSize = ReaderUtils.getUncompressedSize(file);
+            byte[] content = null;
+            if (uncompressedSize > 0 && uncompressedSize <= inMemoryLimit) {
+                content = ReaderUtils.decompressToMemory(file, inMemoryLimit);
+            }
+
+            if (content != null) {
+                netcdfFile = NetcdfFile.openInMemory(file.getName(), content);
+            } else {
+                decompressedFile = readerContext.getDecompressedFileCache().acquire(file);
+                netcdfFile = NetcdfFile.open(decompressedFile.getPath());
+            }
+            FiduceoLogger.getLogger().fine("Opened " + file.getName() + " in " + (System.currentTimeMillis() - startTime) + " ms");
         } else {
             netcdfFile = NetcdfFile.open(file.getPath());
         }
@@ -69,9 +82,9 @@ public class AMSR2_Reader extends NetCDFReader {
             netcdfFile.close();
             netcdfFile = null;
         }
-        if (tempFile != null) {
-            readerContext.deleteTempFile(tempFile);
-            tempFile = null;
+        if (decompressedFile != null) {
+            readerContext.getDecompressedFileCache().release(decompressedFile);
+            decompressedFile = null;
         }
     }
 
@@ -160,8 +173,8 @@ public class AMSR2_Reader extends NetCDFReader {
         for (int i = 0; i < rawTimeTAI.getSize(); i++) {
             final double rawTimeTAIDouble = rawTimeTAI.getDouble(i);
             if (rawTimeTAIDouble != fillValue) {
-                final Date utcDate = TimeUtils.tai1993ToUtc(rawTimeTAIDouble);
-                acquisitionTimeUtc.setInt(i, (int) (utcDate.getTime() * 0.001));
+                final long utcMillis = TimeUtils.tai1993ToUtcMillis(rawTimeTAIDouble);
+                acquisitionTimeUtc.setInt(i, (int) (utcMillis * 0.001));
             } else {
                 acquisitionTimeUtc.setInt(i, acquisitionTimeFillValue);
             }
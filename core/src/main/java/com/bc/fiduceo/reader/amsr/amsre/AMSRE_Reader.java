@@ -46,7 +46,6 @@ import ucar.nc2.Variable;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 
 import static com.bc.fiduceo.util.NetCDFUtils.CF_FILL_VALUE_NAME;
@@ -210,8 +209,8 @@ class AMSRE_Reader extends NetCDFReader {
         for (int i = 0; i < rawTimeTAI.getSize(); i++) {
             final double rawTimeTAIDouble = rawTimeTAI.getDouble(i);
             if (rawTimeTAIDouble != taiFillValue) {
-                final Date utcDate = TimeUtils.tai1993ToUtc(rawTimeTAIDouble);
-                acquisitionTimeUtc.setInt(i, (int) (utcDate.getTime() * 0.001));
+                final long utcMillis = TimeUtils.tai1993ToUtcMillis(rawTimeTAIDouble);
+                acquisitionTimeUtc.setInt(i, (int) (utcMillis * 0.001));
             } else {
                 acquisitionTimeUtc.setInt(i, acquisitionTimeFillValue);
             }
@@ -260,21 +260,26 @@ class AMSUB_MHS_L1C_Reader extends NetCDFReader {
         final int fillValue = getFillValue("scnlinyr", "Data", scnlinyr).intValue();
         final Array acquisitionTimeArray = scnlinyr.copy();
         final Index acquisitionTimeIndex = acquisitionTimeArray.getIndex();
-        int yTime = y - interval.getY() / 2;
+        final int yOffset = y - interval.getY() / 2;
         final TimeLocator timeLocator = getTimeLocator();
         final Index scnlinyrIndex = scnlinyr.getIndex();
 
+        final int yStart = Math.max(yOffset, 0);
+        final int yEnd = Math.min(yOffset + interval.getY(), getProductSize().getNy());
+        final int[] scanLineTimes = new int[Math.max(yEnd - yStart, 0)];
+        if (scanLineTimes.length > 0) {
+            timeLocator.getTimesInSecondsFor(0, yStart, 1, scanLineTimes.length, scanLineTimes);
+        }
+
         for (int yIndex = 0; yIndex < interval.getY(); yIndex++) {
+            final int yTime = yOffset + yIndex;
             for (int xIndex = 0; xIndex < interval.getX(); xIndex++) {
                 scnlinyrIndex.set(yIndex, xIndex);
                 acquisitionTimeIndex.set(yIndex, xIndex);
                 if (scnlinyr.getInt(scnlinyrIndex) != fillValue) {
-                    final long scanLineTime = timeLocator.getTimeFor(0, yTime);
-                    final int scanLineTimeInSeconds = (int) (scanLineTime / 1000);
-                    acquisitionTimeArray.setInt(acquisitionTimeIndex, scanLineTimeInSeconds);
+                    acquisitionTimeArray.setInt(acquisitionTimeIndex, scanLineTimes[yTime - yStart]);
                 }
             }
-            yTime++;
         }
 
         return (ArrayInt.D2) acquisitionTimeArray;
@@ -3,6 +3,7 @@ package com.bc.fiduceo.reader.avhrr_frac;
 import com.bc.fiduceo.core.Interval;
 import com.bc.fiduceo.geometry.Polygon;
 import com.bc.fiduceo.location.PixelLocator;
+import com.bc.fiduceo.log.FiduceoLogger;
 import com.bc.fiduceo.reader.AcquisitionInfo;
 import com.bc.fiduceo.reader.ReaderContext;
 import com.bc.fiduceo.reader.ReaderUtils;
@@ -29,7 +30,7 @@ public class AVHRR_FRAC_Reader extends SNAP_Reader {
     private static final Interval INTERVAL = new Interval(5, 20);
     private static final int NUM_SPLITS = 2;
     private final ReaderContext readerContext;
-    private File tempFile;
+    private File decompressedFile;
 
     AVHRR_FRAC_Reader(ReaderContext readerContext) {
         super(readerContext);
@@ -39,9 +40,11 @@ public class AVHRR_FRAC_Reader extends SNAP_Reader {
     @Override
     public void open(File file) throws IOException {
         if (ReaderUtils.isCompressed(file)) {
-            tempFile = readerContext.createTempFile("avhrr_frac", "tmp");
-            ReaderUtils.decompress(file, tempFile);
-            open(tempFile, AvhrrConstants.PRODUCT_TYPE);
+            // the SNAP reader requires a file on disk, so we can not decompress into memory here
+            final long startTime = System.currentTimeMillis();
+            decompressedFile = readerContext.getDecompressedFileCache().acquire(file);
+            open(decompressedFile, AvhrrConstants.PRODUCT_TYPE);
+            FiduceoLogger.getLogger().fine("Opened " + file.getName() + " in " + (System.currentTimeMillis() - startTime) + " ms");
         } else {
             open(file, AvhrrConstants.PRODUCT_TYPE);
         }
@@ -50,9 +53,9 @@ public class AVHRR_FRAC_Reader extends SNAP_Reader {
     @Override
     public void close() throws IOException {
         super.close();
-        if (tempFile != null) {
-            readerContext.deleteTempFile(tempFile);
-            tempFile = null;
+        if (decompressedFile != null) {
+            readerContext.getDecompressedFileCache().release(decompressedFile);
+            decompressedFile = null;
         }
     }
 
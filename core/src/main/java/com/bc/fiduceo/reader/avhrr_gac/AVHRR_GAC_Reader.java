@@ -310,22 +310,11 @@ public class AVHRR_GAC_Reader extends NetCDFReader {
         final List<Polygon> geometryList = new ArrayList<>();
         final List<LineString> timeAxesList = new ArrayList<>();
 
-        final int[] shape = longitudes.getShape();
-
-        final int[] offset = new int[2];
-        final int[] subsetShape = new int[2];
-        subsetShape[1] = shape[1];
         for (final Interval interval : intervals) {
-            offset[0] = interval.getX();
-            subsetShape[0] = interval.getY() - interval.getX() + 1;
-
-            final Array lonSection = NetCDFUtils.section(longitudes, offset, subsetShape);
-            final Array latSection = NetCDFUtils.section(latitudes, offset, subsetShape);
-
-            final Polygon boundingGeometry = boundingPolygonCreator.createBoundingGeometry(lonSection, latSection);
+            final Polygon boundingGeometry = boundingPolygonCreator.createBoundingGeometry(longitudes, latitudes, interval.getX(), interval.getY());
 
             geometryList.add(boundingGeometry);
-            final LineString timeAxis = boundingPolygonCreator.createTimeAxisGeometry(lonSection, latSection);
+            final LineString timeAxis = boundingPolygonCreator.createTimeAxisGeometry(longitudes, latitudes, interval.getX(), interval.getY());
             timeAxesList.add(timeAxis);
         }
 
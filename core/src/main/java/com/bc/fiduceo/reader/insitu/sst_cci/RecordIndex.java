@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ *  This program is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *  more details.
+ *
+ *  A copy of the GNU General Public License should have been supplied along
+ *  with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+package com.bc.fiduceo.reader.insitu.sst_cci;
+
+import java.util.Arrays;
+
+/**
+ * Sorted index over a key per record (time, unique id). Range queries are answered by binary search.
+ * For the common case of records already ordered by key, no permutation is stored at all.
+ */
+class RecordIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final long[] sortedKeys;
+    private final int[] records;
+
+    private RecordIndex(long[] sortedKeys, int[] records) {
+        this.sortedKeys = sortedKeys;
+        this.records = records;
+    }
+
+    static RecordIndex create(long[] keys) {
+        if (isSorted(keys)) {
+            return new RecordIndex(keys, null);
+        }
+
+        final long[] packed = new long[keys.length];
+        final Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (o1, o2) -> Long.compare(keys[o1], keys[o2]));
+
+        final int[] records = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            records[i] = order[i];
+            packed[i] = keys[order[i]];
+        }
+        return new RecordIndex(packed, records);
+    }
+
+    /**
+     * @return true if the records are stored in ascending key order, i.e. every key range maps to a contiguous record range
+     */
+    boolean isOrdered() {
+        return records == null;
+    }
+
+    /**
+     * Finds all records with minKey <= key <= maxKey.
+     *
+     * @param minKey the lower bound, inclusive
+     * @param maxKey the upper bound, inclusive
+     * @return the record indices in ascending order, an empty array if none matches
+     */
+    int[] find(long minKey, long maxKey) {
+        final int start = lowerBound(minKey);
+        final int end = upperBound(maxKey);
+        if (start >= end) {
+            return EMPTY;
+        }
+
+        final int[] result = new int[end - start];
+        for (int i = start; i < end; i++) {
+            result[i - start] = records == null ? i : records[i];
+        }
+        if (records != null) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+
+    // index of the first entry with key >= the value
+    int lowerBound(long key) {
+        int low = 0;
+        int high = sortedKeys.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sortedKeys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // index of the first entry with key > the value
+    int upperBound(long key) {
+        int low = 0;
+        int high = sortedKeys.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sortedKeys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isSorted(long[] keys) {
+        for (int i = 1; i < keys.length; i++) {
+            if (keys[i] < keys[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -32,6 +32,7 @@ import com.bc.fiduceo.util.TimeUtils;
 import ucar.ma2.Array;
 import ucar.ma2.ArrayInt;
 import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
 import ucar.nc2.NetcdfFile;
 import ucar.nc2.Variable;
 
@@ -46,13 +47,25 @@ import static com.bc.fiduceo.util.NetCDFUtils.CF_FILL_VALUE_NAME;
 import static com.bc.fiduceo.util.TimeUtils.millisSince1978;
 import static com.bc.fiduceo.util.TimeUtils.secondsSince1978;
 
+/**
+ * Reader for the SST-CCI insitu files. Variable data is loaded lazily and cached until the reader is closed.
+ * Like all readers, an instance must be used by one thread at a time only, the caches are not synchronized.
+ */
 public class SSTInsituReader extends NetCDFReader {
 
+    private static final String TIME_VARIABLE_NAME = "insitu.time";
+    private static final String MOHC_ID_VARIABLE_NAME = "insitu.mohc_id";
+
     private final Map<String, Number> fillValueMap = new HashMap<>();
+    private final Map<String, Variable> variableMap = new HashMap<>();
+    // variable data is loaded on first access only, most clients touch a few variables of the file
     private final Map<String, Array> arrayMap = new HashMap<>();
 
     private String insituType;
     private List<Variable> variables;
+    private int[] times;
+    private RecordIndex timeIndex;
+    private RecordIndex idIndex;
 
     @Override
     public void open(File file) throws IOException {
@@ -60,13 +73,16 @@ public class SSTInsituReader extends NetCDFReader {
         variables = netcdfFile.getVariables();
         for (Variable variable : variables) {
             final String shortName = variable.getShortName();
-            final Array array = variable.read();
             final Number fillValue = variable.findAttribute(CF_FILL_VALUE_NAME).getNumericValue();
-            arrayMap.put(shortName, array);
+            variableMap.put(shortName, variable);
             fillValueMap.put(shortName, fillValue);
         }
 
-        addIdVariableAndData();
+        addIdVariable();
+
+        // the time axis is required for the acquisition info and the time locator, so this is the only variable read eagerly
+        final Array timeArray = getSourceArray(TIME_VARIABLE_NAME);
+        times = (int[]) timeArray.getStorage();
 
         // @todo extract method, parse from filename if not present tb 2017-05-29
         insituType = netcdfFile.findGlobalAttribute("dataset").getStringValue();
@@ -80,8 +96,12 @@ public class SSTInsituReader extends NetCDFReader {
         }
         variables = null;
         insituType = null;
+        times = null;
+        timeIndex = null;
+        idIndex = null;
 
         arrayMap.clear();
+        variableMap.clear();
         fillValueMap.clear();
     }
 
@@ -127,7 +147,7 @@ public class SSTInsituReader extends NetCDFReader {
 
     @Override
     public TimeLocator getTimeLocator() {
-        return (x, y) -> millisSince1978 + ((long) getTime(y)) * 1000L;
+        return (x, y) -> TimeUtils.secondsSince1978ToUnixEpoch(getTime(y));
     }
 
     @Override
@@ -136,8 +156,8 @@ public class SSTInsituReader extends NetCDFReader {
     }
 
     @Override
-    public Array readRaw(int centerX, int centerY, Interval interval, String variableName) {
-        final Array sourceArray = arrayMap.get(variableName);
+    public Array readRaw(int centerX, int centerY, Interval interval, String variableName) throws IOException {
+        final Array sourceArray = getSourceArray(variableName);
         final Number fillValue = fillValueMap.get(variableName);
 
         final int windowWidth = interval.getX();
@@ -156,19 +176,115 @@ public class SSTInsituReader extends NetCDFReader {
         return windowArray;
     }
 
-    public Array getSourceArray(String variableName) {
-        return arrayMap.get(variableName);
+    /**
+     * Retrieves the complete data of a variable. The data is read on first access and cached until the reader is closed.
+     *
+     * @param variableName the variable name
+     * @return the data array or null if the variable does not exist
+     * @throws IOException on disk access failures
+     */
+    public Array getSourceArray(String variableName) throws IOException {
+        Array array = arrayMap.get(variableName);
+        if (array != null) {
+            return array;
+        }
+
+        if (UniqueIdVariable.VARIABLE_NAME.equals(variableName)) {
+            final Array mohcIdArray = getSourceArray(MOHC_ID_VARIABLE_NAME);
+            final Array timeArray = getSourceArray(TIME_VARIABLE_NAME);
+            array = createIdArray(mohcIdArray, timeArray, fillValueMap.get(variableName).intValue());
+        } else {
+            final Variable variable = variableMap.get(variableName);
+            if (variable == null) {
+                return null;
+            }
+            array = variable.read();
+        }
+
+        arrayMap.put(variableName, array);
+        return array;
+    }
+
+    /**
+     * Retrieves a contiguous range of records of a variable. If the variable is not cached, only the requested
+     * records are read from disk.
+     *
+     * @param variableName the variable name
+     * @param offset       the first record
+     * @param length       the number of records
+     * @return the data array or null if the variable does not exist
+     * @throws IOException on disk access failures or invalid ranges
+     */
+    public Array getSourceArray(String variableName, int offset, int length) throws IOException {
+        final int[] origin = {offset};
+        final int[] shape = {length};
+
+        final Array cachedArray = arrayMap.get(variableName);
+        if (cachedArray != null) {
+            return NetCDFUtils.section(cachedArray, origin, shape);
+        }
+
+        if (UniqueIdVariable.VARIABLE_NAME.equals(variableName)) {
+            final Array mohcIdArray = getSourceArray(MOHC_ID_VARIABLE_NAME, offset, length);
+            final Array timeArray = NetCDFUtils.section(getSourceArray(TIME_VARIABLE_NAME), origin, shape);
+            return createIdArray(mohcIdArray, timeArray, fillValueMap.get(variableName).intValue());
+        }
+
+        final Variable variable = variableMap.get(variableName);
+        if (variable == null) {
+            return null;
+        }
+        try {
+            return variable.read(origin, shape);
+        } catch (InvalidRangeException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return true if the records of the file are stored in ascending time order. Then each time interval maps
+     * to a contiguous range of records.
+     */
+    public boolean isTimeOrdered() {
+        return getTimeIndex().isOrdered();
+    }
+
+    /**
+     * Finds the records acquired within a time interval, using a sorted time index built on first use.
+     *
+     * @param minTime the interval start in seconds since 1978-01-01, inclusive
+     * @param maxTime the interval end in seconds since 1978-01-01, inclusive
+     * @return the record indices in ascending order
+     */
+    public int[] findRecordsInTimeRange(int minTime, int maxTime) {
+        return getTimeIndex().find(minTime, maxTime);
+    }
+
+    /**
+     * Finds the records with a unique id (see "insitu.id") within an id interval, using a sorted id index built on first use.
+     *
+     * @param minId the lower bound, inclusive
+     * @param maxId the upper bound, inclusive
+     * @return the record indices in ascending order
+     * @throws IOException on disk access failures
+     */
+    public int[] findRecordsInIdRange(long minId, long maxId) throws IOException {
+        if (idIndex == null) {
+            final Array idArray = getSourceArray(UniqueIdVariable.VARIABLE_NAME);
+            idIndex = RecordIndex.create((long[]) idArray.getStorage());
+        }
+        return idIndex.find(minId, maxId);
     }
 
     @Override
-    public Array readScaled(int centerX, int centerY, Interval interval, String variableName) {
+    public Array readScaled(int centerX, int centerY, Interval interval, String variableName) throws IOException {
         return readRaw(centerX, centerY, interval, variableName);
     }
 
     @Override
-    public ArrayInt.D2 readAcquisitionTime(int x, int y, Interval interval) {
-        final Array acquisitionTime_1978 = readRaw(x, y, interval, "insitu.time");
-        final int fillValue = fillValueMap.get("insitu.time").intValue();
+    public ArrayInt.D2 readAcquisitionTime(int x, int y, Interval interval) throws IOException {
+        final Array acquisitionTime_1978 = readRaw(x, y, interval, TIME_VARIABLE_NAME);
+        final int fillValue = fillValueMap.get(TIME_VARIABLE_NAME).intValue();
         final int targetFillValue = NetCDFUtils.getDefaultFillValue(int.class).intValue();
         final Array acquisitionTime_1970 = Array.factory(acquisitionTime_1978.getDataType(), acquisitionTime_1978.getShape());
         for (int i = 0; i < acquisitionTime_1978.getSize(); i++) {
@@ -200,9 +316,8 @@ public class SSTInsituReader extends NetCDFReader {
      * @param y the y index
      * @return the time in seconds since 1978-01-01
      */
-    int getTime(int y) {
-        // package access for testing only tb 2016-10-31
-        return arrayMap.get("insitu.time").getInt(y);
+    public int getTime(int y) {
+        return times[y];
     }
 
     int getNumObservations() {
@@ -210,13 +325,11 @@ public class SSTInsituReader extends NetCDFReader {
     }
 
     private void extractSensingTimes(AcquisitionInfo info) {
-        final Array timeArray = arrayMap.get("insitu.time");
-        final int[] ints = (int[]) timeArray.getStorage();
         int min = Integer.MAX_VALUE;
         int max = Integer.MIN_VALUE;
-        for (int anInt : ints) {
-            min = Math.min(anInt, min);
-            max = Math.max(anInt, max);
+        for (int time : times) {
+            min = Math.min(time, min);
+            max = Math.max(time, max);
         }
         final Calendar utcCalendar = TimeUtils.getUTCCalendar();
 
@@ -227,15 +340,23 @@ public class SSTInsituReader extends NetCDFReader {
         info.setSensingStop(utcCalendar.getTime());
     }
 
-    private void addIdVariableAndData() {
+    private RecordIndex getTimeIndex() {
+        if (timeIndex == null) {
+            final long[] keys = new long[times.length];
+            for (int i = 0; i < times.length; i++) {
+                keys[i] = times[i];
+            }
+            timeIndex = RecordIndex.create(keys);
+        }
+        return timeIndex;
+    }
+
+    private void addIdVariable() {
         final UniqueIdVariable uniqueIdVariable = new UniqueIdVariable();
         variables.add(uniqueIdVariable);
 
-        final Number fillValue = fillValueMap.get("insitu.mohc_id");
+        final Number fillValue = fillValueMap.get(MOHC_ID_VARIABLE_NAME);
         fillValueMap.put(uniqueIdVariable.getShortName(), fillValue);
-
-        final Array idArray = createIdArray(arrayMap.get("insitu.mohc_id"), arrayMap.get("insitu.time"), fillValue.intValue());
-        arrayMap.put(uniqueIdVariable.getShortName(), idArray);
     }
 
     static Array createIdArray(Array mohc_idArray, Array timeArray, int fillValue) {
@@ -252,7 +373,7 @@ public class SSTInsituReader extends NetCDFReader {
             }
 
             final int time = timeArray.getInt(i);
-            final long utcTime = millisSince1978 + (long) time * 1000;
+            final long utcTime = TimeUtils.secondsSince1978ToUnixEpoch(time);
             utcCalendar.setTimeInMillis(utcTime);
             final int year = utcCalendar.get(Calendar.YEAR);
             final int month = utcCalendar.get(Calendar.MONTH) + 1;
@@ -12,6 +12,7 @@ import ucar.nc2.Variable;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.bc.fiduceo.util.NetCDFUtils.*;
@@ -169,26 +170,26 @@ public abstract class NetCDFReader implements Reader {
         final TimeLocator timeLocator = getTimeLocator();
         final int pHeight = getProductSize().getNy();
 
-        final Array acquisitionTime = Array.factory(DataType.INT, shape);
-        final Index index = acquisitionTime.getIndex();
-
         final int acquisitionTimeFillValue = getDefaultFillValue(int.class).intValue();
 
+        final int yStart = Math.max(y_offset, 0);
+        final int yEnd = Math.min(y_offset + height, pHeight);
+        final int[] lineTimes = new int[Math.max(yEnd - yStart, 0)];
+        if (lineTimes.length > 0) {
+            timeLocator.getTimesInSecondsFor(0, yStart, 1, lineTimes.length, lineTimes);
+        }
+
+        final int[] acquisitionTime = new int[height * width];
         for (int ya = 0; ya < height; ya++) {
             final int yRead = y_offset + ya;
             final int lineTimeInSeconds;
-            if (yRead < 0 || yRead >= pHeight) {
+            if (yRead < yStart || yRead >= yEnd) {
                 lineTimeInSeconds = acquisitionTimeFillValue;
             } else {
-                final long lineTime = timeLocator.getTimeFor(0, yRead);
-                lineTimeInSeconds = (int) (lineTime / 1000);
-            }
-
-            for (int xa = 0; xa < width; xa++) {
-                index.set(ya, xa);
-                acquisitionTime.setInt(index, lineTimeInSeconds);
+                lineTimeInSeconds = lineTimes[yRead - yStart];
             }
+            Arrays.fill(acquisitionTime, ya * width, (ya + 1) * width, lineTimeInSeconds);
         }
-        return acquisitionTime;
+        return Array.factory(DataType.INT, shape, acquisitionTime);
     }
 }
@@ -19,6 +19,7 @@ import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -225,6 +226,13 @@ public abstract class SNAP_Reader implements Reader {
             dataNode.readPixels(intersection.x, intersection.y, intersection.width, intersection.height, (int[]) readingArray.getStorage());
         }
 
+        final Object sourceData = readingArray.getStorage();
+        final Object targetData = targetArray.getStorage();
+        if (sourceData.getClass() == targetData.getClass()) {
+            copyToWindow(sourceData, targetData, intersection, width, height, xOffset, yOffset, noDataValue);
+            return;
+        }
+
         final Index index = targetArray.getIndex();
         int readIndex = 0;
         for (int y = 0; y < height; y++) {
@@ -260,9 +268,14 @@ public abstract class SNAP_Reader implements Reader {
         final double noDataValue = getNoDataValue(dataNode);
 
         dataNode.readRasterData(intersection.x, intersection.y, intersection.width, intersection.height, productData);
-//        for (int i = 0; i < rasterSize; i++) {
-//            readArray.setObject(i, productData.getElemDoubleAt(i));
-//        }
+
+        final Object sourceData = productData.getElems();
+        final Object targetData = readArray.getStorage();
+        if (sourceData.getClass() == targetData.getClass()) {
+            copyToWindow(sourceData, targetData, intersection, width, height, xOffset, yOffset, noDataValue);
+            return;
+        }
+
         int readIndex = 0;
         final Index index = readArray.getIndex();
         for (int y = 0; y < height; y++) {
@@ -281,6 +294,61 @@ public abstract class SNAP_Reader implements Reader {
         }
     }
 
+    /**
+     * Copies the rows of the raster intersection into the window and sets the window pixels outside the raster
+     * to no-data. Source and target are primitive arrays of the same type, the target is the row-major storage
+     * of the window array.
+     *
+     * @param sourceData   the intersection data, row by row
+     * @param targetData   the window data
+     * @param intersection the intersection of window and raster, in raster coordinates
+     * @param width        the window width
+     * @param height       the window height
+     * @param xOffset      the raster x position of the window
+     * @param yOffset      the raster y position of the window
+     * @param noDataValue  the value for pixels outside the raster
+     */
+    // package access for testing only
+    static void copyToWindow(Object sourceData, Object targetData, Rectangle intersection, int width, int height, int xOffset, int yOffset, double noDataValue) {
+        final int xStart = intersection.x - xOffset;
+        final int xEnd = xStart + intersection.width;
+        final int yStart = intersection.y - yOffset;
+        final int yEnd = yStart + intersection.height;
+
+        int readIndex = 0;
+        for (int y = 0; y < height; y++) {
+            final int lineOffset = y * width;
+            if (y < yStart || y >= yEnd) {
+                fill(targetData, lineOffset, lineOffset + width, noDataValue);
+                continue;
+            }
+
+            if (xStart > 0) {
+                fill(targetData, lineOffset, lineOffset + xStart, noDataValue);
+            }
+            System.arraycopy(sourceData, readIndex, targetData, lineOffset + xStart, intersection.width);
+            readIndex += intersection.width;
+            if (xEnd < width) {
+                fill(targetData, lineOffset + xEnd, lineOffset + width, noDataValue);
+            }
+        }
+    }
+
+    // the casts narrow like Array.setObject() with a Double does
+    private static void fill(Object data, int fromIndex, int toIndex, double value) {
+        if (data instanceof float[]) {
+            Arrays.fill((float[]) data, fromIndex, toIndex, (float) value);
+        } else if (data instanceof int[]) {
+            Arrays.fill((int[]) data, fromIndex, toIndex, (int) value);
+        } else if (data instanceof short[]) {
+            Arrays.fill((short[]) data, fromIndex, toIndex, (short) value);
+        } else if (data instanceof byte[]) {
+            Arrays.fill((byte[]) data, fromIndex, toIndex, (byte) value);
+        } else {
+            throw new RuntimeException("unsupported data type: " + data.getClass().getSimpleName());
+        }
+    }
+
     // package access for testing only tb 2019-05-17
     static ProductData createProductData(DataType dataType, int rasterSize) {
         final ProductData productData;
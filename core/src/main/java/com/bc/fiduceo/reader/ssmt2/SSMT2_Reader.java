@@ -198,6 +198,16 @@ class SSMT2_Reader extends NetCDFReader {
         final int originX = x - width / 2;
         final int originY = y - height / 2;
         final int fillValue = NetCDFUtils.getDefaultFillValue(int.class).intValue();
+
+        final int xStart = Math.max(originX, 0);
+        final int yStart = Math.max(originY, 0);
+        final int validWidth = Math.min(originX + width - 1, maxX) - xStart + 1;
+        final int validHeight = Math.min(originY + height - 1, maxY) - yStart + 1;
+        final long[] milliesSince1970 = new long[Math.max(validWidth, 0) * Math.max(validHeight, 0)];
+        if (milliesSince1970.length > 0) {
+            timeLocator.getTimesFor(xStart, yStart, validWidth, validHeight, milliesSince1970);
+        }
+
         for (int ya = 0; ya < height; ya++) {
             for (int xa = 0; xa < width; xa++) {
                 final int productX = xa + originX;
@@ -206,8 +216,7 @@ class SSMT2_Reader extends NetCDFReader {
                 if (productX < 0 || productX > maxX || productY < 0 || productY > maxY) {
                     value = fillValue;
                 } else {
-                    final long milliesSince1970 = timeLocator.getTimeFor(productX, productY);
-                    final long secondsSince1970 = milliesSince1970 / 1000;
+                    final long secondsSince1970 = milliesSince1970[(productY - yStart) * validWidth + productX - xStart] / 1000;
                     value = Math.toIntExact(secondsSince1970);
                 }
                 arrayInt.set(ya, xa, value);
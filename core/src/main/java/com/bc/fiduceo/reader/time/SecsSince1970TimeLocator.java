@@ -26,4 +26,18 @@ public class SecsSince1970TimeLocator implements TimeLocator {
             throw new RuntimeException(e.getMessage());
         }
     }
+
+    @Override
+    public void getTimesFor(int x, int y, int width, int height, long[] times) {
+        try {
+            // readRaw() expects the window center
+            final Array time = reader.readRaw(x + width / 2, y + height / 2, new Interval(width, height), "time");
+            final int numPixels = width * height;
+            for (int i = 0; i < numPixels; i++) {
+                times[i] = time.getInt(i) * 1000L;
+            }
+        } catch (IOException | InvalidRangeException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
 }
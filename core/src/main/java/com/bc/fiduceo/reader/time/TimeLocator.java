@@ -31,4 +31,42 @@ public interface TimeLocator {
      * @return the acquisition time milliseconds or -1 if no acquisition time is available for the location requested
      */
     long getTimeFor(int x, int y);
+
+    /**
+     * Fills the acquisition times of a pixel window in milliseconds since 1970-01-01. The window is stored
+     * row by row, pixels without acquisition time are set to -1.
+     *
+     * @param x      the x position of the upper left window pixel
+     * @param y      the y position of the upper left window pixel
+     * @param width  the window width
+     * @param height the window height
+     * @param times  the target array, at least width * height elements
+     */
+    default void getTimesFor(int x, int y, int width, int height, long[] times) {
+        int i = 0;
+        for (int ya = 0; ya < height; ya++) {
+            for (int xa = 0; xa < width; xa++) {
+                times[i++] = getTimeFor(x + xa, y + ya);
+            }
+        }
+    }
+
+    /**
+     * Fills the acquisition times of a pixel window in seconds since 1970-01-01, the values are truncated like
+     * (int) (millis / 1000). The window is stored row by row.
+     *
+     * @param x      the x position of the upper left window pixel
+     * @param y      the y position of the upper left window pixel
+     * @param width  the window width
+     * @param height the window height
+     * @param times  the target array, at least width * height elements
+     */
+    default void getTimesInSecondsFor(int x, int y, int width, int height, int[] times) {
+        final int numPixels = width * height;
+        final long[] millis = new long[numPixels];
+        getTimesFor(x, y, width, height, millis);
+        for (int i = 0; i < numPixels; i++) {
+            times[i] = (int) (millis[i] / 1000);
+        }
+    }
 }
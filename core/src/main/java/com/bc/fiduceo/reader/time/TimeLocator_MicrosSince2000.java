@@ -2,6 +2,8 @@ package com.bc.fiduceo.reader.time;
 
 import com.bc.fiduceo.util.TimeUtils;
 
+import java.util.Arrays;
+
 public class TimeLocator_MicrosSince2000 implements TimeLocator {
 
     private final long[] timeStamps;
@@ -21,5 +23,13 @@ public class TimeLocator_MicrosSince2000 implements TimeLocator {
         return TimeUtils.millisSince2000ToUnixEpoch(timeStampSecs2000);
     }
 
+    @Override
+    public void getTimesFor(int x, int y, int width, int height, long[] times) {
+        for (int ya = 0; ya < height; ya++) {
+            final int offset = ya * width;
+            Arrays.fill(times, offset, offset + width, getTimeFor(x, y + ya));
+        }
+    }
+
 
 }
@@ -39,6 +39,17 @@ public class TimeLocator_TAI1993 implements TimeLocator {
     public long getTimeFor(int x, int y) {
         index.set(y, x);
         final double taiSeconds = taiArray.getDouble(index);
-        return TimeUtils.tai1993ToUtc(taiSeconds).getTime();
+        return TimeUtils.tai1993ToUtcMillis(taiSeconds);
+    }
+
+    @Override
+    public void getTimesFor(int x, int y, int width, int height, long[] times) {
+        int i = 0;
+        for (int ya = 0; ya < height; ya++) {
+            for (int xa = 0; xa < width; xa++) {
+                index.set(y + ya, x + xa);
+                times[i++] = TimeUtils.tai1993ToUtcMillis(taiArray.getDouble(index));
+            }
+        }
     }
 }
@@ -4,6 +4,8 @@ import com.bc.fiduceo.util.TimeUtils;
 import ucar.ma2.Array;
 import ucar.ma2.Index;
 
+import java.util.Arrays;
+
 public class TimeLocator_TAI1993Scan implements TimeLocator {
 
     private final Array taiVector;
@@ -21,6 +23,22 @@ public class TimeLocator_TAI1993Scan implements TimeLocator {
         final int yScan = y / linesPerScan;
         index.set(yScan);
         final double lineTaiSeconds = taiVector.getDouble(index);
-        return TimeUtils.tai1993ToUtc(lineTaiSeconds).getTime();
+        return TimeUtils.tai1993ToUtcMillis(lineTaiSeconds);
+    }
+
+    @Override
+    public void getTimesFor(int x, int y, int width, int height, long[] times) {
+        int currentScan = -1;
+        long scanTime = 0;
+        for (int ya = 0; ya < height; ya++) {
+            final int yScan = (y + ya) / linesPerScan;
+            if (yScan != currentScan) {
+                index.set(yScan);
+                scanTime = TimeUtils.tai1993ToUtcMillis(taiVector.getDouble(index));
+                currentScan = yScan;
+            }
+            final int offset = ya * width;
+            Arrays.fill(times, offset, offset + width, scanTime);
+        }
     }
 }
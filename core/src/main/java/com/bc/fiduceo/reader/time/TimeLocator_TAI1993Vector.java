@@ -25,6 +25,8 @@ import com.bc.fiduceo.util.TimeUtils;
 import ucar.ma2.Array;
 import ucar.ma2.Index;
 
+import java.util.Arrays;
+
 public class TimeLocator_TAI1993Vector implements TimeLocator {
 
     private final Array timeVector;
@@ -39,6 +41,16 @@ public class TimeLocator_TAI1993Vector implements TimeLocator {
     public long getTimeFor(int x, int y) {
         index.set(y);
         final double lineTaiSeconds = timeVector.getDouble(index);
-        return TimeUtils.tai1993ToUtc(lineTaiSeconds).getTime();
+        return TimeUtils.tai1993ToUtcMillis(lineTaiSeconds);
+    }
+
+    @Override
+    public void getTimesFor(int x, int y, int width, int height, long[] times) {
+        for (int ya = 0; ya < height; ya++) {
+            index.set(y + ya);
+            final long lineTime = TimeUtils.tai1993ToUtcMillis(timeVector.getDouble(index));
+            final int offset = ya * width;
+            Arrays.fill(times, offset, offset + width, lineTime);
+        }
     }
 }
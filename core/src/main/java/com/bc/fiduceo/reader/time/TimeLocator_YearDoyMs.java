@@ -23,6 +23,8 @@ package com.bc.fiduceo.reader.time;
 import com.bc.fiduceo.util.TimeUtils;
 import ucar.ma2.Array;
 
+import java.util.Arrays;
+
 public class TimeLocator_YearDoyMs implements TimeLocator {
 
     private final Array yearPerScanline;
@@ -40,6 +42,14 @@ public class TimeLocator_YearDoyMs implements TimeLocator {
         final int year = yearPerScanline.getInt(y);
         final int dayOfYear = doyPerScanline.getInt(y);
         final int millisInDay = millisecondsPerScanline.getInt(y);
-        return TimeUtils.getDate(year, dayOfYear, millisInDay).getTime();
+        return TimeUtils.toEpochMillis(year, dayOfYear, millisInDay);
+    }
+
+    @Override
+    public void getTimesFor(int x, int y, int width, int height, long[] times) {
+        for (int ya = 0; ya < height; ya++) {
+            final int offset = ya * width;
+            Arrays.fill(times, offset, offset + width, getTimeFor(x, y + ya));
+        }
     }
 }
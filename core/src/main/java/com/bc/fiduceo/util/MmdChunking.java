@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.util;
+
+import com.bc.fiduceo.FiduceoConstants;
+import org.jdom.Element;
+import ucar.nc2.Dimension;
+import ucar.nc2.Variable;
+import ucar.nc2.write.Nc4Chunking;
+import ucar.nc2.write.Nc4ChunkingDefault;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NetCDF-4 chunking and compression of MMD files.
+ * <p>
+ * The "standard" strategy is the netCDF-java default chunking. The "matchup" strategy chunks all variables having
+ * matchup_count as first dimension along this dimension only: a chunk holds complete windows (or spectra) of a
+ * block of matchups, so that reading consecutive matchups touches as few chunks as possible. The number of matchups
+ * per chunk is limited by the matchup chunk size and the maximal chunk size in bytes.
+ * <p>
+ * Deflate level and shuffle filter can be configured per variable name and per variable rank, the global setting
+ * applies otherwise. Configuration example:
+ * <pre>
+ * &lt;nc4-chunking strategy="matchup" matchup-chunk-size="1024" max-chunk-bytes="4194304" deflate="5" shuffle="true"&gt;
+ *     &lt;compression rank="1" deflate="1" shuffle="true" /&gt;
+ *     &lt;compression variable-names="iasi_GS1cSpect, iasi_GQisFlagQual" deflate="2" shuffle="false" /&gt;
+ * &lt;/nc4-chunking&gt;
+ * </pre>
+ */
+public class MmdChunking implements Nc4Chunking {
+
+    public static final String TAG_NAME_NC4_CHUNKING = "nc4-chunking";
+
+    private static final String TAG_NAME_COMPRESSION = "compression";
+    private static final String ATTRIBUTE_NAME_STRATEGY = "strategy";
+    private static final String ATTRIBUTE_NAME_MATCHUP_CHUNK_SIZE = "matchup-chunk-size";
+    private static final String ATTRIBUTE_NAME_MAX_CHUNK_BYTES = "max-chunk-bytes";
+    private static final String ATTRIBUTE_NAME_DEFLATE = "deflate";
+    private static final String ATTRIBUTE_NAME_SHUFFLE = "shuffle";
+    private static final String ATTRIBUTE_NAME_RANK = "rank";
+    private static final String ATTRIBUTE_NAME_VARIABLE_NAMES = "variable-names";
+
+    private static final int DEFAULT_DEFLATE_LEVEL = 5;
+    private static final int DEFAULT_MATCHUP_CHUNK_SIZE = 1024;
+    private static final long DEFAULT_MAX_CHUNK_BYTES = 4L * 1024 * 1024;
+
+    public enum Strategy {
+        standard,
+        matchup
+    }
+
+    private final Strategy strategy;
+    private final int deflateLevel;
+    private final boolean shuffle;
+    private final Map<Integer, Compression> rankCompressions;
+    private final Map<String, Compression> variableCompressions;
+
+    private final Nc4Chunking standardChunking;
+
+    private int matchupChunkSize;
+    private long maxChunkBytes;
+
+    public MmdChunking(Strategy strategy, int deflateLevel, boolean shuffle) {
+        if (deflateLevel < 0 || deflateLevel > 9) {
+            throw new IllegalArgumentException("Deflate level must be in [0, 9]: " + deflateLevel);
+        }
+        this.strategy = strategy;
+        this.deflateLevel = deflateLevel;
+        this.shuffle = shuffle;
+        rankCompressions = new HashMap<>();
+        variableCompressions = new HashMap<>();
+        matchupChunkSize = DEFAULT_MATCHUP_CHUNK_SIZE;
+        maxChunkBytes = DEFAULT_MAX_CHUNK_BYTES;
+        standardChunking = Nc4ChunkingDefault.factory(Nc4Chunking.Strategy.standard, deflateLevel, shuffle);
+    }
+
+    /**
+     * The chunking used before this became configurable: netCDF-java standard strategy, deflate level 5 and shuffle.
+     *
+     * @return the default chunking
+     */
+    public static MmdChunking createDefault() {
+        return new MmdChunking(Strategy.standard, DEFAULT_DEFLATE_LEVEL, true);
+    }
+
+    public static MmdChunking fromElement(Element chunkingElement) {
+        final String strategyValue = chunkingElement.getAttributeValue(ATTRIBUTE_NAME_STRATEGY);
+        Strategy strategy = Strategy.standard;
+        if (strategyValue != null) {
+            try {
+                strategy = Strategy.valueOf(strategyValue.trim());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unsupported chunking strategy: " + strategyValue);
+            }
+        }
+
+        final int deflateLevel = getIntAttribute(chunkingElement, ATTRIBUTE_NAME_DEFLATE, DEFAULT_DEFLATE_LEVEL);
+        final boolean shuffle = getBooleanAttribute(chunkingElement, ATTRIBUTE_NAME_SHUFFLE, true);
+        final MmdChunking chunking = new MmdChunking(strategy, deflateLevel, shuffle);
+        chunking.setMatchupChunkSize(getIntAttribute(chunkingElement, ATTRIBUTE_NAME_MATCHUP_CHUNK_SIZE, DEFAULT_MATCHUP_CHUNK_SIZE));
+        chunking.setMaxChunkBytes(getLongAttribute(chunkingElement, ATTRIBUTE_NAME_MAX_CHUNK_BYTES, DEFAULT_MAX_CHUNK_BYTES));
+
+        @SuppressWarnings("unchecked") final List<Element> compressionElements = chunkingElement.getChildren(TAG_NAME_COMPRESSION);
+        for (final Element compressionElement : compressionElements) {
+            final int compressionDeflate = getIntAttribute(compressionElement, ATTRIBUTE_NAME_DEFLATE, deflateLevel);
+            final boolean compressionShuffle = getBooleanAttribute(compressionElement, ATTRIBUTE_NAME_SHUFFLE, shuffle);
+
+            final String rankValue = compressionElement.getAttributeValue(ATTRIBUTE_NAME_RANK);
+            final String variableNames = compressionElement.getAttributeValue(ATTRIBUTE_NAME_VARIABLE_NAMES);
+            if (rankValue != null) {
+                chunking.setRankCompression(Integer.parseInt(rankValue.trim()), compressionDeflate, compressionShuffle);
+            } else if (variableNames != null) {
+                for (final String variableName : variableNames.split(",")) {
+                    chunking.setVariableCompression(variableName.trim(), compressionDeflate, compressionShuffle);
+                }
+            } else {
+                throw new RuntimeException("Element '" + TAG_NAME_COMPRESSION + "' needs either attribute '" + ATTRIBUTE_NAME_RANK +
+                                           "' or '" + ATTRIBUTE_NAME_VARIABLE_NAMES + "'");
+            }
+        }
+        return chunking;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public int getMatchupChunkSize() {
+        return matchupChunkSize;
+    }
+
+    public void setMatchupChunkSize(int matchupChunkSize) {
+        if (matchupChunkSize < 1) {
+            throw new IllegalArgumentException("Matchup chunk size must be positive: " + matchupChunkSize);
+        }
+        this.matchupChunkSize = matchupChunkSize;
+    }
+
+    public long getMaxChunkBytes() {
+        return maxChunkBytes;
+    }
+
+    public void setMaxChunkBytes(long maxChunkBytes) {
+        if (maxChunkBytes < 1) {
+            throw new IllegalArgumentException("Maximal chunk size must be positive: " + maxChunkBytes);
+        }
+        this.maxChunkBytes = maxChunkBytes;
+    }
+
+    public void setRankCompression(int rank, int deflateLevel, boolean shuffle) {
+        rankCompressions.put(rank, new Compression(deflateLevel, shuffle));
+    }
+
+    public void setVariableCompression(String variableName, int deflateLevel, boolean shuffle) {
+        variableCompressions.put(variableName, new Compression(deflateLevel, shuffle));
+    }
+
+    @Override
+    public boolean isChunked(Variable v) {
+        if (strategy == Strategy.matchup && isMatchupVariable(v)) {
+            return true;
+        }
+        return standardChunking.isChunked(v);
+    }
+
+    @Override
+    public long[] computeChunking(Variable v) {
+        if (strategy != Strategy.matchup || !isMatchupVariable(v)) {
+            return standardChunking.computeChunking(v);
+        }
+
+        final int[] shape = v.getShape();
+        final long[] chunking = new long[shape.length];
+        long bytesPerMatchup = v.getElementSize();
+        for (int i = 1; i < shape.length; i++) {
+            chunking[i] = Math.max(shape[i], 1);
+            bytesPerMatchup *= chunking[i];
+        }
+
+        final long matchupsPerChunk = Math.min(matchupChunkSize, maxChunkBytes / bytesPerMatchup);
+        chunking[0] = Math.max(1, Math.min(matchupsPerChunk, shape[0]));
+        return chunking;
+    }
+
+    @Override
+    public int getDeflateLevel(Variable v) {
+        final Compression compression = getCompression(v);
+        if (compression != null) {
+            return compression.deflateLevel;
+        }
+        return deflateLevel;
+    }
+
+    @Override
+    public boolean isShuffle(Variable v) {
+        final Compression compression = getCompression(v);
+        if (compression != null) {
+            return compression.shuffle;
+        }
+        return shuffle;
+    }
+
+    private Compression getCompression(Variable v) {
+        final Compression compression = variableCompressions.get(v.getShortName());
+        if (compression != null) {
+            return compression;
+        }
+        return rankCompressions.get(v.getRank());
+    }
+
+    private static boolean isMatchupVariable(Variable v) {
+        if (v.getRank() == 0) {
+            return false;
+        }
+        final Dimension dimension = v.getDimension(0);
+        return dimension != null && FiduceoConstants.MATCHUP_COUNT.equals(dimension.getShortName());
+    }
+
+    private static int getIntAttribute(Element element, String name, int defaultValue) {
+        final String value = element.getAttributeValue(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static long getLongAttribute(Element element, String name, long defaultValue) {
+        final String value = element.getAttributeValue(name);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    private static boolean getBooleanAttribute(Element element, String name, boolean defaultValue) {
+        final String value = element.getAttributeValue(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    private static class Compression {
+
+        private final int deflateLevel;
+        private final boolean shuffle;
+
+        Compression(int deflateLevel, boolean shuffle) {
+            if (deflateLevel < 0 || deflateLevel > 9) {
+                throw new IllegalArgumentException("Deflate level must be in [0, 9]: " + deflateLevel);
+            }
+            this.deflateLevel = deflateLevel;
+            this.shuffle = shuffle;
+        }
+    }
+}
@@ -17,56 +17,48 @@
  * with this program; if not, see http://www.gnu.org/licenses/
  *
  */
-
 package com.bc.fiduceo.util;
 
 import org.esa.snap.core.datamodel.ProductData;
 
 import java.sql.Timestamp;
 import java.text.ParseException;
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TimeUtils {
 
+    private static final String DEFAULT_PATTERN = "dd-MMM-yyyy HH:mm:ss";
     private static final String YEAR_DOY_PATTERN = "yyyy-DDD";
 
     private static final double EPOCH_MJD2000 = 10957.0;
     private static final double MILLIS_PER_DAY = 86400000.0;
+    private static final long MILLIS_PER_DAY_LONG = 86400000L;
     private static final long TAI_REFERENCE_SECONDS = 725846400L;   // 1993-01-01T00:00:00 as UTC since Epoch
 
-    private static ThreadLocal<Calendar> calendarThreadLocal = new CalendarThreadLocal();
-
-    public static final long millisSince1978;
-    public static final int secondsSince1978;
+    // pattern letters that mean the same for SimpleDateFormat and DateTimeFormatter, all others
+    // (e.g. "S" milliseconds or the two-digit year pivot of "yy") stay with SimpleDateFormat
+    private static final String[] JAVA_TIME_FIELDS = {"yyyy", "MMM", "MM", "dd", "DDD", "HH", "mm", "ss", "SSS"};
+    private static final ConcurrentHashMap<String, DateTimeFormatter> formatters = new ConcurrentHashMap<>();
 
-    static {
-        final Calendar calendar = ProductData.UTC.createCalendar();
-        calendar.clear();
-        calendar.set(1978, Calendar.JANUARY, 1);
-        millisSince1978 = calendar.getTime().getTime();
-        secondsSince1978 = (int) (millisSince1978 / 1000);
-    }
+    public static final long millisSince1978 = LocalDate.of(1978, 1, 1).toEpochDay() * MILLIS_PER_DAY_LONG;
+    public static final int secondsSince1978 = (int) (millisSince1978 / 1000);
 
-    private static final long millisSince2000;
-
-    static {
-        final Calendar utcCalendar = TimeUtils.getUTCCalendar();
-        utcCalendar.set(Calendar.YEAR, 2000);
-        utcCalendar.set(Calendar.MONTH, 0);
-        utcCalendar.set(Calendar.DAY_OF_MONTH, 1);
-        utcCalendar.set(Calendar.HOUR_OF_DAY, 0);
-        utcCalendar.set(Calendar.MINUTE, 0);
-        utcCalendar.set(Calendar.SECOND, 0);
-        utcCalendar.set(Calendar.MILLISECOND, 0);
-
-        millisSince2000 = utcCalendar.getTime().getTime();
-    }
+    private static final long millisSince2000 = LocalDate.of(2000, 1, 1).toEpochDay() * MILLIS_PER_DAY_LONG;
 
     public static Date create(long millisSinceEpoch) {
-        final Calendar calendar = calendarThreadLocal.get();
-        calendar.setTimeInMillis(millisSinceEpoch);
-        return calendar.getTime();
+        return new Date(millisSinceEpoch);
     }
 
     /**
@@ -75,41 +67,51 @@ public class TimeUtils {
      * @return utc-now
      */
     public static Date createNow() {
-        final Calendar calendar = calendarThreadLocal.get();
-        calendar.setTime(new Date());
-        return calendar.getTime();
+        return new Date();
     }
 
     public static String format(Date date) {
-        return ProductData.UTC.createDateFormat().format(date);
+        return format(date, DEFAULT_PATTERN);
     }
 
     public static String format(Date date, String pattern) {
-        return ProductData.UTC.createDateFormat(pattern).format(date);
+        final DateTimeFormatter formatter = getFormatter(pattern);
+        if (formatter == null) {
+            return ProductData.UTC.createDateFormat(pattern).format(date);
+        }
+        return formatter.format(toLocalDateTime(date.getTime()));
     }
 
     public static Date toDate(Timestamp timestamp) {
-        final Calendar calendar = calendarThreadLocal.get();
-        calendar.setTimeInMillis(timestamp.getTime());
-        return calendar.getTime();
+        return new Date(timestamp.getTime());
     }
 
     public static Timestamp toTimestamp(Date date) {
-        final Calendar calendar = calendarThreadLocal.get();
-        calendar.setTimeInMillis(date.getTime());
-        return new Timestamp(calendar.getTimeInMillis());
+        return new Timestamp(date.getTime());
     }
 
     public static Date parse(String dateString, String pattern) {
+        final DateTimeFormatter formatter = getFormatter(pattern);
+        if (formatter == null) {
+            try {
+                return ProductData.UTC.createDateFormat(pattern).parse(dateString);
+            } catch (ParseException e) {
+                throw new RuntimeException("Unparseable date: " + dateString);
+            }
+        }
+
+        // like SimpleDateFormat, trailing text after the pattern is ignored
+        final ParsePosition position = new ParsePosition(0);
         try {
-            return ProductData.UTC.createDateFormat(pattern).parse(dateString);
-        } catch (ParseException e) {
+            final TemporalAccessor parsed = formatter.parse(dateString, position);
+            return new Date(toEpochMillis(LocalDateTime.from(parsed)));
+        } catch (RuntimeException e) {
             throw new RuntimeException("Unparseable date: " + dateString);
         }
     }
 
     public static Calendar getUTCCalendar() {
-        return (Calendar) calendarThreadLocal.get().clone();
+        return ProductData.UTC.createCalendar();
     }
 
     public static Date parseDOYBeginOfDay(String dateString) {
@@ -118,13 +120,7 @@ public class TimeUtils {
 
     public static Date parseDOYEndOfDay(String dateFormat) {
         final Date date = parseDOYBeginOfDay(dateFormat);
-        final Calendar calendar = calendarThreadLocal.get();
-        calendar.setTimeInMillis(date.getTime());
-        calendar.add(Calendar.HOUR_OF_DAY, 23);
-        calendar.add(Calendar.MINUTE, 59);
-        calendar.add(Calendar.SECOND, 59);
-        calendar.add(Calendar.MILLISECOND, 999);
-        return calendar.getTime();
+        return new Date(date.getTime() + MILLIS_PER_DAY_LONG - 1);
     }
 
     public static String formatToDOY(Date date) {
@@ -132,33 +128,22 @@ public class TimeUtils {
     }
 
     public static Date addSeconds(int seconds, Date date) {
-        final Calendar calendar = calendarThreadLocal.get();
-        calendar.setTimeInMillis(date.getTime());
-        calendar.add(Calendar.SECOND, seconds);
-        return calendar.getTime();
+        return new Date(date.getTime() + seconds * 1000L);
     }
 
     public static Date getBeginOfMonth(Date date) {
-        final Calendar utcCalendar = calendarThreadLocal.get();
-        utcCalendar.setTime(date);
-        utcCalendar.set(Calendar.DAY_OF_MONTH, 1);
-        return getBeginningOfDay(utcCalendar.getTime());
+        final LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(date.getTime(), MILLIS_PER_DAY_LONG));
+        return new Date(day.withDayOfMonth(1).toEpochDay() * MILLIS_PER_DAY_LONG);
     }
 
     public static Date getEndOfMonth(Date date) {
-        final Calendar utcCalendar = calendarThreadLocal.get();
-        utcCalendar.setTime(date);
-        final int maxDay = utcCalendar.getActualMaximum(Calendar.DAY_OF_MONTH);
-        utcCalendar.set(Calendar.DAY_OF_MONTH, maxDay);
-        utcCalendar.set(Calendar.MILLISECOND, 999);
-        utcCalendar.set(Calendar.SECOND, 59);
-        utcCalendar.set(Calendar.MINUTE, 59);
-        utcCalendar.set(Calendar.HOUR_OF_DAY, 23);
-        return utcCalendar.getTime();
+        final LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(date.getTime(), MILLIS_PER_DAY_LONG));
+        final long nextMonthEpochDay = day.withDayOfMonth(1).plusMonths(1).toEpochDay();
+        return new Date(nextMonthEpochDay * MILLIS_PER_DAY_LONG - 1);
     }
 
     public static Date getBeginningOfDay(Date day) {
-        return calendarDayOf(day).getTime();
+        return new Date(Math.floorDiv(day.getTime(), MILLIS_PER_DAY_LONG) * MILLIS_PER_DAY_LONG);
     }
 
     public static Date mjd2000ToDate(double mjd2000) {
@@ -170,9 +155,17 @@ public class TimeUtils {
         return millisSince2000 + timeStamp;
     }
 
+    public static long secondsSince1978ToUnixEpoch(long secondsSince1978) {
+        return millisSince1978 + secondsSince1978 * 1000L;
+    }
+
     public static Date tai1993ToUtc(double taiSeconds) {
+        return new Date(tai1993ToUtcMillis(taiSeconds));
+    }
+
+    public static long tai1993ToUtcMillis(double taiSeconds) {
         final double utcInstant = tai1993ToUtcInstantSeconds(taiSeconds);
-        return new Date((long) (utcInstant * 1000L));
+        return (long) (utcInstant * 1000L);
     }
 
     public static double tai1993ToUtcInstantSeconds(double taiSeconds) {
@@ -181,34 +174,12 @@ public class TimeUtils {
     }
 
     public static Date getDate(int year, int dayOfYear, int millisecsInDay) {
-        final Calendar calendar = getUTCCalendar();
-        calendar.set(Calendar.YEAR, year);
-        calendar.set(Calendar.DAY_OF_YEAR, dayOfYear);
-
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
-
-        calendar.add(Calendar.MILLISECOND, millisecsInDay);
-        return calendar.getTime();
-    }
-
-    private static class CalendarThreadLocal extends ThreadLocal<Calendar> {
-        @Override
-        protected Calendar initialValue() {
-            return ProductData.UTC.createCalendar();
-        }
+        return new Date(toEpochMillis(year, dayOfYear, millisecsInDay));
     }
 
-    private static Calendar calendarDayOf(Date time) {
-        final Calendar calendar = calendarThreadLocal.get();
-        calendar.setTime(time);
-        calendar.set(Calendar.MILLISECOND, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        return calendar;
+    public static long toEpochMillis(int year, int dayOfYear, int millisecsInDay) {
+        final long epochDay = LocalDate.of(year, 1, 1).toEpochDay() + dayOfYear - 1;
+        return epochDay * MILLIS_PER_DAY_LONG + millisecsInDay;
     }
 
     static long getTaiToUtcOffset(double taiInstant) {
@@ -238,4 +209,89 @@ public class TimeUtils {
 
         throw new RuntimeException("unsupported time range");
     }
+
+    // package access for testing only
+    static DateTimeFormatter getFormatter(String pattern) {
+        DateTimeFormatter formatter = formatters.get(pattern);
+        if (formatter == null && isJavaTimePattern(pattern)) {
+            formatter = createFormatter(pattern);
+            formatters.putIfAbsent(pattern, formatter);
+        }
+        return formatter;
+    }
+
+    // package access for testing only
+    static boolean isJavaTimePattern(String pattern) {
+        final int length = pattern.length();
+        int i = 0;
+        while (i < length) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                final int end = pattern.indexOf('\'', i + 1);
+                if (end < 0) {
+                    return false;
+                }
+                i = end + 1;
+            } else if (Character.isLetter(c)) {
+                int end = i + 1;
+                while (end < length && pattern.charAt(end) == c) {
+                    ++end;
+                }
+                if (!isJavaTimeField(pattern.substring(i, end))) {
+                    return false;
+                }
+                i = end;
+            } else if ("[]{}#".indexOf(c) >= 0) {
+                return false;
+            } else {
+                ++i;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isJavaTimeField(String field) {
+        for (final String javaTimeField : JAVA_TIME_FIELDS) {
+            if (javaTimeField.equals(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static DateTimeFormatter createFormatter(String pattern) {
+        final DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder()
+                .parseCaseInsensitive()
+                .parseLenient()
+                .appendPattern(pattern);
+
+        // SimpleDateFormat starts from 1970-01-01T00:00:00 for all fields not in the pattern
+        if (!pattern.contains("D")) {
+            if (!pattern.contains("M")) {
+                builder.parseDefaulting(ChronoField.MONTH_OF_YEAR, 1);
+            }
+            if (!pattern.contains("d")) {
+                builder.parseDefaulting(ChronoField.DAY_OF_MONTH, 1);
+            }
+        }
+        if (!pattern.contains("y")) {
+            builder.parseDefaulting(ChronoField.YEAR_OF_ERA, 1970);
+        }
+        builder.parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+                .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+                .parseDefaulting(ChronoField.SECOND_OF_MINUTE, 0)
+                .parseDefaulting(ChronoField.NANO_OF_SECOND, 0);
+
+        return builder.toFormatter(Locale.ENGLISH).withResolverStyle(ResolverStyle.LENIENT);
+    }
+
+    private static LocalDateTime toLocalDateTime(long millisSinceEpoch) {
+        final long epochSecond = Math.floorDiv(millisSinceEpoch, 1000L);
+        final int nanos = (int) Math.floorMod(millisSinceEpoch, 1000L) * 1000000;
+        return LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC);
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1000L + dateTime.getNano() / 1000000;
+    }
 }
@@ -130,6 +130,12 @@ public class TestUtil {
         return dataSource;
     }
 
+    public static BasicDataSource getDataSource_LocalIndex(File indexFile) {
+        final BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl("localindex:" + indexFile.getAbsolutePath());
+        return dataSource;
+    }
+
     public static void writeSystemConfig(File configDir) throws IOException {
         writeSystemConfig(configDir, TestUtil.getTestDataDirectory());
     }
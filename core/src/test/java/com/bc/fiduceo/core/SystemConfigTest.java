@@ -92,6 +92,8 @@ public class SystemConfigTest {
 
         assertEquals("S2", systemConfig.getGeometryLibraryType());
         assertEquals(8, systemConfig.getReaderCacheSize());
+        assertEquals(4096, systemConfig.getDecompressionCacheSizeMb());
+        assertEquals(32, systemConfig.getInMemoryDecompressionLimitMb());
     }
 
     @Test
@@ -117,4 +119,18 @@ public class SystemConfigTest {
 
         assertEquals("/wherever/I/Lay/my/hat", systemConfig.getTempDir());
     }
+
+    @Test
+    public void testLoadAndGet_DecompressionSettings() {
+        final String useCaseXml = "<system-config>" +
+                "    <decompression-cache-size-mb>1024</decompression-cache-size-mb>" +
+                "    <in-memory-decompression-limit-mb>0</in-memory-decompression-limit-mb>" +
+                "</system-config>";
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(useCaseXml.getBytes());
+
+        final SystemConfig systemConfig = SystemConfig.load(inputStream);
+
+        assertEquals(1024, systemConfig.getDecompressionCacheSizeMb());
+        assertEquals(0, systemConfig.getInMemoryDecompressionLimitMb());
+    }
 }
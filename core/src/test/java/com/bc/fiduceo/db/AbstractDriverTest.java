@@ -21,22 +21,35 @@
 package com.bc.fiduceo.db;
 
 
+import com.bc.fiduceo.TestData;
+import com.bc.fiduceo.core.SatelliteObservation;
+import com.bc.fiduceo.geometry.GeometryFactory;
 import com.bc.fiduceo.util.TimeUtils;
+import org.apache.commons.dbcp2.BasicDataSource;
 import org.junit.Test;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class AbstractDriverTest {
 
     @Test
     public void testCreateSql_noParameter() {
-        final String sql = AbstractDriver.createSql(null);
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(null, values);
 
         assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId", sql);
+        assertEquals(0, values.size());
     }
 
     @Test
@@ -45,9 +58,12 @@ public class AbstractDriverTest {
         final Date startDate = TimeUtils.create(1300000000000L);
         parameter.setStartTime(startDate);
 
-        final String sql = AbstractDriver.createSql(parameter);
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
 
-        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.stopDate >= '2011-03-13 07:06:40.0'", sql);
+        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.StopDate >= ?", sql);
+        assertEquals(1, values.size());
+        assertEquals(1300000000000L, ((Timestamp) values.get(0)).getTime());
     }
 
     @Test
@@ -55,9 +71,12 @@ public class AbstractDriverTest {
         final QueryParameter parameter = new QueryParameter();
         parameter.setStopTime(TimeUtils.create(1210000000000L));
 
-        final String sql = AbstractDriver.createSql(parameter);
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
 
-        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.startDate <= '2008-05-05 15:06:40.0'", sql);
+        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.StartDate <= ?", sql);
+        assertEquals(1, values.size());
+        assertEquals(1210000000000L, ((Timestamp) values.get(0)).getTime());
     }
 
     @Test
@@ -66,9 +85,13 @@ public class AbstractDriverTest {
         parameter.setStartTime(TimeUtils.create(1320000000000L));
         parameter.setStopTime(TimeUtils.create(1330000000000L));
 
-        final String sql = AbstractDriver.createSql(parameter);
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
 
-        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.stopDate >= '2011-10-30 18:40:00.0' AND obs.startDate <= '2012-02-23 12:26:40.0'", sql);
+        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.StopDate >= ? AND obs.StartDate <= ?", sql);
+        assertEquals(2, values.size());
+        assertEquals(1320000000000L, ((Timestamp) values.get(0)).getTime());
+        assertEquals(1330000000000L, ((Timestamp) values.get(1)).getTime());
     }
 
     @Test
@@ -76,9 +99,12 @@ public class AbstractDriverTest {
         final QueryParameter parameter = new QueryParameter();
         parameter.setSensorName("fieberthermometer");
 
-        final String sql = AbstractDriver.createSql(parameter);
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
 
-        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE sen.Name = 'fieberthermometer'", sql);
+        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.SensorId = (SELECT ID FROM SENSOR WHERE Name = ?)", sql);
+        assertEquals(1, values.size());
+        assertEquals("fieberthermometer", values.get(0));
     }
 
     @Test
@@ -87,9 +113,13 @@ public class AbstractDriverTest {
         parameter.setSensorName("sensing");
         parameter.setStartTime(TimeUtils.create(1250000000000L));
 
-        final String sql = AbstractDriver.createSql(parameter);
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
 
-        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.stopDate >= '2009-08-11 14:13:20.0' AND sen.Name = 'sensing'", sql);
+        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.StopDate >= ? AND obs.SensorId = (SELECT ID FROM SENSOR WHERE Name = ?)", sql);
+        assertEquals(2, values.size());
+        assertEquals(1250000000000L, ((Timestamp) values.get(0)).getTime());
+        assertEquals("sensing", values.get(1));
     }
 
     @Test
@@ -97,9 +127,12 @@ public class AbstractDriverTest {
         final QueryParameter parameter = new QueryParameter();
         parameter.setPath("/whereever/i/lay/my/hat");
 
-        final String sql = AbstractDriver.createSql(parameter);
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
 
-        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.DataFile = '/whereever/i/lay/my/hat'", sql);
+        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.DataFile = ?", sql);
+        assertEquals(1, values.size());
+        assertEquals("/whereever/i/lay/my/hat", values.get(0));
     }
 
     @Test
@@ -107,9 +140,132 @@ public class AbstractDriverTest {
         final QueryParameter parameter = new QueryParameter();
         parameter.setVersion("v2.0");
 
-        final String sql = AbstractDriver.createSql(parameter);
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
 
-        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.Version = 'v2.0'", sql);
+        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.Version = ?", sql);
+        assertEquals(1, values.size());
+        assertEquals("v2.0", values.get(0));
+    }
+
+    @Test
+    public void testCreateSql_sensorNameWithQuote() {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setSensorName("x' OR '1' = '1");
+
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
+
+        assertEquals("SELECT * FROM SATELLITE_OBSERVATION obs INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId WHERE obs.SensorId = (SELECT ID FROM SENSOR WHERE Name = ?)", sql);
+        assertEquals(1, values.size());
+        assertEquals("x' OR '1' = '1", values.get(0));
+    }
+
+    @Test
+    public void testCreateSql_sameShapeSameSql() {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setSensorName("amsub-n15");
+        parameter.setStartTime(TimeUtils.create(1320000000000L));
+        final String sql_1 = AbstractDriver.createSql(parameter, new ArrayList<>());
+
+        parameter.setSensorName("mhs-n18");
+        parameter.setStartTime(TimeUtils.create(1420000000000L));
+        final String sql_2 = AbstractDriver.createSql(parameter, new ArrayList<>());
+
+        assertEquals(sql_1, sql_2);
+    }
+
+    @Test
+    public void testCreateSql_offsetPaging() {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setSensorName("hirs-n17");
+        parameter.setPageSize(100);
+        parameter.setOffset(300);
+
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
+
+        assertEquals("SELECT * FROM (SELECT * FROM SATELLITE_OBSERVATION obs WHERE obs.SensorId = (SELECT ID FROM SENSOR WHERE Name = ?) ORDER BY obs.StartDate, obs.ID LIMIT ? OFFSET ?) obs " +
+                "INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId ORDER BY obs.StartDate, obs.ID, axis.ID", sql);
+        assertEquals(3, values.size());
+        assertEquals("hirs-n17", values.get(0));
+        assertEquals(100, values.get(1));
+        assertEquals(300, values.get(2));
+    }
+
+    @Test
+    public void testCreateSql_keysetPaging_firstPage() {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setPageSize(512);
+
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
+
+        assertEquals("SELECT * FROM (SELECT * FROM SATELLITE_OBSERVATION obs ORDER BY obs.StartDate, obs.ID LIMIT ?) obs " +
+                "INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId ORDER BY obs.StartDate, obs.ID, axis.ID", sql);
+        assertEquals(1, values.size());
+        assertEquals(512, values.get(0));
+    }
+
+    @Test
+    public void testCreateSql_keysetPaging_nextPage() {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setPageSize(512);
+        parameter.setStopTime(TimeUtils.create(1330000000000L));
+        parameter.setPageStart(TimeUtils.create(1320000000000L), 2087);
+
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
+
+        assertEquals("SELECT * FROM (SELECT * FROM SATELLITE_OBSERVATION obs WHERE obs.StartDate <= ? AND obs.StartDate >= ? AND (obs.StartDate > ? OR obs.ID > ?) ORDER BY obs.StartDate, obs.ID LIMIT ?) obs " +
+                "INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId ORDER BY obs.StartDate, obs.ID, axis.ID", sql);
+        assertEquals(5, values.size());
+        assertEquals(1330000000000L, ((Timestamp) values.get(0)).getTime());
+        assertEquals(1320000000000L, ((Timestamp) values.get(1)).getTime());
+        assertEquals(1320000000000L, ((Timestamp) values.get(2)).getTime());
+        assertEquals(2087, values.get(3));
+        assertEquals(512, values.get(4));
+    }
+
+    @Test
+    public void testCreateSql_offsetPaging_ignoresPageStart() {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setPageSize(512);
+        parameter.setOffset(1024);
+        parameter.setPageStart(TimeUtils.create(1320000000000L), 2087);
+
+        final List<Object> values = new ArrayList<>();
+        final String sql = AbstractDriver.createSql(parameter, values);
+
+        assertEquals("SELECT * FROM (SELECT * FROM SATELLITE_OBSERVATION obs ORDER BY obs.StartDate, obs.ID LIMIT ? OFFSET ?) obs " +
+                "INNER JOIN SENSOR sen ON obs.SensorId = sen.ID LEFT OUTER JOIN TIMEAXIS axis ON obs.ID = axis.ObservationId ORDER BY obs.StartDate, obs.ID, axis.ID", sql);
+        assertEquals(2, values.size());
+    }
+
+    @Test
+    public void testUpdatePageStart() {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setPageSize(20);
+
+        AbstractDriver.updatePageStart(parameter, new Timestamp(1320000000000L), 19);
+        assertEquals(1320000000000L, parameter.getPageStartTime().getTime());
+        assertEquals(19, parameter.getPageStartId());
+    }
+
+    @Test
+    public void testUpdatePageStart_offsetPaging() {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setPageSize(20);
+        parameter.setOffset(40);
+
+        AbstractDriver.updatePageStart(parameter, new Timestamp(1320000000000L), 59);
+        assertNull(parameter.getPageStartTime());
+        assertEquals(-1, parameter.getPageStartId());
+    }
+
+    @Test
+    public void testUpdatePageStart_noParameter() {
+        AbstractDriver.updatePageStart(null, new Timestamp(1320000000000L), 59);
     }
 
     @Test
@@ -143,18 +299,22 @@ public class AbstractDriverTest {
     public void testAppendLimitAndOffset_noParameter() {
          final StringBuilder builder = new StringBuilder();
 
-         AbstractDriver.appendLimitAndOffset(null, builder);
+         final List<Object> values = new ArrayList<>();
+         AbstractDriver.appendLimitAndOffset(null, builder, values);
 
          assertEquals("", builder.toString());
+         assertEquals(0, values.size());
     }
 
     @Test
     public void testAppendLimitAndOffset_emptyParameter() {
         final StringBuilder builder = new StringBuilder();
 
-        AbstractDriver.appendLimitAndOffset(new QueryParameter(), builder);
+        final List<Object> values = new ArrayList<>();
+        AbstractDriver.appendLimitAndOffset(new QueryParameter(), builder, values);
 
         assertEquals("", builder.toString());
+        assertEquals(0, values.size());
     }
 
     @Test
@@ -163,9 +323,12 @@ public class AbstractDriverTest {
         final QueryParameter parameter = new QueryParameter();
         parameter.setPageSize(128);
 
-        AbstractDriver.appendLimitAndOffset(parameter, builder);
+        final List<Object> values = new ArrayList<>();
+        AbstractDriver.appendLimitAndOffset(parameter, builder, values);
 
-        assertEquals(" LIMIT 128", builder.toString());
+        assertEquals(" LIMIT ?", builder.toString());
+        assertEquals(1, values.size());
+        assertEquals(128, values.get(0));
     }
 
     @Test
@@ -174,9 +337,12 @@ public class AbstractDriverTest {
         final QueryParameter parameter = new QueryParameter();
         parameter.setOffset(16388);
 
-        AbstractDriver.appendLimitAndOffset(parameter, builder);
+        final List<Object> values = new ArrayList<>();
+        AbstractDriver.appendLimitAndOffset(parameter, builder, values);
 
-        assertEquals(" OFFSET 16388", builder.toString());
+        assertEquals(" OFFSET ?", builder.toString());
+        assertEquals(1, values.size());
+        assertEquals(16388, values.get(0));
     }
 
     @Test
@@ -186,8 +352,73 @@ public class AbstractDriverTest {
         parameter.setPageSize(1000);
         parameter.setOffset(16389);
 
-        AbstractDriver.appendLimitAndOffset(parameter, builder);
+        final List<Object> values = new ArrayList<>();
+        AbstractDriver.appendLimitAndOffset(parameter, builder, values);
+
+        assertEquals(" LIMIT ? OFFSET ?", builder.toString());
+        assertEquals(2, values.size());
+        assertEquals(1000, values.get(0));
+        assertEquals(16389, values.get(1));
+    }
+
+    @Test
+    public void testCreateConnectionPool() {
+        final BasicDataSource config = new BasicDataSource();
+        config.setDriverClassName("org.h2.Driver");
+        config.setUrl("jdbc:h2:mem:pool_test");
+        config.setUsername("sa");
+        config.setPassword("secret");
+        config.setMaxTotal(12);
+        config.setMaxIdle(6);
+        config.setMinIdle(2);
+        config.setMaxWaitMillis(3000);
+
+        final BasicDataSource pool = AbstractDriver.createConnectionPool(config);
+        assertNotSame(config, pool);
+        assertEquals("org.h2.Driver", pool.getDriverClassName());
+        assertEquals("jdbc:h2:mem:pool_test", pool.getUrl());
+        assertEquals("sa", pool.getUsername());
+        assertEquals("secret", pool.getPassword());
+        assertEquals(12, pool.getMaxTotal());
+        assertEquals(6, pool.getMaxIdle());
+        assertEquals(2, pool.getMinIdle());
+        assertEquals(3000, pool.getMaxWaitMillis());
+        assertTrue(pool.isPoolPreparedStatements());
+        assertEquals(64, pool.getMaxOpenPreparedStatements());
+    }
 
-        assertEquals(" LIMIT 1000 OFFSET 16389", builder.toString());
+    @Test
+    public void testCheckGeometryConstraint() {
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        final QueryParameter parameter = new QueryParameter();
+        AbstractDriver.checkGeometryConstraint(null);
+        AbstractDriver.checkGeometryConstraint(parameter);
+
+        parameter.setGeometry(geometryFactory.parse("POLYGON ((10 5, 10 7, 12 7, 12 5, 10 5))"));
+        AbstractDriver.checkGeometryConstraint(parameter);
+
+        parameter.setPageSize(100);
+        try {
+            AbstractDriver.checkGeometryConstraint(parameter);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testFilterByGeometry() {
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        final List<SatelliteObservation> observations = new ArrayList<>();
+        observations.add(TestData.createSatelliteObservation(new Date(10000000L), new Date(11000000L), "POLYGON ((10 5, 10 7, 12 7, 12 5, 10 5))", geometryFactory));
+        observations.add(TestData.createSatelliteObservation(new Date(20000000L), new Date(21000000L), "POLYGON ((40 5, 40 7, 42 7, 42 5, 40 5))", geometryFactory));
+
+        assertSame(observations, AbstractDriver.filterByGeometry(observations, null));
+        assertSame(observations, AbstractDriver.filterByGeometry(observations, new QueryParameter()));
+
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setGeometry(geometryFactory.createPoint(41, 6));
+        final List<SatelliteObservation> filtered = AbstractDriver.filterByGeometry(observations, parameter);
+        assertEquals(1, filtered.size());
+        assertEquals(20000000L, filtered.get(0).getStartTime().getTime());
     }
 }
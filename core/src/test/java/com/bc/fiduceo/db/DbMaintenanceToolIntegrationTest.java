@@ -16,7 +16,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -70,6 +76,8 @@ public class DbMaintenanceToolIntegrationTest {
                     "usage: db-maintenance-tool <options>" + ls +
                     "Valid options are:" + ls +
                     "   -c,--config <arg>    Defines the configuration directory. Defaults to './config'." + ls +
+                    "   -e,--export <arg>    Exports all observations to a local index file." + ls +
+                    "   -g,--geometries      Converts the stored geometries to the binary storage format." + ls +
                     "   -h,--help            Prints the tool usage." + ls +
                     "   -p,--path <arg>      Observation path segment to be replaced." + ls +
                     "   -r,--replace <arg>   Observation path segment replacement." + ls, err.toString());
@@ -145,6 +153,188 @@ public class DbMaintenanceToolIntegrationTest {
         runTest_alterSomePaths(dataSource);
     }
 
+    @Test
+    public void testMigrateGeometries_Postgres() throws IOException, ParseException, SQLException {
+        TestUtil.writeDatabaseProperties_Postgres(configDir);
+        TestUtil.writeSystemConfig(configDir);
+        final BasicDataSource dataSource = TestUtil.getDataSource_Postgres();
+
+        runTest_migrateGeometries(dataSource);
+    }
+
+    @Test
+    public void testMigrateGeometries_H2() throws IOException, ParseException, SQLException {
+        TestUtil.writeDatabaseProperties_H2(configDir);
+        TestUtil.writeSystemConfig(configDir);
+        final BasicDataSource dataSource = TestUtil.getDatasource_H2();
+
+        runTest_migrateGeometries(dataSource);
+    }
+
+    @Test
+    public void testLegacySchema_H2() throws IOException, ParseException, SQLException {
+        TestUtil.writeDatabaseProperties_H2(configDir);
+        TestUtil.writeSystemConfig(configDir);
+        final BasicDataSource dataSource = TestUtil.getDatasource_H2();
+
+        runTest_legacySchema(dataSource);
+    }
+
+    @Test
+    public void testExport_H2() throws IOException, ParseException, SQLException {
+        TestUtil.writeDatabaseProperties_H2(configDir);
+        TestUtil.writeSystemConfig(configDir);
+        final BasicDataSource dataSource = TestUtil.getDatasource_H2();
+
+        runTest_export(dataSource);
+    }
+
+    private void runTest_export(BasicDataSource dataSource) throws SQLException, ParseException {
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        final Storage storage = Storage.create(dataSource, geometryFactory);
+
+        if (!storage.isInitialized()) {
+            storage.initialize();
+        }
+
+        storage.insert(new Sensor(TestData.SENSOR_NAME));
+        storage.insert(new Sensor("the_other_sensor"));
+
+        for (int i = 0; i < 9; i++) {
+            final SatelliteObservation observation = TestData.createSatelliteObservation(new Date(10000000L * (i + 1)), new Date(10000000L * (i + 1) + 5000000L), geometryFactory);
+            observation.setDataFilePath(TestUtil.assembleFileSystemPath(new String[]{"archive", "the_file_number_" + i}, true));
+            if (i % 3 == 0) {
+                observation.setSensor(new Sensor("the_other_sensor"));
+            }
+            storage.insert(observation);
+        }
+
+        final File indexFile = new File(TestUtil.getTestDir(), "observations.idx");
+        Storage indexStorage = null;
+        try {
+            final String[] args = new String[]{"-c", configDir.getAbsolutePath(), "-e", indexFile.getAbsolutePath()};
+            DbMaintenanceToolMain.main(args);
+
+            assertTrue(indexFile.isFile());
+
+            indexStorage = Storage.create(TestUtil.getDataSource_LocalIndex(indexFile), geometryFactory);
+            assertEquals(9, indexStorage.get().size());
+
+            final QueryParameter queryParameter = new QueryParameter();
+            queryParameter.setSensorName("the_other_sensor");
+            final List<SatelliteObservation> observations = indexStorage.get(queryParameter);
+            assertEquals(3, observations.size());
+            assertEquals(10000000L, observations.get(0).getStartTime().getTime());
+            assertEquals(40000000L, observations.get(1).getStartTime().getTime());
+            assertEquals(70000000L, observations.get(2).getStartTime().getTime());
+            for (final SatelliteObservation observation : observations) {
+                assertEquals(5, observation.getGeoBounds().getCoordinates().length);
+                assertEquals(1, observation.getTimeAxes().length);
+            }
+        } finally {
+            if (indexStorage != null) {
+                indexStorage.clear();
+                indexStorage.close();
+            }
+            storage.clear();
+            storage.close();
+        }
+    }
+
+    private void runTest_migrateGeometries(BasicDataSource dataSource) throws SQLException, ParseException {
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        final Storage storage = Storage.create(dataSource, geometryFactory);
+
+        if (!storage.isInitialized()) {
+            storage.initialize();
+        }
+
+        for (int i = 0; i < 7; i++) {
+            final SatelliteObservation observation = TestData.createSatelliteObservation(geometryFactory);
+            observation.setDataFilePath(TestUtil.assembleFileSystemPath(new String[]{"archive", "the_file_number_" + i}, true));
+            storage.insert(observation);
+        }
+
+        try (Connection connection = DriverManager.getConnection(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword())) {
+            // turn the tables into the layout of previous versions
+            final Statement statement = connection.createStatement();
+            statement.executeUpdate("ALTER TABLE SATELLITE_OBSERVATION DROP COLUMN GeoBoundsData");
+            statement.executeUpdate("ALTER TABLE TIMEAXIS DROP COLUMN AxisData");
+
+            final String[] args = new String[]{"-c", configDir.getAbsolutePath(), "-g"};
+            DbMaintenanceToolMain.main(args);
+
+            ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM SATELLITE_OBSERVATION WHERE GeoBoundsData IS NULL");
+            assertTrue(resultSet.next());
+            assertEquals(0, resultSet.getInt(1));
+
+            resultSet = statement.executeQuery("SELECT COUNT(*) FROM TIMEAXIS WHERE AxisData IS NULL");
+            assertTrue(resultSet.next());
+            assertEquals(0, resultSet.getInt(1));
+
+            final List<SatelliteObservation> observations = storage.get();
+            assertEquals(7, observations.size());
+            for (final SatelliteObservation observation : observations) {
+                assertEquals(5, observation.getGeoBounds().getCoordinates().length);
+                assertEquals(1, observation.getTimeAxes().length);
+            }
+        } finally {
+            storage.clear();
+            storage.close();
+        }
+    }
+
+    private void runTest_legacySchema(BasicDataSource dataSource) throws SQLException, ParseException {
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        Storage storage = Storage.create(dataSource, geometryFactory);
+
+        if (!storage.isInitialized()) {
+            storage.initialize();
+        }
+
+        try (Connection connection = DriverManager.getConnection(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+             Statement statement = connection.createStatement()) {
+            // turn the tables into the layout of previous versions
+            statement.executeUpdate("ALTER TABLE SATELLITE_OBSERVATION DROP COLUMN GeoBoundsData");
+            statement.executeUpdate("ALTER TABLE TIMEAXIS DROP COLUMN AxisData");
+            statement.executeUpdate("DROP INDEX SENSOR_TIME");
+            statement.executeUpdate("DROP INDEX START_TIME");
+        }
+
+        // the schema is inspected when opening the database, the first storage keeps in-memory databases alive
+        final Storage legacyStorage = Storage.create(dataSource, geometryFactory);
+        storage.close();
+        storage = legacyStorage;
+
+        try {
+            try (Connection connection = DriverManager.getConnection(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+                 ResultSet indexInfo = connection.getMetaData().getIndexInfo(null, null, "SATELLITE_OBSERVATION", false, false)) {
+                final List<String> indexNames = new ArrayList<>();
+                while (indexInfo.next()) {
+                    indexNames.add(indexInfo.getString("INDEX_NAME"));
+                }
+                assertTrue(indexNames.contains("SENSOR_TIME"));
+                assertTrue(indexNames.contains("START_TIME"));
+            }
+
+            for (int i = 0; i < 3; i++) {
+                final SatelliteObservation observation = TestData.createSatelliteObservation(geometryFactory);
+                observation.setDataFilePath(TestUtil.assembleFileSystemPath(new String[]{"archive", "the_file_number_" + i}, true));
+                storage.insert(observation);
+            }
+
+            final List<SatelliteObservation> observations = storage.get();
+            assertEquals(3, observations.size());
+            for (final SatelliteObservation observation : observations) {
+                assertEquals(5, observation.getGeoBounds().getCoordinates().length);
+                assertEquals(1, observation.getTimeAxes().length);
+            }
+        } finally {
+            storage.clear();
+            storage.close();
+        }
+    }
+
     private void runTest_alterNoPath(BasicDataSource dataSource) throws SQLException, ParseException {
         final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
         final Storage storage = Storage.create(dataSource, geometryFactory);
@@ -42,6 +42,20 @@ public class DbMaintenanceToolTest {
         assertEquals("replace", replaceOption.getLongOpt());
         assertEquals("Observation path segment replacement.", replaceOption.getDescription());
         assertTrue(replaceOption.hasArg());
+
+        final Option geometriesOption = options.getOption("geometries");
+        assertNotNull(geometriesOption);
+        assertEquals("g", geometriesOption.getOpt());
+        assertEquals("geometries", geometriesOption.getLongOpt());
+        assertEquals("Converts the stored geometries to the binary storage format.", geometriesOption.getDescription());
+        assertFalse(geometriesOption.hasArg());
+
+        final Option exportOption = options.getOption("export");
+        assertNotNull(exportOption);
+        assertEquals("e", exportOption.getOpt());
+        assertEquals("export", exportOption.getLongOpt());
+        assertEquals("Exports all observations to a local index file.", exportOption.getDescription());
+        assertTrue(exportOption.hasArg());
     }
 
     @Test
@@ -57,6 +71,8 @@ public class DbMaintenanceToolTest {
                 "usage: db-maintenance-tool <options>" + ls +
                 "Valid options are:" + ls +
                 "   -c,--config <arg>    Defines the configuration directory. Defaults to './config'." + ls +
+                "   -e,--export <arg>    Exports all observations to a local index file." + ls +
+                "   -g,--geometries      Converts the stored geometries to the binary storage format." + ls +
                 "   -h,--help            Prints the tool usage." + ls +
                 "   -p,--path <arg>      Observation path segment to be replaced." + ls +
                 "   -r,--replace <arg>   Observation path segment replacement." + ls, stream.toString());
@@ -22,6 +22,7 @@ package com.bc.fiduceo.db;
 import org.junit.Test;
 
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.fail;
 
 /**
@@ -43,6 +44,32 @@ public class DriverUtilsTest {
 
         driver = driverUtils.getDriver("jdbc:postgresql://localhost:5432/test");
         assertTrue(driver.getUrlPattern().toLowerCase().equals("jdbc:postgresql"));
+
+
+        driver = driverUtils.getDriver("localindex:/data/fiduceo/observations.idx");
+        assertTrue(driver.getUrlPattern().toLowerCase().equals("localindex"));
+    }
+
+    @Test
+    public void testGetDriver_localIndexPathContainsOtherPattern() {
+        final DriverUtils driverUtils = new DriverUtils();
+
+        final Driver driver = driverUtils.getDriver("localindex:/data/mongodb_export/observations.idx");
+        assertTrue(driver.getUrlPattern().toLowerCase().equals("localindex"));
+    }
+
+    @Test
+    public void testCreateDriver() {
+        final DriverUtils driverUtils = new DriverUtils();
+
+        final Driver registered = driverUtils.getDriver("jdbc:h2:mem:fiduceo");
+        final Driver driver = driverUtils.createDriver("jdbc:h2:mem:fiduceo");
+        final Driver otherDriver = driverUtils.createDriver("jdbc:h2:mem:fiduceo");
+
+        assertTrue(driver instanceof H2Driver);
+        assertTrue(otherDriver instanceof H2Driver);
+        assertNotSame(registered, driver);
+        assertNotSame(driver, otherDriver);
     }
 
     @Test
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.db;
+
+import com.bc.fiduceo.TestUtil;
+import com.bc.fiduceo.core.SatelliteObservation;
+import com.bc.fiduceo.geometry.GeometryFactory;
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Measures OFFSET and keyset paging and the sensor and time query on an in-memory H2 database. Not part of the unit
+ * tests, run it from the test class path with
+ * <p>
+ * java com.bc.fiduceo.db.H2DriverPagingBenchmark [numObservations]
+ * <p>
+ * The database is filled like in H2DriverPagingTest, with 1M observations by default.
+ */
+public class H2DriverPagingBenchmark {
+
+    private static final int PAGE_SIZE = 512;
+    private static final int NUM_RUNS = 5;
+    private static final int NUM_SENSOR_QUERIES = 1000;
+
+    public static void main(String[] args) throws SQLException {
+        final int numObservations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        // the driver is used without Storage, which usually sets this
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+
+        final BasicDataSource dataSource = TestUtil.getDatasource_H2();
+        dataSource.setUrl("jdbc:h2:mem:fiduceo_paging_benchmark");
+
+        final H2Driver driver = new H2Driver();
+        driver.setGeometryFactory(new GeometryFactory(GeometryFactory.Type.S2));
+        driver.open(dataSource);
+        try {
+            driver.initialize();
+            H2DriverPagingTest.insertObservations(driver, numObservations);
+
+            benchmarkPageAtDepth(driver, numObservations);
+            benchmarkKeysetWalk(driver, numObservations);
+            benchmarkSensorQuery(driver, numObservations);
+        } finally {
+            driver.clear();
+            driver.close();
+        }
+    }
+
+    private static void benchmarkPageAtDepth(H2Driver driver, int numObservations) throws SQLException {
+        System.out.println("one page of " + PAGE_SIZE + " of " + numObservations + " observations, best of " + NUM_RUNS + " runs");
+        for (final int depth : new int[]{0, numObservations / 4, numObservations / 2, numObservations / 10 * 9}) {
+            final QueryParameter offsetParameter = new QueryParameter();
+            offsetParameter.setPageSize(PAGE_SIZE);
+            offsetParameter.setOffset(depth);
+
+            final QueryParameter keysetParameter = new QueryParameter();
+            keysetParameter.setPageSize(PAGE_SIZE);
+            Timestamp pageStartTime = null;
+            int pageStartId = -1;
+            if (depth > 0) {
+                try (Connection connection = driver.getConnection();
+                     PreparedStatement statement = connection.prepareStatement("SELECT StartDate, ID FROM SATELLITE_OBSERVATION ORDER BY StartDate, ID LIMIT 1 OFFSET ?")) {
+                    statement.setInt(1, depth - 1);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        resultSet.next();
+                        pageStartTime = resultSet.getTimestamp(1);
+                        pageStartId = resultSet.getInt(2);
+                    }
+                }
+            }
+
+            long offsetTime = Long.MAX_VALUE;
+            long keysetTime = Long.MAX_VALUE;
+            for (int run = 0; run < NUM_RUNS; run++) {
+                long start = System.nanoTime();
+                final List<SatelliteObservation> offsetPage = driver.get(offsetParameter);
+                offsetTime = Math.min(offsetTime, System.nanoTime() - start);
+
+                // the driver moves the page start on, every run reads the same page
+                keysetParameter.setPageStart(pageStartTime, pageStartId);
+                start = System.nanoTime();
+                final List<SatelliteObservation> keysetPage = driver.get(keysetParameter);
+                keysetTime = Math.min(keysetTime, System.nanoTime() - start);
+
+                if (!offsetPage.get(0).getDataFilePath().equals(keysetPage.get(0).getDataFilePath())) {
+                    throw new IllegalStateException("different pages at depth " + depth);
+                }
+            }
+            System.out.printf("  depth %8d   OFFSET %8.2f ms   keyset %8.2f ms%n", depth, offsetTime * 1e-6, keysetTime * 1e-6);
+        }
+    }
+
+    private static void benchmarkKeysetWalk(H2Driver driver, int numObservations) throws SQLException {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setPageSize(PAGE_SIZE);
+
+        final long start = System.nanoTime();
+        int numRead = 0;
+        List<SatelliteObservation> observations = driver.get(parameter);
+        while (observations.size() > 0) {
+            numRead += observations.size();
+            observations = driver.get(parameter);
+        }
+        final long time = System.nanoTime() - start;
+
+        if (numRead != numObservations) {
+            throw new IllegalStateException("keyset walk read " + numRead + " of " + numObservations + " observations");
+        }
+        System.out.printf("keyset walk over all pages   %8.1f ms   %8.1f observations/ms%n", time * 1e-6, numRead / (time * 1e-6));
+    }
+
+    private static void benchmarkSensorQuery(H2Driver driver, int numObservations) throws SQLException {
+        final long startMillis = 1262304000000L;
+        long numFound = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < NUM_SENSOR_QUERIES; i++) {
+            // 100 minutes at a different position of the archive each time
+            final long minute = (long) i * (numObservations - 200) / NUM_SENSOR_QUERIES;
+            final QueryParameter parameter = new QueryParameter();
+            parameter.setSensorName(i % 2 == 0 ? "amsub-n15" : "mhs-n18");
+            parameter.setStartTime(new Date(startMillis + minute * 60000L));
+            parameter.setStopTime(new Date(startMillis + (minute + 100) * 60000L));
+            numFound += driver.get(parameter).size();
+        }
+        final long time = System.nanoTime() - start;
+
+        System.out.printf("%d sensor and time queries      %8.1f ms   %8.3f ms per query (%d observations)%n",
+                          NUM_SENSOR_QUERIES, time * 1e-6, time * 1e-6 / NUM_SENSOR_QUERIES, numFound);
+    }
+}
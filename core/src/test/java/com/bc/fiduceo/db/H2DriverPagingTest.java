@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.db;
+
+import com.bc.fiduceo.TestUtil;
+import com.bc.fiduceo.core.SatelliteObservation;
+import com.bc.fiduceo.core.Sensor;
+import com.bc.fiduceo.geometry.GeometryFactory;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(DatabaseTestRunner.class)
+public class H2DriverPagingTest {
+
+    private static final int NUM_OBSERVATIONS = 1000000;
+    private static final int PAGE_SIZE = 512;
+    private static final int DEEP_OFFSET = 900000;
+
+    private H2Driver driver;
+
+    @Before
+    public void setUp() throws SQLException {
+        // the driver is used without Storage, which usually sets this
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+
+        final BasicDataSource dataSource = TestUtil.getDatasource_H2();
+        dataSource.setUrl("jdbc:h2:mem:fiduceo_paging");
+
+        driver = new H2Driver();
+        driver.setGeometryFactory(new GeometryFactory(GeometryFactory.Type.S2));
+        driver.open(dataSource);
+        driver.initialize();
+
+        insertObservations(driver, NUM_OBSERVATIONS);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (driver != null) {
+            driver.clear();
+            driver.close();
+        }
+    }
+
+    @Test
+    public void testKeysetPaging_matchesDeepOffset() throws SQLException {
+        final Timestamp pageStartTime;
+        final int pageStartId;
+        try (Connection connection = driver.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT StartDate, ID FROM SATELLITE_OBSERVATION ORDER BY StartDate, ID LIMIT 1 OFFSET ?")) {
+            statement.setInt(1, DEEP_OFFSET - 1);
+            final ResultSet resultSet = statement.executeQuery();
+            assertTrue(resultSet.next());
+            pageStartTime = resultSet.getTimestamp(1);
+            pageStartId = resultSet.getInt(2);
+        }
+
+        final QueryParameter offsetParameter = new QueryParameter();
+        offsetParameter.setPageSize(PAGE_SIZE);
+        offsetParameter.setOffset(DEEP_OFFSET);
+        final List<SatelliteObservation> offsetPage = driver.get(offsetParameter);
+
+        final QueryParameter keysetParameter = new QueryParameter();
+        keysetParameter.setPageSize(PAGE_SIZE);
+        keysetParameter.setPageStart(pageStartTime, pageStartId);
+
+        final List<SatelliteObservation> keysetPage = driver.get(keysetParameter);
+
+        assertEquals(PAGE_SIZE, offsetPage.size());
+        assertEquals(PAGE_SIZE, keysetPage.size());
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            assertEquals(offsetPage.get(i).getDataFilePath(), keysetPage.get(i).getDataFilePath());
+        }
+        assertEquals(Paths.get("/archive/orbit_" + (DEEP_OFFSET + 1) + ".nc"), keysetPage.get(0).getDataFilePath());
+        assertEquals(Paths.get("/archive/orbit_" + (DEEP_OFFSET + PAGE_SIZE) + ".nc"), keysetPage.get(PAGE_SIZE - 1).getDataFilePath());
+
+        // the parameter continues after the last observation returned
+        final List<SatelliteObservation> nextPage = driver.get(keysetParameter);
+        assertEquals(PAGE_SIZE, nextPage.size());
+        assertEquals(Paths.get("/archive/orbit_" + (DEEP_OFFSET + PAGE_SIZE + 1) + ".nc"), nextPage.get(0).getDataFilePath());
+    }
+
+    @Test
+    public void testKeysetPaging_visitsAllObservationsOfSensor() throws SQLException {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setSensorName("mhs-n18");
+        parameter.setStartTime(new Date(1262304000000L + 200000L * 60000L));
+        parameter.setStopTime(new Date(1262304000000L + 210000L * 60000L));
+        parameter.setPageSize(PAGE_SIZE);
+
+        int numObservations = 0;
+        long lastStartTime = Long.MIN_VALUE;
+        List<SatelliteObservation> observations = driver.get(parameter);
+        while (observations.size() > 0) {
+            for (final SatelliteObservation observation : observations) {
+                assertEquals("mhs-n18", observation.getSensor().getName());
+                final long startTime = observation.getStartTime().getTime();
+                assertTrue(startTime > lastStartTime);
+                lastStartTime = startTime;
+            }
+            numObservations += observations.size();
+            observations = driver.get(parameter);
+        }
+
+        // minutes 199950 to 210000 overlap the interval, the odd ones are mhs observations
+        assertEquals(5025, numObservations);
+    }
+
+    @Test
+    public void testQuery_sensorAndTime_usesCompositeIndex() throws SQLException {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setSensorName("amsub-n15");
+        parameter.setStartTime(new Date(1262304000000L + 500000L * 60000L));
+        parameter.setStopTime(new Date(1262304000000L + 500100L * 60000L));
+
+        final List<Object> values = new ArrayList<>();
+        try (Connection connection = driver.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + AbstractDriver.createSql(parameter, values))) {
+            AbstractDriver.setValues(statement, values);
+            final ResultSet resultSet = statement.executeQuery();
+            assertTrue(resultSet.next());
+            assertTrue(resultSet.getString(1).contains("SENSOR_TIME"));
+        }
+
+        final List<SatelliteObservation> observations = driver.get(parameter);
+
+        // minutes 499950 to 500100 overlap the interval, the even ones are amsub observations
+        assertEquals(76, observations.size());
+        for (final SatelliteObservation observation : observations) {
+            assertEquals("amsub-n15", observation.getSensor().getName());
+        }
+    }
+
+    // one observation per minute, alternating sensors, 50 minutes long. Package access for the benchmark
+    static void insertObservations(H2Driver driver, int numObservations) throws SQLException {
+        final int amsubId = driver.insert(createSensor("amsub-n15"));
+        final int mhsId = driver.insert(createSensor("mhs-n18"));
+
+        try (Connection connection = driver.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO SATELLITE_OBSERVATION (StartDate, StopDate, NodeType, SensorId, Version, DataFile) " +
+                     "SELECT DATEADD('SECOND', X * 60, TIMESTAMP '2010-01-01 00:00:00'), DATEADD('SECOND', X * 60 + 3000, TIMESTAMP '2010-01-01 00:00:00'), 0, " +
+                     "CASEWHEN(MOD(X, 2) = 0, ?, ?), 'v1.0', CONCAT('/archive/orbit_', X, '.nc') FROM SYSTEM_RANGE(1, ?)")) {
+            statement.setInt(1, amsubId);
+            statement.setInt(2, mhsId);
+            statement.setInt(3, numObservations);
+            statement.executeUpdate();
+        }
+    }
+
+    private static Sensor createSensor(String name) {
+        final Sensor sensor = new Sensor();
+        sensor.setName(name);
+        return sensor;
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.db;
+
+import com.bc.fiduceo.TestData;
+import com.bc.fiduceo.TestUtil;
+import com.bc.fiduceo.core.SatelliteObservation;
+import com.bc.fiduceo.core.Sensor;
+import com.bc.fiduceo.geometry.Geometry;
+import com.bc.fiduceo.geometry.GeometryFactory;
+import com.bc.fiduceo.geometry.Point;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LocalIndexDriverTest {
+
+    private static final long HOUR = 3600L * 1000L;
+
+    private GeometryFactory geometryFactory;
+    private File indexFile;
+    private LocalIndexDriver driver;
+
+    @Before
+    public void setUp() throws SQLException {
+        final File testDirectory = TestUtil.createTestDirectory();
+        indexFile = new File(testDirectory, "observations.idx");
+        geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+
+        driver = new LocalIndexDriver();
+        driver.setGeometryFactory(geometryFactory);
+        driver.open(TestUtil.getDataSource_LocalIndex(indexFile));
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        driver.clear();
+        driver.close();
+        TestUtil.deleteTestDirectory();
+    }
+
+    @Test
+    public void testGetUrlPattern() {
+        assertEquals("localindex", driver.getUrlPattern());
+    }
+
+    @Test
+    public void testInsert_close_reopen() throws SQLException {
+        driver.insert(createObservation("sensor_b", 3 * HOUR, "POLYGON((10 10, 20 10, 20 20, 10 20, 10 10))"));
+        driver.insert(createObservation("sensor_a", 2 * HOUR, "POLYGON((-10 -10, 0 -10, 0 0, -10 0, -10 -10))"));
+        driver.insert(createObservation("sensor_a", 1 * HOUR, "POLYGON((30 30, 40 30, 40 40, 30 40, 30 30))"));
+        assertFalse(indexFile.isFile());
+
+        driver.close();
+        assertTrue(indexFile.isFile());
+
+        driver.open(TestUtil.getDataSource_LocalIndex(indexFile));
+        final List<SatelliteObservation> observations = driver.get();
+        assertEquals(3, observations.size());
+        // sorted by sensor and start time
+        assertEquals("sensor_a", observations.get(0).getSensor().getName());
+        assertEquals(1 * HOUR, observations.get(0).getStartTime().getTime());
+        assertEquals("sensor_a", observations.get(1).getSensor().getName());
+        assertEquals(2 * HOUR, observations.get(1).getStartTime().getTime());
+        assertEquals("sensor_b", observations.get(2).getSensor().getName());
+        assertEquals(3 * HOUR + HOUR / 2, observations.get(2).getStopTime().getTime());
+
+        final SatelliteObservation observation = observations.get(2);
+        assertEquals(TestData.VERSION, observation.getVersion());
+        assertEquals("sensor_b_" + 3 * HOUR + ".nc", observation.getDataFilePath().toString());
+        assertEquals(5, observation.getGeoBounds().getCoordinates().length);
+        assertEquals(1, observation.getTimeAxes().length);
+    }
+
+    @Test
+    public void testGet_fileAndInsertedObservations() throws SQLException {
+        driver.insert(createObservation("sensor_a", 1 * HOUR, "POLYGON((30 30, 40 30, 40 40, 30 40, 30 30))"));
+        driver.insert(createObservation("sensor_a", 3 * HOUR, "POLYGON((30 30, 40 30, 40 40, 30 40, 30 30))"));
+        driver.close();
+
+        driver.open(TestUtil.getDataSource_LocalIndex(indexFile));
+        driver.insert(createObservation("sensor_a", 2 * HOUR, "POLYGON((30 30, 40 30, 40 40, 30 40, 30 30))"));
+
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setSensorName("sensor_a");
+        parameter.setOffset(1);
+        final List<SatelliteObservation> observations = driver.get(parameter);
+        assertEquals(2, observations.size());
+        assertEquals(2 * HOUR, observations.get(0).getStartTime().getTime());
+        assertEquals(3 * HOUR, observations.get(1).getStartTime().getTime());
+    }
+
+    @Test
+    public void testGet_timeQuery_longObservationBeforeShortOnes() throws SQLException {
+        driver.insert(createObservation("sensor_a", 0, 10 * HOUR, "POLYGON((30 30, 40 30, 40 40, 30 40, 30 30))"));
+        driver.insert(createObservation("sensor_a", 1 * HOUR, "POLYGON((30 30, 40 30, 40 40, 30 40, 30 30))"));
+        driver.insert(createObservation("sensor_a", 5 * HOUR, "POLYGON((30 30, 40 30, 40 40, 30 40, 30 30))"));
+        driver.close();
+        driver.open(TestUtil.getDataSource_LocalIndex(indexFile));
+
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setStartTime(new Date(4 * HOUR));
+        parameter.setStopTime(new Date(6 * HOUR));
+        final List<SatelliteObservation> observations = driver.get(parameter);
+        assertEquals(2, observations.size());
+        assertEquals(0, observations.get(0).getStartTime().getTime());
+        assertEquals(5 * HOUR, observations.get(1).getStartTime().getTime());
+    }
+
+    @Test
+    public void testGet_spatialQuery() throws SQLException {
+        driver.insert(createObservation("sensor_a", 1 * HOUR, "POLYGON((-10 -10, 0 -10, 0 0, -10 0, -10 -10))"));
+        driver.insert(createObservation("sensor_a", 2 * HOUR, "POLYGON((10 10, 20 10, 20 20, 10 20, 10 10))"));
+        driver.insert(createObservation("sensor_a", 3 * HOUR, "MULTIPOLYGON(((100 10, 110 10, 110 20, 100 20, 100 10)),((15 15, 25 15, 25 25, 15 25, 15 15)))"));
+        driver.insert(createObservation("sensor_a", 4 * HOUR, "POLYGON((120 -50, 130 -50, 130 -40, 120 -40, 120 -50))"));
+        driver.close();
+        driver.open(TestUtil.getDataSource_LocalIndex(indexFile));
+
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setGeometry(geometryFactory.parse("POLYGON((12 12, 18 12, 18 18, 12 18, 12 12))"));
+        List<SatelliteObservation> observations = driver.get(parameter);
+        assertEquals(2, observations.size());
+        assertEquals(2 * HOUR, observations.get(0).getStartTime().getTime());
+        assertEquals(3 * HOUR, observations.get(1).getStartTime().getTime());
+
+        parameter.setGeometry(geometryFactory.parse("POLYGON((50 50, 60 50, 60 60, 50 60, 50 50))"));
+        observations = driver.get(parameter);
+        assertEquals(0, observations.size());
+
+        parameter.setGeometry(geometryFactory.createPoint(125, -45));
+        observations = driver.get(parameter);
+        assertEquals(1, observations.size());
+        assertEquals(4 * HOUR, observations.get(0).getStartTime().getTime());
+    }
+
+    @Test
+    public void testGet_spatialQuery_noGeoBounds() throws SQLException {
+        final SatelliteObservation observation = createObservation("sensor_a", 1 * HOUR, "POLYGON((10 10, 20 10, 20 20, 10 20, 10 10))");
+        observation.setGeoBounds(null);
+        driver.insert(observation);
+
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setGeometry(geometryFactory.parse("POLYGON((12 12, 18 12, 18 18, 12 18, 12 12))"));
+        assertEquals(0, driver.get(parameter).size());
+    }
+
+    @Test
+    public void testUpdatePath_fileEntry() throws SQLException {
+        driver.insert(createObservation("sensor_a", 1 * HOUR, "POLYGON((10 10, 20 10, 20 20, 10 20, 10 10))"));
+        driver.insert(createObservation("sensor_a", 2 * HOUR, "POLYGON((10 10, 20 10, 20 20, 10 20, 10 10))"));
+        driver.close();
+        driver.open(TestUtil.getDataSource_LocalIndex(indexFile));
+
+        final SatelliteObservation observation = driver.get().get(1);
+        driver.updatePath(observation, "/archive/moved.nc");
+        driver.close();
+        driver.open(TestUtil.getDataSource_LocalIndex(indexFile));
+
+        final List<SatelliteObservation> observations = driver.get();
+        assertEquals(2, observations.size());
+        assertEquals("sensor_a_" + HOUR + ".nc", observations.get(0).getDataFilePath().toString());
+        assertEquals(new File("/archive/moved.nc").getPath(), observations.get(1).getDataFilePath().toString());
+    }
+
+    @Test
+    public void testInsertSensor() throws SQLException {
+        assertEquals(-1, driver.insert(new Sensor("whatever")));
+    }
+
+    @Test
+    public void testGetCellRanges() {
+        final Geometry polygon = geometryFactory.parse("POLYGON((10 10, 20 10, 20 20, 10 20, 10 10))");
+
+        final long[] ranges = LocalIndexDriver.getCellRanges(polygon);
+        assertTrue(ranges.length > 0);
+        assertTrue(ranges.length <= 2 * 8);
+        for (int i = 0; i < ranges.length; i += 2) {
+            assertTrue(Long.compareUnsigned(ranges[i], ranges[i + 1]) <= 0);
+        }
+    }
+
+    @Test
+    public void testGetCellRanges_multiPolygon() {
+        final Geometry first = geometryFactory.parse("POLYGON((10 10, 20 10, 20 20, 10 20, 10 10))");
+        final Geometry multiPolygon = geometryFactory.parse("MULTIPOLYGON(((10 10, 20 10, 20 20, 10 20, 10 10)),((-100 -10, -90 -10, -90 0, -100 0, -100 -10)))");
+
+        assertTrue(LocalIndexDriver.getCellRanges(multiPolygon).length > LocalIndexDriver.getCellRanges(first).length);
+    }
+
+    @Test
+    public void testGetCellRanges_JTS() {
+        final GeometryFactory jtsFactory = new GeometryFactory(GeometryFactory.Type.JTS);
+        final Geometry polygon = jtsFactory.parse("POLYGON((10 10, 20 10, 20 20, 10 20, 10 10))");
+
+        assertNull(LocalIndexDriver.getCellRanges(polygon));
+    }
+
+    @Test
+    public void testGet_monthOfOrbits() throws SQLException {
+        // one month of ~100 minute orbits for three sensors, queried per primary orbit like the matchup tool does
+        final long orbitDuration = 100L * 60L * 1000L;
+        final int numOrbits = 450;
+        final String[] sensorNames = {"avhrr-n18", "mhs-n18", "amsub-n15"};
+        for (final String sensorName : sensorNames) {
+            for (int orbit = 0; orbit < numOrbits; orbit++) {
+                final SatelliteObservation observation = createObservation(sensorName, orbit * orbitDuration, (orbit + 1) * orbitDuration, "POLYGON((0 0, 1 0, 1 1, 0 1, 0 0))");
+                observation.setGeoBounds(createSwath(orbit + Arrays.asList(sensorNames).indexOf(sensorName) * 7));
+                driver.insert(observation);
+            }
+        }
+        driver.close();
+        driver.open(TestUtil.getDataSource_LocalIndex(indexFile));
+
+        int numResults = 0;
+        for (int orbit = 0; orbit < numOrbits; orbit++) {
+            final QueryParameter parameter = new QueryParameter();
+            parameter.setSensorName("mhs-n18");
+            parameter.setStartTime(new Date(orbit * orbitDuration - HOUR));
+            parameter.setStopTime(new Date((orbit + 1) * orbitDuration + HOUR));
+            final List<SatelliteObservation> timeMatches = driver.get(parameter);
+
+            parameter.setGeometry(createSwath(orbit));
+            final List<SatelliteObservation> observations = driver.get(parameter);
+
+            // the cell range prefilter must not drop observations the exact intersection accepts
+            final List<SatelliteObservation> expected = AbstractDriver.filterByGeometry(timeMatches, parameter);
+            assertEquals(expected.size(), observations.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getStartTime(), observations.get(i).getStartTime());
+            }
+            numResults += observations.size();
+        }
+
+        assertTrue(numResults > 0);
+        assertTrue(numResults < numOrbits * 3);
+    }
+
+    private SatelliteObservation createObservation(String sensorName, long startTime, String wkt) {
+        return createObservation(sensorName, startTime, startTime + HOUR / 2, wkt);
+    }
+
+    private SatelliteObservation createObservation(String sensorName, long startTime, long stopTime, String wkt) {
+        final SatelliteObservation observation = TestData.createSatelliteObservation(new Date(startTime), new Date(stopTime), wkt, geometryFactory);
+        observation.setSensor(new Sensor(sensorName));
+        observation.setDataFilePath(sensorName + "_" + startTime + ".nc");
+        return observation;
+    }
+
+    private Geometry createSwath(int orbit) {
+        final double nodeLon = (orbit * 25.0) % 340.0 - 170.0;
+        final List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            points.add(geometryFactory.createPoint(nodeLon + 5.0 + 0.04 * i, -70.0 + 2.8 * i));
+        }
+        for (int i = 49; i >= 0; i--) {
+            points.add(geometryFactory.createPoint(nodeLon - 5.0 + 0.04 * i, -70.0 + 2.8 * i));
+        }
+        return geometryFactory.createPolygon(points);
+    }
+}
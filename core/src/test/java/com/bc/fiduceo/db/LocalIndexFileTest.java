@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.db;
+
+import com.bc.fiduceo.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class LocalIndexFileTest {
+
+    private Path indexPath;
+
+    @Before
+    public void setUp() {
+        final File testDirectory = TestUtil.createTestDirectory();
+        indexPath = new File(testDirectory, "observations.idx").toPath();
+    }
+
+    @After
+    public void tearDown() {
+        TestUtil.deleteTestDirectory();
+    }
+
+    @Test
+    public void testWriteAndRead_empty() throws IOException {
+        new LocalIndexWriter(indexPath).close();
+
+        try (LocalIndexFile indexFile = new LocalIndexFile(indexPath)) {
+            assertEquals(0, indexFile.getNumEntries());
+            assertEquals(0, indexFile.getNumSensors());
+        }
+        // the temporary record file is removed
+        assertEquals(1, indexPath.getParent().toFile().list().length);
+    }
+
+    @Test
+    public void testWriteAndRead_sortedBySensorAndTime() throws IOException {
+        final LocalIndexWriter writer = new LocalIndexWriter(indexPath);
+        writer.add("sensor_b", 300, 350, createRecord(1));
+        writer.add("sensor_a", 200, 260, createRecord(2, 3));
+        writer.add("sensor_b", 100, 110, createRecord(4));
+        writer.add("sensor_a", 50, 70, createRecord(5, 6, 7));
+        writer.close();
+
+        try (LocalIndexFile indexFile = new LocalIndexFile(indexPath)) {
+            assertEquals(4, indexFile.getNumEntries());
+            assertEquals(2, indexFile.getNumSensors());
+
+            assertEquals("sensor_a", indexFile.getSensorName(0));
+            assertEquals(0, indexFile.getFirstEntry(0));
+            assertEquals(2, indexFile.getNumEntries(0));
+            assertEquals("sensor_b", indexFile.getSensorName(1));
+            assertEquals(2, indexFile.getFirstEntry(1));
+            assertEquals(2, indexFile.getNumEntries(1));
+            assertEquals(1, indexFile.getSensorIndex("sensor_b"));
+            assertEquals(-1, indexFile.getSensorIndex("sensor_c"));
+
+            assertEquals(50, indexFile.getStartTime(0));
+            assertEquals(70, indexFile.getStopTime(0));
+            assertEquals(200, indexFile.getStartTime(1));
+            assertEquals(100, indexFile.getStartTime(2));
+            assertEquals(300, indexFile.getStartTime(3));
+            assertEquals(350, indexFile.getStopTime(3));
+
+            assertArrayEquals(new byte[]{5, 6, 7}, toBytes(indexFile.getRecord(0)));
+            assertArrayEquals(new byte[]{2, 3}, toBytes(indexFile.getRecord(1)));
+            assertArrayEquals(new byte[]{4}, toBytes(indexFile.getRecord(2)));
+            assertArrayEquals(new byte[]{1}, toBytes(indexFile.getRecord(3)));
+        }
+    }
+
+    @Test
+    public void testGetCandidateRange() throws IOException {
+        final LocalIndexWriter writer = new LocalIndexWriter(indexPath);
+        writer.add("sensor", 0, 1000, createRecord(1));
+        for (int i = 1; i < 10; i++) {
+            writer.add("sensor", i * 100, i * 100 + 50, createRecord(i));
+        }
+        writer.close();
+
+        try (LocalIndexFile indexFile = new LocalIndexFile(indexPath)) {
+            // the long first observation forces the search back to the first entry
+            assertArrayEquals(new int[]{0, 6}, indexFile.getCandidateRange(0, 420, 520));
+            assertArrayEquals(new int[]{0, 10}, indexFile.getCandidateRange(0, Long.MIN_VALUE, Long.MAX_VALUE));
+            assertArrayEquals(new int[]{0, 0}, indexFile.getCandidateRange(0, Long.MIN_VALUE, -1));
+            assertArrayEquals(new int[]{10, 10}, indexFile.getCandidateRange(0, 2000, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void testGetCandidateRange_shortObservations() throws IOException {
+        final LocalIndexWriter writer = new LocalIndexWriter(indexPath);
+        for (int i = 0; i < 10; i++) {
+            writer.add("sensor", i * 100, i * 100 + 50, createRecord(i));
+        }
+        writer.close();
+
+        try (LocalIndexFile indexFile = new LocalIndexFile(indexPath)) {
+            // interval borders are inclusive
+            assertArrayEquals(new int[]{4, 6}, indexFile.getCandidateRange(0, 450, 500));
+            assertArrayEquals(new int[]{4, 5}, indexFile.getCandidateRange(0, 420, 499));
+        }
+    }
+
+    @Test
+    public void testOpen_notAnIndexFile() throws IOException {
+        Files.write(indexPath, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+
+        try {
+            new LocalIndexFile(indexPath);
+            fail("IOException expected");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testWrite_replacesExistingFile() throws IOException {
+        LocalIndexWriter writer = new LocalIndexWriter(indexPath);
+        writer.add("sensor", 100, 200, createRecord(1));
+        writer.close();
+
+        writer = new LocalIndexWriter(indexPath);
+        writer.close();
+
+        try (LocalIndexFile indexFile = new LocalIndexFile(indexPath)) {
+            assertEquals(0, indexFile.getNumEntries());
+        }
+        assertFalse(Files.exists(indexPath.resolveSibling("observations.idx.tmp")));
+    }
+
+    private static ByteBuffer createRecord(int... values) {
+        final byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static byte[] toBytes(ByteBuffer record) {
+        final byte[] bytes = new byte[record.remaining()];
+        record.get(bytes);
+        return bytes;
+    }
+}
@@ -27,8 +27,10 @@ import com.bc.geometry.s2.S2WKTReader;
 import com.google.common.geometry.S2Loop;
 import com.google.common.geometry.S2Point;
 import com.google.common.geometry.S2Polygon;
+import com.mongodb.ServerAddress;
 import com.mongodb.client.model.geojson.PolygonCoordinates;
 import com.mongodb.client.model.geojson.Position;
+import org.apache.commons.dbcp2.BasicDataSource;
 import org.bson.Document;
 import org.junit.Before;
 import org.junit.Test;
@@ -373,6 +375,56 @@ public class MongoDbDriverTest {
         assertEquals("2647", MongoDbDriver.parsePort("mongodb://192.29.25.134:2647"));
     }
 
+    @Test
+    public void testCreateClientKey() {
+        final ServerAddress serverAddress = new ServerAddress("localhost", 27017);
+        assertEquals("localhost:27017/fiduceo", MongoDbDriver.createClientKey(serverAddress, "fiduceo", null));
+        assertEquals("192.29.25.134:2647/", MongoDbDriver.createClientKey(new ServerAddress("192.29.25.134", 2647), null, null));
+
+        final String key = MongoDbDriver.createClientKey(serverAddress, "fiduceo", "secret");
+        assertTrue(key.startsWith("localhost:27017/fiduceo/"));
+        assertFalse(key.contains("secret"));
+        assertEquals(key, MongoDbDriver.createClientKey(serverAddress, "fiduceo", "secret"));
+        assertNotEquals(key, MongoDbDriver.createClientKey(serverAddress, "fiduceo", "other"));
+    }
+
+    @Test
+    public void testOpenClose_sharesClient() {
+        // the client connects lazily, no server is needed to open and close
+        final int numClients = MongoDbDriver.getNumSharedClients();
+        final MongoDbDriver otherDriver = new MongoDbDriver();
+
+        driver.open(TestUtil.getDataSource_MongoDb());
+        otherDriver.open(TestUtil.getDataSource_MongoDb());
+        assertEquals(numClients + 1, MongoDbDriver.getNumSharedClients());
+
+        driver.close();
+        assertEquals(numClients + 1, MongoDbDriver.getNumSharedClients());
+
+        otherDriver.close();
+        assertEquals(numClients, MongoDbDriver.getNumSharedClients());
+
+        // closing twice must not release the client of another driver
+        otherDriver.close();
+        assertEquals(numClients, MongoDbDriver.getNumSharedClients());
+    }
+
+    @Test
+    public void testOpenClose_otherPasswordGetsOwnClient() {
+        final int numClients = MongoDbDriver.getNumSharedClients();
+        final MongoDbDriver otherDriver = new MongoDbDriver();
+        final BasicDataSource otherDataSource = TestUtil.getDataSource_MongoDb();
+        otherDataSource.setPassword("other_password");
+
+        driver.open(TestUtil.getDataSource_MongoDb());
+        otherDriver.open(otherDataSource);
+        assertEquals(numClients + 2, MongoDbDriver.getNumSharedClients());
+
+        driver.close();
+        otherDriver.close();
+        assertEquals(numClients, MongoDbDriver.getNumSharedClients());
+    }
+
     private MultiPolygon getMultiPolygon(String wkt) {
         return (MultiPolygon) geometryFactory.parse(wkt);
     }
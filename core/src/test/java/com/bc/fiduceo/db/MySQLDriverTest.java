@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2016 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.db;
+
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class MySQLDriverTest {
+
+    private Statement statement;
+    private ResultSet indexInfo;
+
+    @Before
+    public void setUp() throws SQLException {
+        indexInfo = mock(ResultSet.class);
+
+        final DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getIndexInfo(null, null, "SATELLITE_OBSERVATION", false, false)).thenReturn(indexInfo);
+
+        final Connection connection = mock(Connection.class);
+        when(connection.getMetaData()).thenReturn(metaData);
+
+        statement = mock(Statement.class);
+        when(statement.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    public void testGetUrlPattern() {
+        final MySQLDriver driver = new MySQLDriver();
+        assertEquals("jdbc:mysql", driver.getUrlPattern());
+    }
+
+    @Test
+    public void testCreateIndexes_noIndexes() throws SQLException {
+        when(indexInfo.next()).thenReturn(false);
+
+        new MySQLDriver().createIndexes(statement);
+
+        verify(statement, times(1)).execute("CREATE INDEX SENSOR_TIME ON SATELLITE_OBSERVATION(SensorId, StartDate, StopDate)");
+        verify(statement, times(1)).execute("CREATE INDEX START_TIME ON SATELLITE_OBSERVATION(StartDate, ID)");
+        verify(indexInfo, times(1)).close();
+    }
+
+    @Test
+    public void testCreateIndexes_existingIndexesAreSkipped() throws SQLException {
+        when(indexInfo.next()).thenReturn(true, true, true, false);
+        when(indexInfo.getString("INDEX_NAME")).thenReturn("PRIMARY", "sensor_time", "sensor_time");
+
+        new MySQLDriver().createIndexes(statement);
+
+        verify(statement, times(1)).execute("CREATE INDEX START_TIME ON SATELLITE_OBSERVATION(StartDate, ID)");
+        verify(statement, times(1)).execute(anyString());
+    }
+
+    @Test
+    public void testCreateIndexes_allIndexesExist() throws SQLException {
+        when(indexInfo.next()).thenReturn(true, true, false);
+        when(indexInfo.getString("INDEX_NAME")).thenReturn("SENSOR_TIME", "START_TIME");
+
+        new MySQLDriver().createIndexes(statement);
+
+        verify(statement, never()).execute(anyString());
+    }
+}
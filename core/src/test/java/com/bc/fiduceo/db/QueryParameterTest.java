@@ -20,13 +20,18 @@
 
 package com.bc.fiduceo.db;
 
+import com.bc.fiduceo.geometry.Geometry;
+import com.bc.fiduceo.geometry.GeometryFactory;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class QueryParameterTest {
 
@@ -44,9 +49,12 @@ public class QueryParameterTest {
         assertNull(parameter.getSensorName());
         assertNull(parameter.getVersion());
         assertNull(parameter.getPath());
+        assertNull(parameter.getGeometry());
 
         assertEquals(-1, parameter.getPageSize());
         assertEquals(-1, parameter.getOffset());
+        assertNull(parameter.getPageStartTime());
+        assertEquals(-1, parameter.getPageStartId());
     }
 
     @Test
@@ -124,4 +132,37 @@ public class QueryParameterTest {
         parameter.setOffset(offset_2);
         assertEquals(offset_2, parameter.getOffset());
     }
+
+    @Test
+    public void testSetGetGeometry() {
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        final Geometry geometry = geometryFactory.parse("POLYGON((0 0, 10 0, 10 10, 0 10, 0 0))");
+
+        parameter.setGeometry(geometry);
+        assertSame(geometry, parameter.getGeometry());
+    }
+
+    @Test
+    public void testSetGetPageStart() {
+        final Date startTime = new Date(1200000000000L);
+
+        parameter.setPageStart(startTime, 2284);
+        assertEquals(startTime, parameter.getPageStartTime());
+        assertEquals(2284, parameter.getPageStartId());
+
+        parameter.setPageStart(null, 512);
+        assertNull(parameter.getPageStartTime());
+        assertEquals(512, parameter.getPageStartId());
+    }
+
+    @Test
+    public void testIsKeysetPaging() {
+        assertFalse(parameter.isKeysetPaging());
+
+        parameter.setPageSize(256);
+        assertTrue(parameter.isKeysetPaging());
+
+        parameter.setOffset(0);
+        assertFalse(parameter.isKeysetPaging());
+    }
 }
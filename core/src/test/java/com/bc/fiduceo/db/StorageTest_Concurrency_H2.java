@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.db;
+
+import com.bc.fiduceo.TestData;
+import com.bc.fiduceo.TestUtil;
+import com.bc.fiduceo.core.SatelliteObservation;
+import com.bc.fiduceo.core.Sensor;
+import com.bc.fiduceo.geometry.Geometry;
+import com.bc.fiduceo.geometry.GeometryFactory;
+import com.bc.fiduceo.geometry.Point;
+import com.bc.fiduceo.util.TimeUtils;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(DatabaseTestRunner.class)
+public class StorageTest_Concurrency_H2 {
+
+    private static final int NUM_WRITERS = 4;
+    private static final int NUM_READERS = 4;
+    private static final int NUM_INSERTS = 50;
+
+    private BasicDataSource dataSource;
+    private GeometryFactory geometryFactory;
+    private Storage storage;
+    private Storage legacyStorage;
+
+    @Before
+    public void setUp() {
+        dataSource = TestUtil.getDatasource_H2();
+        dataSource.setUrl("jdbc:h2:mem:fiduceo_concurrency");
+        dataSource.setMaxTotal(NUM_WRITERS + NUM_READERS);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (legacyStorage != null) {
+            legacyStorage.close();
+        }
+        if (storage != null) {
+            storage.clear();
+            storage.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentInsertAndGet_S2() throws Exception {
+        initialize(GeometryFactory.Type.S2);
+
+        runConcurrentInsertAndGet(storage);
+    }
+
+    @Test
+    public void testConcurrentInsertAndGet_JTS() throws Exception {
+        initialize(GeometryFactory.Type.JTS);
+
+        runConcurrentInsertAndGet(storage);
+    }
+
+    @Test
+    public void testConcurrentInsertAndGet_legacySchema_S2() throws Exception {
+        initialize(GeometryFactory.Type.S2);
+        legacyStorage = openWithLegacySchema();
+
+        runConcurrentInsertAndGet(legacyStorage);
+    }
+
+    @Test
+    public void testConcurrentInsertAndGet_legacySchema_JTS() throws Exception {
+        initialize(GeometryFactory.Type.JTS);
+        legacyStorage = openWithLegacySchema();
+
+        runConcurrentInsertAndGet(legacyStorage);
+    }
+
+    private void initialize(GeometryFactory.Type type) throws SQLException {
+        geometryFactory = new GeometryFactory(type);
+        storage = Storage.create(dataSource, geometryFactory);
+        storage.initialize();
+    }
+
+    // geometries are stored as WKT only, the first storage keeps the in-memory database alive
+    private Storage openWithLegacySchema() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE SATELLITE_OBSERVATION DROP COLUMN GeoBoundsData");
+            statement.executeUpdate("ALTER TABLE TIMEAXIS DROP COLUMN AxisData");
+        }
+
+        return Storage.create(dataSource, geometryFactory);
+    }
+
+    private void runConcurrentInsertAndGet(Storage storage) throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(NUM_WRITERS + NUM_READERS);
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < NUM_WRITERS; i++) {
+                // two writers share each sensor, both try to register it on their first insert
+                final String sensorName = i % 2 == 0 ? "amsub-n15" : "mhs-n18";
+                final int writer = i;
+                futures.add(executorService.submit(() -> insertObservations(storage, sensorName, writer)));
+            }
+            for (int i = 0; i < NUM_READERS; i++) {
+                futures.add(executorService.submit(createReader(storage)));
+            }
+
+            for (final Future<Integer> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        final Geometry expectedGeoBounds = TestData.createSatelliteObservation(geometryFactory).getGeoBounds();
+        final List<SatelliteObservation> observations = storage.get();
+        assertEquals(NUM_WRITERS * NUM_INSERTS, observations.size());
+        for (final SatelliteObservation observation : observations) {
+            assertEquals(1, observation.getTimeAxes().length);
+            assertSameCoordinates(expectedGeoBounds, observation.getGeoBounds());
+        }
+
+        assertEquals(NUM_WRITERS * NUM_INSERTS / 2, getNumObservations(storage, "amsub-n15"));
+        assertEquals(NUM_WRITERS * NUM_INSERTS / 2, getNumObservations(storage, "mhs-n18"));
+    }
+
+    private int insertObservations(Storage storage, String sensorName, int writer) throws SQLException {
+        for (int i = 0; i < NUM_INSERTS; i++) {
+            final long startTime = 1430000000000L + (writer * NUM_INSERTS + i) * 60000L;
+            final SatelliteObservation observation = TestData.createSatelliteObservation(TimeUtils.create(startTime),
+                                                                                         TimeUtils.create(startTime + 3000000L),
+                                                                                         geometryFactory);
+            observation.setSensor(new Sensor(sensorName));
+            observation.setDataFilePath("/archive/" + sensorName + "/orbit_" + writer + "_" + i + ".nc");
+            storage.insert(observation);
+        }
+        return NUM_INSERTS;
+    }
+
+    private Callable<Integer> createReader(Storage storage) {
+        return () -> {
+            int numRead = 0;
+            for (int i = 0; i < NUM_INSERTS; i++) {
+                final List<SatelliteObservation> observations = storage.get();
+                for (final SatelliteObservation observation : observations) {
+                    // observations are inserted in a transaction, readers never see one without time axis
+                    assertEquals(1, observation.getTimeAxes().length);
+                    assertEquals(5, observation.getGeoBounds().getCoordinates().length);
+                }
+                assertTrue(observations.size() <= NUM_WRITERS * NUM_INSERTS);
+                numRead += observations.size();
+            }
+            return numRead;
+        };
+    }
+
+    private int getNumObservations(Storage storage, String sensorName) throws SQLException {
+        final QueryParameter parameter = new QueryParameter();
+        parameter.setSensorName(sensorName);
+        return storage.get(parameter).size();
+    }
+
+    private static void assertSameCoordinates(Geometry expected, Geometry actual) {
+        final Point[] expectedCoordinates = expected.getCoordinates();
+        final Point[] actualCoordinates = actual.getCoordinates();
+        assertEquals(expectedCoordinates.length, actualCoordinates.length);
+        for (int i = 0; i < expectedCoordinates.length; i++) {
+            assertEquals(expectedCoordinates[i].getLon(), actualCoordinates[i].getLon(), 1e-8);
+            assertEquals(expectedCoordinates[i].getLat(), actualCoordinates[i].getLat(), 1e-8);
+        }
+    }
+}
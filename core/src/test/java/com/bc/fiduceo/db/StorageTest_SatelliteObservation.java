@@ -505,6 +505,19 @@ public abstract class StorageTest_SatelliteObservation {
         assertEquals(1, satelliteObservations.size());
     }
 
+    @Test
+    public void testSearchByGeometry() throws SQLException {
+        storage.insert(TestData.createSatelliteObservation(new Date(10000000L), new Date(11000000L), "POLYGON ((10 5, 10 7, 12 7, 12 5, 10 5))", geometryFactory));
+        storage.insert(TestData.createSatelliteObservation(new Date(20000000L), new Date(21000000L), "POLYGON ((40 5, 40 7, 42 7, 42 5, 40 5))", geometryFactory));
+
+        final QueryParameter queryParameter = new QueryParameter();
+        queryParameter.setGeometry(geometryFactory.parse("POLYGON ((11 6, 11 8, 13 8, 13 6, 11 6))"));
+
+        final List<SatelliteObservation> satelliteObservations = storage.get(queryParameter);
+        assertEquals(1, satelliteObservations.size());
+        assertEquals(10000000L, satelliteObservations.get(0).getStartTime().getTime());
+    }
+
     @Test
     public void testMultipleTimeAxes() throws SQLException {
         final SatelliteObservation observation = TestData.createSatelliteObservation(geometryFactory);
@@ -653,4 +666,36 @@ public abstract class StorageTest_SatelliteObservation {
         assertEquals(30000010000L, observation_2.getStopTime().getTime());
     }
 
+    @Test
+    public void testInsertAndGet_withKeysetPaging() throws SQLException {
+        for (int i = 0; i < 5; i++) {
+            final long startTime = 20000000000L + i * 10000000000L;
+            final SatelliteObservation observation = TestData.createSatelliteObservation(new Date(startTime), new Date(startTime + 10000L), geometryFactory);
+            storage.insert(observation);
+        }
+        // same start time as the second observation, the page must not end or restart inside a start time
+        final SatelliteObservation observation = TestData.createSatelliteObservation(new Date(30000000000L), new Date(30000020000L), geometryFactory);
+        storage.insert(observation);
+
+        final QueryParameter queryParameter = new QueryParameter();
+        queryParameter.setPageSize(2);
+
+        List<SatelliteObservation> satelliteObservations = storage.get(queryParameter);
+        assertEquals(2, satelliteObservations.size());
+        assertEquals(20000000000L, satelliteObservations.get(0).getStartTime().getTime());
+        assertEquals(30000000000L, satelliteObservations.get(1).getStartTime().getTime());
+
+        satelliteObservations = storage.get(queryParameter);
+        assertEquals(2, satelliteObservations.size());
+        assertEquals(30000000000L, satelliteObservations.get(0).getStartTime().getTime());
+        assertEquals(40000000000L, satelliteObservations.get(1).getStartTime().getTime());
+
+        satelliteObservations = storage.get(queryParameter);
+        assertEquals(2, satelliteObservations.size());
+        assertEquals(50000000000L, satelliteObservations.get(0).getStartTime().getTime());
+        assertEquals(60000000000L, satelliteObservations.get(1).getStartTime().getTime());
+
+        satelliteObservations = storage.get(queryParameter);
+        assertEquals(0, satelliteObservations.size());
+    }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.db;
+
+
+import com.bc.fiduceo.TestUtil;
+import org.junit.AfterClass;
+
+import java.io.File;
+
+public class StorageTest_SatelliteObservation_LocalIndex extends StorageTest_SatelliteObservation {
+
+    public StorageTest_SatelliteObservation_LocalIndex() {
+        final File testDirectory = TestUtil.createTestDirectory();
+        dataSource = TestUtil.getDataSource_LocalIndex(new File(testDirectory, "observations.idx"));
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        TestUtil.deleteTestDirectory();
+    }
+}
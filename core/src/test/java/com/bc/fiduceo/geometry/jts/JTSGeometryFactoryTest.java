@@ -36,6 +36,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -156,6 +157,33 @@ public class JTSGeometryFactoryTest {
         assertEquals("POLYGON ((-2 3, -1 1, -3 3, -2 3))", polygon.toString());
     }
 
+    @Test
+    public void testCreatePolygon_closedCoordinateArrays() {
+        final double[] lons = {10, 10, 14, 10, 27};
+        final double[] lats = {11, 12, 15, 11, 28};
+
+        final com.bc.fiduceo.geometry.Polygon polygon = factory.createPolygon(lons, lats, 4);
+        assertEquals("POLYGON ((10 11, 10 12, 14 15, 10 11))", polygon.toString());
+    }
+
+    @Test
+    public void testCreatePolygon_openCoordinateArrays() {
+        final double[] lons = {-2, -3, -1};
+        final double[] lats = {3, 3, 1};
+
+        final com.bc.fiduceo.geometry.Polygon polygon = factory.createPolygon(lons, lats, 3);
+        assertEquals("POLYGON ((-2 3, -1 1, -3 3, -2 3))", polygon.toString());
+    }
+
+    @Test
+    public void testCreateLineStringFromCoordinateArrays() {
+        final double[] lons = {11, 11.4, 12};
+        final double[] lats = {-3, -3.5, -4.1};
+
+        final LineString lineString = factory.createLineString(lons, lats, 3);
+        assertEquals("LINESTRING (11 -3, 11.4 -3.5, 12 -4.1)", lineString.toString());
+    }
+
     @Test
     public void testCreateLineStringFromPoints() {
         final ArrayList<Point> points = new ArrayList<>();
@@ -333,4 +361,28 @@ public class JTSGeometryFactoryTest {
         assertEquals(0.0, point.getLat(), 1e-8);
     }
 
+    @Test
+    public void testFormat() {
+        final Geometry polygon = factory.parse("POLYGON((-8 0, -7 0, -7 1, -8 1, -8 0))");
+        assertEquals("POLYGON ((-8 0, -7 0, -7 1, -8 1, -8 0))", factory.format(polygon));
+
+        final Geometry point = factory.createPoint(4.5, -2);
+        assertEquals("POINT (4.5 -2)", factory.format(point));
+    }
+
+    @Test
+    public void testFromStorageFormat_wkt() {
+        final Geometry geometry = factory.fromStorageFormat("LINESTRING (-109 10, -108 11, -107 12)".getBytes());
+        assertTrue(geometry instanceof LineString);
+        assertEquals(3, geometry.getCoordinates().length);
+    }
+
+    @Test
+    public void testIsWkb() {
+        final Geometry polygon = factory.parse("POLYGON((-8 0, -7 0, -7 1, -8 1, -8 0))");
+        assertTrue(JtsGeometryFactory.isWkb(factory.toStorageFormat(polygon)));
+
+        assertFalse(JtsGeometryFactory.isWkb("POLYGON((-8 0, -7 0, -7 1, -8 1, -8 0))".getBytes()));
+        assertFalse(JtsGeometryFactory.isWkb(new byte[0]));
+    }
 }
@@ -42,17 +42,22 @@ package com.bc.fiduceo.geometry.jts;
 
 import com.bc.fiduceo.geometry.GeometryFactory;
 import com.bc.fiduceo.math.TimeInterval;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.LineSegment;
 import com.vividsolutions.jts.geom.LineString;
 import com.vividsolutions.jts.io.ParseException;
 import com.vividsolutions.jts.io.WKTReader;
+import com.vividsolutions.jts.linearref.LengthIndexedLine;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Date;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class JTSTimeAxisTest {
 
@@ -231,6 +236,49 @@ public class JTSTimeAxisTest {
         assertEquals(1000000L, timeAxis.getDurationInMillis());
     }
 
+    @Test
+    public void testGetProjectionLength_equalsLengthIndexedLine() throws ParseException {
+        final LineString lineString = (LineString) wktReader.read("LINESTRING(-12 -60, -10 -40, -9 -20, -9 0, -10 20, -12 40, -17 60, -30 75)");
+        final JTSTimeAxis timeAxis = new JTSTimeAxis(lineString, new Date(1000000000000L), new Date(1000006000000L));
+        final LengthIndexedLine lengthIndexedLine = new LengthIndexedLine(lineString);
+
+        final Random random = new Random(3476);
+        for (int i = 0; i < 2000; i++) {
+            final double x = -40.0 + 40.0 * random.nextDouble();
+            final double y = -80.0 + 170.0 * random.nextDouble();
+
+            final Coordinate projection = projectToFirstSegment(lineString, new Coordinate(x, y));
+            final double length = timeAxis.getProjectionLength(x, y);
+            if (projection == null) {
+                assertTrue(Double.isNaN(length));
+            } else {
+                assertEquals(lengthIndexedLine.indexOf(projection), length, 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testGetProjectionLength_vertices() throws ParseException {
+        final LineString lineString = (LineString) wktReader.read("LINESTRING(1 2, -1 2, -3 4, -5 4)");
+        final JTSTimeAxis timeAxis = new JTSTimeAxis(lineString, new Date(1000000000000L), new Date(1000001000000L));
+
+        assertEquals(0.0, timeAxis.getProjectionLength(1, 2), 1e-12);
+        assertEquals(2.0, timeAxis.getProjectionLength(-1, 2), 1e-12);
+        assertEquals(2.0 + 2.0 * Math.sqrt(2.0), timeAxis.getProjectionLength(-3, 4), 1e-12);
+        assertEquals(lineString.getLength(), timeAxis.getProjectionLength(-5, 4), 1e-12);
+    }
+
+    private static Coordinate projectToFirstSegment(LineString lineString, Coordinate coordinate) {
+        for (int n = 0; n < lineString.getNumPoints() - 1; n++) {
+            final LineSegment lineSegment = new LineSegment(lineString.getCoordinateN(n), lineString.getCoordinateN(n + 1));
+            final double projectionFactor = lineSegment.projectionFactor(coordinate);
+            if (projectionFactor >= 0.0 && projectionFactor <= 1.0) {
+                return lineSegment.project(coordinate);
+            }
+        }
+        return null;
+    }
+
     private void assertTimeIntervalEquals(long expectedStart, long expectedStop, TimeInterval timeInterval) {
         assertEquals(expectedStart, timeInterval.getStartTime().getTime());
         assertEquals(expectedStop, timeInterval.getStopTime().getTime());
@@ -21,7 +21,10 @@
 package com.bc.fiduceo.geometry.s2;
 
 import com.bc.fiduceo.geometry.*;
+import com.google.common.geometry.S2LatLng;
 import com.google.common.geometry.S2Point;
+import com.google.common.geometry.S2Polygon;
+import com.google.common.geometry.S2Polyline;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -207,6 +210,67 @@ public class BcS2GeometryFactoryTest {
         assertEquals(8.7, coordinates[2].getLat(), 1e-8);
     }
 
+    @Test
+    public void testCreatePolygonFromCoordinateArrays_closed() {
+        final double[] lons = {2, 4, 4, 2, 2};
+        final double[] lats = {2, 2, 4, 4, 2};
+
+        final Polygon polygon = factory.createPolygon(lons, lats, 5);
+        assertTrue(polygon.isValid());
+        assertEquals("Polygon: (1) loops:\n" +
+                "loop <\n" +
+                "(1.9999999999999996, 2.0)\n" +
+                "(2.0, 4.0)\n" +
+                "(4.0, 4.0)\n" +
+                "(4.0, 2.0)\n" +
+                ">\n", polygon.toString());
+    }
+
+    @Test
+    public void testCreatePolygonFromCoordinateArrays_notClosed() {
+        final double[] lons = {2, 4, 4, 2, 17};
+        final double[] lats = {2, 2, 4, 4, 18};
+
+        final Polygon polygon = factory.createPolygon(lons, lats, 4);
+        assertTrue(polygon.isValid());
+        assertEquals("Polygon: (1) loops:\n" +
+                "loop <\n" +
+                "(1.9999999999999996, 2.0)\n" +
+                "(2.0, 4.0)\n" +
+                "(4.0, 4.0)\n" +
+                "(4.0, 2.0)\n" +
+                ">\n", polygon.toString());
+    }
+
+    @Test
+    public void testCreatePolygonFromCoordinateArrays_equalsPointList() {
+        final double[] lons = {-12.6, -11.2, -9.87, -9.3, -10.1, -13.7, -14.01};
+        final double[] lats = {-60.3, -45.2, -20.87, 1.3, 28.1, 58.7, 12.01};
+        final ArrayList<Point> points = new ArrayList<>();
+        for (int i = 0; i < lons.length; i++) {
+            points.add(factory.createPoint(lons[i], lats[i]));
+        }
+
+        final S2Polygon expected = (S2Polygon) factory.createPolygon(points).getInner();
+        final S2Polygon actual = (S2Polygon) factory.createPolygon(lons, lats, lons.length).getInner();
+        assertEquals(expected.loop(0).numVertices(), actual.loop(0).numVertices());
+        for (int i = 0; i < expected.loop(0).numVertices(); i++) {
+            assertEquals(expected.loop(0).vertex(i), actual.loop(0).vertex(i));
+        }
+    }
+
+    @Test
+    public void testCreateLineStringFromCoordinateArrays() {
+        final double[] lons = {-106, -108, -109.3};
+        final double[] lats = {8, 8.2, 8.7};
+
+        final LineString lineString = factory.createLineString(lons, lats, 3);
+        final S2Polyline polyline = (S2Polyline) lineString.getInner();
+        assertEquals(3, polyline.numVertices());
+        assertEquals(S2LatLng.fromDegrees(8, -106).toPoint(), polyline.vertex(0));
+        assertEquals(S2LatLng.fromDegrees(8.7, -109.3).toPoint(), polyline.vertex(2));
+    }
+
     @Test
     public void testCreateMultiPolygonFromPolygonList() {
         final List<Polygon> polygonList = new ArrayList<>();
@@ -241,27 +305,41 @@ public class BcS2GeometryFactoryTest {
         final Geometry point = factory.parse("POINT(-22.5 67.23)");
 
         final byte[] storageFormat = factory.toStorageFormat(point);
-        assertEquals("POINT(-22.500000000000004,67.23)", new String(storageFormat));
+        assertEquals(3 + 16, storageFormat.length);
+        assertEquals(0, storageFormat[0]);
+        assertEquals(BcS2StorageFormat.VERSION, storageFormat[1]);
+        assertEquals(BcS2StorageFormat.TYPE_POINT, storageFormat[2]);
     }
 
     @Test
     public void testToStorageFormat_lineString() {
-        final Geometry point = factory.parse("LINESTRING(1 8, 2 8.5, 3 8.7)");
+        final Geometry lineString = factory.parse("LINESTRING(1 8, 2 8.5, 3 8.7)");
 
-        final byte[] storageFormat = factory.toStorageFormat(point);
-        assertEquals("LINESTRING(1.0 7.999999999999998,2.0 8.5,3.0000000000000004 8.700000000000001)", new String(storageFormat));
+        final byte[] storageFormat = factory.toStorageFormat(lineString);
+        assertEquals(3 + 4 + 3 * 24, storageFormat.length);
+        assertEquals(BcS2StorageFormat.TYPE_LINESTRING, storageFormat[2]);
     }
 
     @Test
     public void testToStorageFormat_polygon() {
-        final Geometry point = factory.parse("POLYGON((1 8, 2 8.5, 3 8.2, 1 8))");
+        final Geometry polygon = factory.parse("POLYGON((1 8, 2 8.5, 3 8.2, 1 8))");
 
-        final byte[] storageFormat = factory.toStorageFormat(point);
-        assertEquals("POLYGON((3.0000000000000004 8.2,2.0 8.5,1.0 7.999999999999998,3.0000000000000004 8.2))", new String(storageFormat));
+        final byte[] storageFormat = factory.toStorageFormat(polygon);
+        assertEquals(3 + 4 + 41 + 3 * 24, storageFormat.length);
+        assertEquals(BcS2StorageFormat.TYPE_POLYGON, storageFormat[2]);
+    }
+
+    @Test
+    public void testToAndFromStorageFormat_polygon() {
+        final Geometry polygon = factory.parse("POLYGON((1 8, 2 8.5, 3 8.2, 1 8))");
+
+        final Geometry restored = factory.fromStorageFormat(factory.toStorageFormat(polygon));
+        assertTrue(restored instanceof Polygon);
+        assertEquals(factory.format(polygon), factory.format(restored));
     }
 
     @Test
-    public void testFromStorageFormat_point() {
+    public void testFromStorageFormat_wkt_point() {
         final String pointWkt = "POINT(-22.5 67.23)";
 
         final Geometry pointGeometry = factory.fromStorageFormat(pointWkt.getBytes());
@@ -274,7 +352,7 @@ public class BcS2GeometryFactoryTest {
     }
 
     @Test
-    public void testFromStorageFormat_lineString() {
+    public void testFromStorageFormat_wkt_lineString() {
         final String lineStringWkt = "LINESTRING(1 8, 2 8.5, 3 8.7)";
 
         final Geometry lineStringGeometry = factory.fromStorageFormat(lineStringWkt.getBytes());
@@ -289,7 +367,7 @@ public class BcS2GeometryFactoryTest {
     }
 
     @Test
-    public void testFromStorageFormat_polygon() {
+    public void testFromStorageFormat_wkt_polygon() {
         final String polygonWkt = "POLYGON((1 8, 2 8.5, 3 8.2, 1 8))";
 
         final Geometry polygonGeometry = factory.fromStorageFormat(polygonWkt.getBytes());
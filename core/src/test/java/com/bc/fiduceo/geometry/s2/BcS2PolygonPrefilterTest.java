@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.geometry.s2;
+
+import com.bc.fiduceo.core.Interval;
+import com.bc.fiduceo.geometry.Geometry;
+import com.bc.fiduceo.geometry.GeometryFactory;
+import com.bc.fiduceo.geometry.MultiPolygon;
+import com.bc.fiduceo.geometry.Polygon;
+import com.bc.fiduceo.reader.BoundingPolygonCreator;
+import com.google.common.geometry.S2Polygon;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BcS2PolygonPrefilterTest {
+
+    @Test
+    public void testIntersectOrbits_sameResultAsUnfilteredIntersection() {
+        final List<Polygon> orbits = createOrbits(60);
+
+        int numIntersecting = 0;
+        int numPairs = 0;
+        for (final Polygon primary : orbits) {
+            for (final Polygon secondary : orbits) {
+                final double expectedArea = intersectUnfiltered(primary, secondary);
+                assertEquals(expectedArea, getArea(primary.getIntersection(secondary)), 1e-12);
+                if (expectedArea > 0.0) {
+                    numIntersecting++;
+                }
+                numPairs++;
+            }
+        }
+        assertTrue(numIntersecting > 0);
+        assertTrue(numIntersecting < numPairs);
+    }
+
+    @Test
+    public void testIntersectMultiPolygon_sameResultAsUnfilteredIntersection() {
+        final List<Polygon> orbits = createOrbits(12);
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        final MultiPolygon multiPolygon = geometryFactory.createMultiPolygon(Arrays.asList(orbits.get(0), orbits.get(5)));
+
+        for (final Polygon polygon : orbits) {
+            final double expectedArea = intersectUnfiltered(polygon, orbits.get(0)) + intersectUnfiltered(polygon, orbits.get(5));
+            assertEquals(expectedArea, getArea(polygon.getIntersection(multiPolygon)), 1e-12);
+            assertEquals(expectedArea, getArea(multiPolygon.getIntersection(polygon)), 1e-12);
+        }
+    }
+
+    // the exact S2 intersection without any bounds test
+    private static double intersectUnfiltered(Polygon primary, Polygon secondary) {
+        final S2Polygon intersection = new S2Polygon();
+        intersection.initToIntersection((S2Polygon) primary.getInner(), (S2Polygon) secondary.getInner());
+        return intersection.getArea();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double getArea(Geometry geometry) {
+        if (geometry.isEmpty()) {
+            return 0.0;
+        }
+        if (geometry instanceof MultiPolygon) {
+            double area = 0.0;
+            for (final S2Polygon polygon : (List<S2Polygon>) geometry.getInner()) {
+                area += polygon.getArea();
+            }
+            return area;
+        }
+        return ((S2Polygon) geometry.getInner()).getArea();
+    }
+
+    // descending half orbits of 2000 km swath width, shifted by 25 degrees longitude per orbit like a sun-synchronous sensor
+    private static List<Polygon> createOrbits(int numOrbits) {
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        final BoundingPolygonCreator polygonCreator = new BoundingPolygonCreator(new Interval(10, 20), geometryFactory);
+
+        final int width = 41;
+        final int height = 401;
+        final List<Polygon> orbits = new ArrayList<>(numOrbits);
+        for (int orbit = 0; orbit < numOrbits; orbit++) {
+            final double nodeLon = (orbit * 25.0) % 360.0 - 180.0;
+            final Array longitudes = Array.factory(DataType.DOUBLE, new int[]{height, width});
+            final Array latitudes = Array.factory(DataType.DOUBLE, new int[]{height, width});
+            for (int y = 0; y < height; y++) {
+                final double lat = 80.0 - 160.0 * y / (height - 1);
+                final double centerLon = nodeLon + 0.05 * y;
+                for (int x = 0; x < width; x++) {
+                    final double lon = centerLon + (x - width / 2) * 0.5 / Math.cos(Math.toRadians(lat));
+                    longitudes.setDouble(y * width + x, normalizeLon(lon));
+                    latitudes.setDouble(y * width + x, lat);
+                }
+            }
+            orbits.add(polygonCreator.createBoundingGeometry(longitudes, latitudes));
+        }
+        return orbits;
+    }
+
+    private static double normalizeLon(double lon) {
+        while (lon > 180.0) {
+            lon -= 360.0;
+        }
+        while (lon < -180.0) {
+            lon += 360.0;
+        }
+        return lon;
+    }
+}
@@ -3,6 +3,7 @@ package com.bc.fiduceo.geometry.s2;
 import com.bc.fiduceo.geometry.*;
 import com.bc.geometry.s2.S2WKTReader;
 import com.bc.geometry.s2.S2WKTWriter;
+import com.google.common.geometry.S2CellUnion;
 import com.google.common.geometry.S2LatLng;
 import com.google.common.geometry.S2Point;
 import com.google.common.geometry.S2Polygon;
@@ -462,6 +463,42 @@ public class BcS2PolygonTest {
         assertEquals(0.0, centroid.getLon(), 1e-8);
     }
 
+    @Test
+    public void testMayIntersect() {
+        final BcS2Polygon polygon = createBcS2Polygon("POLYGON((-10 -10,-10 10,10 10,10 -10,-10 -10))");
+        final BcS2Polygon overlapping = createBcS2Polygon("POLYGON((-8 -10,-8 12,9 12,9 -10,-8 -10))");
+        final BcS2Polygon far = createBcS2Polygon("POLYGON((160 40,160 50,170 50,170 40,160 40))");
+
+        assertTrue(polygon.mayIntersect(overlapping));
+        assertTrue(overlapping.mayIntersect(polygon));
+        assertFalse(polygon.mayIntersect(far));
+        assertFalse(polygon.mayIntersect(new BcS2Polygon(new S2Polygon())));
+    }
+
+    @Test
+    public void testGetCovering_containsPolygon() {
+        final BcS2Polygon lShape = createBcS2Polygon("POLYGON((0 0,20 0,20 2,2 2,2 20,0 20,0 0))");
+
+        final S2CellUnion covering = lShape.getCovering();
+        assertTrue(covering.cellIds().size() <= 8);
+        assertSame(covering, lShape.getCovering());
+        for (final Point point : lShape.getCoordinates()) {
+            assertTrue(covering.contains(S2LatLng.fromDegrees(point.getLat(), point.getLon()).toPoint()));
+        }
+        assertTrue(covering.contains(S2LatLng.fromDegrees(1.0, 10.0).toPoint()));
+    }
+
+    @Test
+    public void testCapsIntersect() {
+        final BcS2Polygon polygon = createBcS2Polygon("POLYGON((-10 -10,-10 10,10 10,10 -10,-10 -10))");
+        final BcS2Polygon neighbour = createBcS2Polygon("POLYGON((12 -10,12 10,30 10,30 -10,12 -10))");
+        final BcS2Polygon antipode = createBcS2Polygon("POLYGON((170 -10,170 10,-170 10,-170 -10,170 -10))");
+
+        assertTrue(BcS2Polygon.capsIntersect(polygon.getCapBound(), neighbour.getCapBound()));
+        assertFalse(BcS2Polygon.capsIntersect(polygon.getCapBound(), antipode.getCapBound()));
+        assertFalse(BcS2Polygon.capsIntersect(polygon.getCapBound(), new S2Polygon().getCapBound()));
+    }
+
     private BcS2Point createBcS2Point(String wellKnownText) {
         final S2Point s2Point = (S2Point) s2WKTReader.read(wellKnownText);
         return new BcS2Point(new S2LatLng(s2Point));
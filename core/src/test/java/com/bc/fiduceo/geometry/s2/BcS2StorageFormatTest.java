@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.geometry.s2;
+
+import com.bc.fiduceo.geometry.Geometry;
+import com.bc.fiduceo.geometry.GeometryFactory;
+import com.bc.fiduceo.geometry.LineString;
+import com.bc.fiduceo.geometry.Point;
+import com.bc.fiduceo.geometry.Polygon;
+import com.google.common.geometry.S2LatLng;
+import com.google.common.geometry.S2Loop;
+import com.google.common.geometry.S2Point;
+import com.google.common.geometry.S2Polygon;
+import com.google.common.geometry.S2Polyline;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BcS2StorageFormatTest {
+
+    private GeometryFactory factory;
+
+    @Before
+    public void setUp() {
+        factory = new GeometryFactory(GeometryFactory.Type.S2);
+    }
+
+    @Test
+    public void testRoundTrip_point() {
+        final Point point = factory.createPoint(-22.5, 67.23);
+
+        final Geometry restored = BcS2StorageFormat.decode(BcS2StorageFormat.encode(point));
+        assertTrue(restored instanceof BcS2Point);
+        // lat/lon are stored unconverted, no rounding at all
+        assertEquals(point.getInner(), restored.getInner());
+    }
+
+    @Test
+    public void testRoundTrip_lineString() {
+        final Geometry lineString = factory.parse("LINESTRING(1 8, 2 8.5, 3 8.7, 4 9.1)");
+
+        final Geometry restored = BcS2StorageFormat.decode(BcS2StorageFormat.encode(lineString));
+        assertTrue(restored instanceof BcS2LineString);
+
+        final S2Polyline expected = (S2Polyline) lineString.getInner();
+        final S2Polyline actual = (S2Polyline) restored.getInner();
+        assertEquals(expected.numVertices(), actual.numVertices());
+        for (int i = 0; i < expected.numVertices(); i++) {
+            assertEquals(expected.vertex(i), actual.vertex(i));
+        }
+    }
+
+    @Test
+    public void testRoundTrip_polygon() {
+        final Geometry polygon = factory.parse("POLYGON((2 6, 2 5, 2 4, 2 3, 3 3, 3 4, 3 5, 3 6, 2 6))");
+
+        final Geometry restored = BcS2StorageFormat.decode(BcS2StorageFormat.encode(polygon));
+        assertTrue(restored instanceof BcS2Polygon);
+        assertSameLoops((S2Polygon) polygon.getInner(), (S2Polygon) restored.getInner());
+
+        final Point inside = factory.createPoint(2.5, 4.5);
+        final Point outside = factory.createPoint(3.5, 4.5);
+        assertFalse(restored.getIntersection(inside).isEmpty());
+        assertTrue(restored.getIntersection(outside).isEmpty());
+    }
+
+    @Test
+    public void testRoundTrip_polygonWithHole() {
+        final S2Loop shell = createLoop(0.0, 0.0, 10.0);
+        final S2Loop hole = createLoop(5.0, 5.0, 2.0);
+        final S2Polygon s2Polygon = new S2Polygon(new ArrayList<>(Arrays.asList(shell, hole)));
+        final BcS2Polygon polygon = new BcS2Polygon(s2Polygon);
+
+        final Geometry restored = BcS2StorageFormat.decode(BcS2StorageFormat.encode(polygon));
+        final S2Polygon restoredPolygon = (S2Polygon) restored.getInner();
+        assertEquals(2, restoredPolygon.numLoops());
+        assertSameLoops(s2Polygon, restoredPolygon);
+        assertEquals(1, restoredPolygon.loop(1).depth());
+        assertEquals(s2Polygon.getArea(), restoredPolygon.getArea(), 1e-15);
+
+        assertFalse(restoredPolygon.contains(S2LatLng.fromDegrees(6.0, 6.0).toPoint()));
+        assertTrue(restoredPolygon.contains(S2LatLng.fromDegrees(1.0, 1.0).toPoint()));
+    }
+
+    @Test
+    public void testRoundTrip_multiPolygon() {
+        final Geometry multiPolygon = factory.parse("MULTIPOLYGON(((-10 -10, -5 -10, -5 -5, -10 -5, -10 -10)),((10 10, 15 10, 15 15, 10 15, 10 10)))");
+
+        final Geometry restored = BcS2StorageFormat.decode(BcS2StorageFormat.encode(multiPolygon));
+        assertTrue(restored instanceof BcS2MultiPolygon);
+        assertEquals(factory.format(multiPolygon), factory.format(restored));
+    }
+
+    @Test
+    public void testRoundTrip_multiLineString() {
+        final List<S2Polyline> polylines = new ArrayList<>();
+        polylines.add((S2Polyline) factory.parse("LINESTRING(1 8, 2 8.5)").getInner());
+        polylines.add((S2Polyline) factory.parse("LINESTRING(5 -3, 6 -2, 7 -1)").getInner());
+        final BcS2MultiLineString multiLineString = new BcS2MultiLineString(polylines);
+
+        final Geometry restored = BcS2StorageFormat.decode(BcS2StorageFormat.encode(multiLineString));
+        assertTrue(restored instanceof BcS2MultiLineString);
+        assertEquals(factory.format(multiLineString), factory.format(restored));
+    }
+
+    @Test
+    public void testIsBinary() {
+        assertTrue(BcS2StorageFormat.isBinary(new byte[]{0, 1, 3}));
+
+        assertFalse(BcS2StorageFormat.isBinary("POINT(1 2)".getBytes()));
+        assertFalse(BcS2StorageFormat.isBinary(new byte[]{0, 1}));
+        assertFalse(BcS2StorageFormat.isBinary(new byte[0]));
+    }
+
+    @Test
+    public void testDecode_invalidVersion() {
+        try {
+            BcS2StorageFormat.decode(new byte[]{0, 27, BcS2StorageFormat.TYPE_POINT});
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testDecode_invalidType() {
+        try {
+            BcS2StorageFormat.decode(new byte[]{0, BcS2StorageFormat.VERSION, 108});
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testDecode_binaryMatchesWkt() {
+        for (int i = 0; i < 200; i++) {
+            final Polygon polygon = createSwath(i);
+            assertSameCoordinates(factory.fromStorageFormat(factory.format(polygon).getBytes()), factory.fromStorageFormat(factory.toStorageFormat(polygon)));
+
+            final LineString axis = createAxis(i);
+            assertSameCoordinates(factory.fromStorageFormat(factory.format(axis).getBytes()), factory.fromStorageFormat(factory.toStorageFormat(axis)));
+        }
+    }
+
+    private static void assertSameCoordinates(Geometry expected, Geometry actual) {
+        final Point[] expectedPoints = expected.getCoordinates();
+        final Point[] actualPoints = actual.getCoordinates();
+        assertEquals(expectedPoints.length, actualPoints.length);
+        for (int i = 0; i < expectedPoints.length; i++) {
+            assertEquals(expectedPoints[i].getLon(), actualPoints[i].getLon(), 1e-8);
+            assertEquals(expectedPoints[i].getLat(), actualPoints[i].getLat(), 1e-8);
+        }
+    }
+
+    private static void assertSameLoops(S2Polygon expected, S2Polygon actual) {
+        assertEquals(expected.numLoops(), actual.numLoops());
+        for (int i = 0; i < expected.numLoops(); i++) {
+            final S2Loop expectedLoop = expected.loop(i);
+            final S2Loop actualLoop = actual.loop(i);
+            assertEquals(expectedLoop.numVertices(), actualLoop.numVertices());
+            for (int k = 0; k < expectedLoop.numVertices(); k++) {
+                assertEquals(expectedLoop.vertex(k), actualLoop.vertex(k));
+            }
+            assertEquals(expectedLoop.isOriginInside(), actualLoop.isOriginInside());
+            assertEquals(expectedLoop.getFirstLogicalVertex(), actualLoop.getFirstLogicalVertex());
+            assertEquals(expectedLoop.getRectBound(), actualLoop.getRectBound());
+        }
+    }
+
+    private static S2Loop createLoop(double lat, double lon, double size) {
+        final List<S2Point> vertices = new ArrayList<>();
+        vertices.add(S2LatLng.fromDegrees(lat, lon).toPoint());
+        vertices.add(S2LatLng.fromDegrees(lat, lon + size).toPoint());
+        vertices.add(S2LatLng.fromDegrees(lat + size, lon + size).toPoint());
+        vertices.add(S2LatLng.fromDegrees(lat + size, lon).toPoint());
+        return new S2Loop(vertices);
+    }
+
+    // half orbit boundary with 100 vertices per swath edge, like the ingested AVHRR and MHS geometries
+    private Polygon createSwath(int orbit) {
+        final double nodeLon = (orbit * 25.0) % 340.0 - 170.0;
+        final List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            points.add(factory.createPoint(nodeLon + 5.0 + 0.02 * i, -70.0 + 1.4 * i));
+        }
+        for (int i = 99; i >= 0; i--) {
+            points.add(factory.createPoint(nodeLon - 5.0 + 0.02 * i, -70.0 + 1.4 * i));
+        }
+        return factory.createPolygon(points);
+    }
+
+    private LineString createAxis(int orbit) {
+        final double nodeLon = (orbit * 25.0) % 340.0 - 170.0;
+        final List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            points.add(factory.createPoint(nodeLon + 0.02 * i, -70.0 + 1.4 * i));
+        }
+        return factory.createLineString(points);
+    }
+}
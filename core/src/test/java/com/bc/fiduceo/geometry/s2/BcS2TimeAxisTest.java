@@ -43,12 +43,16 @@ package com.bc.fiduceo.geometry.s2;
 import com.bc.fiduceo.geometry.*;
 import com.bc.fiduceo.math.TimeInterval;
 import com.bc.geometry.s2.S2WKTReader;
+import com.google.common.geometry.S2LatLng;
 import com.google.common.geometry.S2Point;
 import com.google.common.geometry.S2Polyline;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -364,6 +368,75 @@ public class BcS2TimeAxisTest {
         assertEquals("LINESTRING(6.0 2.0,7.999999999999998 -1.0,9.000000000000002 -4.0)", geometryFactory.format(geometry));
     }
 
+    @Test
+    public void testGetArcLengthTo_equalsSubLineLength() {
+        final BcS2TimeAxis timeAxis = createOrbitAxis();
+
+        final Random random = new Random(2876);
+        for (int i = 0; i < 2000; i++) {
+            final S2Point point = S2LatLng.fromDegrees(-90.0 + 180.0 * random.nextDouble(), -60.0 + 80.0 * random.nextDouble()).toPoint();
+
+            final double expected = timeAxis.createSubLineTo(point).getArclengthAngle().radians();
+            assertEquals(expected, timeAxis.getArcLengthTo(point.getX(), point.getY(), point.getZ()), 0.0);
+        }
+    }
+
+    @Test
+    public void testGetArcLengthTo_longSelfCrossingLine_equalsSubLineLength() {
+        final List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            final double lat = -80.0 + 0.08 * i + 10.0 * Math.sin(0.3 * i);
+            final double lon = 20.0 * Math.sin(0.05 * i) + 3.0 * (i % 2);
+            points.add(geometryFactory.createPoint(lon, lat));
+        }
+        final LineString lineString = geometryFactory.createLineString(points);
+        final BcS2TimeAxis timeAxis = new BcS2TimeAxis(lineString, new Date(1000000000000L), new Date(1000006000000L));
+        final S2Polyline polyline = (S2Polyline) lineString.getInner();
+
+        final Random random = new Random(3319);
+        for (int i = 0; i < 2000; i++) {
+            final S2Point point;
+            if (i % 4 == 0) {
+                // points on the vertices have several edges at distance zero
+                point = polyline.vertex(random.nextInt(polyline.numVertices()));
+            } else {
+                point = S2LatLng.fromDegrees(-90.0 + 180.0 * random.nextDouble(), -60.0 + 120.0 * random.nextDouble()).toPoint();
+            }
+
+            final double expected = timeAxis.createSubLineTo(point).getArclengthAngle().radians();
+            assertEquals(expected, timeAxis.getArcLengthTo(point.getX(), point.getY(), point.getZ()), 0.0);
+        }
+    }
+
+    @Test
+    public void testGetTime_equalsSubLineTime() {
+        final BcS2TimeAxis timeAxis = createOrbitAxis();
+        final S2Polyline polyline = (S2Polyline) timeAxis.getGeometry().getInner();
+        final double length = polyline.getArclengthAngle().radians();
+
+        final Random random = new Random(1187);
+        for (int i = 0; i < 2000; i++) {
+            final double lat = -85.0 + 170.0 * random.nextDouble();
+            final double lon = -40.0 + 50.0 * random.nextDouble();
+            final Point point = geometryFactory.createPoint(lon, lat);
+
+            final S2Point s2Point = S2LatLng.fromDegrees(lat, lon).toPoint();
+            final double subLineLength = timeAxis.createSubLineTo(s2Point).getArclengthAngle().radians();
+            final long expected = 1000000000000L + (long) (6000000L * subLineLength * (1.0 / length));
+
+            assertEquals(expected, timeAxis.getTime(point).getTime());
+        }
+    }
+
+    private BcS2TimeAxis createOrbitAxis() {
+        final List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            points.add(geometryFactory.createPoint(-12.0 + 0.15 * i + 0.002 * i * i, -80.0 + 1.35 * i));
+        }
+        final LineString lineString = geometryFactory.createLineString(points);
+        return new BcS2TimeAxis(lineString, new Date(1000000000000L), new Date(1000006000000L));
+    }
+
     private void assertTimeIntervalEquals(long expectedStart, long expectedStop, TimeInterval timeInterval) {
         assertEquals(expectedStart, timeInterval.getStartTime().getTime());
         assertEquals(expectedStop, timeInterval.getStopTime().getTime());
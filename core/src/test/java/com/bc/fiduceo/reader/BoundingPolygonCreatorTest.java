@@ -26,6 +26,7 @@ import com.bc.fiduceo.util.NetCDFUtils;
 import org.junit.Before;
 import org.junit.Test;
 import ucar.ma2.Array;
+import ucar.ma2.Index;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -413,6 +414,100 @@ public class BoundingPolygonCreatorTest {
         assertEquals("LINESTRING(139.3232587268979 71.69661607793569,138.01571817610454 71.96597011172345)", geometryFactory.format(lineString));
     }
 
+    @Test
+    public void testCreateBoundingGeometry_scanlineRange_equalsSection() throws IOException {
+        final Array longitudes = NetCDFUtils.create(AVHRR_LONGITUDES);
+        final Array latitudes = NetCDFUtils.create(AVHRR_LATITUDES);
+
+        final int[] offsets = {1, 0};
+        final int[] shape = {5, 4};
+        final Array lonSection = NetCDFUtils.section(longitudes, offsets, shape);
+        final Array latSection = NetCDFUtils.section(latitudes, offsets, shape);
+
+        final Polygon expected = boundingPolygonCreator.createBoundingGeometry(lonSection, latSection);
+        final Polygon polygon = boundingPolygonCreator.createBoundingGeometry(longitudes, latitudes, 1, 5);
+        assertEquals(geometryFactory.format(expected), geometryFactory.format(polygon));
+
+        final LineString expectedAxis = boundingPolygonCreator.createTimeAxisGeometry(lonSection, latSection);
+        final LineString timeAxis = boundingPolygonCreator.createTimeAxisGeometry(longitudes, latitudes, 1, 5);
+        assertEquals(geometryFactory.format(expectedAxis), geometryFactory.format(timeAxis));
+    }
+
+    @Test
+    public void testReverse() {
+        final double[] values = {1.0, 2.0, 3.0, 4.0, 5.0, 6.0};
+
+        BoundingPolygonCreator.reverse(values, 5);
+        assertArrayEquals(new double[]{5.0, 4.0, 3.0, 2.0, 1.0, 6.0}, values, 0.0);
+
+        BoundingPolygonCreator.reverse(values, 4);
+        assertArrayEquals(new double[]{2.0, 3.0, 4.0, 5.0, 1.0, 6.0}, values, 0.0);
+    }
+
+    @Test
+    public void testCreateGeometries_perSensorFamily() {
+        // swath width, number of scanlines and the polygon interval of the readers
+        final int[][] sensorFamilies = {
+                {409, 12000, 40, 100},  // AVHRR GAC
+                {90, 2300, 10, 40},     // AMSU-B, MHS
+                {56, 1200, 4, 10},      // HIRS
+                {243, 2000, 20, 100},   // AMSR-E, AMSR2
+                {120, 760, 6, 24},      // IASI
+                {28, 1300, 5, 25},      // SSM/T-2
+        };
+
+        for (final int[] family : sensorFamilies) {
+            final Array[] lonLat = createSwath(family[0], family[1]);
+            final BoundingPolygonCreator creator = new BoundingPolygonCreator(new Interval(family[2], family[3]), geometryFactory);
+
+            final Polygon expected = createBoundingGeometryFromPoints(lonLat[0], lonLat[1], family[2], family[3]);
+            final Polygon polygon = creator.createBoundingGeometry(lonLat[0], lonLat[1]);
+            assertEquals(geometryFactory.format(expected), geometryFactory.format(polygon));
+        }
+    }
+
+    private static Array[] createSwath(int width, int height) {
+        final double[][] longitudes = new double[height][width];
+        final double[][] latitudes = new double[height][width];
+        for (int y = 0; y < height; y++) {
+            final double nadirLat = -75.0 + 150.0 * y / height;
+            final double nadirLon = 20.0 - 0.004 * y;
+            for (int x = 0; x < width; x++) {
+                longitudes[y][x] = nadirLon + 20.0 * (x - width / 2) / width;
+                latitudes[y][x] = nadirLat + 0.5 * (x - width / 2) / width;
+            }
+        }
+        return new Array[]{NetCDFUtils.create(longitudes), NetCDFUtils.create(latitudes)};
+    }
+
+    // reference implementation, collecting the boundary as point list
+    private Polygon createBoundingGeometryFromPoints(Array longitudes, Array latitudes, int intervalX, int intervalY) {
+        final int[] shape = longitudes.getShape();
+        final int maxX = shape[1] - 1;
+        final int maxY = shape[0] - 1;
+
+        final Index index = longitudes.getIndex();
+        final List<Point> coordinates = new ArrayList<>();
+        for (int y = 0; y < maxY; y += intervalY) {
+            index.set(y, 0);
+            coordinates.add(geometryFactory.createPoint(longitudes.getDouble(index), latitudes.getDouble(index)));
+        }
+        for (int x = 0; x < maxX; x += intervalX) {
+            index.set(maxY, x);
+            coordinates.add(geometryFactory.createPoint(longitudes.getDouble(index), latitudes.getDouble(index)));
+        }
+        for (int y = maxY; y > 0; y -= intervalY) {
+            index.set(y, maxX);
+            coordinates.add(geometryFactory.createPoint(longitudes.getDouble(index), latitudes.getDouble(index)));
+        }
+        for (int x = maxX; x > 0; x -= intervalX) {
+            index.set(0, x);
+            coordinates.add(geometryFactory.createPoint(longitudes.getDouble(index), latitudes.getDouble(index)));
+        }
+        BoundingPolygonCreator.closePolygon(coordinates);
+        return geometryFactory.createPolygon(coordinates);
+    }
+
     @Test
     public void testExtractValidIntervals_noGaps() {
         final Array longitudes = NetCDFUtils.create(AVHRR_LONGITUDES);
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.fiduceo.reader;
+
+import com.bc.fiduceo.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DecompressedFileCacheTest {
+
+    private File testDir;
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException {
+        testDir = TestUtil.createTestDirectory();
+        cacheDir = new File(testDir, "cache");
+        if (!cacheDir.mkdirs()) {
+            throw new IOException("unable to create cache directory");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TestUtil.deleteTestDirectory();
+    }
+
+    @Test
+    public void testAcquire_decompressesOnceAndHits() throws IOException {
+        final byte[] content = createContent(1000, 3);
+        final File gzipFile = writeGzipFile("granule.h5.gz", content);
+
+        final DecompressedFileCache cache = new DecompressedFileCache(cacheDir, 10000);
+        final File first = cache.acquire(gzipFile);
+        assertTrue(first.isFile());
+        assertEquals("0_granule.h5", first.getName());
+        assertArrayEquals(content, Files.readAllBytes(first.toPath()));
+        cache.release(first);
+
+        final File second = cache.acquire(gzipFile);
+        assertEquals(first, second);
+        cache.release(second);
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1000, cache.getSizeInBytes());
+    }
+
+    @Test
+    public void testAcquire_evictsLeastRecentlyUsed() throws IOException {
+        final File gzipFile_1 = writeGzipFile("one.gz", createContent(600, 1));
+        final File gzipFile_2 = writeGzipFile("two.gz", createContent(600, 2));
+
+        final DecompressedFileCache cache = new DecompressedFileCache(cacheDir, 1000);
+        final File decompressed_1 = cache.acquire(gzipFile_1);
+        cache.release(decompressed_1);
+
+        final File decompressed_2 = cache.acquire(gzipFile_2);
+        cache.release(decompressed_2);
+
+        assertFalse(decompressed_1.exists());
+        assertTrue(decompressed_2.isFile());
+        assertEquals(600, cache.getSizeInBytes());
+    }
+
+    @Test
+    public void testAcquire_doesNotEvictFilesInUse() throws IOException {
+        final File gzipFile_1 = writeGzipFile("one.gz", createContent(600, 1));
+        final File gzipFile_2 = writeGzipFile("two.gz", createContent(600, 2));
+
+        final DecompressedFileCache cache = new DecompressedFileCache(cacheDir, 1000);
+        final File decompressed_1 = cache.acquire(gzipFile_1);
+        final File decompressed_2 = cache.acquire(gzipFile_2);
+
+        assertTrue(decompressed_1.isFile());
+        assertTrue(decompressed_2.isFile());
+        assertEquals(1200, cache.getSizeInBytes());
+
+        cache.release(decompressed_1);
+        assertFalse(decompressed_1.exists());
+        assertEquals(600, cache.getSizeInBytes());
+    }
+
+    @Test
+    public void testAcquire_modifiedSourceIsDecompressedAgain() throws IOException {
+        final File gzipFile = writeGzipFile("granule.gz", createContent(100, 1));
+
+        final DecompressedFileCache cache = new DecompressedFileCache(cacheDir, 10000);
+        final File first = cache.acquire(gzipFile);
+        cache.release(first);
+
+        writeGzipFile("granule.gz", createContent(200, 2));
+        assertTrue(gzipFile.setLastModified(gzipFile.lastModified() + 10000));
+
+        final File second = cache.acquire(gzipFile);
+        assertNotEquals(first, second);
+        assertEquals(200, second.length());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testDecompressToMemory_andUncompressedSize() throws IOException {
+        final byte[] content = createContent(70000, 5);
+        final File gzipFile = writeGzipFile("granule.gz", content);
+
+        assertEquals(70000, ReaderUtils.getUncompressedSize(gzipFile));
+        assertArrayEquals(content, ReaderUtils.decompressToMemory(gzipFile, 70000));
+        assertNull(ReaderUtils.decompressToMemory(gzipFile, 69999));
+    }
+
+    @Test
+    public void testGetUncompressedSize_tooSmall() throws IOException {
+        final File file = TestUtil.createFileInTestDir("tiny.gz");
+        TestUtil.writeStringTo(file, "tiny");
+
+        assertEquals(-1, ReaderUtils.getUncompressedSize(file));
+    }
+
+    @Test
+    public void testCreateKey() {
+        final File file = new File(testDir, "not_existing.gz");
+
+        final String key = DecompressedFileCache.createKey(file);
+        assertEquals(file.getAbsolutePath() + "|0|0", key);
+    }
+
+    private File writeGzipFile(String name, byte[] content) throws IOException {
+        final File file = new File(testDir, name);
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(content);
+        }
+        return file;
+    }
+
+    private static byte[] createContent(int size, int seed) {
+        final byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * seed);
+        }
+        return content;
+    }
+}
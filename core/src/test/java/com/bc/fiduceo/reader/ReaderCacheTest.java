@@ -108,6 +108,24 @@ public class ReaderCacheTest {
         verify(reader_2, times(1)).close();
     }
 
+    @Test
+    public void testGetReaderFor_countsOpenedReaders() throws IOException {
+        final ReaderFactory readerFactory = mock(ReaderFactory.class);
+        when(readerFactory.getReader("the_sensor")).thenAnswer(invocation -> mock(Reader.class));
+        final ReaderCache countingCache = new ReaderCache(2, readerFactory, null);
+        assertEquals(0, countingCache.getNumOpened());
+
+        countingCache.getReaderFor("the_sensor", Paths.get("file_1"), null);
+        countingCache.getReaderFor("the_sensor", Paths.get("file_2"), null);
+        countingCache.getReaderFor("the_sensor", Paths.get("file_1"), null);
+        assertEquals(2, countingCache.getNumOpened());
+
+        // file_2 is the eldest and gets closed, opening it again counts
+        countingCache.getReaderFor("the_sensor", Paths.get("file_3"), null);
+        countingCache.getReaderFor("the_sensor", Paths.get("file_2"), null);
+        assertEquals(4, countingCache.getNumOpened());
+    }
+
 
 
 
@@ -10,7 +10,9 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -45,6 +47,25 @@ public class ReaderContextTest {
         verify(tempFileUtils, times(1)).delete(tempFile);
     }
 
+    @Test
+    public void testSetGetInMemoryDecompressionLimit() {
+        assertEquals(ReaderContext.DEFAULT_IN_MEMORY_DECOMPRESSION_LIMIT, readerContext.getInMemoryDecompressionLimit());
+
+        readerContext.setInMemoryDecompressionLimit(1024L);
+        assertEquals(1024L, readerContext.getInMemoryDecompressionLimit());
+    }
+
+    @Test
+    public void testGetDecompressedFileCache_createdOnceInTempDir() throws IOException {
+        final TempFileUtils tempFileUtils = mock(TempFileUtils.class);
+        readerContext.setTempFileUtils(tempFileUtils);
+
+        final DecompressedFileCache cache = readerContext.getDecompressedFileCache();
+        assertSame(cache, readerContext.getDecompressedFileCache());
+
+        verify(tempFileUtils, times(1)).createDir(anyString());
+    }
+
     @Test
     public void testSetGetArchive() {
         final Archive archive = mock(Archive.class);
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ *  This program is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *  This program is distributed in the hope that it will be useful, but WITHOUT
+ *  ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ *  FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ *  more details.
+ *
+ *  A copy of the GNU General Public License should have been supplied along
+ *  with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.reader.insitu.sst_cci;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordIndexTest {
+
+    @Test
+    public void testFind_ordered() {
+        final RecordIndex index = RecordIndex.create(new long[]{10, 20, 20, 30, 40});
+
+        assertTrue(index.isOrdered());
+        assertArrayEquals(new int[]{1, 2, 3}, index.find(15, 30));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, index.find(10, 40));
+        assertArrayEquals(new int[]{4}, index.find(40, 100));
+        assertEquals(0, index.find(41, 100).length);
+        assertEquals(0, index.find(0, 9).length);
+        assertEquals(0, index.find(30, 20).length);
+    }
+
+    @Test
+    public void testFind_unordered() {
+        final RecordIndex index = RecordIndex.create(new long[]{30, 10, 40, 20, 10});
+
+        assertFalse(index.isOrdered());
+        assertArrayEquals(new int[]{1, 3, 4}, index.find(10, 20));
+        assertArrayEquals(new int[]{0, 2}, index.find(25, 45));
+        assertEquals(0, index.find(11, 19).length);
+    }
+
+    @Test
+    public void testLowerAndUpperBound() {
+        final RecordIndex index = RecordIndex.create(new long[]{10, 20, 20, 30});
+
+        assertEquals(1, index.lowerBound(20));
+        assertEquals(3, index.upperBound(20));
+        assertEquals(0, index.lowerBound(5));
+        assertEquals(4, index.upperBound(35));
+    }
+
+    @Test
+    public void testFind_empty() {
+        final RecordIndex index = RecordIndex.create(new long[0]);
+
+        assertTrue(index.isOrdered());
+        assertEquals(0, index.find(0, 100).length);
+    }
+}
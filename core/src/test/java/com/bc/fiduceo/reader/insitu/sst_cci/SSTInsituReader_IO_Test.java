@@ -588,6 +588,73 @@ public class SSTInsituReader_IO_Test {
         }
     }
 
+    @Test
+    public void testGetSourceArray_slice_v40() throws IOException {
+        openFile("gtmba-sst", "insitu_3_WMOID_31007_19990306_20160920.nc", "v04.0");
+
+        final Array slice = insituReader.getSourceArray("insitu.sst_type_corr_unc", 315660, 10);
+        assertEquals(10, slice.getSize());
+        assertEquals(-9999, slice.getInt(4));
+
+        final Array fullArray = insituReader.getSourceArray("insitu.sst_type_corr_unc");
+        final Array cachedSlice = insituReader.getSourceArray("insitu.sst_type_corr_unc", 315660, 10);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(fullArray.getInt(315660 + i), slice.getInt(i));
+            assertEquals(slice.getInt(i), cachedSlice.getInt(i));
+        }
+    }
+
+    @Test
+    public void testGetSourceArray_slice_uniqueId_v33() throws IOException {
+        openFile("drifter-sst", "insitu_0_WMOID_51993_20040402_20060207.nc", "v03.3");
+
+        final Array slice = insituReader.getSourceArray("insitu.id", 20, 5);
+        final Array fullArray = insituReader.getSourceArray("insitu.id");
+        assertEquals(5, slice.getSize());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(fullArray.getLong(20 + i), slice.getLong(i));
+        }
+    }
+
+    @Test
+    public void testFindRecordsInTimeRange_drifter_v40() throws Exception {
+        openFile("drifter-sst", "insitu_0_WMOID_42531_19960904_19960909.nc", "v04.0");
+
+        final int minTime = insituReader.getTime(0);
+        final int maxTime = insituReader.getTime(44);
+        final int[] records = insituReader.findRecordsInTimeRange(minTime, maxTime);
+
+        int expectedCount = 0;
+        for (int i = 0; i < insituReader.getNumObservations(); i++) {
+            final int time = insituReader.getTime(i);
+            if (time >= minTime && time <= maxTime) {
+                expectedCount++;
+            }
+        }
+        assertEquals(expectedCount, records.length);
+        for (int record : records) {
+            final int time = insituReader.getTime(record);
+            assertTrue(time >= minTime && time <= maxTime);
+        }
+
+        assertEquals(0, insituReader.findRecordsInTimeRange(0, 100).length);
+    }
+
+    @Test
+    public void testFindRecordsInIdRange_drifter_v40() throws Exception {
+        openFile("drifter-sst", "insitu_0_WMOID_42531_19960904_19960909.nc", "v04.0");
+
+        final Array idArray = insituReader.getSourceArray("insitu.id");
+        final long id = idArray.getLong(12);
+        final int[] records = insituReader.findRecordsInIdRange(id, id);
+
+        assertTrue(records.length > 0);
+        assertTrue(Arrays.binarySearch(records, 12) >= 0);
+        for (int record : records) {
+            assertEquals(id, idArray.getLong(record));
+        }
+    }
+
     private void openFile(String dataType, String fileName, String version) throws IOException {
         final String testFilePath = TestUtil.assembleFileSystemPath(new String[]{"insitu", dataType, version, fileName}, false);
         final File insituDataFile = TestUtil.getTestDataFileAsserted(testFilePath);
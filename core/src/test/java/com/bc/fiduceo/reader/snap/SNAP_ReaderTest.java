@@ -6,6 +6,10 @@ import org.esa.snap.core.datamodel.RasterDataNode;
 import org.junit.Test;
 import ucar.ma2.Array;
 import ucar.ma2.DataType;
+import ucar.ma2.Index;
+import ucar.ma2.InvalidRangeException;
+
+import java.awt.Rectangle;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertArrayEquals;
@@ -134,4 +138,128 @@ public class SNAP_ReaderTest {
         assertEquals(23, shape[0]);
         assertEquals(12, shape[1]);
     }
+
+    @Test
+    public void testCopyToWindow_inside() {
+        final float[] source = {1.f, 2.f, 3.f, 4.f, 5.f, 6.f};
+        final float[] target = new float[6];
+
+        SNAP_Reader.copyToWindow(source, target, new Rectangle(4, 7, 3, 2), 3, 2, 4, 7, -1.0);
+        assertArrayEquals(source, target, 0.f);
+    }
+
+    @Test
+    public void testCopyToWindow_upperLeftCorner() {
+        final short[] source = {1, 2, 3, 4};
+        final short[] target = new short[9];
+
+        // window 3x3 at (-1, -1), raster intersection is (0, 0) 2x2
+        SNAP_Reader.copyToWindow(source, target, new Rectangle(0, 0, 2, 2), 3, 3, -1, -1, -32767.0);
+        assertArrayEquals(new short[]{-32767, -32767, -32767, -32767, 1, 2, -32767, 3, 4}, target);
+    }
+
+    @Test
+    public void testCopyToWindow_lowerRightCorner() {
+        final int[] source = {11, 12, 13, 14};
+        final int[] target = new int[9];
+
+        // window 3x3 at (8, 18) on a 10x20 raster, raster intersection is (8, 18) 2x2
+        SNAP_Reader.copyToWindow(source, target, new Rectangle(8, 18, 2, 2), 3, 3, 8, 18, -2147483647.0);
+        assertArrayEquals(new int[]{11, 12, -2147483647, 13, 14, -2147483647, -2147483647, -2147483647, -2147483647}, target);
+    }
+
+    @Test
+    public void testCopyToWindow_noDataNarrowing() {
+        final byte[] byteSource = {7};
+        final byte[] byteTarget = new byte[3];
+        SNAP_Reader.copyToWindow(byteSource, byteTarget, new Rectangle(0, 0, 1, 1), 3, 1, -1, 0, 255.0);
+        assertArrayEquals(new byte[]{-1, 7, -1}, byteTarget);
+
+        final short[] shortSource = {7};
+        final short[] shortTarget = new short[3];
+        SNAP_Reader.copyToWindow(shortSource, shortTarget, new Rectangle(0, 0, 1, 1), 1, 3, 0, -2, 65535.0);
+        assertArrayEquals(new short[]{-1, -1, 7}, shortTarget);
+    }
+
+    @Test
+    public void testCopyToWindow_equalsPixelLoop() throws InvalidRangeException {
+        final int rasterWidth = 40;
+        final int rasterHeight = 30;
+        final DataType[] dataTypes = {DataType.FLOAT, DataType.INT, DataType.SHORT, DataType.BYTE};
+        final int[][] offsets = {{-3, -3}, {10, -4}, {36, -2}, {-6, 12}, {12, 12}, {35, 14}, {-2, 27}, {20, 26}, {37, 28}};
+
+        for (final DataType dataType : dataTypes) {
+            final Array raster = createRaster(dataType, rasterWidth, rasterHeight);
+            for (final int[] offset : offsets) {
+                final Rectangle intersection = new Rectangle(0, 0, rasterWidth, rasterHeight).intersection(new Rectangle(offset[0], offset[1], 7, 5));
+                final Array source = raster.section(new int[]{intersection.y, intersection.x}, new int[]{intersection.height, intersection.width}).copy();
+
+                final Array expected = Array.factory(dataType, new int[]{5, 7});
+                copyPixelByPixel(source, expected, rasterWidth, rasterHeight, 7, 5, offset[0], offset[1], -99.0);
+
+                final Array actual = Array.factory(dataType, new int[]{5, 7});
+                SNAP_Reader.copyToWindow(source.getStorage(), actual.getStorage(), intersection, 7, 5, offset[0], offset[1], -99.0);
+
+                for (int i = 0; i < 35; i++) {
+                    assertEquals(expected.getDouble(i), actual.getDouble(i), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCopyToWindow_windowsAlongTheBorder() throws InvalidRangeException {
+        final int rasterWidth = 512;
+        final int rasterHeight = 512;
+        final int windowSize = 31;
+        final DataType[] dataTypes = {DataType.FLOAT, DataType.INT, DataType.SHORT, DataType.BYTE};
+
+        for (final DataType dataType : dataTypes) {
+            final Array raster = createRaster(dataType, rasterWidth, rasterHeight);
+            for (int i = 0; i < 200; i++) {
+                // every fourth window hangs over the raster border
+                final int xOffset = i % 4 == 0 ? rasterWidth - windowSize / 2 : (i * 37) % (rasterWidth - windowSize);
+                final int yOffset = i % 8 == 0 ? -windowSize / 2 : (i * 53) % (rasterHeight - windowSize);
+                final Rectangle intersection = new Rectangle(0, 0, rasterWidth, rasterHeight).intersection(new Rectangle(xOffset, yOffset, windowSize, windowSize));
+                final Array source = raster.section(new int[]{intersection.y, intersection.x}, new int[]{intersection.height, intersection.width}).copy();
+
+                final Array expected = Array.factory(dataType, new int[]{windowSize, windowSize});
+                copyPixelByPixel(source, expected, rasterWidth, rasterHeight, windowSize, windowSize, xOffset, yOffset, -99.0);
+
+                final Array actual = Array.factory(dataType, new int[]{windowSize, windowSize});
+                SNAP_Reader.copyToWindow(source.getStorage(), actual.getStorage(), intersection, windowSize, windowSize, xOffset, yOffset, -99.0);
+
+                for (int k = 0; k < windowSize * windowSize; k++) {
+                    assertEquals(expected.getDouble(k), actual.getDouble(k), 0.0);
+                }
+            }
+        }
+    }
+
+    static Array createRaster(DataType dataType, int width, int height) {
+        final Array raster = Array.factory(dataType, new int[]{height, width});
+        for (int i = 0; i < width * height; i++) {
+            raster.setDouble(i, (i * 7) % 127 - 60);
+        }
+        return raster;
+    }
+
+    // the former per pixel implementation of readRawProductData()
+    static void copyPixelByPixel(Array source, Array target, int rasterWidth, int rasterHeight, int width, int height, int xOffset, int yOffset, double noDataValue) {
+        final Index index = target.getIndex();
+        int readIndex = 0;
+        for (int y = 0; y < height; y++) {
+            final int currentY = yOffset + y;
+            for (int x = 0; x < width; x++) {
+                final int currentX = xOffset + x;
+                index.set(y, x);
+                if (currentX >= 0 && currentX < rasterWidth && currentY >= 0 && currentY < rasterHeight) {
+                    target.setObject(index, source.getDouble(readIndex));
+                    ++readIndex;
+                } else {
+                    target.setObject(index, noDataValue);
+                }
+            }
+        }
+    }
 }
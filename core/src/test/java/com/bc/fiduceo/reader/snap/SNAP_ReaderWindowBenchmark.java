@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.reader.snap;
+
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+
+import java.awt.Rectangle;
+
+/**
+ * Measures the window copy of SNAP_Reader against the former per pixel loop. Not part of the unit tests, run it from
+ * the test class path with
+ * <p>
+ * java com.bc.fiduceo.reader.snap.SNAP_ReaderWindowBenchmark [windowSize] [numWindows]
+ * <p>
+ * Windows of 31x31 pixels inside, at the edge and at the corner of a 512x512 raster are copied, 100000 of each by
+ * default.
+ */
+public class SNAP_ReaderWindowBenchmark {
+
+    private static final int RASTER_SIZE = 512;
+    private static final int NUM_RUNS = 5;
+    private static final double NO_DATA_VALUE = -99.0;
+
+    public static void main(String[] args) throws InvalidRangeException {
+        final int windowSize = args.length > 0 ? Integer.parseInt(args[0]) : 31;
+        final int numWindows = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+        final String[] positionNames = {"inside", "edge", "corner"};
+        final int[][] offsets = {
+                {RASTER_SIZE / 2, RASTER_SIZE / 2},
+                {RASTER_SIZE - windowSize / 2, RASTER_SIZE / 2},
+                {-windowSize / 2, -windowSize / 2}
+        };
+
+        System.out.println(windowSize + "x" + windowSize + " windows on a " + RASTER_SIZE + "x" + RASTER_SIZE + " raster, " + numWindows + " per position, best of " + NUM_RUNS + " runs");
+        for (final DataType dataType : new DataType[]{DataType.FLOAT, DataType.INT, DataType.SHORT, DataType.BYTE}) {
+            final Array raster = SNAP_ReaderTest.createRaster(dataType, RASTER_SIZE, RASTER_SIZE);
+            for (int i = 0; i < offsets.length; i++) {
+                final int xOffset = offsets[i][0];
+                final int yOffset = offsets[i][1];
+                final Rectangle intersection = new Rectangle(0, 0, RASTER_SIZE, RASTER_SIZE).intersection(new Rectangle(xOffset, yOffset, windowSize, windowSize));
+                final Array source = raster.section(new int[]{intersection.y, intersection.x}, new int[]{intersection.height, intersection.width}).copy();
+                final Array pixelTarget = Array.factory(dataType, new int[]{windowSize, windowSize});
+                final Array windowTarget = Array.factory(dataType, new int[]{windowSize, windowSize});
+
+                long pixelTime = Long.MAX_VALUE;
+                long windowTime = Long.MAX_VALUE;
+                for (int run = 0; run < NUM_RUNS; run++) {
+                    long start = System.nanoTime();
+                    for (int k = 0; k < numWindows; k++) {
+                        SNAP_ReaderTest.copyPixelByPixel(source, pixelTarget, RASTER_SIZE, RASTER_SIZE, windowSize, windowSize, xOffset, yOffset, NO_DATA_VALUE);
+                    }
+                    pixelTime = Math.min(pixelTime, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    for (int k = 0; k < numWindows; k++) {
+                        SNAP_Reader.copyToWindow(source.getStorage(), windowTarget.getStorage(), intersection, windowSize, windowSize, xOffset, yOffset, NO_DATA_VALUE);
+                    }
+                    windowTime = Math.min(windowTime, System.nanoTime() - start);
+                }
+
+                for (int k = 0; k < windowSize * windowSize; k++) {
+                    if (pixelTarget.getDouble(k) != windowTarget.getDouble(k)) {
+                        throw new IllegalStateException("different windows for " + dataType + " at " + positionNames[i]);
+                    }
+                }
+                System.out.printf("  %-5s %-6s   per pixel %8.1f ms   window copy %8.1f ms   speedup %5.1f%n",
+                                  dataType, positionNames[i], pixelTime * 1e-6, windowTime * 1e-6, (double) pixelTime / windowTime);
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.bc.fiduceo.reader.time;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class TimeLocator_MicrosSince2000Test {
@@ -26,4 +27,15 @@ public class TimeLocator_MicrosSince2000Test {
         assertEquals(-1L, timeLocator.getTimeFor(0, -1));
         assertEquals(-1L, timeLocator.getTimeFor(0, 6));
     }
+
+    @Test
+    public void testGetTimesFor() {
+        final long[] time_2000 = {592784694225744L, 592784694525730L, 592784694825716L, 592784695125701L, 592784695425687L, 592784695725673L};
+
+        final TimeLocator_MicrosSince2000 timeLocator = new TimeLocator_MicrosSince2000(time_2000);
+
+        final long[] times = new long[6];
+        timeLocator.getTimesFor(1000, 4, 2, 3, times);
+        assertArrayEquals(new long[]{1539469495426L, 1539469495426L, 1539469495726L, 1539469495726L, -1L, -1L}, times);
+    }
 }
@@ -4,6 +4,7 @@ import com.bc.fiduceo.util.NetCDFUtils;
 import org.junit.Test;
 import ucar.ma2.Array;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class TimeLocator_TAI1993ScanTest {
@@ -35,4 +36,20 @@ public class TimeLocator_TAI1993ScanTest {
         assertEquals(725846379300L, timeLocator.getTimeFor(0, 75));
         assertEquals(725846379300L, timeLocator.getTimeFor(6, 89));
     }
+
+    @Test
+    public void testGetTimesFor_acrossScans() {
+        final double[] timeData = {1.8, 2.9, 3.0, 4.2, 5.2, 6.3};
+        final Array timeDataArray = NetCDFUtils.create(timeData);
+
+        final TimeLocator_TAI1993Scan timeLocator = new TimeLocator_TAI1993Scan(timeDataArray, 10);
+
+        final long[] times = new long[8];
+        timeLocator.getTimesFor(3, 8, 2, 4, times);
+        for (int i = 0; i < times.length; i++) {
+            assertEquals(timeLocator.getTimeFor(3 + i % 2, 8 + i / 2), times[i]);
+        }
+        assertArrayEquals(new long[]{725846374800L, 725846374800L, 725846374800L, 725846374800L,
+                725846375900L, 725846375900L, 725846375900L, 725846375900L}, times);
+    }
 }
@@ -4,6 +4,7 @@ import com.bc.fiduceo.util.NetCDFUtils;
 import org.junit.Test;
 import ucar.ma2.Array;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class TimeLocator_TAI1993Test {
@@ -22,4 +23,20 @@ public class TimeLocator_TAI1993Test {
         assertEquals(725846376100L, timeLocator.getTimeFor(2, 1));
         assertEquals(725846377400L, timeLocator.getTimeFor(3, 2));
     }
+
+    @Test
+    public void testGetTimesFor() {
+        final double[][] timeData = {{1.8, 2.9, 3.0, 4.2, 5.2, 6.3},
+                {1.9, 3.0, 3.1, 4.3, 5.3, 6.4},
+                {2.0, 3.1, 3.2, 4.4, 5.4, 6.5}
+        };
+        final Array timeDataArray = NetCDFUtils.create(timeData);
+
+        final TimeLocator_TAI1993 timeLocator = new TimeLocator_TAI1993(timeDataArray);
+
+        final long[] times = new long[6];
+        timeLocator.getTimesFor(2, 1, 3, 2, times);
+        assertArrayEquals(new long[]{725846376100L, 725846377300L, 725846378300L,
+                725846376200L, 725846377400L, 725846378400L}, times);
+    }
 }
@@ -24,6 +24,7 @@ import com.bc.fiduceo.util.NetCDFUtils;
 import org.junit.Test;
 import ucar.ma2.Array;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class TimeLocator_TAI1993VectorTest {
@@ -39,4 +40,59 @@ public class TimeLocator_TAI1993VectorTest {
         assertEquals(725846374800L, timeLocator.getTimeFor(5, 0));
         assertEquals(725846379300L, timeLocator.getTimeFor(8, 5));
     }
+
+    @Test
+    public void testGetTimesFor() {
+        final double[] timeData = {1.8, 2.9, 3.0, 4.2, 5.2, 6.3};
+        final Array timeDataArray = NetCDFUtils.create(timeData);
+
+        final TimeLocator_TAI1993Vector timeLocator = new TimeLocator_TAI1993Vector(timeDataArray);
+
+        final long[] times = new long[6];
+        timeLocator.getTimesFor(7, 3, 2, 3, times);
+        assertArrayEquals(new long[]{725846377200L, 725846377200L, 725846378200L, 725846378200L, 725846379300L, 725846379300L}, times);
+    }
+
+    @Test
+    public void testGetTimesInSecondsFor() {
+        final double[] timeData = {1.8, 2.9, 3.0, 4.2, 5.2, 6.3};
+        final Array timeDataArray = NetCDFUtils.create(timeData);
+
+        final TimeLocator_TAI1993Vector timeLocator = new TimeLocator_TAI1993Vector(timeDataArray);
+
+        final int[] times = new int[2];
+        timeLocator.getTimesInSecondsFor(0, 0, 1, 2, times);
+        assertArrayEquals(new int[]{725846374, 725846375}, times);
+    }
+
+    @Test
+    public void testGetTimesFor_matchesGetTimeFor() {
+        final int numLines = 2000;
+        final int width = 90;
+        final double[] timeData = new double[numLines];
+        for (int i = 0; i < numLines; i++) {
+            timeData[i] = 3.8277217110737616e8 + 1.5 * i;
+        }
+        final TimeLocator_TAI1993Vector timeLocator = new TimeLocator_TAI1993Vector(NetCDFUtils.create(timeData));
+
+        final long[] pixelTimes = new long[numLines * width];
+        int i = 0;
+        for (int y = 0; y < numLines; y++) {
+            for (int x = 0; x < width; x++) {
+                pixelTimes[i++] = timeLocator.getTimeFor(x, y);
+            }
+        }
+
+        final long[] times = new long[numLines * width];
+        timeLocator.getTimesFor(0, 0, width, numLines, times);
+        assertArrayEquals(pixelTimes, times);
+
+        final long[] windowTimes = new long[5 * 7];
+        timeLocator.getTimesFor(12, 1500, 5, 7, windowTimes);
+        for (int y = 0; y < 7; y++) {
+            for (int x = 0; x < 5; x++) {
+                assertEquals(timeLocator.getTimeFor(12 + x, 1500 + y), windowTimes[y * 5 + x]);
+            }
+        }
+    }
 }
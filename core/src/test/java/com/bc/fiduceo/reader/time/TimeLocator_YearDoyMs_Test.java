@@ -26,6 +26,7 @@ import org.junit.Before;
 import org.junit.Test;
 import ucar.ma2.Array;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
@@ -67,4 +68,18 @@ public class TimeLocator_YearDoyMs_Test {
         } catch (ArrayIndexOutOfBoundsException expected) {
         }
     }
+
+    @Test
+    public void testGetTimesFor() {
+        final long[] times = new long[4];
+        timeLocator.getTimesFor(5, 3, 1, 3, times);
+        assertArrayEquals(new long[]{1187764237119L, 1187764239786L, 1187764242452L, 0L}, times);
+    }
+
+    @Test
+    public void testGetTimesInSecondsFor() {
+        final int[] times = new int[4];
+        timeLocator.getTimesInSecondsFor(0, 0, 2, 2, times);
+        assertArrayEquals(new int[]{1187764229, 1187764229, 1187764231, 1187764231}, times);
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.util;
+
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Measures write time, file size and read time of a synthetic MMD for several chunking configurations. Not part of
+ * the unit tests, run it from the test class path with
+ * <p>
+ * java com.bc.fiduceo.util.MmdChunkingBenchmark [numMatchups]
+ * <p>
+ * The MMD is the one of MmdChunking_IO_Test, with 100000 matchups by default. Writing netCDF-4 needs the native
+ * netCDF library, like the IO tests.
+ */
+public class MmdChunkingBenchmark {
+
+    private static final int NUM_RUNS = 3;
+
+    public static void main(String[] args) throws IOException, InvalidRangeException {
+        final int numMatchups = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        final String[] names = {"standard deflate 5", "matchup 1024 deflate 5", "matchup 512 deflate 5", "matchup 1024 deflate 1"};
+        final MmdChunking[] chunkings = {
+                MmdChunking.createDefault(),
+                new MmdChunking(MmdChunking.Strategy.matchup, 5, true),
+                new MmdChunking(MmdChunking.Strategy.matchup, 5, true),
+                new MmdChunking(MmdChunking.Strategy.matchup, 1, true)
+        };
+        chunkings[2].setMatchupChunkSize(512);
+
+        final File benchmarkDir = Files.createTempDirectory("mmd_chunking_benchmark").toFile();
+        try {
+            System.out.println(numMatchups + " matchups of 7x7 windows, best of " + NUM_RUNS + " runs");
+            for (int i = 0; i < chunkings.length; i++) {
+                final File mmdFile = new File(benchmarkDir, "mmd_" + i + ".nc");
+
+                long writeTime = Long.MAX_VALUE;
+                long readTime = Long.MAX_VALUE;
+                long matchupReadTime = Long.MAX_VALUE;
+                for (int run = 0; run < NUM_RUNS; run++) {
+                    if (mmdFile.isFile() && !mmdFile.delete()) {
+                        throw new IOException("unable to delete " + mmdFile.getAbsolutePath());
+                    }
+                    long start = System.nanoTime();
+                    MmdChunking_IO_Test.writeSyntheticMmd(mmdFile, chunkings[i], numMatchups);
+                    writeTime = Math.min(writeTime, System.nanoTime() - start);
+
+                    try (NetcdfFile netcdfFile = NetCDFUtils.openReadOnly(mmdFile.getAbsolutePath())) {
+                        final Variable window = netcdfFile.findVariable("sensor_window");
+
+                        start = System.nanoTime();
+                        final Array windowData = window.read();
+                        readTime = Math.min(readTime, System.nanoTime() - start);
+                        checkWindow((float[]) windowData.getStorage(), numMatchups - 1, (numMatchups - 1) * 49);
+
+                        // matchup by matchup like the post-processing reads the MMD
+                        final int[] origin = new int[3];
+                        final int[] shape = new int[]{1, 7, 7};
+                        start = System.nanoTime();
+                        for (int m = 0; m < numMatchups; m++) {
+                            origin[0] = m;
+                            checkWindow((float[]) window.read(origin, shape).getStorage(), m, 0);
+                        }
+                        matchupReadTime = Math.min(matchupReadTime, System.nanoTime() - start);
+                    }
+                }
+
+                System.out.printf("  %-24s   write %8.1f ms   size %8.1f kB   read %8.1f ms   read by matchup %8.1f ms%n",
+                                  names[i], writeTime * 1e-6, mmdFile.length() / 1024.0, readTime * 1e-6, matchupReadTime * 1e-6);
+            }
+        } finally {
+            final File[] files = benchmarkDir.listFiles();
+            if (files != null) {
+                for (final File file : files) {
+                    file.delete();
+                }
+            }
+            benchmarkDir.delete();
+        }
+    }
+
+    private static void checkWindow(float[] values, int matchup, int offset) {
+        for (int p = 0; p < 49; p++) {
+            if (values[offset + p] != MmdChunking_IO_Test.createWindowValue(matchup, p)) {
+                throw new IllegalStateException("wrong value at matchup " + matchup + ", pixel " + p);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.util;
+
+import com.bc.fiduceo.TestUtil;
+import org.jdom.Element;
+import org.junit.Test;
+import ucar.nc2.Dimension;
+import ucar.nc2.Variable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MmdChunkingTest {
+
+    @Test
+    public void testCreateDefault() {
+        final MmdChunking chunking = MmdChunking.createDefault();
+
+        assertEquals(MmdChunking.Strategy.standard, chunking.getStrategy());
+        assertEquals(1024, chunking.getMatchupChunkSize());
+        assertEquals(4194304, chunking.getMaxChunkBytes());
+
+        final Variable variable = createVariable("whatever", 4, new String[]{"matchup_count", "y", "x"}, new int[]{200, 5, 5});
+        assertEquals(5, chunking.getDeflateLevel(variable));
+        assertTrue(chunking.isShuffle(variable));
+    }
+
+    @Test
+    public void testConstruct_invalidDeflateLevel() {
+        try {
+            new MmdChunking(MmdChunking.Strategy.matchup, 10, true);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        try {
+            new MmdChunking(MmdChunking.Strategy.matchup, -1, true);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testSetMatchupChunkSize_invalid() {
+        final MmdChunking chunking = MmdChunking.createDefault();
+
+        try {
+            chunking.setMatchupChunkSize(0);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        try {
+            chunking.setMaxChunkBytes(0);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testComputeChunking_matchup_window() {
+        final MmdChunking chunking = new MmdChunking(MmdChunking.Strategy.matchup, 5, true);
+        final Variable variable = createVariable("amsub_btemps", 4, new String[]{"matchup_count", "amsub_ny", "amsub_nx"}, new int[]{12000, 7, 7});
+
+        assertTrue(chunking.isChunked(variable));
+        assertArrayEquals(new long[]{1024, 7, 7}, chunking.computeChunking(variable));
+    }
+
+    @Test
+    public void testComputeChunking_matchup_lessMatchupsThanChunkSize() {
+        final MmdChunking chunking = new MmdChunking(MmdChunking.Strategy.matchup, 5, true);
+        final Variable variable = createVariable("amsub_btemps", 2, new String[]{"matchup_count", "amsub_ny", "amsub_nx"}, new int[]{312, 7, 7});
+
+        assertArrayEquals(new long[]{312, 7, 7}, chunking.computeChunking(variable));
+    }
+
+    @Test
+    public void testComputeChunking_matchup_limitedByChunkBytes() {
+        final MmdChunking chunking = new MmdChunking(MmdChunking.Strategy.matchup, 5, true);
+        chunking.setMaxChunkBytes(100000);
+        // 8700 spectral channels as float: 34800 bytes per matchup
+        final Variable variable = createVariable("iasi_GS1cSpect", 4, new String[]{"matchup_count", "iasi_ny", "iasi_nx", "iasi_ss"}, new int[]{5000, 1, 1, 8700});
+
+        assertArrayEquals(new long[]{2, 1, 1, 8700}, chunking.computeChunking(variable));
+    }
+
+    @Test
+    public void testComputeChunking_matchup_matchupLargerThanChunkBytes() {
+        final MmdChunking chunking = new MmdChunking(MmdChunking.Strategy.matchup, 5, true);
+        chunking.setMaxChunkBytes(1000);
+        final Variable variable = createVariable("huge", 8, new String[]{"matchup_count", "ny", "nx"}, new int[]{5000, 25, 25});
+
+        assertArrayEquals(new long[]{1, 25, 25}, chunking.computeChunking(variable));
+    }
+
+    @Test
+    public void testComputeChunking_matchup_oneDimensional() {
+        final MmdChunking chunking = new MmdChunking(MmdChunking.Strategy.matchup, 5, true);
+        chunking.setMatchupChunkSize(4096);
+        final Variable variable = createVariable("matchup_time", 8, new String[]{"matchup_count"}, new int[]{10000});
+
+        assertArrayEquals(new long[]{4096}, chunking.computeChunking(variable));
+    }
+
+    @Test
+    public void testIsChunked_matchup_notAMatchupVariable() {
+        final MmdChunking chunking = new MmdChunking(MmdChunking.Strategy.matchup, 5, true);
+        final Variable scalar = createVariable("scalar", 4, new String[0], new int[0]);
+
+        assertFalse(chunking.isChunked(scalar));
+    }
+
+    @Test
+    public void testGetDeflateLevel_isShuffle_precedence() {
+        final MmdChunking chunking = new MmdChunking(MmdChunking.Strategy.matchup, 5, true);
+        chunking.setRankCompression(1, 1, false);
+        chunking.setVariableCompression("iasi_GS1cSpect", 2, false);
+        chunking.setVariableCompression("matchup_time", 9, true);
+
+        final Variable window = createVariable("amsub_btemps", 4, new String[]{"matchup_count", "amsub_ny", "amsub_nx"}, new int[]{100, 7, 7});
+        assertEquals(5, chunking.getDeflateLevel(window));
+        assertTrue(chunking.isShuffle(window));
+
+        final Variable oneDimensional = createVariable("amsub_x", 4, new String[]{"matchup_count"}, new int[]{100});
+        assertEquals(1, chunking.getDeflateLevel(oneDimensional));
+        assertFalse(chunking.isShuffle(oneDimensional));
+
+        final Variable spectrum = createVariable("iasi_GS1cSpect", 4, new String[]{"matchup_count", "iasi_ny", "iasi_nx", "iasi_ss"}, new int[]{100, 1, 1, 8700});
+        assertEquals(2, chunking.getDeflateLevel(spectrum));
+        assertFalse(chunking.isShuffle(spectrum));
+
+        // variable name wins over rank
+        final Variable time = createVariable("matchup_time", 8, new String[]{"matchup_count"}, new int[]{100});
+        assertEquals(9, chunking.getDeflateLevel(time));
+        assertTrue(chunking.isShuffle(time));
+    }
+
+    @Test
+    public void testFromElement() throws Exception {
+        final Element element = TestUtil.createDomElement("<nc4-chunking strategy=\"matchup\" matchup-chunk-size=\"256\" max-chunk-bytes=\"65536\" deflate=\"3\" shuffle=\"false\">" +
+                                                          "    <compression rank=\"1\" deflate=\"1\" />" +
+                                                          "    <compression variable-names=\"var_a, var_b\" deflate=\"7\" shuffle=\"true\" />" +
+                                                          "</nc4-chunking>");
+
+        final MmdChunking chunking = MmdChunking.fromElement(element);
+        assertEquals(MmdChunking.Strategy.matchup, chunking.getStrategy());
+        assertEquals(256, chunking.getMatchupChunkSize());
+        assertEquals(65536, chunking.getMaxChunkBytes());
+
+        final Variable window = createVariable("window", 4, new String[]{"matchup_count", "ny", "nx"}, new int[]{100, 5, 5});
+        assertEquals(3, chunking.getDeflateLevel(window));
+        assertFalse(chunking.isShuffle(window));
+
+        final Variable oneDimensional = createVariable("one_dim", 4, new String[]{"matchup_count"}, new int[]{100});
+        assertEquals(1, chunking.getDeflateLevel(oneDimensional));
+        assertFalse(chunking.isShuffle(oneDimensional));
+
+        final Variable varB = createVariable("var_b", 4, new String[]{"matchup_count", "ny", "nx"}, new int[]{100, 5, 5});
+        assertEquals(7, chunking.getDeflateLevel(varB));
+        assertTrue(chunking.isShuffle(varB));
+    }
+
+    @Test
+    public void testFromElement_defaults() throws Exception {
+        final Element element = TestUtil.createDomElement("<nc4-chunking/>");
+
+        final MmdChunking chunking = MmdChunking.fromElement(element);
+        assertEquals(MmdChunking.Strategy.standard, chunking.getStrategy());
+        assertEquals(1024, chunking.getMatchupChunkSize());
+
+        final Variable window = createVariable("window", 4, new String[]{"matchup_count", "ny", "nx"}, new int[]{100, 5, 5});
+        assertEquals(5, chunking.getDeflateLevel(window));
+        assertTrue(chunking.isShuffle(window));
+    }
+
+    @Test
+    public void testFromElement_invalidStrategy() throws Exception {
+        final Element element = TestUtil.createDomElement("<nc4-chunking strategy=\"diagonal\"/>");
+
+        try {
+            MmdChunking.fromElement(element);
+            fail("RuntimeException expected");
+        } catch (RuntimeException expected) {
+            assertEquals("Unsupported chunking strategy: diagonal", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testFromElement_compressionWithoutSelector() throws Exception {
+        final Element element = TestUtil.createDomElement("<nc4-chunking><compression deflate=\"1\"/></nc4-chunking>");
+
+        try {
+            MmdChunking.fromElement(element);
+            fail("RuntimeException expected");
+        } catch (RuntimeException expected) {
+            assertEquals("Element 'compression' needs either attribute 'rank' or 'variable-names'", expected.getMessage());
+        }
+    }
+
+    private static Variable createVariable(String name, int elementSize, String[] dimensionNames, int[] shape) {
+        final Variable variable = mock(Variable.class);
+        when(variable.getShortName()).thenReturn(name);
+        when(variable.getElementSize()).thenReturn(elementSize);
+        when(variable.getRank()).thenReturn(shape.length);
+        when(variable.getShape()).thenReturn(shape);
+        for (int i = 0; i < shape.length; i++) {
+            when(variable.getDimension(i)).thenReturn(new Dimension(dimensionNames[i], shape[i]));
+        }
+        return variable;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.util;
+
+import com.bc.fiduceo.IOTestRunner;
+import com.bc.fiduceo.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+@RunWith(IOTestRunner.class)
+public class MmdChunking_IO_Test {
+
+    private static final int NUM_MATCHUPS = 4000;
+
+    private File testDir;
+
+    @Before
+    public void setUp() {
+        testDir = TestUtil.createTestDirectory();
+    }
+
+    @After
+    public void tearDown() {
+        TestUtil.deleteTestDirectory();
+    }
+
+    @Test
+    public void testWriteAndRead_matchupChunking() throws IOException, InvalidRangeException {
+        final MmdChunking chunking = new MmdChunking(MmdChunking.Strategy.matchup, 5, true);
+        chunking.setMatchupChunkSize(512);
+        chunking.setRankCompression(1, 1, false);
+        final File mmdFile = new File(testDir, "matchup_chunking.nc");
+
+        writeSyntheticMmd(mmdFile, chunking, NUM_MATCHUPS);
+
+        try (NetcdfFile netcdfFile = NetCDFUtils.openReadOnly(mmdFile.getAbsolutePath())) {
+            final Variable window = netcdfFile.findVariable("sensor_window");
+            assertNotNull(window);
+            assertChunkSizes(new int[]{512, 7, 7}, window);
+
+            final Variable time = netcdfFile.findVariable("matchup_time");
+            assertNotNull(time);
+            assertChunkSizes(new int[]{512}, time);
+
+            assertSyntheticData(netcdfFile);
+        }
+    }
+
+    @Test
+    public void testWriteAndRead_standardAndMatchupChunkingStoreSameData() throws IOException, InvalidRangeException {
+        final File standardFile = new File(testDir, "standard_chunking.nc");
+        final File matchupFile = new File(testDir, "matchup_chunking.nc");
+
+        writeSyntheticMmd(standardFile, MmdChunking.createDefault(), NUM_MATCHUPS);
+        writeSyntheticMmd(matchupFile, new MmdChunking(MmdChunking.Strategy.matchup, 5, true), NUM_MATCHUPS);
+
+        try (NetcdfFile standardNetcdf = NetCDFUtils.openReadOnly(standardFile.getAbsolutePath());
+             NetcdfFile matchupNetcdf = NetCDFUtils.openReadOnly(matchupFile.getAbsolutePath())) {
+            assertSyntheticData(standardNetcdf);
+            assertSyntheticData(matchupNetcdf);
+
+            for (final String variableName : new String[]{"sensor_window", "matchup_time"}) {
+                final Array standardData = standardNetcdf.findVariable(variableName).read();
+                final Array matchupData = matchupNetcdf.findVariable(variableName).read();
+                assertArrayEquals(standardData.getShape(), matchupData.getShape());
+                for (int i = 0; i < standardData.getSize(); i++) {
+                    assertEquals(standardData.getDouble(i), matchupData.getDouble(i), 0.0);
+                }
+            }
+        }
+    }
+
+    static void writeSyntheticMmd(File mmdFile, MmdChunking chunking, int numMatchups) throws IOException, InvalidRangeException {
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf4, mmdFile.getAbsolutePath(), chunking);
+        try {
+            final List<Dimension> windowDimensions = new ArrayList<>();
+            windowDimensions.add(writer.addDimension(null, "matchup_count", numMatchups));
+            windowDimensions.add(writer.addDimension(null, "sensor_ny", 7));
+            windowDimensions.add(writer.addDimension(null, "sensor_nx", 7));
+
+            writer.addVariable(null, "sensor_window", DataType.FLOAT, windowDimensions);
+            writer.addVariable(null, "matchup_time", DataType.LONG, "matchup_count");
+            writer.create();
+
+            // smooth synthetic field, compressible like real brightness temperatures
+            final Array windowData = Array.factory(DataType.FLOAT, new int[]{numMatchups, 7, 7});
+            final Array timeData = Array.factory(DataType.LONG, new int[]{numMatchups});
+            int index = 0;
+            for (int m = 0; m < numMatchups; m++) {
+                timeData.setLong(m, 1500000000000L + 1000L * m);
+                for (int p = 0; p < 49; p++) {
+                    windowData.setFloat(index++, createWindowValue(m, p));
+                }
+            }
+
+            // written matchup by matchup like the MMD writer flushes its cache
+            final Variable window = writer.findVariable("sensor_window");
+            final int[] origin = new int[3];
+            final int[] shape = new int[]{1, 7, 7};
+            for (int m = 0; m < numMatchups; m++) {
+                origin[0] = m;
+                writer.write(window, origin, windowData.section(origin, shape));
+            }
+            writer.write(writer.findVariable("matchup_time"), timeData);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void assertSyntheticData(NetcdfFile netcdfFile) throws IOException, InvalidRangeException {
+        final Variable window = netcdfFile.findVariable("sensor_window");
+        final int[] origin = new int[3];
+        final int[] shape = new int[]{1, 7, 7};
+        for (int m = 0; m < NUM_MATCHUPS; m++) {
+            origin[0] = m;
+            final float[] values = (float[]) window.read(origin, shape).getStorage();
+            for (int p = 0; p < 49; p++) {
+                assertEquals(createWindowValue(m, p), values[p], 0.0f);
+            }
+        }
+
+        final Array times = netcdfFile.findVariable("matchup_time").read();
+        assertEquals(1500000000000L, times.getLong(0));
+        assertEquals(1500000000000L + 1000L * (NUM_MATCHUPS - 1), times.getLong(NUM_MATCHUPS - 1));
+    }
+
+    private static void assertChunkSizes(int[] expected, Variable variable) {
+        final Attribute chunkSizes = variable.findAttribute("_ChunkSizes");
+        assertNotNull(chunkSizes);
+        final int[] actual = new int[chunkSizes.getLength()];
+        for (int i = 0; i < actual.length; i++) {
+            actual[i] = chunkSizes.getNumericValue(i).intValue();
+        }
+        assertArrayEquals(expected, actual);
+    }
+
+    static float createWindowValue(int matchup, int pixel) {
+        return 240.f + 0.01f * matchup + 0.25f * (pixel % 7) + 0.5f * (pixel / 7);
+    }
+}
@@ -21,14 +21,21 @@
 package com.bc.fiduceo.util;
 
 import com.bc.fiduceo.TestUtil;
+import org.esa.snap.core.datamodel.ProductData;
 import org.junit.Test;
 
 import java.sql.Timestamp;
+import java.text.DateFormat;
+import java.text.ParseException;
 import java.util.Calendar;
 import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class TimeUtilsTest {
 
@@ -231,4 +238,139 @@ public class TimeUtilsTest {
         endOfMonth = TimeUtils.getEndOfMonth(date);
         TestUtil.assertCorrectUTCDate(2010, 8, 31, 23, 59, 59, 999, endOfMonth);
     }
+
+    @Test
+    public void testFormatAndParse_equalsSimpleDateFormat() throws ParseException {
+        final String[] patterns = {"dd-MMM-yyyy HH:mm:ss", "yyyy-DDD", "yyyy-MM-dd HH:mm:ss", "yyyyMMddHHmmss",
+                "yyyyMMdd'T'HHmmss'Z'", "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", "yyyyMMdd", "yyyy-MM-dd HH:mm:ss.S", "yyDDD"};
+
+        // every 61 hours and 13 milliseconds from 1968 to 2101, covering all leap years in between
+        final long start = -63158400000L;
+        final long stop = 4133980800000L;
+        for (long millis = start; millis < stop; millis += 219600013L) {
+            final Date date = new Date(millis);
+            for (final String pattern : patterns) {
+                final DateFormat dateFormat = ProductData.UTC.createDateFormat(pattern);
+                final String expected = dateFormat.format(date);
+                assertEquals(expected, TimeUtils.format(date, pattern));
+                assertEquals(dateFormat.parse(expected), TimeUtils.parse(expected, pattern));
+            }
+        }
+    }
+
+    @Test
+    public void testParse_leniency() {
+        // day of year overflows into the next year, like the lenient SimpleDateFormat
+        TestUtil.assertCorrectUTCDate(2012, 1, 1, 0, 0, 0, 0, TimeUtils.parseDOYBeginOfDay("2011-366"));
+        TestUtil.assertCorrectUTCDate(2012, 12, 31, 0, 0, 0, 0, TimeUtils.parseDOYBeginOfDay("2012-366"));
+        TestUtil.assertCorrectUTCDate(2010, 1, 5, 0, 0, 0, 0, TimeUtils.parseDOYBeginOfDay("2010-5"));
+
+        TestUtil.assertCorrectUTCDate(2011, 3, 2, 0, 0, 0, 0, TimeUtils.parse("2011-02-30", "yyyy-MM-dd"));
+        TestUtil.assertCorrectUTCDate(2014, 8, 23, 18, 16, 4, 0, TimeUtils.parse("2014-08-23 18:16:04.5", "yyyy-MM-dd HH:mm:ss"));
+        TestUtil.assertCorrectUTCDate(2015, 6, 12, 10, 0, 0, 0, TimeUtils.parse("12-JUN-2015 10:00:00", "dd-MMM-yyyy HH:mm:ss"));
+    }
+
+    @Test
+    public void testParse_invalid() {
+        try {
+            TimeUtils.parse("2011-ab-01", "yyyy-MM-dd");
+            fail("RuntimeException expected");
+        } catch (RuntimeException expected) {
+            assertEquals("Unparseable date: 2011-ab-01", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testIsJavaTimePattern() {
+        assertTrue(TimeUtils.isJavaTimePattern("yyyy-DDD"));
+        assertTrue(TimeUtils.isJavaTimePattern("dd-MMM-yyyy HH:mm:ss"));
+        assertTrue(TimeUtils.isJavaTimePattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"));
+
+        assertFalse(TimeUtils.isJavaTimePattern("yyyy-MM-dd HH:mm:ss.S"));
+        assertFalse(TimeUtils.isJavaTimePattern("yyDDD"));
+        assertFalse(TimeUtils.isJavaTimePattern("yyyy-MM-dd hh:mm a"));
+        assertFalse(TimeUtils.isJavaTimePattern("yyyy[-MM]"));
+        assertFalse(TimeUtils.isJavaTimePattern("yyyy-MM-dd'T"));
+    }
+
+    @Test
+    public void testGetFormatter() {
+        assertNotNull(TimeUtils.getFormatter("yyyyMMdd"));
+        assertTrue(TimeUtils.getFormatter("yyyyMMdd") == TimeUtils.getFormatter("yyyyMMdd"));
+
+        assertNull(TimeUtils.getFormatter("yyyy-MM-dd HH:mm:ss.S"));
+    }
+
+    @Test
+    public void testMonthAndDayBorders_equalsCalendar() {
+        final Calendar calendar = ProductData.UTC.createCalendar();
+        for (int year = 1899; year <= 2101; year++) {
+            for (int dayOfYear = 1; dayOfYear <= 366; dayOfYear += 5) {
+                final int millisInDay = (dayOfYear * 2711807) % 86400000;
+                calendar.clear();
+                calendar.set(Calendar.YEAR, year);
+                calendar.set(Calendar.DAY_OF_YEAR, dayOfYear);
+                calendar.add(Calendar.MILLISECOND, millisInDay);
+                final Date date = TimeUtils.getDate(year, dayOfYear, millisInDay);
+                assertEquals(calendar.getTime(), date);
+
+                calendar.set(Calendar.MILLISECOND, 0);
+                calendar.set(Calendar.SECOND, 0);
+                calendar.set(Calendar.MINUTE, 0);
+                calendar.set(Calendar.HOUR_OF_DAY, 0);
+                assertEquals(calendar.getTime(), TimeUtils.getBeginningOfDay(date));
+
+                calendar.set(Calendar.DAY_OF_MONTH, 1);
+                assertEquals(calendar.getTime(), TimeUtils.getBeginOfMonth(date));
+
+                calendar.set(Calendar.DAY_OF_MONTH, calendar.getActualMaximum(Calendar.DAY_OF_MONTH));
+                calendar.set(Calendar.MILLISECOND, 999);
+                calendar.set(Calendar.SECOND, 59);
+                calendar.set(Calendar.MINUTE, 59);
+                calendar.set(Calendar.HOUR_OF_DAY, 23);
+                assertEquals(calendar.getTime(), TimeUtils.getEndOfMonth(date));
+            }
+        }
+    }
+
+    @Test
+    public void testGetEndOfMonth_february() {
+        TestUtil.assertCorrectUTCDate(2000, 2, 29, 23, 59, 59, 999, TimeUtils.getEndOfMonth(TimeUtils.getDate(2000, 40, 0)));
+        TestUtil.assertCorrectUTCDate(2100, 2, 28, 23, 59, 59, 999, TimeUtils.getEndOfMonth(TimeUtils.getDate(2100, 40, 0)));
+        TestUtil.assertCorrectUTCDate(2004, 2, 29, 23, 59, 59, 999, TimeUtils.getEndOfMonth(TimeUtils.getDate(2004, 60, 3000)));
+        TestUtil.assertCorrectUTCDate(2005, 2, 28, 23, 59, 59, 999, TimeUtils.getEndOfMonth(TimeUtils.getDate(2005, 59, 3000)));
+    }
+
+    @Test
+    public void testSecondsSince1978ToUnixEpoch() {
+        assertEquals(252460800000L, TimeUtils.millisSince1978);
+        assertEquals(252460800, TimeUtils.secondsSince1978);
+
+        assertEquals(252460800000L, TimeUtils.secondsSince1978ToUnixEpoch(0));
+        assertEquals(1435000000000L, TimeUtils.secondsSince1978ToUnixEpoch(1182539200L));
+        assertEquals(252460799000L, TimeUtils.secondsSince1978ToUnixEpoch(-1));
+    }
+
+    @Test
+    public void testTai1993ToUtcMillis() {
+        assertEquals(TimeUtils.tai1993ToUtc(0.0).getTime(), TimeUtils.tai1993ToUtcMillis(0.0));
+        assertEquals(790380157000L, TimeUtils.tai1993ToUtcMillis(64533786.0));
+        assertEquals(1108618539107L, TimeUtils.tai1993ToUtcMillis(3.8277217110737616e8));
+    }
+
+    @Test
+    public void testFormatAndParse_matchesSimpleDateFormat() throws ParseException {
+        final DateFormat dateFormat = ProductData.UTC.createDateFormat("yyyy-MM-dd HH:mm:ss");
+        for (int i = 0; i < 10000; i++) {
+            final Date date = new Date(1000000000000L + i * 60013L);
+            final String formatted = TimeUtils.format(date, "yyyy-MM-dd HH:mm:ss");
+            assertEquals(dateFormat.format(date), formatted);
+            assertEquals(dateFormat.parse(formatted).getTime(), TimeUtils.parse(formatted, "yyyy-MM-dd HH:mm:ss").getTime());
+
+            final Calendar calendar = ProductData.UTC.createCalendar();
+            calendar.setTime(date);
+            calendar.add(Calendar.SECOND, 17);
+            assertEquals(calendar.getTimeInMillis(), TimeUtils.addSeconds(17, date).getTime());
+        }
+    }
 }
@@ -221,7 +221,7 @@ class IngestionTool {
         final ArchiveConfig archiveConfig = systemConfig.getArchiveConfig();
         final Archive archive = new Archive(archiveConfig);
         context.setArchive(archive);
-        final ReaderFactory readerFactory = ReaderFactory.create(geometryFactory, context.getTempFileUtils(), archive);
+        final ReaderFactory readerFactory = ReaderFactory.create(geometryFactory, context.getTempFileUtils(), archive, systemConfig);
         context.setReaderFactory(readerFactory);
 
         final Storage storage = Storage.create(databaseConfig.getDataSource(), geometryFactory);
@@ -363,7 +363,7 @@ class MatchupTool {
         final Archive archive = new Archive(archiveConfig);
         context.setArchive(archive);
 
-        final ReaderFactory readerFactory = ReaderFactory.create(geometryFactory, context.getTempFileUtils(), archive);
+        final ReaderFactory readerFactory = ReaderFactory.create(geometryFactory, context.getTempFileUtils(), archive, systemConfig);
         context.setReaderFactory(readerFactory);
 
         final Storage storage = Storage.create(databaseConfig.getDataSource(), geometryFactory);
@@ -34,6 +34,6 @@ class SphericalDistanceIOVariable extends SampleSetIOVariable {
     @Override
     public void writeData(int centerX, int centerY, Interval interval, int zIndex) {
         final double km = SphericalDistanceCalculator.calculateKm(sensorName, sampleSet);
-        target.write((float) km, targetVariableName, zIndex);
+        getScalarTarget().write((float) km, zIndex);
     }
 }
@@ -26,10 +26,8 @@ import com.bc.fiduceo.matchup.SampleSet;
 import com.bc.fiduceo.math.SphericalDistance;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 public class UniqueSamplesCondition implements Condition {
 
@@ -46,34 +44,63 @@ public class UniqueSamplesCondition implements Condition {
     @Override
     public void apply(MatchupSet matchupSet, ConditionEngineContext context) {
         isReferencePrimary = checkReferenceLocation(matchupSet);
-        final HashMap<String, ReferenceContainer> references = createReferenceSet(matchupSet);
 
-        final List<SampleSet> resultList = new ArrayList<>();
+        final List<SampleSet> sampleSets = matchupSet.getSampleSets();
+        final int numSampleSets = sampleSets.size();
+
+        // group the sample sets by reference pixel, groups are numbered in order of first occurrence
+        final KeyIndex keyIndex = new KeyIndex(numSampleSets);
+        final int[] groups = new int[numSampleSets];
+        int[] firstSampleSets = new int[16];
+        int[] groupSizes = new int[16];
+        for (int i = 0; i < numSampleSets; i++) {
+            final long key = createKey(getReference(sampleSets.get(i)));
+            final int numGroups = keyIndex.size();
+            final int group = keyIndex.getOrAdd(key);
+            if (group == numGroups) {
+                if (group == firstSampleSets.length) {
+                    firstSampleSets = Arrays.copyOf(firstSampleSets, 2 * group);
+                    groupSizes = Arrays.copyOf(groupSizes, 2 * group);
+                }
+                firstSampleSets[group] = i;
+            }
+            ++groupSizes[group];
+            groups[i] = group;
+        }
 
-        final Set<Map.Entry<String, ReferenceContainer>> entries = references.entrySet();
-        for (final Map.Entry<String, ReferenceContainer> entry : entries) {
-            final ReferenceContainer referenceContainer = entry.getValue();
-            final List<Sample> associatedList = referenceContainer.associated;
-            if (associatedList.size() == 1) {
-                final SampleSet sampleSet = createSampleSet(referenceContainer.reference, referenceContainer.associated.get(0));
-                resultList.add(sampleSet);
+        final int numGroups = keyIndex.size();
+        final int[] closestSampleSets = Arrays.copyOf(firstSampleSets, numGroups);
+        final double[] minDistances = new double[numGroups];
+        final SphericalDistance[] sphericalDistances = new SphericalDistance[numGroups];
+        for (int i = 0; i < numSampleSets; i++) {
+            final int group = groups[i];
+            if (groupSizes[group] == 1) {
                 continue;
             }
 
-            final double refLon = referenceContainer.reference.getLon();
-            final double refLat = referenceContainer.reference.getLat();
-            double minDistance = Double.MAX_VALUE;
-            Sample closest = null;
-            final SphericalDistance sphericalDistance = new SphericalDistance(refLon, refLat);
-            for (final Sample associated : associatedList) {
-                final double distance = sphericalDistance.distance(associated.getLon(), associated.getLat());
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    closest = associated;
-                }
+            SphericalDistance sphericalDistance = sphericalDistances[group];
+            if (sphericalDistance == null) {
+                final Sample reference = getReference(sampleSets.get(firstSampleSets[group]));
+                sphericalDistance = new SphericalDistance(reference.getLon(), reference.getLat());
+                sphericalDistances[group] = sphericalDistance;
+                minDistances[group] = Double.MAX_VALUE;
+                closestSampleSets[group] = -1;
+            }
+
+            final Sample associated = getAssociated(sampleSets.get(i));
+            final double distance = sphericalDistance.distance(associated.getLon(), associated.getLat());
+            if (distance < minDistances[group]) {
+                minDistances[group] = distance;
+                closestSampleSets[group] = i;
             }
-            final SampleSet sampleSet = createSampleSet(referenceContainer.reference, closest);
-            resultList.add(sampleSet);
+        }
+
+        final List<SampleSet> resultList = new ArrayList<>(numGroups);
+        for (int group = 0; group < numGroups; group++) {
+            final Sample reference = getReference(sampleSets.get(firstSampleSets[group]));
+            final int closest = closestSampleSets[group];
+            final Sample associated = closest < 0 ? null : getAssociated(sampleSets.get(closest));
+            resultList.add(createSampleSet(reference, associated));
         }
 
         matchupSet.setSampleSets(resultList);
@@ -103,27 +130,9 @@ public class UniqueSamplesCondition implements Condition {
         return secondary == null;
     }
 
-    private HashMap<String, ReferenceContainer> createReferenceSet(MatchupSet matchupSet) {
-        final HashMap<String, ReferenceContainer> references = new HashMap<>();
-
-        final List<SampleSet> sampleSets = matchupSet.getSampleSets();
-        for (final SampleSet sampleSet : sampleSets) {
-            final Sample reference = getReference(sampleSet);
-            final String key = createKey(reference);
-
-            final ReferenceContainer referenceContainer = references.computeIfAbsent(key, k -> new ReferenceContainer(reference));
-
-            final Sample associated = getAssociated(sampleSet);
-            referenceContainer.associated.add(associated);
-        }
-        return references;
-    }
-
     // package access for testing only tb 2017-10-02
-    static String createKey(Sample reference) {
-        final int x = reference.getX();
-        final int y = reference.getY();
-        return x + "_" + y;
+    static long createKey(Sample reference) {
+        return ((long) reference.getX() << 32) | (reference.getY() & 0xFFFFFFFFL);
     }
 
     // package access for testing only tb 2017-10-02
@@ -144,13 +153,48 @@ public class UniqueSamplesCondition implements Condition {
         return sampleSet.getSecondary(associatedSensorKey);
     }
 
-    private class ReferenceContainer {
-        Sample reference;
-        List<Sample> associated;
+    /**
+     * Open addressing index of packed pixel keys, maps each distinct key to a consecutive number.
+     */
+    // package access for testing only
+    static class KeyIndex {
+
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+        private int size;
+
+        KeyIndex(int maxKeys) {
+            int capacity = 16;
+            while (capacity < 2L * maxKeys) {
+                capacity <<= 1;
+            }
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(values, -1);
+            mask = capacity - 1;
+        }
+
+        int getOrAdd(long key) {
+            int slot = hash(key) & mask;
+            while (values[slot] >= 0) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = size;
+            return size++;
+        }
+
+        int size() {
+            return size;
+        }
 
-        ReferenceContainer(Sample reference) {
-            this.reference = reference;
-            associated = new ArrayList<>();
+        private static int hash(long key) {
+            final long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
         }
     }
 
@@ -20,13 +20,10 @@
 
 package com.bc.fiduceo.matchup.screening;
 
-import com.bc.fiduceo.core.Interval;
 import com.bc.fiduceo.matchup.MatchupSet;
-import com.bc.fiduceo.core.Sample;
 import com.bc.fiduceo.matchup.SampleSet;
 import com.bc.fiduceo.reader.Reader;
 import org.esa.snap.core.util.math.MathUtils;
-import ucar.ma2.Array;
 import ucar.ma2.InvalidRangeException;
 
 import java.io.IOException;
@@ -36,8 +33,6 @@ import java.util.Map;
 
 class AngularCosineProportionScreening implements Screening {
 
-    private final Interval singlePixel = new Interval(1, 1);
-
     private Configuration configuration;
 
     @Override
@@ -45,21 +40,16 @@ class AngularCosineProportionScreening implements Screening {
         final List<SampleSet> resultSet = new ArrayList<>();
         final List<SampleSet> sampleSets = matchupSet.getSampleSets();
 
-        for (final SampleSet sampleSet : sampleSets) {
-            final Sample primaryPixel = sampleSet.getPrimary();
-            final Array szaPrimaryArray = primaryReader.readScaled(primaryPixel.getX(), primaryPixel.getY(), singlePixel, configuration.primaryVariableName);
-            final double primaryVZA = szaPrimaryArray.getDouble(0);
-
-            final Sample secondaryPixel = sampleSet.getSecondary(SampleSet.getOnlyOneSecondaryKey());
-            final Reader reader = secondaryReader.get(SampleSet.getOnlyOneSecondaryKey());
-            final Array szaSecondaryArray = reader.readScaled(secondaryPixel.getX(), secondaryPixel.getY(), singlePixel, configuration.secondaryVariableName);
-            final double secondaryVZA = szaSecondaryArray.getDouble(0);
+        final double[] primaryVZAs = PixelBatch.forPrimary(sampleSets).read(primaryReader, configuration.primaryVariableName);
+        final Reader reader = secondaryReader.get(SampleSet.getOnlyOneSecondaryKey());
+        final double[] secondaryVZAs = PixelBatch.forSecondary(sampleSets).read(reader, configuration.secondaryVariableName);
 
-            final double primaryCosine = Math.cos(primaryVZA * MathUtils.DTOR);
-            final double secondaryCosine = Math.cos(secondaryVZA * MathUtils.DTOR);
+        for (int i = 0; i < primaryVZAs.length; i++) {
+            final double primaryCosine = Math.cos(primaryVZAs[i] * MathUtils.DTOR);
+            final double secondaryCosine = Math.cos(secondaryVZAs[i] * MathUtils.DTOR);
             final double cosineRelation = Math.abs(primaryCosine/secondaryCosine - 1.0);
             if (cosineRelation < configuration.threshold) {
-                resultSet.add(sampleSet);
+                resultSet.add(sampleSets.get(i));
             }
         }
 
@@ -20,14 +20,10 @@
 
 package com.bc.fiduceo.matchup.screening;
 
-import com.bc.fiduceo.core.Interval;
 import com.bc.fiduceo.matchup.MatchupSet;
-import com.bc.fiduceo.core.Sample;
 import com.bc.fiduceo.matchup.SampleSet;
 import com.bc.fiduceo.reader.Reader;
 import org.esa.snap.core.util.StringUtils;
-import ucar.ma2.Array;
-import ucar.ma2.IndexIterator;
 import ucar.ma2.InvalidRangeException;
 
 import java.io.IOException;
@@ -37,7 +33,6 @@ import java.util.Map;
 
 class AngularScreening implements Screening {
 
-    private final Interval singlePixel = new Interval(1, 1);
     private Configuration configuration;
     private boolean hasPrimary;
     private boolean hasSecondary;
@@ -51,10 +46,22 @@ class AngularScreening implements Screening {
         final List<SampleSet> resultSet = new ArrayList<>();
         final List<SampleSet> sampleSets = matchupSet.getSampleSets();
 
-        for (final SampleSet sampleSet : sampleSets) {
+        double[] primaryVZAs = null;
+        if (hasPrimary) {
+            primaryVZAs = PixelBatch.forPrimary(sampleSets).read(primaryReader, configuration.primaryVariableName);
+        }
+
+        double[] secondaryVZAs = null;
+        if (hasSecondary) {
             final Reader reader = secondaryReader.get(SampleSet.getOnlyOneSecondaryKey());
-            if (shouldBeKept(sampleSet, primaryReader, reader)) {
-                resultSet.add(sampleSet);
+            secondaryVZAs = PixelBatch.forSecondary(sampleSets).read(reader, configuration.secondaryVariableName);
+        }
+
+        for (int i = 0; i < sampleSets.size(); i++) {
+            final double primaryVZA = primaryVZAs != null ? primaryVZAs[i] : Double.MAX_VALUE;
+            final double secondaryVZA = secondaryVZAs != null ? secondaryVZAs[i] : Double.MAX_VALUE;
+            if (shouldBeKept(primaryVZA, secondaryVZA)) {
+                resultSet.add(sampleSets.get(i));
             }
         }
         matchupSet.setSampleSets(resultSet);
@@ -67,27 +74,7 @@ class AngularScreening implements Screening {
         hasSecondary = StringUtils.isNotNullAndNotEmpty(configuration.secondaryVariableName);
     }
 
-    private boolean shouldBeKept(SampleSet sampleSet, Reader primaryReader, Reader secondaryReader) throws IOException, InvalidRangeException {
-        double primaryVZA = Double.MAX_VALUE;
-        double secondaryVZA = Double.MAX_VALUE;
-
-        if (hasPrimary) {
-            final Sample primaryPixel = sampleSet.getPrimary();
-            final Array szaPrimaryArray = primaryReader.readScaled(primaryPixel.getX(), primaryPixel.getY(), singlePixel, configuration.primaryVariableName);
-            final IndexIterator indexIterator = szaPrimaryArray.getIndexIterator();
-
-            primaryVZA = indexIterator.getDoubleNext();
-        }
-
-        if (hasSecondary) {
-            final Sample secondaryPixel = sampleSet.getSecondary(SampleSet.getOnlyOneSecondaryKey());
-            final Array szaSecondaryArray = secondaryReader.readScaled(secondaryPixel.getX(), secondaryPixel.getY(), singlePixel, configuration.secondaryVariableName);
-
-            final IndexIterator indexIterator = szaSecondaryArray.getIndexIterator();
-
-            secondaryVZA = indexIterator.getDoubleNext();
-        }
-
+    private boolean shouldBeKept(double primaryVZA, double secondaryVZA) {
         if (configuration.usePrimary) {
             if (primaryVZA > configuration.maxPrimaryVZA) {
                 return false;
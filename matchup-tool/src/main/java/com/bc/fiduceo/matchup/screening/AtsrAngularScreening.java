@@ -20,12 +20,9 @@
 
 package com.bc.fiduceo.matchup.screening;
 
-import com.bc.fiduceo.core.Interval;
 import com.bc.fiduceo.matchup.MatchupSet;
-import com.bc.fiduceo.core.Sample;
 import com.bc.fiduceo.matchup.SampleSet;
 import com.bc.fiduceo.reader.Reader;
-import ucar.ma2.Array;
 import ucar.ma2.InvalidRangeException;
 
 import java.io.IOException;
@@ -35,8 +32,6 @@ import java.util.Map;
 
 class AtsrAngularScreening implements Screening {
 
-    private final Interval singlePixel = new Interval(1, 1);
-
     private Configuration configuration;
 
     AtsrAngularScreening() {
@@ -48,27 +43,25 @@ class AtsrAngularScreening implements Screening {
         final List<SampleSet> resultSet = new ArrayList<>();
         final List<SampleSet> sampleSets = matchupSet.getSampleSets();
 
-        for (final SampleSet sampleSet : sampleSets) {
-            final Sample primary = sampleSet.getPrimary();
+        final PixelBatch primaryBatch = PixelBatch.forPrimary(sampleSets);
+        final double[] nadirElevations = primaryBatch.read(primaryReader, "view_elev_nadir");
+        final double[] fwardElevations = primaryBatch.read(primaryReader, "view_elev_fward");
+
+        final Reader reader = secondaryReader.get(SampleSet.getOnlyOneSecondaryKey());
+        final double[] satelliteZenithAngles = PixelBatch.forSecondary(sampleSets).read(reader, "satellite_zenith_angle");
 
-            final int primaryX = primary.getX();
-            final int primaryY = primary.getY();
-            final Array nadirElevArray = primaryReader.readScaled(primaryX, primaryY, singlePixel, "view_elev_nadir");
-            final Array fwardElevArray = primaryReader.readScaled(primaryX, primaryY, singlePixel, "view_elev_fward");
+        for (int i = 0; i < nadirElevations.length; i++) {
+            final SampleSet sampleSet = sampleSets.get(i);
 
-            double nadirViewZenith = 90.0 - nadirElevArray.getDouble(0);
-            double fwardViewZenith = 90.0 - fwardElevArray.getDouble(0);
-            if (primaryX > 256) {
+            double nadirViewZenith = 90.0 - nadirElevations[i];
+            double fwardViewZenith = 90.0 - fwardElevations[i];
+            if (sampleSet.getPrimary().getX() > 256) {
                 nadirViewZenith *= -1.0;
                 fwardViewZenith *= -1.0;
             }
 
-            final Sample secondary = sampleSet.getSecondary(SampleSet.getOnlyOneSecondaryKey());
-            final Reader reader = secondaryReader.get(SampleSet.getOnlyOneSecondaryKey());
-            final int secondaryX = secondary.getX();
-            final Array satelliteZenithAngleArray = reader.readScaled(secondaryX, secondary.getY(), singlePixel, "satellite_zenith_angle");
-            double satZenithAngle = satelliteZenithAngleArray.getDouble(0);
-            if (secondaryX > 204) {
+            double satZenithAngle = satelliteZenithAngles[i];
+            if (sampleSet.getSecondary(SampleSet.getOnlyOneSecondaryKey()).getX() > 204) {
                 satZenithAngle *= -1.0;
             }
 
@@ -20,13 +20,10 @@
 
 package com.bc.fiduceo.matchup.screening;
 
-import com.bc.fiduceo.core.Interval;
 import com.bc.fiduceo.matchup.MatchupSet;
-import com.bc.fiduceo.core.Sample;
 import com.bc.fiduceo.matchup.SampleSet;
 import com.bc.fiduceo.reader.Reader;
 import org.esa.snap.core.util.StringUtils;
-import ucar.ma2.Array;
 import ucar.ma2.InvalidRangeException;
 
 import java.io.IOException;
@@ -36,8 +33,6 @@ import java.util.Map;
 
 class BuehlerCloudScreening implements Screening {
 
-    private final Interval singlePixel = new Interval(1, 1);
-
     private Configuration configuration;
     private boolean usePrimary;
     private boolean useSecondary;
@@ -119,33 +114,23 @@ class BuehlerCloudScreening implements Screening {
             vzaVariableName = configuration.secondaryVZAVariableName;
         }
 
-        for (final SampleSet sampleSet : sampleSets) {
-            final Sample pixel;
-            if (primary) {
-                pixel = sampleSet.getPrimary();
-            } else {
-                pixel = sampleSet.getSecondary(SampleSet.getOnlyOneSecondaryKey());
-            }
-            final int pixelX = pixel.getX();
-            final int pixelY = pixel.getY();
-            final Array narrowChannelArray = reader.readScaled(pixelX, pixelY, singlePixel, narrowChannelName);
-            final Array wideChannelArray = reader.readScaled(pixelX, pixelY, singlePixel, wideChannelName);
-
-            final double narrowChannelBTemp = narrowChannelArray.getDouble(0);
-            final double wideChannelBTemp = wideChannelArray.getDouble(0);
+        final PixelBatch pixelBatch = primary ? PixelBatch.forPrimary(sampleSets) : PixelBatch.forSecondary(sampleSets);
+        final double[] narrowChannelBTemps = pixelBatch.read(reader, narrowChannelName);
+        final double[] wideChannelBTemps = pixelBatch.read(reader, wideChannelName);
+        final double[] vzas = pixelBatch.read(reader, vzaVariableName);
 
-            if (wideChannelBTemp > narrowChannelBTemp) {
+        for (int i = 0; i < narrowChannelBTemps.length; i++) {
+            final double narrowChannelBTemp = narrowChannelBTemps[i];
+            if (wideChannelBTemps[i] > narrowChannelBTemp) {
                 continue;
             }
 
-            final Array vzaArray = reader.readScaled(pixelX, pixelY, singlePixel, vzaVariableName);
-            final double vza = vzaArray.getDouble(0);
-            final double threshold = calculateThreshold(vza);
+            final double threshold = calculateThreshold(vzas[i]);
             if (narrowChannelBTemp < threshold) {
                 continue;
             }
 
-            resultSet.add(sampleSet);
+            resultSet.add(sampleSets.get(i));
         }
 
         matchupSet.setSampleSets(resultSet);
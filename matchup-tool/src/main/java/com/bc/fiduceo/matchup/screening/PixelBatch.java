@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+
+package com.bc.fiduceo.matchup.screening;
+
+import com.bc.fiduceo.core.Dimension;
+import com.bc.fiduceo.core.Interval;
+import com.bc.fiduceo.core.Sample;
+import com.bc.fiduceo.matchup.SampleSet;
+import com.bc.fiduceo.reader.Reader;
+import ucar.ma2.Array;
+import ucar.ma2.Index;
+import ucar.ma2.InvalidRangeException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the values of variables at the pixel positions of a list of samples with few window reads. The positions
+ * are sorted by line and grouped into bands of nearby pixels, each band is read as one window per variable. Bands
+ * with a single pixel, and bands the reader does not deliver as a complete two-dimensional window, are read pixel
+ * by pixel as before. Readers with a product width of one, like the in-situ readers, are read pixel by pixel
+ * without window attempts.
+ */
+class PixelBatch {
+
+    private static final int MAX_BAND_HEIGHT = 32;
+    private static final int MAX_BAND_PIXELS = 65536;
+    private static final int MIN_BAND_PIXELS = 1024;
+    private static final int PIXELS_PER_SAMPLE = 256;
+
+    private static final Interval SINGLE_PIXEL = new Interval(1, 1);
+
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] order;
+    private final int[] bandStarts;
+    private final int[] bandMinX;
+    private final int[] bandMinY;
+    private final int[] bandWidths;
+    private final int[] bandHeights;
+    private final int numBands;
+
+    PixelBatch(int[] xs, int[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+
+        final int numPixels = xs.length;
+        order = sortByLine(ys);
+
+        bandStarts = new int[numPixels + 1];
+        bandMinX = new int[numPixels];
+        bandMinY = new int[numPixels];
+        bandWidths = new int[numPixels];
+        bandHeights = new int[numPixels];
+
+        int band = 0;
+        int start = 0;
+        while (start < numPixels) {
+            int minX = xs[order[start]];
+            int maxX = minX;
+            final int minY = ys[order[start]];
+            int maxY = minY;
+
+            int end = start + 1;
+            for (; end < numPixels; end++) {
+                final int pixel = order[end];
+                final int newMinX = Math.min(minX, xs[pixel]);
+                final int newMaxX = Math.max(maxX, xs[pixel]);
+                final int height = ys[pixel] - minY + 1;
+                final long area = (long) height * (newMaxX - newMinX + 1);
+                final long maxArea = Math.max(MIN_BAND_PIXELS, (long) PIXELS_PER_SAMPLE * (end - start + 1));
+                if (height > MAX_BAND_HEIGHT || area > MAX_BAND_PIXELS || area > maxArea) {
+                    break;
+                }
+                minX = newMinX;
+                maxX = newMaxX;
+                maxY = ys[pixel];
+            }
+
+            bandStarts[band] = start;
+            bandMinX[band] = minX;
+            bandMinY[band] = minY;
+            // readers only support odd window sizes, the window is extended to the right and bottom
+            bandWidths[band] = toOdd(maxX - minX + 1);
+            bandHeights[band] = toOdd(maxY - minY + 1);
+            ++band;
+            start = end;
+        }
+        bandStarts[band] = numPixels;
+        numBands = band;
+    }
+
+    static PixelBatch forPrimary(List<SampleSet> sampleSets) {
+        final int[] xs = new int[sampleSets.size()];
+        final int[] ys = new int[sampleSets.size()];
+        for (int i = 0; i < xs.length; i++) {
+            final Sample primary = sampleSets.get(i).getPrimary();
+            xs[i] = primary.getX();
+            ys[i] = primary.getY();
+        }
+        return new PixelBatch(xs, ys);
+    }
+
+    static PixelBatch forSecondary(List<SampleSet> sampleSets) {
+        final int[] xs = new int[sampleSets.size()];
+        final int[] ys = new int[sampleSets.size()];
+        for (int i = 0; i < xs.length; i++) {
+            final Sample secondary = sampleSets.get(i).getSecondary(SampleSet.getOnlyOneSecondaryKey());
+            xs[i] = secondary.getX();
+            ys[i] = secondary.getY();
+        }
+        return new PixelBatch(xs, ys);
+    }
+
+    int getNumBands() {
+        return numBands;
+    }
+
+    /**
+     * Reads the scaled values of a variable at all pixel positions.
+     *
+     * @param reader       the reader
+     * @param variableName the variable name
+     * @return the values, in the order of the pixel positions
+     * @throws IOException           on disk access failures
+     * @throws InvalidRangeException on incorrect coordinates
+     */
+    double[] read(Reader reader, String variableName) throws IOException, InvalidRangeException {
+        final double[] values = new double[xs.length];
+        if (numBands == 0) {
+            return values;
+        }
+
+        boolean windowReads = supportsWindows(reader);
+        for (int band = 0; band < numBands; band++) {
+            final int start = bandStarts[band];
+            final int end = bandStarts[band + 1];
+            final int width = bandWidths[band];
+            final int height = bandHeights[band];
+
+            Array window = null;
+            if (windowReads && end - start > 1) {
+                final int centerX = bandMinX[band] + width / 2;
+                final int centerY = bandMinY[band] + height / 2;
+                window = reader.readScaled(centerX, centerY, new Interval(width, height), variableName);
+                // a reader delivering no window for one band delivers none for the others
+                windowReads = isWindow(window, width, height);
+            }
+
+            if (isWindow(window, width, height)) {
+                final Index index = window.getIndex();
+                for (int k = start; k < end; k++) {
+                    final int pixel = order[k];
+                    index.set(ys[pixel] - bandMinY[band], xs[pixel] - bandMinX[band]);
+                    values[pixel] = window.getDouble(index);
+                }
+            } else {
+                for (int k = start; k < end; k++) {
+                    final int pixel = order[k];
+                    final Array array = reader.readScaled(xs[pixel], ys[pixel], SINGLE_PIXEL, variableName);
+                    values[pixel] = array.getDouble(0);
+                }
+            }
+        }
+        return values;
+    }
+
+    // the in-situ readers have a product width of one and return the center value for any window
+    private static boolean supportsWindows(Reader reader) throws IOException {
+        final Dimension productSize = reader.getProductSize();
+        return productSize == null || productSize.getNx() > 1;
+    }
+
+    private static boolean isWindow(Array window, int width, int height) {
+        if (window == null) {
+            return false;
+        }
+        final int[] shape = window.getShape();
+        return shape != null && shape.length == 2 && shape[0] == height && shape[1] == width;
+    }
+
+    private static int[] sortByLine(int[] ys) {
+        // line in the upper, input position in the lower half: sorts by line and keeps the input order per line
+        final long[] keys = new long[ys.length];
+        for (int i = 0; i < ys.length; i++) {
+            keys[i] = ((long) ys[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        final int[] order = new int[ys.length];
+        for (int i = 0; i < ys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    private static int toOdd(int size) {
+        return (size & 1) == 0 ? size + 1 : size;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.matchup.strategy;
+
+import com.bc.fiduceo.core.SamplingPoint;
+import com.bc.fiduceo.geometry.Geometry;
+import com.bc.fiduceo.geometry.GeometryFactory;
+import com.bc.fiduceo.geometry.Point;
+import com.google.common.geometry.S2CellId;
+import com.google.common.geometry.S2CellUnion;
+import com.google.common.geometry.S2LatLng;
+import com.google.common.geometry.S2Region;
+import com.google.common.geometry.S2RegionCoverer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Seed points sorted by time and stored in primitive arrays, together with the S2 leaf cell of each point.
+ * A query binary-searches the time window of an observation and tests the cell of each candidate against
+ * an S2 covering of the observation geometries before running the exact (and expensive) geometry intersection.
+ */
+class SeedPointIndex {
+
+    static final int MAX_COVERING_CELLS = 32;
+
+    private final long[] times;
+    private final double[] lons;
+    private final double[] lats;
+    private final long[] cellKeys;
+    private final int[] originalIndices;
+
+    SeedPointIndex(List<SamplingPoint> seedPoints) {
+        final int numPoints = seedPoints.size();
+        final long[] unsortedTimes = new long[numPoints];
+        final int[] order = new int[numPoints];
+        for (int i = 0; i < numPoints; i++) {
+            unsortedTimes[i] = seedPoints.get(i).getTime();
+            order[i] = i;
+        }
+        sortByTime(unsortedTimes, order);
+
+        times = new long[numPoints];
+        lons = new double[numPoints];
+        lats = new double[numPoints];
+        cellKeys = new long[numPoints];
+        originalIndices = order;
+        for (int i = 0; i < numPoints; i++) {
+            final SamplingPoint point = seedPoints.get(order[i]);
+            times[i] = point.getTime();
+            lons[i] = point.getLon();
+            lats[i] = point.getLat();
+            cellKeys[i] = toKey(S2CellId.fromLatLng(S2LatLng.fromDegrees(point.getLat(), point.getLon())).id());
+        }
+    }
+
+    int size() {
+        return times.length;
+    }
+
+    /**
+     * Retrieves all seed points within the time interval that are located inside at least one of the geometries.
+     *
+     * @param geometryFactory the geometry factory
+     * @param startTime       interval start in millis since epoch, inclusive
+     * @param stopTime        interval stop in millis since epoch, inclusive
+     * @param geometries      the observation geometries
+     * @return the seed points, in the order of the list the index has been created from
+     */
+    List<SamplingPoint> getSeedPoints(GeometryFactory geometryFactory, long startTime, long stopTime, Geometry[] geometries) {
+        final int start = lowerBound(startTime);
+        final int end = upperBound(stopTime);
+        if (start >= end) {
+            return new ArrayList<>();
+        }
+
+        final CellRanges[] coverings = new CellRanges[geometries.length];
+        for (int g = 0; g < geometries.length; g++) {
+            coverings[g] = CellRanges.create(geometries[g]);
+        }
+
+        final int[] hits = new int[end - start];
+        int numHits = 0;
+        for (int i = start; i < end; i++) {
+            final long cellKey = cellKeys[i];
+            Point point = null;
+            for (int g = 0; g < geometries.length; g++) {
+                final CellRanges covering = coverings[g];
+                if (covering != null && !covering.contains(cellKey)) {
+                    continue;
+                }
+
+                if (point == null) {
+                    point = geometryFactory.createPoint(lons[i], lats[i]);
+                }
+                final Geometry intersection = geometries[g].getIntersection(point);
+                if (intersection != null && intersection.isValid()) {
+                    hits[numHits++] = i;
+                    break;
+                }
+            }
+        }
+
+        // return in generation order, the matchup output stays identical to the unindexed search
+        final long[] packedHits = new long[numHits];
+        for (int i = 0; i < numHits; i++) {
+            packedHits[i] = ((long) originalIndices[hits[i]] << 32) | hits[i];
+        }
+        Arrays.sort(packedHits);
+
+        final List<SamplingPoint> result = new ArrayList<>(numHits);
+        for (final long packedHit : packedHits) {
+            final int position = (int) (packedHit & 0xFFFFFFFFL);
+            result.add(new SamplingPoint(lons[position], lats[position], times[position]));
+        }
+        return result;
+    }
+
+    // package access for testing only
+    static long toKey(long cellId) {
+        // S2 cell ids are unsigned, flipping the sign bit makes the signed order equal to the unsigned order
+        return cellId ^ Long.MIN_VALUE;
+    }
+
+    // package access for testing only
+    // stable merge sort of the indices by time, avoids boxing millions of Integer objects
+    static void sortByTime(long[] times, int[] indices) {
+        final int[] buffer = new int[indices.length];
+        int[] source = indices;
+        int[] target = buffer;
+        for (int width = 1; width < indices.length; width *= 2) {
+            for (int low = 0; low < indices.length; low += 2 * width) {
+                final int mid = Math.min(low + width, indices.length);
+                final int high = Math.min(low + 2 * width, indices.length);
+                int left = low;
+                int right = mid;
+                for (int k = low; k < high; k++) {
+                    if (left < mid && (right >= high || times[source[left]] <= times[source[right]])) {
+                        target[k] = source[left++];
+                    } else {
+                        target[k] = source[right++];
+                    }
+                }
+            }
+            final int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != indices) {
+            System.arraycopy(source, 0, indices, 0, indices.length);
+        }
+    }
+
+    // index of the first entry with time >= the value
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = times.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (times[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // index of the first entry with time > the value
+    private int upperBound(long time) {
+        int low = 0;
+        int high = times.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (times[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The leaf cell id ranges covered by an S2 covering of a geometry, sorted for binary search.
+     */
+    static class CellRanges {
+
+        private final long[] minKeys;
+        private final long[] maxKeys;
+
+        private CellRanges(long[] minKeys, long[] maxKeys) {
+            this.minKeys = minKeys;
+            this.maxKeys = maxKeys;
+        }
+
+        /**
+         * @param geometry the geometry
+         * @return the cell ranges or null if the geometry is not an S2 region - all points must be tested exactly then
+         */
+        static CellRanges create(Geometry geometry) {
+            final Object inner = geometry.getInner();
+            if (!(inner instanceof S2Region)) {
+                return null;
+            }
+
+            final S2RegionCoverer coverer = new S2RegionCoverer();
+            coverer.setMaxCells(MAX_COVERING_CELLS);
+            final S2CellUnion covering = coverer.getCovering((S2Region) inner);
+
+            // the cell union is normalized: sorted and non-overlapping
+            final ArrayList<S2CellId> cellIds = covering.cellIds();
+            final long[] minKeys = new long[cellIds.size()];
+            final long[] maxKeys = new long[cellIds.size()];
+            for (int i = 0; i < minKeys.length; i++) {
+                final S2CellId cellId = cellIds.get(i);
+                minKeys[i] = toKey(cellId.rangeMin().id());
+                maxKeys[i] = toKey(cellId.rangeMax().id());
+            }
+            return new CellRanges(minKeys, maxKeys);
+        }
+
+        boolean contains(long cellKey) {
+            int low = 0;
+            int high = minKeys.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (cellKey < minKeys[mid]) {
+                    high = mid - 1;
+                } else if (cellKey > maxKeys[mid]) {
+                    low = mid + 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
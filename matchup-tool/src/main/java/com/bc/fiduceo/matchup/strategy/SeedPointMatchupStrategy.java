@@ -43,7 +43,6 @@ import java.nio.file.Path;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -83,7 +82,7 @@ public class SeedPointMatchupStrategy extends AbstractMatchupStrategy {
         final long timeDeltaInMillis = conditionEngine.getMaxTimeDeltaInMillis();
         final int timeDeltaSeconds = (int) (timeDeltaInMillis / 1000);
 
-        final List<SamplingPoint> seedPoints = createRandomPoints(context, useCaseConfig);
+        final SeedPointIndex seedPointIndex = new SeedPointIndex(createRandomPoints(context, useCaseConfig));
 
         final List<SatelliteObservation> primaryObservations = getPrimaryObservations(context);
         for (final SatelliteObservation primaryObservation : primaryObservations) {
@@ -92,7 +91,7 @@ public class SeedPointMatchupStrategy extends AbstractMatchupStrategy {
 
             final Geometry[] primaryGeometries = extractGeometries(primaryObservation);
 
-            final List<SamplingPoint> primarySeedPoints = getPrimarySeedPoints(geometryFactory, seedPoints, primaryStartTime, primaryStopTime, primaryGeometries);
+            final List<SamplingPoint> primarySeedPoints = seedPointIndex.getSeedPoints(geometryFactory, primaryStartTime.getTime(), primaryStopTime.getTime(), primaryGeometries);
             if (primarySeedPoints.size() == 0) {
                 continue;
             }
@@ -258,28 +257,4 @@ public class SeedPointMatchupStrategy extends AbstractMatchupStrategy {
         }
         return primaryMatchups;
     }
-
-    private List<SamplingPoint> getPrimarySeedPoints(GeometryFactory geometryFactory, List<SamplingPoint> seedPoints, Date primaryStartTime, Date primaryStopTime, Geometry[] primaryGeometries) {
-        final List<SamplingPoint> primaryPoints = new ArrayList<>();
-        final long startTime = primaryStartTime.getTime();
-        final long stopTime = primaryStopTime.getTime();
-
-        for (SamplingPoint seedPoint : seedPoints) {
-            final long time = seedPoint.getTime();
-
-            if (time >= startTime && time <= stopTime) {
-                final double lat = seedPoint.getLat();
-                final double lon = seedPoint.getLon();
-                final Point point = geometryFactory.createPoint(lon, lat);
-                for (Geometry geometry : primaryGeometries) {
-                    final Geometry intersection = geometry.getIntersection(point);
-                    if (intersection != null && intersection.isValid()) {
-                        primaryPoints.add(seedPoint);
-                        break;
-                    }
-                }
-            }
-        }
-        return primaryPoints;
-    }
 }
@@ -30,6 +30,7 @@ public abstract class AbstractIOVariable implements IOVariable {
     String sourceVariableName;
     protected String targetVariableName;
     protected Target target;
+    private ScalarTarget scalarTarget;
 
     private List<Attribute> attributes;
     private String dimensionNames;
@@ -42,6 +43,7 @@ public abstract class AbstractIOVariable implements IOVariable {
     @Override
     public void setTarget(Target target) {
         this.target = target;
+        scalarTarget = null;
     }
 
     @Override
@@ -88,5 +90,13 @@ public abstract class AbstractIOVariable implements IOVariable {
 
     public void setTargetVariableName(String name) {
         this.targetVariableName = name;
+        scalarTarget = null;
+    }
+
+    protected ScalarTarget getScalarTarget() {
+        if (scalarTarget == null) {
+            scalarTarget = target.getScalarTarget(targetVariableName);
+        }
+        return scalarTarget;
     }
 }
@@ -47,15 +47,27 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 abstract class AbstractMmdWriter implements MmdWriter, Target {
 
     private final Logger logger;
-    private final Map<String, Array> dataCacheMap;
     private final Map<String, Variable> variableMap;
+    private final Map<String, CacheTarget> cacheTargetMap;
     private final MmdWriterConfig writerConfig;
 
+    // two cache sets: one is filled by the extraction while the other one is written by the flush thread
+    private Map<String, Array> dataCacheMap;
+    private Map<String, Array> spareCacheMap;
+    private ExecutorService flushExecutor;
+    private Future<Void> pendingFlush;
+    private ParallelExtraction parallelExtraction;
+
     NetcdfFileWriter netcdfFileWriter;
     private int flushCount = 0;
 
@@ -63,8 +75,11 @@ abstract class AbstractMmdWriter implements MmdWriter, Target {
         this.writerConfig = writerConfig;
         logger = FiduceoLogger.getLogger();
 
-        dataCacheMap = new HashMap<>();
-        variableMap = new HashMap<>();
+        // concurrent, the cache arrays are requested by the extraction threads
+        dataCacheMap = new ConcurrentHashMap<>();
+        spareCacheMap = new ConcurrentHashMap<>();
+        variableMap = new ConcurrentHashMap<>();
+        cacheTargetMap = new ConcurrentHashMap<>();
     }
 
     /**
@@ -127,45 +142,113 @@ abstract class AbstractMmdWriter implements MmdWriter, Target {
             stopWatch.start();
 
             final List<MatchupSet> sets = matchupCollection.getSets();
-            int zIndex = 0;
             final int cacheSize = writerConfig.getCacheSize();
-            for (MatchupSet set : sets) {
-                int numObservations = set.getNumObservations();
-                if (numObservations == 0) {
-                    continue;
+            final ExtractionPlan extractionPlan = new ExtractionPlan(sets, secSensorNames, cacheSize);
+            final int readerCacheSize = writerConfig.getReaderCacheSize();
+            logger.info("Expected reader opens: " + extractionPlan.countReaderOpensInPlannedOrder(readerCacheSize) +
+                        " (in matchup order: " + extractionPlan.countReaderOpensInRowOrder(readerCacheSize) + ")");
+
+            final int configuredThreads = writerConfig.getExtractionThreads();
+            final int extractionThreads = getNumExtractionThreads(configuredThreads, secSize + 1);
+            if (extractionThreads < configuredThreads) {
+                logger.warning("Extraction threads limited to the number of sensor readers: " + extractionThreads +
+                               " instead of " + configuredThreads);
+            }
+            if (extractionThreads > 1) {
+                parallelExtraction = new ParallelExtraction(extractionThreads);
+                logger.info("Extracting with " + extractionThreads + " threads");
+            }
+
+            final Reader[] sensorReaders = new Reader[secSize + 1];
+            int currentSetIndex = -1;
+            final int numRows = extractionPlan.getNumRows();
+            int step = 0;
+            while (step < numRows) {
+                final int setIndex = extractionPlan.getSetIndex(extractionPlan.getRow(step));
+                final MatchupSet set = sets.get(setIndex);
+                if (setIndex != currentSetIndex) {
+                    currentSetIndex = setIndex;
+
+                    final Path primaryObservationPath = set.getPrimaryObservationPath();
+                    final String primaryVersion = set.getPrimaryProcessingVersion();
+                    final Reader primaryReader = readerCache.getReaderFor(primarySensorName, primaryObservationPath, primaryVersion);
+                    ioVariablesList.setReaderAndPath(primarySensorName, primaryReader, primaryObservationPath, primaryVersion);
+                    sensorReaders[0] = primaryReader;
+
+                    logger.info("writing samples for " + primaryObservationPath.getFileName());
+                    for (int i = 0; i < secSensorNames.length; i++) {
+                        final String secSensorName = secSensorNames[i];
+                        final Path secondaryObservationPath = set.getSecondaryObservationPath(secSensorName);
+                        final String secondaryVersion = set.getSecondaryProcessingVersion(secSensorName);
+                        final Reader secondaryReader = readerCache.getReaderFor(secSensorName, secondaryObservationPath, secondaryVersion);
+                        ioVariablesList.setReaderAndPath(secSensorName, secondaryReader, secondaryObservationPath, secondaryVersion);
+                        sensorReaders[i + 1] = secondaryReader;
+                        logger.info("... and " + secondaryObservationPath.getFileName());
+                    }
+                    logger.info("Num matchups: " + set.getNumObservations());
                 }
 
-                final Path primaryObservationPath = set.getPrimaryObservationPath();
-                final String primaryVersion = set.getPrimaryProcessingVersion();
-                final Reader primaryReader = readerCache.getReaderFor(primarySensorName, primaryObservationPath, primaryVersion);
-                ioVariablesList.setReaderAndPath(primarySensorName, primaryReader, primaryObservationPath, primaryVersion);
-
-                logger.info("writing samples for " + primaryObservationPath.getFileName());
-                for (String secSensorName : secSensorNames) {
-                    final Path secondaryObservationPath = set.getSecondaryObservationPath(secSensorName);
-                    final String secondaryVersion = set.getSecondaryProcessingVersion(secSensorName);
-                    final Reader secondaryReader = readerCache.getReaderFor(secSensorName, secondaryObservationPath, secondaryVersion);
-                    ioVariablesList.setReaderAndPath(secSensorName, secondaryReader, secondaryObservationPath, secondaryVersion);
-                    logger.info("... and " + secondaryObservationPath.getFileName());
+                // a segment holds consecutive steps of one matchup set within one cache block
+                final int blockEnd = Math.min((step / cacheSize + 1) * cacheSize, numRows);
+                int segmentEnd = step + 1;
+                while (segmentEnd < blockEnd && extractionPlan.getSetIndex(extractionPlan.getRow(segmentEnd)) == setIndex) {
+                    segmentEnd++;
                 }
-                logger.info("Num matchups: " + numObservations);
 
+                final int[] zIndices = new int[segmentEnd - step];
+                final SampleSet[] sampleSets = new SampleSet[zIndices.length];
+                for (int k = 0; k < zIndices.length; k++) {
+                    zIndices[k] = extractionPlan.getRow(step + k);
+                    sampleSets[k] = set.getSampleSets().get(extractionPlan.getSampleIndex(zIndices[k]));
+                }
 
-                final List<SampleSet> sampleSets = set.getSampleSets();
-                for (SampleSet sampleSet : sampleSets) {
-                    writeMmdValues(sampleSet.getPrimary(), zIndex, primaryVariables, primaryInterval);
-                    for (int i = 0; i < secSensorNames.length; i++) {
-                        String secSensorName = secSensorNames[i];
-                        final List<IOVariable> secIOVariables = secVariablesList.get(i);
-                        writeMmdValues(sampleSet.getSecondary(secSensorName), zIndex, secIOVariables, secIntervals[i]);
+                if (parallelExtraction == null) {
+                    for (int k = 0; k < zIndices.length; k++) {
+                        final SampleSet sampleSet = sampleSets[k];
+                        writeMmdValues(sampleSet.getPrimary(), zIndices[k], primaryVariables, primaryInterval);
+                        for (int i = 0; i < secSensorNames.length; i++) {
+                            String secSensorName = secSensorNames[i];
+                            final List<IOVariable> secIOVariables = secVariablesList.get(i);
+                            writeMmdValues(sampleSet.getSecondary(secSensorName), zIndices[k], secIOVariables, secIntervals[i]);
+                        }
+                        writeSampleSetVariables(sampleSet, sampleSetVariables, zIndices[k]);
+                    }
+                } else {
+                    final List<Callable<Void>> extractions = new ArrayList<>();
+                    final Map<Reader, List<Integer>> sensorsPerReader = new IdentityHashMap<>();
+                    for (int sensorIndex = 0; sensorIndex < sensorReaders.length; sensorIndex++) {
+                        sensorsPerReader.computeIfAbsent(sensorReaders[sensorIndex], reader -> new ArrayList<>()).add(sensorIndex);
                     }
-                    writeSampleSetVariables(sampleSet, sampleSetVariables, zIndex);
-                    zIndex++;
-                    if (zIndex % cacheSize == 0) {
-                        flush();
+                    // readers are not thread safe, all variables of one reader are extracted by the same task
+                    for (final List<Integer> sensorIndices : sensorsPerReader.values()) {
+                        extractions.add(() -> {
+                            for (int k = 0; k < zIndices.length; k++) {
+                                for (final int sensorIndex : sensorIndices) {
+                                    if (sensorIndex == 0) {
+                                        writeMmdValues(sampleSets[k].getPrimary(), zIndices[k], primaryVariables, primaryInterval);
+                                    } else {
+                                        final String secSensorName = secSensorNames[sensorIndex - 1];
+                                        writeMmdValues(sampleSets[k].getSecondary(secSensorName), zIndices[k], secVariablesList.get(sensorIndex - 1), secIntervals[sensorIndex - 1]);
+                                    }
+                                }
+                            }
+                            return null;
+                        });
+                    }
+                    parallelExtraction.run(extractions);
+
+                    for (int k = 0; k < zIndices.length; k++) {
+                        writeSampleSetVariables(sampleSets[k], sampleSetVariables, zIndices[k]);
                     }
                 }
+
+                // the extraction order is permuted within the cache blocks only
+                step = segmentEnd;
+                if (step % cacheSize == 0) {
+                    flush();
+                }
             }
+            logger.info("Reader opens: " + readerCache.getNumOpened());
 
             stopWatch.stop();
 
@@ -173,6 +256,10 @@ abstract class AbstractMmdWriter implements MmdWriter, Target {
             logger.info("Writing time: '" + stopWatch.getTimeDiffString());
 
         } finally {
+            if (parallelExtraction != null) {
+                parallelExtraction.close();
+                parallelExtraction = null;
+            }
             readerCache.close();
             close();
         }
@@ -188,23 +275,34 @@ abstract class AbstractMmdWriter implements MmdWriter, Target {
 
     @Override
     public void write(int v, String variableName, int zIndex) {
-        final Array data = NetCDFUtils.create(new int[][]{{v}});
-        write(data, variableName, zIndex);
+        getScalarTarget(variableName).write(v, zIndex);
     }
 
     @Override
     public void write(float value, String variableName, int zIndex) {
-        final Array data = NetCDFUtils.create(new float[][]{{value}});
-        write(data, variableName, zIndex);
+        getScalarTarget(variableName).write(value, zIndex);
     }
 
     @Override
     public void write(String v, String variableName, int zIndex) {
-        final int[] shape = getVariable(variableName).getShape();
-        final char[] chars = new char[shape[1]];
-        v.getChars(0, v.length(), chars, 0);
-        final Array data = NetCDFUtils.create(new char[][]{chars});
-        write(data, variableName, zIndex);
+        getScalarTarget(variableName).write(v, zIndex);
+    }
+
+    @Override
+    public ScalarTarget getScalarTarget(String variableName) {
+        return cacheTargetMap.computeIfAbsent(variableName, CacheTarget::new);
+    }
+
+    /**
+     * Readers are not thread safe, all variables of one reader are extracted by one task. So no more threads than
+     * sensor readers can be busy, more threads would stay idle.
+     *
+     * @param configuredThreads the number of extraction threads configured
+     * @param numSensors        the number of sensors, primary and secondaries
+     * @return the number of extraction threads to use
+     */
+    static int getNumExtractionThreads(int configuredThreads, int numSensors) {
+        return Math.max(1, Math.min(configuredThreads, numSensors));
     }
 
     static void createUseCaseAttributes(NetcdfFileWriter netcdfFileWriter, UseCaseConfig useCaseConfig) {
@@ -314,12 +412,23 @@ abstract class AbstractMmdWriter implements MmdWriter, Target {
     }
 
     void close() throws IOException, InvalidRangeException {
-        flush();
-        variableMap.clear();
-        dataCacheMap.clear();
-        if (netcdfFileWriter != null) {
-            netcdfFileWriter.close();
-            netcdfFileWriter = null;
+        try {
+            flush();
+            awaitPendingFlush();
+        } finally {
+            if (flushExecutor != null) {
+                flushExecutor.shutdownNow();
+                flushExecutor = null;
+            }
+            pendingFlush = null;
+            cacheTargetMap.clear();
+            variableMap.clear();
+            dataCacheMap.clear();
+            spareCacheMap.clear();
+            if (netcdfFileWriter != null) {
+                netcdfFileWriter.close();
+                netcdfFileWriter = null;
+            }
         }
     }
 
@@ -341,21 +450,16 @@ abstract class AbstractMmdWriter implements MmdWriter, Target {
     }
 
     private Array getTarget(String variableName) {
-        if (!dataCacheMap.containsKey(variableName)) {
-            Variable variable = getVariable(variableName);
+        return dataCacheMap.computeIfAbsent(variableName, name -> {
+            final Variable variable = getVariable(name);
             final int[] shape = variable.getShape();
             shape[0] = writerConfig.getCacheSize();
-            dataCacheMap.put(variableName, Array.factory(variable.getDataType(), shape));
-        }
-        return dataCacheMap.get(variableName);
+            return Array.factory(variable.getDataType(), shape);
+        });
     }
 
     private Variable getVariable(String variableName) {
-        if (!variableMap.containsKey(variableName)) {
-            final String escapedName = NetCDFUtils.escapeVariableName(variableName);
-            variableMap.put(variableName, netcdfFileWriter.findVariable(escapedName));
-        }
-        return variableMap.get(variableName);
+        return variableMap.computeIfAbsent(variableName, name -> netcdfFileWriter.findVariable(NetCDFUtils.escapeVariableName(name)));
     }
 
     private void createGlobalAttributes() {
@@ -389,30 +493,148 @@ abstract class AbstractMmdWriter implements MmdWriter, Target {
         return sensorName + "_nx";
     }
 
-    private void flush() throws IOException, InvalidRangeException {
+    /**
+     * Hands the filled cache set over to the flush thread and continues with the other set. Waits for the previous
+     * flush before, so at most two cache sets exist and errors of the previous flush are thrown here.
+     */
+    // package access for testing only
+    void flush() throws IOException, InvalidRangeException {
+        awaitPendingFlush();
+        if (netcdfFileWriter == null) {
+            return;
+        }
+
         final int cacheSize = writerConfig.getCacheSize();
+        final List<Variable> variables = new ArrayList<>();
+        final List<Array> arrays = new ArrayList<>();
         for (Map.Entry<String, Array> entry : dataCacheMap.entrySet()) {
-            final String variableName = entry.getKey();
-            final Variable variable = variableMap.get(variableName);
-            final int matchupCount = variable.getShape(0);
-            final int zStart = flushCount * cacheSize;
-            final int restHeight = matchupCount - zStart;
-            if (restHeight <= 0) {
-                break;
+            variables.add(variableMap.get(entry.getKey()));
+            arrays.add(entry.getValue());
+        }
+        final FlushTask flushTask = new FlushTask(netcdfFileWriter, variables, arrays, flushCount * cacheSize, cacheSize);
+        flushCount++;
+
+        pendingFlush = getFlushExecutor().submit(flushTask);
+
+        final Map<String, Array> filledCacheMap = dataCacheMap;
+        dataCacheMap = spareCacheMap;
+        spareCacheMap = filledCacheMap;
+    }
+
+    private void awaitPendingFlush() throws IOException, InvalidRangeException {
+        if (pendingFlush == null) {
+            return;
+        }
+
+        final Future<Void> flush = pendingFlush;
+        pendingFlush = null;
+        ParallelExtraction.waitFor(flush);
+    }
+
+    private ExecutorService getFlushExecutor() {
+        if (flushExecutor == null) {
+            flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "mmd-writer-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return flushExecutor;
+    }
+
+    /**
+     * Writes single values directly to the primitive storage of the cache array. The array is resolved again only
+     * when the cache sets have been swapped by a flush.
+     */
+    private class CacheTarget implements ScalarTarget {
+
+        private final String variableName;
+        private Map<String, Array> resolvedCacheMap;
+        private Array cacheArray;
+        private int rowSize;
+        private String lastString;
+        private char[] lastChars;
+
+        CacheTarget(String variableName) {
+            this.variableName = variableName;
+        }
+
+        @Override
+        public void write(int data, int zIndex) {
+            final Array array = getCacheArray();
+            array.setInt(getOffset(zIndex), data);
+        }
+
+        @Override
+        public void write(float data, int zIndex) {
+            final Array array = getCacheArray();
+            array.setFloat(getOffset(zIndex), data);
+        }
+
+        @Override
+        public void write(String data, int zIndex) {
+            final Array array = getCacheArray();
+            if (!data.equals(lastString)) {
+                final char[] chars = new char[rowSize];
+                data.getChars(0, data.length(), chars, 0);
+                lastChars = chars;
+                lastString = data;
             }
-            Array dataToBeWritten = entry.getValue();
-            final int[] origin = new int[dataToBeWritten.getRank()];
-            if (zStart + cacheSize > matchupCount) {
-                final int[] shape = dataToBeWritten.getShape();
-                shape[0] = restHeight;
-                dataToBeWritten = dataToBeWritten.sectionNoReduce(origin, shape, null);
+            System.arraycopy(lastChars, 0, array.getStorage(), getOffset(zIndex), rowSize);
+        }
+
+        private int getOffset(int zIndex) {
+            return (zIndex % writerConfig.getCacheSize()) * rowSize;
+        }
+
+        private Array getCacheArray() {
+            final Map<String, Array> currentCacheMap = dataCacheMap;
+            if (currentCacheMap != resolvedCacheMap) {
+                cacheArray = getTarget(variableName);
+                rowSize = (int) (cacheArray.getSize() / writerConfig.getCacheSize());
+                resolvedCacheMap = currentCacheMap;
             }
-            origin[0] = zStart;
-            netcdfFileWriter.write(variable, origin, dataToBeWritten);
+            return cacheArray;
         }
-        flushCount++;
-        if (netcdfFileWriter != null) {
+    }
+
+    private static class FlushTask implements Callable<Void> {
+
+        private final NetcdfFileWriter netcdfFileWriter;
+        private final List<Variable> variables;
+        private final List<Array> arrays;
+        private final int zStart;
+        private final int cacheSize;
+
+        FlushTask(NetcdfFileWriter netcdfFileWriter, List<Variable> variables, List<Array> arrays, int zStart, int cacheSize) {
+            this.netcdfFileWriter = netcdfFileWriter;
+            this.variables = variables;
+            this.arrays = arrays;
+            this.zStart = zStart;
+            this.cacheSize = cacheSize;
+        }
+
+        @Override
+        public Void call() throws IOException, InvalidRangeException {
+            for (int i = 0; i < variables.size(); i++) {
+                final Variable variable = variables.get(i);
+                final int matchupCount = variable.getShape(0);
+                final int restHeight = matchupCount - zStart;
+                if (restHeight <= 0) {
+                    break;
+                }
+                Array dataToBeWritten = arrays.get(i);
+                final int[] origin = new int[dataToBeWritten.getRank()];
+                if (zStart + cacheSize > matchupCount) {
+                    final int[] shape = dataToBeWritten.getShape();
+                    shape[0] = restHeight;
+                    dataToBeWritten = dataToBeWritten.sectionNoReduce(origin, shape, null);
+                }
+                origin[0] = zStart;
+                netcdfFileWriter.write(variable, origin, dataToBeWritten);
+            }
             netcdfFileWriter.flush();
+            return null;
         }
     }
 }
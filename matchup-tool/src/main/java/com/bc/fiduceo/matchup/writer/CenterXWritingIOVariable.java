@@ -24,6 +24,6 @@ public class CenterXWritingIOVariable extends AbstractIOVariable {
 
     @Override
     public void writeData(int centerX, int centerY, Interval interval, int zIndex) {
-        target.write(centerX, targetVariableName, zIndex);
+        getScalarTarget().write(centerX, zIndex);
     }
 }
@@ -25,6 +25,6 @@ public class CenterYWritingIOVariable extends AbstractIOVariable {
 
     @Override
     public void writeData(int centerX, int centerY, Interval interval, int zIndex) {
-        target.write(centerY, targetVariableName, zIndex);
+        getScalarTarget().write(centerY, zIndex);
     }
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.matchup.writer;
+
+import com.bc.fiduceo.matchup.MatchupSet;
+import com.bc.fiduceo.matchup.SampleSet;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The order in which the MMD writer extracts the matchups. The matchup rows keep the order of the matchup sets,
+ * only within each block of rows written in one flush the extraction is reordered: rows of matchup sets sharing
+ * the same observation files are extracted together, ordered by primary scan line. This way the reader cache
+ * does not have to re-open files when the sets of a block alternate between more files than the cache holds.
+ */
+class ExtractionPlan {
+
+    private final List<MatchupSet> sets;
+    private final String[] secondarySensorNames;
+    private final int[] rowSetIndices;
+    private final int[] rowSampleIndices;
+    private final int[] extractionOrder;
+
+    ExtractionPlan(List<MatchupSet> sets, String[] secondarySensorNames, int blockSize) {
+        this.sets = sets;
+        this.secondarySensorNames = secondarySensorNames;
+
+        int numRows = 0;
+        for (final MatchupSet set : sets) {
+            numRows += set.getNumObservations();
+        }
+
+        rowSetIndices = new int[numRows];
+        rowSampleIndices = new int[numRows];
+        final int[] rowScanLines = new int[numRows];
+        int row = 0;
+        for (int setIndex = 0; setIndex < sets.size(); setIndex++) {
+            final List<SampleSet> sampleSets = sets.get(setIndex).getSampleSets();
+            for (int sampleIndex = 0; sampleIndex < sampleSets.size(); sampleIndex++) {
+                rowSetIndices[row] = setIndex;
+                rowSampleIndices[row] = sampleIndex;
+                rowScanLines[row] = sampleSets.get(sampleIndex).getPrimary().getY();
+                row++;
+            }
+        }
+
+        final int[] setRanks = rankSetsByFiles();
+        final Comparator<Integer> rowComparator = (first, second) -> {
+            int compare = Integer.compare(setRanks[rowSetIndices[first]], setRanks[rowSetIndices[second]]);
+            if (compare == 0) {
+                compare = Integer.compare(rowScanLines[first], rowScanLines[second]);
+            }
+            if (compare == 0) {
+                compare = Integer.compare(first, second);
+            }
+            return compare;
+        };
+
+        extractionOrder = new int[numRows];
+        for (int blockStart = 0; blockStart < numRows; blockStart += blockSize) {
+            final int blockEnd = Math.min(blockStart + blockSize, numRows);
+            final Integer[] blockRows = new Integer[blockEnd - blockStart];
+            for (int i = 0; i < blockRows.length; i++) {
+                blockRows[i] = blockStart + i;
+            }
+            Arrays.sort(blockRows, rowComparator);
+            for (int i = 0; i < blockRows.length; i++) {
+                extractionOrder[blockStart + i] = blockRows[i];
+            }
+        }
+    }
+
+    int getNumRows() {
+        return extractionOrder.length;
+    }
+
+    /**
+     * @param step the extraction step
+     * @return the matchup row (zIndex) to be extracted in this step
+     */
+    int getRow(int step) {
+        return extractionOrder[step];
+    }
+
+    int getSetIndex(int row) {
+        return rowSetIndices[row];
+    }
+
+    int getSampleIndex(int row) {
+        return rowSampleIndices[row];
+    }
+
+    /**
+     * Counts the reader opens of a reader cache of the given size when extracting in matchup row order.
+     *
+     * @param readerCacheSize the number of readers kept open
+     * @return the number of reader opens
+     */
+    int countReaderOpensInRowOrder(int readerCacheSize) {
+        return countReaderOpens(readerCacheSize, false);
+    }
+
+    /**
+     * Counts the reader opens of a reader cache of the given size when extracting in the planned order.
+     *
+     * @param readerCacheSize the number of readers kept open
+     * @return the number of reader opens
+     */
+    int countReaderOpensInPlannedOrder(int readerCacheSize) {
+        return countReaderOpens(readerCacheSize, true);
+    }
+
+    private int countReaderOpens(int readerCacheSize, boolean planned) {
+        int numOpens = 0;
+        final Map<Path, Boolean> openReaders = new LinkedHashMap<Path, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Boolean> eldest) {
+                return size() > readerCacheSize;
+            }
+        };
+
+        int currentSetIndex = -1;
+        for (int step = 0; step < extractionOrder.length; step++) {
+            final int row = planned ? extractionOrder[step] : step;
+            final int setIndex = rowSetIndices[row];
+            if (setIndex == currentSetIndex) {
+                continue;
+            }
+            currentSetIndex = setIndex;
+
+            for (final Path path : getObservationPaths(sets.get(setIndex))) {
+                if (openReaders.get(path) == null) {
+                    openReaders.put(path, Boolean.TRUE);
+                    numOpens++;
+                }
+            }
+        }
+        return numOpens;
+    }
+
+    private int[] rankSetsByFiles() {
+        final Integer[] setOrder = new Integer[sets.size()];
+        for (int i = 0; i < setOrder.length; i++) {
+            setOrder[i] = i;
+        }
+
+        final List<List<Path>> setPaths = new ArrayList<>();
+        for (final MatchupSet set : sets) {
+            setPaths.add(getObservationPaths(set));
+        }
+        Arrays.sort(setOrder, (first, second) -> comparePaths(setPaths.get(first), setPaths.get(second)));
+
+        final int[] setRanks = new int[sets.size()];
+        for (int rank = 0; rank < setOrder.length; rank++) {
+            setRanks[setOrder[rank]] = rank;
+        }
+        return setRanks;
+    }
+
+    private List<Path> getObservationPaths(MatchupSet set) {
+        final List<Path> paths = new ArrayList<>();
+        paths.add(set.getPrimaryObservationPath());
+        for (final String sensorName : secondarySensorNames) {
+            paths.add(set.getSecondaryObservationPath(sensorName));
+        }
+        return paths;
+    }
+
+    private static int comparePaths(List<Path> first, List<Path> second) {
+        for (int i = 0; i < first.size(); i++) {
+            final Path firstPath = first.get(i);
+            final Path secondPath = second.get(i);
+            if (firstPath == null || secondPath == null) {
+                if (firstPath != secondPath) {
+                    return firstPath == null ? -1 : 1;
+                }
+                continue;
+            }
+            final int compare = firstPath.compareTo(secondPath);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return 0;
+    }
+}
@@ -22,6 +22,7 @@ package com.bc.fiduceo.matchup.writer;
 
 
 import com.bc.fiduceo.matchup.writer.MmdWriterFactory.NetcdfType;
+import com.bc.fiduceo.util.MmdChunking;
 import org.esa.snap.core.util.StringUtils;
 import org.jdom.Attribute;
 import org.jdom.Document;
@@ -41,6 +42,7 @@ public class MmdWriterConfig {
     private static final String CACHE_SIZE_TAG = "cache-size";
     private static final String NETCDF_FORMAT_TAG = "netcdf-format";
     private static final String READER_CACHE_SIZE_TAG = "reader-cache-size";
+    private static final String EXTRACTION_THREADS_TAG = "extraction-threads";
     private static final String VARIABLES_CONFIGURATION_TAG = "variables-configuration";
     private static final String SENSOR_RENAME_TAG = "sensor-rename";
     private static final String SEPARATOR = "separator";
@@ -61,12 +63,16 @@ public class MmdWriterConfig {
     private NetcdfType netcdfFormat;
     private VariablesConfiguration variablesConfiguration;
     private int readerCacheSize;
+    private MmdChunking nc4Chunking;
+    private int extractionThreads;
 
     MmdWriterConfig() {
         cacheSize = 2048;
         netcdfFormat = NetcdfType.N4;
         variablesConfiguration = new VariablesConfiguration();
         readerCacheSize = 6;
+        nc4Chunking = MmdChunking.createDefault();
+        extractionThreads = 1;
     }
 
     private MmdWriterConfig(Document document) {
@@ -120,6 +126,25 @@ public class MmdWriterConfig {
         return readerCacheSize;
     }
 
+    MmdChunking getNc4Chunking() {
+        return nc4Chunking;
+    }
+
+    void setNc4Chunking(MmdChunking nc4Chunking) {
+        this.nc4Chunking = nc4Chunking;
+    }
+
+    int getExtractionThreads() {
+        return extractionThreads;
+    }
+
+    void setExtractionThreads(int extractionThreads) {
+        if (extractionThreads < 1) {
+            throw new RuntimeException("Number of extraction threads must be positive: " + extractionThreads);
+        }
+        this.extractionThreads = extractionThreads;
+    }
+
     private void init(Document document) {
         final Element rootElement = document.getRootElement();
         final String name = rootElement.getName();
@@ -151,6 +176,17 @@ public class MmdWriterConfig {
             setReaderCacheSize(Integer.valueOf(readerCacheValue));
         }
 
+        final Element extractionThreadsElement = rootElement.getChild(EXTRACTION_THREADS_TAG);
+        if (extractionThreadsElement != null) {
+            final String extractionThreadsValue = extractionThreadsElement.getValue();
+            setExtractionThreads(Integer.valueOf(extractionThreadsValue.trim()));
+        }
+
+        final Element nc4ChunkingElement = rootElement.getChild(MmdChunking.TAG_NAME_NC4_CHUNKING);
+        if (nc4ChunkingElement != null) {
+            setNc4Chunking(MmdChunking.fromElement(nc4ChunkingElement));
+        }
+
         final Element variablesConfigurationElement = rootElement.getChild(VARIABLES_CONFIGURATION_TAG);
         if (variablesConfigurationElement != null) {
             addSensorRenames(variablesConfigurationElement);
@@ -20,21 +20,22 @@
 
 package com.bc.fiduceo.matchup.writer;
 
+import com.bc.fiduceo.util.MmdChunking;
 import ucar.nc2.NetcdfFileWriter;
-import ucar.nc2.write.Nc4Chunking;
-import ucar.nc2.write.Nc4ChunkingDefault;
 
 import java.io.IOException;
 import java.nio.file.Path;
 
 class MmdWriterNC4 extends AbstractMmdWriter {
 
+    private final MmdChunking chunking;
+
     MmdWriterNC4(MmdWriterConfig writerConfig) {
         super(writerConfig);
+        chunking = writerConfig.getNc4Chunking();
     }
 
     void createNetCdfFileWriter(Path mmdFile) throws IOException {
-        final Nc4Chunking chunking = Nc4ChunkingDefault.factory(Nc4Chunking.Strategy.standard, 5, true);
         netcdfFileWriter = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf4, mmdFile.toAbsolutePath().toString(), chunking);
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.matchup.writer;
+
+import ucar.ma2.InvalidRangeException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the extraction tasks of the MMD writer on a fixed thread pool. The calling thread executes the first task
+ * itself and waits for all others, the first error of a task is thrown after all tasks are finished. This also
+ * holds for Errors, which are thrown as soon as all tasks still running have finished.
+ */
+class ParallelExtraction {
+
+    private final ExecutorService executor;
+
+    ParallelExtraction(int numThreads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(numThreads - 1, runnable -> {
+            final Thread thread = new Thread(runnable, "mmd-extraction-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void run(List<Callable<Void>> tasks) throws IOException, InvalidRangeException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        final List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 1; i < tasks.size(); i++) {
+            futures.add(executor.submit(tasks.get(i)));
+        }
+
+        Exception firstError = null;
+        int numFinished = 0;
+        try {
+            try {
+                tasks.get(0).call();
+            } catch (Exception e) {
+                firstError = e;
+            }
+
+            for (final Future<Void> future : futures) {
+                try {
+                    waitFor(future);
+                } catch (IOException | InvalidRangeException | RuntimeException e) {
+                    if (firstError == null) {
+                        firstError = e;
+                    }
+                }
+                ++numFinished;
+            }
+        } finally {
+            // an Error leaves early, the caller closes the targets, so no task may still be writing
+            awaitQuietly(futures.subList(numFinished, futures.size()));
+        }
+
+        if (firstError instanceof IOException) {
+            throw (IOException) firstError;
+        } else if (firstError instanceof InvalidRangeException) {
+            throw (InvalidRangeException) firstError;
+        } else if (firstError instanceof RuntimeException) {
+            throw (RuntimeException) firstError;
+        } else if (firstError != null) {
+            throw new IOException(firstError);
+        }
+    }
+
+    void close() {
+        executor.shutdownNow();
+    }
+
+    // waits for tasks while an error is already on its way, the errors of these tasks are dropped
+    private static void awaitQuietly(List<Future<Void>> futures) {
+        boolean interrupted = false;
+        for (final Future<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for a task and re-throws its error on the calling thread.
+     *
+     * @param future the task result
+     * @throws IOException           on errors of the task or when interrupted
+     * @throws InvalidRangeException on errors of the task
+     */
+    static void waitFor(Future<?> future) throws IOException, InvalidRangeException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing MMD data", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InvalidRangeException) {
+                throw (InvalidRangeException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
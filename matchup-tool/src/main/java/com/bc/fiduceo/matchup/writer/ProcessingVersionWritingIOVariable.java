@@ -30,6 +30,6 @@ public class ProcessingVersionWritingIOVariable extends ReaderIOVariable {
     @Override
     public void writeData(int centerX, int centerY, Interval interval, int zIndex) {
         final String version = readerContainer.getProcessingVersion();
-        target.write(version, targetVariableName, zIndex);
+        getScalarTarget().write(version, zIndex);
     }
 }
@@ -24,6 +24,7 @@ public class ReaderContainer {
 
     private Reader reader;
     private Path sourcePath;
+    private String sourceFileName;
     private String processingVersion;
 
     public void setReader(Reader reader) {
@@ -48,5 +49,11 @@ public class ReaderContainer {
 
     void setSourcePath(Path sourcePath) {
         this.sourcePath = sourcePath;
+        // resolved once per file, all matchups of the file write the same String
+        sourceFileName = sourcePath == null ? null : sourcePath.getFileName().toString();
+    }
+
+    String getSourceFileName() {
+        return sourceFileName;
     }
 }
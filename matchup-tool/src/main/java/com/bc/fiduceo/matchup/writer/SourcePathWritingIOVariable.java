@@ -32,7 +32,7 @@ public class SourcePathWritingIOVariable extends ReaderIOVariable {
 
     @Override
     public void writeData(int centerX, int centerY, Interval interval, int zIndex) throws IOException, InvalidRangeException {
-        final String filename = readerContainer.getSourcePath().getFileName().toString();
-        target.write(filename, targetVariableName, zIndex);
+        final String filename = readerContainer.getSourceFileName();
+        getScalarTarget().write(filename, zIndex);
     }
 }
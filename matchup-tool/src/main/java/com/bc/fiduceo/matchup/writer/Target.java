@@ -11,4 +11,30 @@ public interface Target {
     void write(float data, String variableName, int zIndex);
 
     void write(String data, String variableName, int zIndex);
+
+    /**
+     * Returns the write access to a variable for repeated single value writes. The default delegates to the
+     * variable name based write methods.
+     *
+     * @param variableName the variable name
+     * @return the write access
+     */
+    default ScalarTarget getScalarTarget(String variableName) {
+        return new ScalarTarget() {
+            @Override
+            public void write(int data, int zIndex) {
+                Target.this.write(data, variableName, zIndex);
+            }
+
+            @Override
+            public void write(float data, int zIndex) {
+                Target.this.write(data, variableName, zIndex);
+            }
+
+            @Override
+            public void write(String data, int zIndex) {
+                Target.this.write(data, variableName, zIndex);
+            }
+        };
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.matchup.condition;
+
+import com.bc.fiduceo.matchup.MatchupSet;
+import com.bc.fiduceo.matchup.SampleSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the packed key grouping of UniqueSamplesCondition with the former "x_y" string keys. Not part of the
+ * unit tests, run it from the test class path with
+ * <p>
+ * java -Xmx8g com.bc.fiduceo.matchup.condition.UniqueSamplesConditionBenchmark [numKeys] [numSampleSets]
+ * <p>
+ * The key benchmark groups numKeys pixel positions (default 10M), the condition benchmark applies the condition to
+ * one matchup set of numSampleSets (default 1M, each SampleSet holds its own map).
+ */
+public class UniqueSamplesConditionBenchmark {
+
+    private static final int NUM_RUNS = 5;
+    private static final int RANGE = 2000;
+
+    public static void main(String[] args) {
+        final int numKeys = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        final int numSampleSets = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+        benchmarkKeys(numKeys);
+        benchmarkCondition(numSampleSets);
+    }
+
+    private static void benchmarkKeys(int numKeys) {
+        final Random random = new Random(17);
+        final int[] xs = new int[numKeys];
+        final int[] ys = new int[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+            xs[i] = random.nextInt(RANGE);
+            ys[i] = random.nextInt(RANGE);
+        }
+
+        long packedTime = Long.MAX_VALUE;
+        long stringTime = Long.MAX_VALUE;
+        for (int run = 0; run < NUM_RUNS; run++) {
+            long start = System.nanoTime();
+            final int numPacked = groupPacked(xs, ys);
+            packedTime = Math.min(packedTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            final int numStrings = groupStrings(xs, ys);
+            stringTime = Math.min(stringTime, System.nanoTime() - start);
+
+            if (numPacked != numStrings) {
+                throw new IllegalStateException("different number of groups: " + numPacked + " " + numStrings);
+            }
+        }
+
+        System.out.println("grouping " + numKeys + " pixel keys, best of " + NUM_RUNS + " runs");
+        print("packed keys", packedTime, numKeys);
+        print("string keys", stringTime, numKeys);
+    }
+
+    private static void benchmarkCondition(int numSampleSets) {
+        final UniqueSamplesCondition.Configuration configuration = new UniqueSamplesCondition.Configuration();
+        configuration.referenceSensorKey = "second";
+        configuration.associatedSensorKey = "first";
+        final List<SampleSet> sampleSets = UniqueSamplesConditionTest.createSampleSets(numSampleSets, RANGE, 11);
+
+        long conditionTime = Long.MAX_VALUE;
+        long stringTime = Long.MAX_VALUE;
+        for (int run = 0; run < NUM_RUNS; run++) {
+            final MatchupSet matchupSet = new MatchupSet();
+            matchupSet.setSampleSets(new ArrayList<>(sampleSets));
+
+            long start = System.nanoTime();
+            new UniqueSamplesCondition(configuration).apply(matchupSet, new ConditionEngineContext());
+            conditionTime = Math.min(conditionTime, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            final List<SampleSet> expected = UniqueSamplesConditionTest.applyWithStringKeys(sampleSets);
+            stringTime = Math.min(stringTime, System.nanoTime() - start);
+
+            if (expected.size() != matchupSet.getNumObservations()) {
+                throw new IllegalStateException("different number of samples: " + expected.size() + " " + matchupSet.getNumObservations());
+            }
+        }
+
+        System.out.println("applying the condition to " + numSampleSets + " sample sets, best of " + NUM_RUNS + " runs");
+        print("UniqueSamplesCondition", conditionTime, numSampleSets);
+        print("string keyed grouping", stringTime, numSampleSets);
+    }
+
+    private static int groupPacked(int[] xs, int[] ys) {
+        final UniqueSamplesCondition.KeyIndex keyIndex = new UniqueSamplesCondition.KeyIndex(xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            keyIndex.getOrAdd(((long) xs[i] << 32) | (ys[i] & 0xFFFFFFFFL));
+        }
+        return keyIndex.size();
+    }
+
+    private static int groupStrings(int[] xs, int[] ys) {
+        final Map<String, Integer> groups = new HashMap<>();
+        for (int i = 0; i < xs.length; i++) {
+            groups.putIfAbsent(xs[i] + "_" + ys[i], groups.size());
+        }
+        return groups.size();
+    }
+
+    private static void print(String name, long nanos, int numItems) {
+        System.out.printf("  %-24s %8.1f ms %10.1f M/s%n", name, nanos * 1e-6, numItems / (nanos * 1e-3));
+    }
+}
@@ -23,11 +23,18 @@ package com.bc.fiduceo.matchup.condition;
 import com.bc.fiduceo.core.Sample;
 import com.bc.fiduceo.matchup.MatchupSet;
 import com.bc.fiduceo.matchup.SampleSet;
+import com.bc.fiduceo.math.SphericalDistance;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 
 public class UniqueSamplesConditionTest {
 
@@ -186,7 +193,107 @@ public class UniqueSamplesConditionTest {
     public void testCreateKey() {
         final Sample sample = new Sample(34, 66, 1, 2, 3);
 
-        assertEquals("34_66", UniqueSamplesCondition.createKey(sample));
+        assertEquals((34L << 32) | 66L, UniqueSamplesCondition.createKey(sample));
+    }
+
+    @Test
+    public void testCreateKey_distinct() {
+        assertNotEquals(UniqueSamplesCondition.createKey(new Sample(1, 23, 0, 0, 0)), UniqueSamplesCondition.createKey(new Sample(12, 3, 0, 0, 0)));
+        assertNotEquals(UniqueSamplesCondition.createKey(new Sample(-1, 0, 0, 0, 0)), UniqueSamplesCondition.createKey(new Sample(0, -1, 0, 0, 0)));
+        assertNotEquals(UniqueSamplesCondition.createKey(new Sample(0, -1, 0, 0, 0)), UniqueSamplesCondition.createKey(new Sample(-1, -1, 0, 0, 0)));
+    }
+
+    @Test
+    public void testKeyIndex() {
+        final UniqueSamplesCondition.KeyIndex keyIndex = new UniqueSamplesCondition.KeyIndex(3);
+
+        assertEquals(0, keyIndex.getOrAdd(17L));
+        assertEquals(1, keyIndex.getOrAdd(-5L));
+        assertEquals(0, keyIndex.getOrAdd(17L));
+        assertEquals(2, keyIndex.getOrAdd(0L));
+        assertEquals(1, keyIndex.getOrAdd(-5L));
+        assertEquals(3, keyIndex.size());
+    }
+
+    @Test
+    public void testKeyIndex_manyCollidingKeys() {
+        final UniqueSamplesCondition.KeyIndex keyIndex = new UniqueSamplesCondition.KeyIndex(10000);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, keyIndex.getOrAdd((long) i << 32));
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, keyIndex.getOrAdd((long) i << 32));
+        }
+        assertEquals(10000, keyIndex.size());
+    }
+
+    @Test
+    public void testApply_equivalentToStringKeyedGrouping() {
+        final UniqueSamplesCondition.Configuration configuration = new UniqueSamplesCondition.Configuration();
+        configuration.referenceSensorKey = "second";
+        configuration.associatedSensorKey = "first";
+
+        for (final int range : new int[]{2, 50, 2000}) {
+            final List<SampleSet> sampleSets = createSampleSets(50000, range, range);
+            final MatchupSet matchupSet = new MatchupSet();
+            matchupSet.setSampleSets(new ArrayList<>(sampleSets));
+
+            new UniqueSamplesCondition(configuration).apply(matchupSet, new ConditionEngineContext());
+
+            final List<SampleSet> expected = applyWithStringKeys(sampleSets);
+            final List<SampleSet> actual = matchupSet.getSampleSets();
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(expected.get(i).getPrimary(), actual.get(i).getPrimary());
+                assertSame(expected.get(i).getSecondary("second"), actual.get(i).getSecondary("second"));
+            }
+        }
+    }
+
+    // package access for the benchmark
+    static List<SampleSet> createSampleSets(int numSampleSets, int range, long seed) {
+        final Random random = new Random(seed);
+        final List<SampleSet> sampleSets = new ArrayList<>(numSampleSets);
+        for (int i = 0; i < numSampleSets; i++) {
+            final int x = random.nextInt(range);
+            final int y = random.nextInt(range);
+            final SampleSet sampleSet = new SampleSet();
+            sampleSet.setPrimary(new Sample(random.nextInt(4000), random.nextInt(4000), 0.01 * x + 0.01 * random.nextDouble(), 0.01 * y + 0.01 * random.nextDouble(), i));
+            sampleSet.setSecondary("second", new Sample(x, y, 0.01 * x, 0.01 * y, i));
+            sampleSets.add(sampleSet);
+        }
+        return sampleSets;
+    }
+
+    // the former implementation, grouping by "x_y" keys, with secondary sensor as reference. Package access for the
+    // benchmark
+    static List<SampleSet> applyWithStringKeys(List<SampleSet> sampleSets) {
+        final Map<String, List<SampleSet>> groups = new LinkedHashMap<>();
+        for (final SampleSet sampleSet : sampleSets) {
+            final Sample reference = sampleSet.getSecondary("second");
+            groups.computeIfAbsent(reference.getX() + "_" + reference.getY(), k -> new ArrayList<>()).add(sampleSet);
+        }
+
+        final List<SampleSet> result = new ArrayList<>();
+        for (final List<SampleSet> group : groups.values()) {
+            final Sample reference = group.get(0).getSecondary("second");
+            final SphericalDistance sphericalDistance = new SphericalDistance(reference.getLon(), reference.getLat());
+            double minDistance = Double.MAX_VALUE;
+            Sample closest = null;
+            for (final SampleSet sampleSet : group) {
+                final Sample associated = sampleSet.getPrimary();
+                final double distance = sphericalDistance.distance(associated.getLon(), associated.getLat());
+                if (group.size() == 1 || distance < minDistance) {
+                    minDistance = distance;
+                    closest = associated;
+                }
+            }
+            final SampleSet sampleSet = new SampleSet();
+            sampleSet.setPrimary(closest);
+            sampleSet.setSecondary("second", reference);
+            result.add(sampleSet);
+        }
+        return result;
     }
 
     // @todo 1 tb/tb continue here 2017-10-02
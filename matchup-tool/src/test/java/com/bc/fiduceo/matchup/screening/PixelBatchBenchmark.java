@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.matchup.screening;
+
+import com.bc.fiduceo.reader.Reader;
+import ucar.ma2.InvalidRangeException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures batched window reads of PixelBatch against single pixel reads, on the synthetic image reader of
+ * PixelBatchTest. Not part of the unit tests, run it from the test class path with
+ * <p>
+ * java com.bc.fiduceo.matchup.screening.PixelBatchBenchmark [numPixels]
+ * <p>
+ * The reader is a Mockito mock, its cost per call stands in for the call overhead of a real reader. The number of
+ * reader calls is printed with the times, it does not depend on the mock.
+ */
+public class PixelBatchBenchmark {
+
+    private static final int NUM_RUNS = 5;
+
+    public static void main(String[] args) throws IOException, InvalidRangeException {
+        final int numPixels = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+
+        final int[] randomXs = new int[numPixels];
+        final int[] randomYs = new int[numPixels];
+        final Random random = new Random(17);
+        for (int i = 0; i < numPixels; i++) {
+            randomXs[i] = random.nextInt(PixelBatchTest.WIDTH);
+            randomYs[i] = random.nextInt(PixelBatchTest.HEIGHT);
+        }
+
+        // dense pixels along the swath, like the matchups of an overlapping orbit
+        final int[] swathXs = new int[numPixels];
+        final int[] swathYs = new int[numPixels];
+        for (int i = 0; i < numPixels; i++) {
+            swathXs[i] = (i * 7) % PixelBatchTest.WIDTH;
+            swathYs[i] = (i / 20) % PixelBatchTest.HEIGHT;
+        }
+
+        System.out.println(numPixels + " pixels on a " + PixelBatchTest.WIDTH + "x" + PixelBatchTest.HEIGHT + " image, best of " + NUM_RUNS + " runs");
+        benchmark("random", randomXs, randomYs);
+        benchmark("swath", swathXs, swathYs);
+    }
+
+    private static void benchmark(String name, int[] xs, int[] ys) throws IOException, InvalidRangeException {
+        final AtomicInteger numReads = new AtomicInteger();
+        final Reader reader = PixelBatchTest.createImageReader(true, numReads);
+
+        long singleTime = Long.MAX_VALUE;
+        long batchTime = Long.MAX_VALUE;
+        int singleReads = 0;
+        int batchReads = 0;
+        for (int run = 0; run < NUM_RUNS; run++) {
+            numReads.set(0);
+            long start = System.nanoTime();
+            final double[] singleValues = PixelBatchTest.readSinglePixels(reader, xs, ys, "btemps");
+            singleTime = Math.min(singleTime, System.nanoTime() - start);
+            singleReads = numReads.get();
+
+            numReads.set(0);
+            start = System.nanoTime();
+            final double[] batchValues = new PixelBatch(xs, ys).read(reader, "btemps");
+            batchTime = Math.min(batchTime, System.nanoTime() - start);
+            batchReads = numReads.get();
+
+            if (!Arrays.equals(singleValues, batchValues)) {
+                throw new IllegalStateException("different values for the " + name + " pixels");
+            }
+        }
+
+        System.out.printf("  %-6s   single pixels %8.1f ms (%d reads)   batched %8.1f ms (%d reads)   speedup %5.1f%n",
+                          name, singleTime * 1e-6, singleReads, batchTime * 1e-6, batchReads, (double) singleTime / batchTime);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+
+package com.bc.fiduceo.matchup.screening;
+
+import com.bc.fiduceo.core.Dimension;
+import com.bc.fiduceo.core.Interval;
+import com.bc.fiduceo.reader.Reader;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PixelBatchTest {
+
+    static final int WIDTH = 90;
+    static final int HEIGHT = 2300;
+
+    @Test
+    public void testRead_equalsSinglePixelReads() throws IOException, InvalidRangeException {
+        final AtomicInteger numReads = new AtomicInteger();
+        final Reader reader = createImageReader(true, numReads);
+
+        final Random random = new Random(17);
+        final int[] xs = new int[5000];
+        final int[] ys = new int[5000];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextInt(WIDTH);
+            ys[i] = random.nextInt(HEIGHT);
+        }
+
+        final PixelBatch pixelBatch = new PixelBatch(xs, ys);
+        final double[] values = pixelBatch.read(reader, "btemps");
+
+        assertArrayEquals(readSinglePixels(reader, xs, ys, "btemps"), values, 0.0);
+        assertThat(pixelBatch.getNumBands(), is(lessThan(xs.length / 10)));
+    }
+
+    @Test
+    public void testRead_bandLayout() throws IOException, InvalidRangeException {
+        final AtomicInteger numReads = new AtomicInteger();
+        final Reader reader = createImageReader(true, numReads);
+
+        // two dense pixel clusters and one isolated pixel
+        final int[] xs = {10, 11, 12, 10, 50, 51, 52, 30};
+        final int[] ys = {100, 100, 101, 102, 800, 801, 801, 1900};
+
+        final PixelBatch pixelBatch = new PixelBatch(xs, ys);
+        assertEquals(3, pixelBatch.getNumBands());
+
+        final double[] values = pixelBatch.read(reader, "vza");
+        assertEquals(3, numReads.get());
+        assertArrayEquals(readSinglePixels(reader, xs, ys, "vza"), values, 0.0);
+    }
+
+    @Test
+    public void testRead_readerWithoutWindowSupport() throws IOException, InvalidRangeException {
+        final AtomicInteger numReads = new AtomicInteger();
+        final Reader reader = createImageReader(false, numReads);
+
+        final int[] xs = {0, 0, 0, 0};
+        final int[] ys = {13, 12, 14, 13};
+
+        final double[] values = new PixelBatch(xs, ys).read(reader, "sst");
+        assertEquals(4, numReads.get());
+        assertArrayEquals(new double[]{pixelValue(0, 13, "sst"), pixelValue(0, 12, "sst"), pixelValue(0, 14, "sst"), pixelValue(0, 13, "sst")}, values, 0.0);
+    }
+
+    @Test
+    public void testRead_empty() throws IOException, InvalidRangeException {
+        final PixelBatch pixelBatch = new PixelBatch(new int[0], new int[0]);
+
+        assertEquals(0, pixelBatch.getNumBands());
+        assertEquals(0, pixelBatch.read(mock(Reader.class), "vza").length);
+    }
+
+    @Test
+    public void testRead_windowFailureStopsBandReads() throws IOException, InvalidRangeException {
+        final AtomicInteger numReads = new AtomicInteger();
+        final Reader reader = createImageReader(false, numReads);
+        // claims a wide product, but delivers single pixels only
+        when(reader.getProductSize()).thenReturn(new Dimension("product_size", WIDTH, HEIGHT));
+
+        // two bands of two pixels each
+        final int[] xs = {10, 11, 50, 51};
+        final int[] ys = {100, 100, 800, 800};
+
+        final PixelBatch pixelBatch = new PixelBatch(xs, ys);
+        assertEquals(2, pixelBatch.getNumBands());
+
+        final double[] values = pixelBatch.read(reader, "sst");
+        assertEquals(5, numReads.get());
+        assertArrayEquals(new double[]{pixelValue(10, 100, "sst"), pixelValue(11, 100, "sst"), pixelValue(50, 800, "sst"), pixelValue(51, 800, "sst")}, values, 0.0);
+    }
+
+    @Test
+    public void testRead_largeBatch() throws IOException, InvalidRangeException {
+        final AtomicInteger numReads = new AtomicInteger();
+        final Reader reader = createImageReader(true, numReads);
+
+        final int[] xs = new int[50000];
+        final int[] ys = new int[50000];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = (i * 7) % WIDTH;
+            ys[i] = (i / 20) % HEIGHT;
+        }
+
+        final PixelBatch pixelBatch = new PixelBatch(xs, ys);
+        final double[] values = pixelBatch.read(reader, "btemps");
+        assertEquals(pixelBatch.getNumBands(), numReads.get());
+
+        assertArrayEquals(readSinglePixels(reader, xs, ys, "btemps"), values, 0.0);
+    }
+
+    static double[] readSinglePixels(Reader reader, int[] xs, int[] ys, String variableName) throws IOException, InvalidRangeException {
+        final Interval singlePixel = new Interval(1, 1);
+        final double[] values = new double[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            values[i] = reader.readScaled(xs[i], ys[i], singlePixel, variableName).getDouble(0);
+        }
+        return values;
+    }
+
+    private static double pixelValue(int x, int y, String variableName) {
+        return variableName.length() + 0.25 * x + 0.5 * y;
+    }
+
+    // reads windows of a synthetic image, outside pixels are filled with -1. A reader without window support
+    // always delivers the single center pixel and has a product width of one, as the in-situ readers do
+    static Reader createImageReader(boolean windowSupport, AtomicInteger numReads) throws IOException, InvalidRangeException {
+        final Reader reader = mock(Reader.class);
+        when(reader.readScaled(anyInt(), anyInt(), any(), anyString())).thenAnswer(invocation -> {
+            numReads.incrementAndGet();
+            final int centerX = invocation.getArgument(0);
+            final int centerY = invocation.getArgument(1);
+            final Interval interval = invocation.getArgument(2);
+            final String variableName = invocation.getArgument(3);
+
+            final int width = windowSupport ? interval.getX() : 1;
+            final int height = windowSupport ? interval.getY() : 1;
+            final Array window = Array.factory(DataType.DOUBLE, new int[]{height, width});
+            int index = 0;
+            for (int y = centerY - height / 2; y <= centerY + height / 2; y++) {
+                for (int x = centerX - width / 2; x <= centerX + width / 2; x++) {
+                    final boolean inside = x >= 0 && x < WIDTH && y >= 0 && y < HEIGHT;
+                    window.setDouble(index++, inside ? pixelValue(x, y, variableName) : -1.0);
+                }
+            }
+            return window;
+        });
+        if (!windowSupport) {
+            when(reader.getProductSize()).thenReturn(new Dimension("product_size", 1, HEIGHT));
+        }
+        return reader;
+    }
+}
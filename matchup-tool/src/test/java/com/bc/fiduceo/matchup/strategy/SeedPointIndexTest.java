@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.matchup.strategy;
+
+import com.bc.fiduceo.core.SamplingPoint;
+import com.bc.fiduceo.geometry.Geometry;
+import com.bc.fiduceo.geometry.GeometryFactory;
+import com.bc.fiduceo.geometry.Point;
+import com.bc.fiduceo.util.SobolSamplingPointGenerator;
+import com.bc.fiduceo.util.TimeUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SeedPointIndexTest {
+
+    private static final long HOUR = 3600L * 1000L;
+
+    @Test
+    public void testGetSeedPoints_timeWindow() {
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        final List<SamplingPoint> seedPoints = new ArrayList<>();
+        seedPoints.add(new SamplingPoint(10.0, 10.0, 5 * HOUR));
+        seedPoints.add(new SamplingPoint(11.0, 11.0, 1 * HOUR));
+        seedPoints.add(new SamplingPoint(12.0, 12.0, 3 * HOUR));
+        seedPoints.add(new SamplingPoint(13.0, 13.0, 7 * HOUR));
+
+        final SeedPointIndex index = new SeedPointIndex(seedPoints);
+        assertEquals(4, index.size());
+
+        final Geometry[] geometries = {geometryFactory.parse("POLYGON((0 0, 20 0, 20 20, 0 20, 0 0))")};
+        final List<SamplingPoint> result = index.getSeedPoints(geometryFactory, 3 * HOUR, 5 * HOUR, geometries);
+        assertEquals(2, result.size());
+        // generation order is kept
+        assertEquals(10.0, result.get(0).getLon(), 1e-8);
+        assertEquals(5 * HOUR, result.get(0).getTime());
+        assertEquals(12.0, result.get(1).getLon(), 1e-8);
+
+        assertEquals(0, index.getSeedPoints(geometryFactory, 8 * HOUR, 9 * HOUR, geometries).size());
+    }
+
+    @Test
+    public void testGetSeedPoints_equalsBruteForce() {
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        final SobolSamplingPointGenerator generator = new SobolSamplingPointGenerator(SobolSamplingPointGenerator.Distribution.FLAT);
+        final List<SamplingPoint> seedPoints = generator.createSamples(20000, 0, 0, 100 * HOUR);
+        final SeedPointIndex index = new SeedPointIndex(seedPoints);
+
+        final Geometry[] geometries = {
+                geometryFactory.parse("POLYGON((-20 -30, 20 -30, 20 30, -20 30, -20 -30))"),
+                geometryFactory.parse("POLYGON((100 40, 140 40, 140 70, 100 70, 100 40))")
+        };
+
+        final long startTime = 20 * HOUR;
+        final long stopTime = 60 * HOUR;
+        final List<SamplingPoint> expected = new ArrayList<>();
+        for (final SamplingPoint seedPoint : seedPoints) {
+            final long time = seedPoint.getTime();
+            if (time >= startTime && time <= stopTime) {
+                final Point point = geometryFactory.createPoint(seedPoint.getLon(), seedPoint.getLat());
+                for (final Geometry geometry : geometries) {
+                    final Geometry intersection = geometry.getIntersection(point);
+                    if (intersection != null && intersection.isValid()) {
+                        expected.add(seedPoint);
+                        break;
+                    }
+                }
+            }
+        }
+
+        final List<SamplingPoint> result = index.getSeedPoints(geometryFactory, startTime, stopTime, geometries);
+        assertTrue(expected.size() > 100);
+        assertEquals(expected.size(), result.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getLon(), result.get(i).getLon(), 1e-12);
+            assertEquals(expected.get(i).getLat(), result.get(i).getLat(), 1e-12);
+            assertEquals(expected.get(i).getTime(), result.get(i).getTime());
+        }
+    }
+
+    @Test
+    public void testCellRanges_noS2Geometry() {
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.JTS);
+        final Geometry polygon = geometryFactory.parse("POLYGON((0 0, 20 0, 20 20, 0 20, 0 0))");
+
+        assertNull(SeedPointIndex.CellRanges.create(polygon));
+    }
+
+    @Test
+    public void testSortByTime() {
+        final long[] times = {5, 1, 3, 1, 7, 0};
+        final int[] indices = {0, 1, 2, 3, 4, 5};
+
+        SeedPointIndex.sortByTime(times, indices);
+        assertArrayEquals(new int[]{5, 1, 3, 2, 0, 4}, indices);
+    }
+
+    @Test
+    public void testToKey_keepsUnsignedOrder() {
+        assertTrue(SeedPointIndex.toKey(0x1L) < SeedPointIndex.toKey(0x7FFFFFFFFFFFFFFFL));
+        assertTrue(SeedPointIndex.toKey(0x7FFFFFFFFFFFFFFFL) < SeedPointIndex.toKey(0x8000000000000000L));
+        assertTrue(SeedPointIndex.toKey(0x8000000000000000L) < SeedPointIndex.toKey(0xFFFFFFFFFFFFFFFFL));
+        assertFalse(SeedPointIndex.toKey(0xFFFFFFFFFFFFFFFFL) < SeedPointIndex.toKey(0x1L));
+    }
+
+    @Test
+    public void testGetSeedPoints_monthOfOrbits() {
+        // one month of ~100 minute orbits, the index must deliver the same seed points as the exhaustive search
+        final GeometryFactory geometryFactory = new GeometryFactory(GeometryFactory.Type.S2);
+        final long start = TimeUtils.parseDOYBeginOfDay("2016-001").getTime();
+        final long end = TimeUtils.parseDOYEndOfDay("2016-031").getTime();
+
+        final SobolSamplingPointGenerator generator = new SobolSamplingPointGenerator(SobolSamplingPointGenerator.Distribution.FLAT);
+        final List<SamplingPoint> seedPoints = generator.createSamples(100000, 0, start, end);
+        final SeedPointIndex index = new SeedPointIndex(seedPoints);
+
+        final long orbitDuration = 100L * 60L * 1000L;
+        int numOrbits = 0;
+        int numSeeds = 0;
+        for (long orbitStart = start; orbitStart < end; orbitStart += orbitDuration) {
+            final long orbitStop = orbitStart + orbitDuration;
+            final Geometry swath = createSwath(geometryFactory, numOrbits);
+            final List<SamplingPoint> indexed = index.getSeedPoints(geometryFactory, orbitStart, orbitStop, new Geometry[]{swath});
+
+            final List<SamplingPoint> expected = new ArrayList<>();
+            for (final SamplingPoint seedPoint : seedPoints) {
+                if (seedPoint.getTime() < orbitStart || seedPoint.getTime() > orbitStop) {
+                    continue;
+                }
+                final Geometry intersection = swath.getIntersection(geometryFactory.createPoint(seedPoint.getLon(), seedPoint.getLat()));
+                if (intersection != null && intersection.isValid()) {
+                    expected.add(seedPoint);
+                }
+            }
+
+            assertEquals(expected.size(), indexed.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getTime(), indexed.get(i).getTime());
+                assertEquals(expected.get(i).getLon(), indexed.get(i).getLon(), 1e-8);
+                assertEquals(expected.get(i).getLat(), indexed.get(i).getLat(), 1e-8);
+            }
+            numSeeds += indexed.size();
+            numOrbits++;
+        }
+
+        assertTrue(numOrbits > 400);
+        assertTrue(numSeeds > 0);
+    }
+
+    private static Geometry createSwath(GeometryFactory geometryFactory, int orbit) {
+        final double lon = (orbit * 25.0) % 340.0 - 170.0;
+        final List<Point> points = Arrays.asList(
+                geometryFactory.createPoint(lon - 10.0, -70.0),
+                geometryFactory.createPoint(lon + 10.0, -70.0),
+                geometryFactory.createPoint(lon + 10.0, 70.0),
+                geometryFactory.createPoint(lon - 10.0, 70.0),
+                geometryFactory.createPoint(lon - 10.0, -70.0));
+        return geometryFactory.createPolygon(points);
+    }
+}
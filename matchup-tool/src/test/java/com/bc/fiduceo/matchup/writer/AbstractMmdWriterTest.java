@@ -21,7 +21,9 @@
 package com.bc.fiduceo.matchup.writer;
 
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 import com.bc.fiduceo.core.Dimension;
@@ -29,13 +31,20 @@ import com.bc.fiduceo.core.Sensor;
 import com.bc.fiduceo.core.UseCaseConfig;
 import com.bc.fiduceo.matchup.MatchupToolTestUseCaseConfigBuilder;
 import org.junit.*;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
 import ucar.nc2.Attribute;
 import ucar.nc2.Group;
 import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AbstractMmdWriterTest {
 
@@ -130,4 +139,176 @@ public class AbstractMmdWriterTest {
         final String csList = AbstractMmdWriter.getCommaSeparatedListOfSensors(useCaseConfig);
         assertEquals("theMaster,numberThree,otherOne", csList);
     }
+
+    @Test
+    public void testGetNumExtractionThreads() {
+        assertEquals(1, AbstractMmdWriter.getNumExtractionThreads(1, 3));
+        assertEquals(2, AbstractMmdWriter.getNumExtractionThreads(2, 3));
+        assertEquals(3, AbstractMmdWriter.getNumExtractionThreads(3, 3));
+
+        // one reader per sensor, more threads would stay idle
+        assertEquals(3, AbstractMmdWriter.getNumExtractionThreads(8, 3));
+        assertEquals(1, AbstractMmdWriter.getNumExtractionThreads(4, 1));
+    }
+
+    @Test
+    public void testFlush_writesAllRowsInOrder() throws Exception {
+        final int[] written = new int[12 * 2];
+        final NetcdfFileWriter mockWriter = createMockWriter(12);
+        doAnswer(invocation -> {
+            final int[] origin = (int[]) invocation.getArguments()[1];
+            final Array data = (Array) invocation.getArguments()[2];
+            final int[] values = (int[]) data.copyTo1DJavaArray();
+            System.arraycopy(values, 0, written, origin[0] * 2, values.length);
+            return null;
+        }).when(mockWriter).write(any(Variable.class), any(int[].class), any(Array.class));
+
+        final MmdWriterConfig writerConfig = new MmdWriterConfig();
+        writerConfig.setCacheSize(5);
+        final MmdWriterNC4 mmdWriter = new MmdWriterNC4(writerConfig);
+        mmdWriter.netcdfFileWriter = mockWriter;
+
+        for (int zIndex = 0; zIndex < 12; zIndex++) {
+            mmdWriter.write(Array.factory(DataType.INT, new int[]{2}, new int[]{zIndex, -zIndex}), "the_variable", zIndex);
+            if ((zIndex + 1) % 5 == 0) {
+                mmdWriter.flush();
+            }
+        }
+        mmdWriter.close();
+
+        final int[] expected = new int[12 * 2];
+        for (int zIndex = 0; zIndex < 12; zIndex++) {
+            expected[2 * zIndex] = zIndex;
+            expected[2 * zIndex + 1] = -zIndex;
+        }
+        assertArrayEquals(expected, written);
+        verify(mockWriter, times(3)).write(any(Variable.class), any(int[].class), any(Array.class));
+        verify(mockWriter, times(3)).flush();
+        verify(mockWriter, times(1)).close();
+    }
+
+    @Test
+    public void testFlush_writeErrorIsPropagated() throws Exception {
+        final NetcdfFileWriter mockWriter = createMockWriter(12);
+        doThrow(new IOException("disk full")).when(mockWriter).write(any(Variable.class), any(int[].class), any(Array.class));
+
+        final MmdWriterConfig writerConfig = new MmdWriterConfig();
+        writerConfig.setCacheSize(5);
+        final MmdWriterNC4 mmdWriter = new MmdWriterNC4(writerConfig);
+        mmdWriter.netcdfFileWriter = mockWriter;
+
+        for (int zIndex = 0; zIndex < 5; zIndex++) {
+            mmdWriter.write(Array.factory(DataType.INT, new int[]{2}, new int[]{zIndex, zIndex}), "the_variable", zIndex);
+        }
+        mmdWriter.flush();
+
+        try {
+            mmdWriter.close();
+            fail("IOException expected");
+        } catch (IOException expected) {
+            assertEquals("disk full", expected.getMessage());
+        }
+        verify(mockWriter, times(1)).close();
+    }
+
+    @Test
+    public void testScalarWrites_cachedPerMatchup() throws Exception {
+        final int numMatchups = 1000;
+        final Variable xVariable = mock(Variable.class);
+        when(xVariable.getShape()).thenAnswer(invocation -> new int[]{numMatchups});
+        when(xVariable.getShape(0)).thenReturn(numMatchups);
+        when(xVariable.getDataType()).thenReturn(DataType.INT);
+        final Variable fileNameVariable = mock(Variable.class);
+        when(fileNameVariable.getShape()).thenAnswer(invocation -> new int[]{numMatchups, 128});
+        when(fileNameVariable.getShape(0)).thenReturn(numMatchups);
+        when(fileNameVariable.getDataType()).thenReturn(DataType.CHAR);
+
+        final NetcdfFileWriter mockWriter = mock(NetcdfFileWriter.class);
+        when(mockWriter.findVariable("sensor_x")).thenReturn(xVariable);
+        when(mockWriter.findVariable("sensor_file_name")).thenReturn(fileNameVariable);
+        final Map<Variable, Array> written = new HashMap<>();
+        doAnswer(invocation -> {
+            final Array data = (Array) invocation.getArguments()[2];
+            written.put((Variable) invocation.getArguments()[0], data.copy());
+            return null;
+        }).when(mockWriter).write(any(Variable.class), any(int[].class), any(Array.class));
+
+        final MmdWriterConfig writerConfig = new MmdWriterConfig();
+        writerConfig.setCacheSize(numMatchups);
+        final MmdWriterNC4 mmdWriter = new MmdWriterNC4(writerConfig);
+        mmdWriter.netcdfFileWriter = mockWriter;
+
+        final CenterXWritingIOVariable xIOVariable = new CenterXWritingIOVariable();
+        xIOVariable.setTargetVariableName("sensor_x");
+        xIOVariable.setTarget(mmdWriter);
+        final ReaderContainer readerContainer = new ReaderContainer();
+        readerContainer.setSourcePath(Paths.get("archive", "sensor", "the_granule.nc"));
+        final SourcePathWritingIOVariable fileNameIOVariable = new SourcePathWritingIOVariable(readerContainer);
+        fileNameIOVariable.setTargetVariableName("sensor_file_name");
+        fileNameIOVariable.setTarget(mmdWriter);
+
+        // the second pass overwrites the values in the cache arrays resolved by the first one
+        for (int zIndex = 0; zIndex < numMatchups; zIndex++) {
+            xIOVariable.writeData(zIndex + 1, 0, null, zIndex);
+            fileNameIOVariable.writeData(0, 0, null, zIndex);
+        }
+        for (int zIndex = 0; zIndex < numMatchups; zIndex++) {
+            xIOVariable.writeData(zIndex, 0, null, zIndex);
+            fileNameIOVariable.writeData(0, 0, null, zIndex);
+        }
+
+        mmdWriter.close();
+
+        final int[] xValues = (int[]) written.get(xVariable).getStorage();
+        for (int zIndex = 0; zIndex < numMatchups; zIndex++) {
+            assertEquals(zIndex, xValues[zIndex]);
+        }
+        final char[] fileNames = (char[]) written.get(fileNameVariable).getStorage();
+        assertEquals("the_granule.nc", new String(fileNames, 0, 14));
+        assertEquals(0, fileNames[14]);
+        assertEquals("the_granule.nc", new String(fileNames, 128 * (numMatchups - 1), 14));
+        assertEquals(0, fileNames[128 * numMatchups - 1]);
+    }
+
+    @Test
+    public void testWrite_byVariableName() throws Exception {
+        final int[] written = new int[12 * 2];
+        final NetcdfFileWriter mockWriter = createMockWriter(12);
+        doAnswer(invocation -> {
+            final int[] origin = (int[]) invocation.getArguments()[1];
+            final int[] values = (int[]) ((Array) invocation.getArguments()[2]).copyTo1DJavaArray();
+            System.arraycopy(values, 0, written, origin[0] * 2, values.length);
+            return null;
+        }).when(mockWriter).write(any(Variable.class), any(int[].class), any(Array.class));
+
+        final MmdWriterConfig writerConfig = new MmdWriterConfig();
+        writerConfig.setCacheSize(5);
+        final MmdWriterNC4 mmdWriter = new MmdWriterNC4(writerConfig);
+        mmdWriter.netcdfFileWriter = mockWriter;
+
+        for (int zIndex = 0; zIndex < 12; zIndex++) {
+            mmdWriter.write(zIndex + 100, "the_variable", zIndex);
+            if ((zIndex + 1) % 5 == 0) {
+                mmdWriter.flush();
+            }
+        }
+        mmdWriter.close();
+
+        // single values are written to the first element of the matchup row
+        for (int zIndex = 0; zIndex < 12; zIndex++) {
+            assertEquals(zIndex + 100, written[2 * zIndex]);
+            assertEquals(0, written[2 * zIndex + 1]);
+        }
+    }
+
+    private static NetcdfFileWriter createMockWriter(int numMatchups) {
+        final Variable variable = mock(Variable.class);
+        when(variable.getShape()).thenAnswer(invocation -> new int[]{numMatchups, 2});
+        when(variable.getShape(0)).thenReturn(numMatchups);
+        when(variable.getDataType()).thenReturn(DataType.INT);
+
+        final NetcdfFileWriter mockWriter = mock(NetcdfFileWriter.class);
+        when(mockWriter.findVariable("the_variable")).thenReturn(variable);
+        return mockWriter;
+    }
 }
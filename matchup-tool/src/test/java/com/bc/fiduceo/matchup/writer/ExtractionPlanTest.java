@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.matchup.writer;
+
+import com.bc.fiduceo.core.Sample;
+import com.bc.fiduceo.matchup.MatchupSet;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ExtractionPlanTest {
+
+    private static final String[] SECONDARY_NAMES = new String[]{"secondary"};
+
+    @Test
+    public void testRowIndices() {
+        final List<MatchupSet> sets = new ArrayList<>();
+        sets.add(createSet("prim_1", "sec_1", 5, 3));
+        sets.add(createSet("prim_1", "sec_2"));
+        sets.add(createSet("prim_2", "sec_1", 7));
+
+        final ExtractionPlan plan = new ExtractionPlan(sets, SECONDARY_NAMES, 2048);
+        assertEquals(3, plan.getNumRows());
+
+        assertEquals(0, plan.getSetIndex(0));
+        assertEquals(0, plan.getSampleIndex(0));
+        assertEquals(0, plan.getSetIndex(1));
+        assertEquals(1, plan.getSampleIndex(1));
+        assertEquals(2, plan.getSetIndex(2));
+        assertEquals(0, plan.getSampleIndex(2));
+    }
+
+    @Test
+    public void testExtractionOrder_groupedByFilesAndScanLine() {
+        final List<MatchupSet> sets = new ArrayList<>();
+        sets.add(createSet("prim_1", "sec_1", 5, 3));
+        sets.add(createSet("prim_1", "sec_2", 1));
+        sets.add(createSet("prim_1", "sec_1", 2));
+        sets.add(createSet("prim_0", "sec_3", 8, 6));
+
+        final ExtractionPlan plan = new ExtractionPlan(sets, SECONDARY_NAMES, 2048);
+
+        assertArrayEquals(new int[]{5, 4, 1, 0, 3, 2}, getExtractionOrder(plan));
+    }
+
+    @Test
+    public void testExtractionOrder_permutedWithinBlocksOnly() {
+        final List<MatchupSet> sets = new ArrayList<>();
+        sets.add(createSet("prim_1", "sec_1", 5, 3));
+        sets.add(createSet("prim_1", "sec_2", 1));
+        sets.add(createSet("prim_1", "sec_1", 2));
+        sets.add(createSet("prim_0", "sec_3", 8, 6));
+
+        final ExtractionPlan plan = new ExtractionPlan(sets, SECONDARY_NAMES, 4);
+
+        assertArrayEquals(new int[]{1, 0, 3, 2, 5, 4}, getExtractionOrder(plan));
+    }
+
+    @Test
+    public void testExtractionOrder_isPermutation() {
+        final List<MatchupSet> sets = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final int[] scanLines = new int[i % 7];
+            for (int k = 0; k < scanLines.length; k++) {
+                scanLines[k] = (31 * i + 17 * k) % 23;
+            }
+            sets.add(createSet("prim_" + (i % 3), "sec_" + (i % 5), scanLines));
+        }
+
+        final int blockSize = 16;
+        final ExtractionPlan plan = new ExtractionPlan(sets, SECONDARY_NAMES, blockSize);
+        final int[] order = getExtractionOrder(plan);
+
+        final int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int row = 0; row < sorted.length; row++) {
+            assertEquals(row, sorted[row]);
+        }
+        for (int step = 0; step < order.length; step++) {
+            assertEquals(step / blockSize, order[step] / blockSize);
+        }
+    }
+
+    @Test
+    public void testCountReaderOpens() {
+        final List<MatchupSet> sets = new ArrayList<>();
+        sets.add(createSet("prim", "sec_1", 1));
+        sets.add(createSet("prim", "sec_2", 2));
+        sets.add(createSet("prim", "sec_3", 3));
+        sets.add(createSet("prim", "sec_1", 4));
+        sets.add(createSet("prim", "sec_2", 5));
+        sets.add(createSet("prim", "sec_3", 6));
+
+        final ExtractionPlan plan = new ExtractionPlan(sets, SECONDARY_NAMES, 2048);
+
+        assertEquals(7, plan.countReaderOpensInRowOrder(2));
+        assertEquals(4, plan.countReaderOpensInPlannedOrder(2));
+
+        assertEquals(4, plan.countReaderOpensInRowOrder(4));
+        assertEquals(4, plan.countReaderOpensInPlannedOrder(4));
+    }
+
+    @Test
+    public void testEmptySets() {
+        final List<MatchupSet> sets = new ArrayList<>();
+        sets.add(createSet("prim", "sec_1"));
+
+        final ExtractionPlan plan = new ExtractionPlan(sets, SECONDARY_NAMES, 2048);
+        assertEquals(0, plan.getNumRows());
+        assertEquals(0, plan.countReaderOpensInPlannedOrder(6));
+    }
+
+    private static int[] getExtractionOrder(ExtractionPlan plan) {
+        final int[] order = new int[plan.getNumRows()];
+        for (int step = 0; step < order.length; step++) {
+            order[step] = plan.getRow(step);
+        }
+        return order;
+    }
+
+    private static MatchupSet createSet(String primaryFile, String secondaryFile, int... scanLines) {
+        final MatchupSet set = new MatchupSet();
+        set.setPrimaryObservationPath(Paths.get(primaryFile));
+        set.setSecondaryObservationPath(SECONDARY_NAMES[0], Paths.get(secondaryFile));
+        for (final int scanLine : scanLines) {
+            set.addPrimary(new Sample(0, scanLine, 0.0, 0.0, 0L));
+        }
+        return set;
+    }
+}
@@ -25,6 +25,7 @@ import static com.bc.fiduceo.matchup.writer.MmdWriterFactory.NetcdfType.N3;
 import static com.bc.fiduceo.matchup.writer.MmdWriterFactory.NetcdfType.N4;
 import static org.junit.Assert.*;
 
+import com.bc.fiduceo.util.MmdChunking;
 import org.junit.*;
 
 import java.io.ByteArrayInputStream;
@@ -93,6 +94,8 @@ public class MmdWriterConfigTest {
         assertEquals(2048, config.getCacheSize());
         assertEquals(N4, config.getNetcdfFormat());
         assertEquals(6, config.getReaderCacheSize());
+        assertEquals(MmdChunking.Strategy.standard, config.getNc4Chunking().getStrategy());
+        assertEquals(1, config.getExtractionThreads());
 
         final VariablesConfiguration variablesConfiguration = config.getVariablesConfiguration();
         assertNotNull(variablesConfiguration);
@@ -148,6 +151,42 @@ public class MmdWriterConfigTest {
         assertEquals(14, loadedConfig.getReaderCacheSize());
     }
 
+    @Test
+    public void testLoad_extractionThreads() {
+        final String configXml = "<mmd-writer-config>" +
+                "    <extraction-threads>4</extraction-threads>" +
+                "</mmd-writer-config>";
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(configXml.getBytes());
+
+        final MmdWriterConfig loadedConfig = MmdWriterConfig.load(inputStream);
+        assertEquals(4, loadedConfig.getExtractionThreads());
+    }
+
+    @Test
+    public void testSetExtractionThreads_invalid() {
+        try {
+            config.setExtractionThreads(0);
+            fail("RuntimeException expected");
+        } catch (RuntimeException expected) {
+        }
+    }
+
+    @Test
+    public void testLoad_nc4Chunking() {
+        final String configXml = "<mmd-writer-config>" +
+                "    <nc4-chunking strategy=\"matchup\" matchup-chunk-size=\"512\" max-chunk-bytes=\"65536\">" +
+                "        <compression rank=\"1\" deflate=\"1\" />" +
+                "    </nc4-chunking>" +
+                "</mmd-writer-config>";
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(configXml.getBytes());
+
+        final MmdWriterConfig loadedConfig = MmdWriterConfig.load(inputStream);
+        final MmdChunking chunking = loadedConfig.getNc4Chunking();
+        assertEquals(MmdChunking.Strategy.matchup, chunking.getStrategy());
+        assertEquals(512, chunking.getMatchupChunkSize());
+        assertEquals(65536, chunking.getMaxChunkBytes());
+    }
+
     @Test
     public void testLoad_emptyVariablesConfiguration() {
         final String configXml = "<mmd-writer-config>" +
@@ -38,6 +38,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import ucar.ma2.Array;
 import ucar.ma2.DataType;
 import ucar.ma2.InvalidRangeException;
 import ucar.nc2.Attribute;
@@ -336,29 +337,42 @@ public class MmdWriter_IO_Test {
         return matchupCollection;
     }
 
-    private void execute_usecase_02(MmdWriter mmdWriter) throws IOException, InvalidRangeException {
-        final File testDataDirectory = TestUtil.getTestDataDirectory();
-
-        final MatchupCollection matchupCollection = createMatchupCollection_AVHRR(testDataDirectory);
-
-        final ToolContext context = new ToolContext();
-        final UseCaseConfig useCaseConfig = createUseCaseConfig_AVHRR();
-        context.setUseCaseConfig(useCaseConfig);
-        context.setStartDate(TimeUtils.parseDOYBeginOfDay("1989-122"));
-        context.setEndDate(TimeUtils.parseDOYEndOfDay("1989-123"));
-
-        final ReaderFactory readerFactory = ReaderFactory.create(context.getGeometryFactory(), new TempFileUtils(), null);
-        context.setReaderFactory(readerFactory);
-        final IOVariablesList ioVariablesList = new IOVariablesList(readerFactory);
-
-        final VariablesConfiguration variablesConfiguration = new VariablesConfiguration();
+    @Test
+    public void testWrite_usecase02_parallelExtractionWritesSameAsSerial() throws IOException, InvalidRangeException {
+        // small cache blocks, so that both branches flush several times
+        writerConfig.setCacheSize(3);
+        final File serialFile = write_usecase_02(new MmdWriterNC4(writerConfig), new File(testDir, "serial"));
+
+        final MmdWriterConfig parallelConfig = new MmdWriterConfig();
+        parallelConfig.setCacheSize(3);
+        parallelConfig.setExtractionThreads(3);
+        final File parallelFile = write_usecase_02(new MmdWriterNC4(parallelConfig), new File(testDir, "parallel"));
+
+        try (NetcdfFile serialMmd = NetcdfFile.open(serialFile.getAbsolutePath());
+             NetcdfFile parallelMmd = NetcdfFile.open(parallelFile.getAbsolutePath())) {
+            final List<Variable> variables = serialMmd.getVariables();
+            assertEquals(variables.size(), parallelMmd.getVariables().size());
+            for (final Variable variable : variables) {
+                final String name = variable.getFullName();
+                final Variable parallelVariable = parallelMmd.findVariable(variable.getFullNameEscaped());
+                assertNotNull(name, parallelVariable);
+
+                final Array expected = variable.read();
+                final Array actual = parallelVariable.read();
+                assertArrayEquals(name, expected.getShape(), actual.getShape());
+                for (int i = 0; i < expected.getSize(); i++) {
+                    assertEquals(name, expected.getObject(i), actual.getObject(i));
+                }
+            }
+        }
+    }
 
-        Delegator_MatchupTool.createIOVariablesPerSensor(ioVariablesList, matchupCollection, useCaseConfig, variablesConfiguration);
-        mmdWriter.writeMMD(matchupCollection, context, ioVariablesList);
+    private void execute_usecase_02(MmdWriter mmdWriter) throws IOException, InvalidRangeException {
+        final File mmdFile = write_usecase_02(mmdWriter, testDir);
 
         NetcdfFile netcdfFile = null;
         try {
-            netcdfFile = NetcdfFile.open(testDir.getAbsolutePath() + File.separator + "mmd02_avhrr-n10_avhrr-n11_1989-122_1989-123.nc");
+            netcdfFile = NetcdfFile.open(mmdFile.getAbsolutePath());
 
             NCTestUtils.assertVectorVariable("avhrr-n10_x", 0, 0.0, netcdfFile);
             NCTestUtils.assertVectorVariable("avhrr-n10_y", 1, 8982.0, netcdfFile);
@@ -411,7 +425,30 @@ public class MmdWriter_IO_Test {
         }
     }
 
-    private UseCaseConfig createUseCaseConfig_AVHRR() {
+    private File write_usecase_02(MmdWriter mmdWriter, File outputDir) throws IOException, InvalidRangeException {
+        final File testDataDirectory = TestUtil.getTestDataDirectory();
+
+        final MatchupCollection matchupCollection = createMatchupCollection_AVHRR(testDataDirectory);
+
+        final ToolContext context = new ToolContext();
+        final UseCaseConfig useCaseConfig = createUseCaseConfig_AVHRR(outputDir);
+        context.setUseCaseConfig(useCaseConfig);
+        context.setStartDate(TimeUtils.parseDOYBeginOfDay("1989-122"));
+        context.setEndDate(TimeUtils.parseDOYEndOfDay("1989-123"));
+
+        final ReaderFactory readerFactory = ReaderFactory.create(context.getGeometryFactory(), new TempFileUtils(), null);
+        context.setReaderFactory(readerFactory);
+        final IOVariablesList ioVariablesList = new IOVariablesList(readerFactory);
+
+        final VariablesConfiguration variablesConfiguration = new VariablesConfiguration();
+
+        Delegator_MatchupTool.createIOVariablesPerSensor(ioVariablesList, matchupCollection, useCaseConfig, variablesConfiguration);
+        mmdWriter.writeMMD(matchupCollection, context, ioVariablesList);
+
+        return new File(outputDir, "mmd02_avhrr-n10_avhrr-n11_1989-122_1989-123.nc");
+    }
+
+    private UseCaseConfig createUseCaseConfig_AVHRR(File outputDir) {
         final Sensor primary = new Sensor("avhrr-n10");
         primary.setPrimary(true);
 
@@ -423,7 +460,7 @@ public class MmdWriter_IO_Test {
                 .withDimensions(Arrays.asList(
                         new Dimension("avhrr-n10", 5, 5),
                         new Dimension("avhrr-n11", 5, 5)))
-                .withOutputPath(testDir.getAbsolutePath())
+                .withOutputPath(outputDir.getAbsolutePath())
                 .createConfig();
     }
 
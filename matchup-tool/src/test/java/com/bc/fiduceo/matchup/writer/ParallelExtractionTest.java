@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.matchup.writer;
+
+import com.bc.fiduceo.core.Interval;
+import com.bc.fiduceo.reader.Reader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ParallelExtractionTest {
+
+    private ParallelExtraction parallelExtraction;
+
+    @Before
+    public void setUp() {
+        parallelExtraction = new ParallelExtraction(3);
+    }
+
+    @After
+    public void tearDown() {
+        parallelExtraction.close();
+    }
+
+    @Test
+    public void testRun_allTasksExecuted() throws Exception {
+        final AtomicInteger[] counters = new AtomicInteger[5];
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < counters.length; i++) {
+            final AtomicInteger counter = new AtomicInteger();
+            counters[i] = counter;
+            tasks.add(() -> {
+                counter.incrementAndGet();
+                return null;
+            });
+        }
+
+        parallelExtraction.run(tasks);
+
+        for (final AtomicInteger counter : counters) {
+            assertEquals(1, counter.get());
+        }
+    }
+
+    @Test
+    public void testRun_noTasks() throws Exception {
+        parallelExtraction.run(new ArrayList<>());
+    }
+
+    @Test
+    public void testRun_errorIsThrownAfterAllTasksFinished() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            counter.incrementAndGet();
+            return null;
+        });
+        tasks.add(() -> {
+            throw new InvalidRangeException("out of range");
+        });
+        tasks.add(() -> {
+            Thread.sleep(50);
+            counter.incrementAndGet();
+            return null;
+        });
+
+        try {
+            parallelExtraction.run(tasks);
+            fail("InvalidRangeException expected");
+        } catch (InvalidRangeException expected) {
+            assertEquals("out of range", expected.getMessage());
+        }
+        assertEquals(2, counter.get());
+    }
+
+    @Test
+    public void testRun_errorOfCallingThreadTask() throws Exception {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            throw new IOException("no disk");
+        });
+
+        try {
+            parallelExtraction.run(tasks);
+            fail("IOException expected");
+        } catch (IOException expected) {
+            assertEquals("no disk", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testRun_errorWaitsForRunningTasks() throws Exception {
+        final AtomicInteger counter = new AtomicInteger();
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        tasks.add(() -> null);
+        tasks.add(() -> {
+            throw new OutOfMemoryError("no heap");
+        });
+        tasks.add(() -> {
+            Thread.sleep(100);
+            counter.incrementAndGet();
+            return null;
+        });
+
+        try {
+            parallelExtraction.run(tasks);
+            fail("OutOfMemoryError expected");
+        } catch (OutOfMemoryError expected) {
+            assertEquals("no heap", expected.getMessage());
+        }
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void testRun_manyVariableReaders_sameResult() throws Exception {
+        final int numReaders = 2;
+        final int numVariables = 60;
+        final int numRows = 100;
+        final Interval interval = new Interval(7, 7);
+
+        final Map<String, float[]> serialResult = new ConcurrentHashMap<>();
+        final List<Callable<Void>> serialTasks = createExtractionTasks(numReaders, numVariables, numRows, interval, serialResult);
+        final Map<String, float[]> parallelResult = new ConcurrentHashMap<>();
+        final List<Callable<Void>> parallelTasks = createExtractionTasks(numReaders, numVariables, numRows, interval, parallelResult);
+
+        for (final Callable<Void> task : serialTasks) {
+            task.call();
+        }
+        parallelExtraction.run(parallelTasks);
+
+        assertEquals(numReaders * numVariables * numRows, serialResult.size());
+        assertEquals(serialResult.size(), parallelResult.size());
+        for (final Map.Entry<String, float[]> entry : serialResult.entrySet()) {
+            assertArrayEquals(entry.getValue(), parallelResult.get(entry.getKey()), 0.f);
+        }
+    }
+
+    private static List<Callable<Void>> createExtractionTasks(int numReaders, int numVariables, int numRows, Interval interval,
+                                                              Map<String, float[]> result) throws IOException, InvalidRangeException {
+        final Target target = new Target() {
+            @Override
+            public void write(Array data, String variableName, int zIndex) {
+                result.put(variableName + "_" + zIndex, (float[]) data.copyTo1DJavaArray());
+            }
+
+            @Override
+            public void write(int data, String variableName, int zIndex) {
+                throw new IllegalStateException("not expected");
+            }
+
+            @Override
+            public void write(float data, String variableName, int zIndex) {
+                throw new IllegalStateException("not expected");
+            }
+
+            @Override
+            public void write(String data, String variableName, int zIndex) {
+                throw new IllegalStateException("not expected");
+            }
+        };
+
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        for (int r = 0; r < numReaders; r++) {
+            final ReaderContainer readerContainer = new ReaderContainer();
+            readerContainer.setReader(createDecodingReader());
+
+            final List<IOVariable> variables = new ArrayList<>();
+            for (int v = 0; v < numVariables; v++) {
+                final WindowReadingIOVariable variable = new WindowReadingIOVariable(readerContainer);
+                variable.setSourceVariableName("var_" + v);
+                variable.setTargetVariableName("sensor_" + r + "_var_" + v);
+                variable.setTarget(target);
+                variables.add(variable);
+            }
+
+            tasks.add(() -> {
+                for (int row = 0; row < numRows; row++) {
+                    for (final IOVariable variable : variables) {
+                        variable.writeData(row % 50, row, interval, row);
+                    }
+                }
+                return null;
+            });
+        }
+        return tasks;
+    }
+
+    // stands in for a reader spending its time on decoding and scaling
+    private static Reader createDecodingReader() throws IOException, InvalidRangeException {
+        final Reader reader = mock(Reader.class);
+        when(reader.readRaw(anyInt(), anyInt(), any(Interval.class), anyString())).thenAnswer(invocation -> {
+            final int centerX = (Integer) invocation.getArguments()[0];
+            final int centerY = (Integer) invocation.getArguments()[1];
+            final Interval interval = (Interval) invocation.getArguments()[2];
+            final int width = interval.getX();
+            final int height = interval.getY();
+            final float[] values = new float[width * height];
+            for (int i = 0; i < values.length; i++) {
+                double value = 0.0;
+                for (int k = 1; k <= 20; k++) {
+                    value += Math.sin((centerX + i % width) * 0.01 * k) * Math.cos((centerY + i / width) * 0.01 / k);
+                }
+                values[i] = (float) value;
+            }
+            return Array.factory(DataType.FLOAT, new int[]{height, width}, values);
+        });
+        return reader;
+    }
+}
@@ -7,6 +7,8 @@ import org.junit.Test;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.mock;
 
@@ -34,4 +36,16 @@ public class ReaderContainerTest {
         readerContainer.setSourcePath(aPath);
         assertSame(aPath, readerContainer.getSourcePath());
     }
+
+    @Test
+    public void testGetSourceFileName() throws Exception {
+        readerContainer.setSourcePath(Paths.get("the", "archive", "granule.nc"));
+
+        final String fileName = readerContainer.getSourceFileName();
+        assertEquals("granule.nc", fileName);
+        assertSame(fileName, readerContainer.getSourceFileName());
+
+        readerContainer.setSourcePath(null);
+        assertNull(readerContainer.getSourceFileName());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.post;
+
+import ucar.ma2.Array;
+import ucar.nc2.Variable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps variable data of the input MMD in memory while one file is post-processed. The data read once for the
+ * transfer to the target file is pinned as cached data of the input variable, so all plugins reading the variable
+ * afterwards (completely or in sections) are served from memory instead of the file. The pinned data is limited
+ * by a byte budget and released when the file is done.
+ */
+class InputVariableCache {
+
+    private final long maxBytes;
+    private final List<Variable> pinnedVariables;
+    private long pinnedBytes;
+
+    InputVariableCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        pinnedVariables = new ArrayList<>();
+    }
+
+    /**
+     * Pins the data as cached data of the variable, if it fits into the remaining budget.
+     *
+     * @param variable the input variable
+     * @param data     the complete variable data, as read from the input file
+     * @return true when the data has been pinned
+     */
+    boolean pin(Variable variable, Array data) {
+        if (variable.isVariableLength() || variable.hasCachedData()) {
+            return false;
+        }
+
+        final long numBytes = data.getSize() * variable.getElementSize();
+        if (pinnedBytes + numBytes > maxBytes) {
+            return false;
+        }
+
+        variable.setCachedData(data, false);
+        pinnedVariables.add(variable);
+        pinnedBytes += numBytes;
+        return true;
+    }
+
+    long getPinnedBytes() {
+        return pinnedBytes;
+    }
+
+    int getNumPinned() {
+        return pinnedVariables.size();
+    }
+
+    void release() {
+        for (final Variable variable : pinnedVariables) {
+            variable.invalidateCache();
+        }
+        pinnedVariables.clear();
+        pinnedBytes = 0;
+    }
+}
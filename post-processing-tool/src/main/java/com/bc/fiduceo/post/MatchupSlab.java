@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+
+package com.bc.fiduceo.post;
+
+import ucar.ma2.Array;
+import ucar.ma2.ArrayChar;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The input data of a range of matchups, see {@link SlabPostProcessing}. Matchup indices passed to the accessors are
+ * relative to the slab, the matchup index in the MMD is getOffset() + index.
+ */
+public class MatchupSlab {
+
+    private final int offset;
+    private final int length;
+    private final Map<String, Array> variableData;
+
+    MatchupSlab(int offset, int length) {
+        this.offset = offset;
+        this.length = length;
+        variableData = new HashMap<>();
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the slab data of a declared variable, the first dimension of the array is the matchup in the slab.
+     *
+     * @param variableName the variable name
+     * @return the data
+     */
+    public Array get(String variableName) {
+        final Array array = variableData.get(variableName);
+        if (array == null) {
+            throw new RuntimeException("Variable not declared as slab variable: " + variableName);
+        }
+        return array;
+    }
+
+    /**
+     * Returns the trimmed string of a declared two-dimensional char variable, e.g. file_name or processing_version.
+     *
+     * @param variableName the variable name
+     * @param index        the matchup index in the slab
+     * @return the string
+     */
+    public String getString(String variableName, int index) {
+        final Array array = get(variableName);
+        if (!(array instanceof ArrayChar) || array.getRank() != 2) {
+            throw new RuntimeException("Not a two-dimensional char variable: " + variableName);
+        }
+        return ((ArrayChar) array).getString(index).trim();
+    }
+
+    void put(String variableName, Array data) {
+        variableData.put(variableName, data);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+
+package com.bc.fiduceo.post;
+
+import com.bc.fiduceo.FiduceoConstants;
+import com.bc.fiduceo.util.NetCDFUtils;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drives a single loop over the matchups of the input MMD for a group of {@link SlabPostProcessing}s: the union of
+ * the declared input variables is read once per slab and every slab is passed to all post-processings in order.
+ */
+public class MatchupSlabLoop {
+
+    public static final int DEFAULT_SLAB_SIZE = 4096;
+
+    /**
+     * Runs the slab loop.
+     *
+     * @param reader          the NetcdfFile opened on the input MMD file
+     * @param writer          the NetcdfFileWriter opened on the target MMD, in write-mode
+     * @param postProcessings the slab post-processings, in execution order
+     * @param slabSize        the maximal number of matchups per slab
+     * @return the number of slabs processed
+     * @throws IOException           on disk access failures
+     * @throws InvalidRangeException on other occasions
+     */
+    public static int run(NetcdfFile reader, NetcdfFileWriter writer, List<? extends SlabPostProcessing> postProcessings, int slabSize) throws IOException, InvalidRangeException {
+        if (slabSize < 1) {
+            throw new IllegalArgumentException("Slab size must be positive: " + slabSize);
+        }
+
+        final Map<String, Variable> variables = new LinkedHashMap<>();
+        for (final SlabPostProcessing postProcessing : postProcessings) {
+            for (final String variableName : postProcessing.getSlabVariableNames()) {
+                if (!variables.containsKey(variableName)) {
+                    variables.put(variableName, getMatchupVariable(reader, variableName));
+                }
+            }
+        }
+
+        final int matchupCount = NetCDFUtils.getDimensionLength(FiduceoConstants.MATCHUP_COUNT, reader);
+        int numSlabs = 0;
+        for (int offset = 0; offset < matchupCount; offset += slabSize) {
+            final int length = Math.min(slabSize, matchupCount - offset);
+            final MatchupSlab slab = new MatchupSlab(offset, length);
+            for (final Map.Entry<String, Variable> entry : variables.entrySet()) {
+                final Variable variable = entry.getValue();
+                final int[] origin = new int[variable.getRank()];
+                final int[] shape = variable.getShape();
+                origin[0] = offset;
+                shape[0] = length;
+                slab.put(entry.getKey(), variable.read(origin, shape));
+            }
+
+            for (final SlabPostProcessing postProcessing : postProcessings) {
+                postProcessing.processSlab(slab, writer);
+            }
+            ++numSlabs;
+        }
+        return numSlabs;
+    }
+
+    private static Variable getMatchupVariable(NetcdfFile reader, String variableName) {
+        final Variable variable = NetCDFUtils.getVariable(reader, variableName);
+        final Dimension dimension = variable.getRank() > 0 ? variable.getDimension(0) : null;
+        if (dimension == null || !FiduceoConstants.MATCHUP_COUNT.equals(dimension.getShortName())) {
+            throw new RuntimeException("Slab variable must have " + FiduceoConstants.MATCHUP_COUNT + " as first dimension: " + variableName);
+        }
+        return variable;
+    }
+}
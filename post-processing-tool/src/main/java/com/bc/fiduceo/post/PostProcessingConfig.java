@@ -20,6 +20,7 @@
 package com.bc.fiduceo.post;
 
 import com.bc.fiduceo.util.JDomUtils;
+import com.bc.fiduceo.util.MmdChunking;
 import org.jdom.Document;
 import org.jdom.Element;
 import org.jdom.JDOMException;
@@ -40,12 +41,19 @@ public class PostProcessingConfig {
     static final String TAG_NAME_NEW_FILES = "create-new-files";
     static final String TAG_NAME_OUTPUT_DIR = "output-directory";
     static final String TAG_NAME_OVERWRITE = "overwrite";
+    static final String TAG_NAME_INPUT_CACHE_SIZE_MB = "input-cache-size-mb";
+    static final String TAG_NAME_MATCHUP_SLAB_SIZE = "matchup-slab-size";
+
+    private static final int DEFAULT_INPUT_CACHE_SIZE_MB = 256;
 
     transient private Document document;
     private boolean newFiles;
     private String outputDirectory;
     private boolean overwrite;
     private List<Element> postProcessingElements;
+    private MmdChunking nc4Chunking;
+    private long inputCacheBytes;
+    private int matchupSlabSize;
 
     private PostProcessingConfig(Document document) {
         this.document = document;
@@ -87,6 +95,18 @@ public class PostProcessingConfig {
         return overwrite;
     }
 
+    MmdChunking getNc4Chunking() {
+        return nc4Chunking;
+    }
+
+    long getInputCacheBytes() {
+        return inputCacheBytes;
+    }
+
+    int getMatchupSlabSize() {
+        return matchupSlabSize;
+    }
+
     @SuppressWarnings("unchecked")
     private void init() {
         final Element rootElement = JDomUtils.getMandatoryRootElement(TAG_NAME_ROOT, document);
@@ -106,6 +126,32 @@ public class PostProcessingConfig {
             throw new RuntimeException("Either <" + TAG_NAME_NEW_FILES + "> or <" + TAG_NAME_OVERWRITE + "> must be configured.");
         }
 
+        int inputCacheSizeMb = DEFAULT_INPUT_CACHE_SIZE_MB;
+        final Element inputCacheSizeElem = rootElement.getChild(TAG_NAME_INPUT_CACHE_SIZE_MB);
+        if (inputCacheSizeElem != null) {
+            inputCacheSizeMb = Integer.parseInt(inputCacheSizeElem.getTextTrim());
+            if (inputCacheSizeMb < 0) {
+                throw new RuntimeException("Tag <" + TAG_NAME_INPUT_CACHE_SIZE_MB + "> must not be negative.");
+            }
+        }
+        inputCacheBytes = inputCacheSizeMb * 1024L * 1024L;
+
+        matchupSlabSize = MatchupSlabLoop.DEFAULT_SLAB_SIZE;
+        final Element matchupSlabSizeElem = rootElement.getChild(TAG_NAME_MATCHUP_SLAB_SIZE);
+        if (matchupSlabSizeElem != null) {
+            matchupSlabSize = Integer.parseInt(matchupSlabSizeElem.getTextTrim());
+            if (matchupSlabSize < 0) {
+                throw new RuntimeException("Tag <" + TAG_NAME_MATCHUP_SLAB_SIZE + "> must not be negative.");
+            }
+        }
+
+        final Element nc4ChunkingElem = rootElement.getChild(MmdChunking.TAG_NAME_NC4_CHUNKING);
+        if (nc4ChunkingElem != null) {
+            nc4Chunking = MmdChunking.fromElement(nc4ChunkingElem);
+        } else {
+            nc4Chunking = MmdChunking.createDefault();
+        }
+
         final Element processingsElem = JDomUtils.getMandatoryChild(rootElement, TAG_NAME_POST_PROCESSINGS);
         postProcessingElements = processingsElem.getChildren();
         if (postProcessingElements.size() == 0) {
@@ -26,6 +26,7 @@ import com.bc.fiduceo.core.SystemConfig;
 import com.bc.fiduceo.geometry.GeometryFactory;
 import com.bc.fiduceo.log.FiduceoLogger;
 import com.bc.fiduceo.reader.ReaderFactory;
+import com.bc.fiduceo.util.MmdChunking;
 import com.bc.fiduceo.util.NetCDFUtils;
 import com.bc.fiduceo.util.TempFileUtils;
 import com.bc.fiduceo.util.TimeUtils;
@@ -35,11 +36,10 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.esa.snap.core.util.StringUtils;
 import org.jdom.Element;
+import ucar.ma2.Array;
 import ucar.ma2.InvalidRangeException;
 import ucar.nc2.*;
 import ucar.nc2.constants.DataFormatType;
-import ucar.nc2.write.Nc4Chunking;
-import ucar.nc2.write.Nc4ChunkingDefault;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -101,7 +101,7 @@ class PostProcessingTool {
         context.setArchive(archive);
 
         final String geometryLibraryType = systemConfig.getGeometryLibraryType();
-        final ReaderFactory readerFactory = ReaderFactory.create(new GeometryFactory(geometryLibraryType), context.getTempFileUtils(), archive);
+        final ReaderFactory readerFactory = ReaderFactory.create(new GeometryFactory(geometryLibraryType), context.getTempFileUtils(), archive, systemConfig);
         context.setReaderFactory(readerFactory);
 
         logger.info("Success loading configuration.");
@@ -248,7 +248,7 @@ class PostProcessingTool {
                 // open the file that way is needed because the standard open mechanism changes the file size
                 reader = NetCDFUtils.openReadOnly(absSource);
 
-                writer = createWriter(target, reader);
+                writer = createWriter(target, reader, context.getProcessingConfig().getNc4Chunking());
 
                 run(reader, writer, processings);
             } finally {
@@ -280,10 +280,45 @@ class PostProcessingTool {
         }
         writer.create();
 
-        transferData(writer, rootGroup);
+        final InputVariableCache inputCache = new InputVariableCache(context.getProcessingConfig().getInputCacheBytes());
+        try {
+            transferData(writer, rootGroup, inputCache);
+            logger.info(String.format("pinned %d input variables, %d bytes", inputCache.getNumPinned(), inputCache.getPinnedBytes()));
+            compute(reader, writer, postProcessings, context.getProcessingConfig().getMatchupSlabSize());
+        } finally {
+            inputCache.release();
+        }
+    }
+
+    // package access for testing only
+    static void compute(NetcdfFile reader, NetcdfFileWriter writer, List<PostProcessing> postProcessings, int slabSize) throws IOException, InvalidRangeException {
+        if (slabSize < 1) {
+            for (PostProcessing postProcessing : postProcessings) {
+                postProcessing.compute(reader, writer);
+            }
+            return;
+        }
+
+        // consecutive slab post-processings share one loop over the matchups, the configured order is kept
+        final List<SlabPostProcessing> slabGroup = new ArrayList<>();
         for (PostProcessing postProcessing : postProcessings) {
+            if (postProcessing instanceof SlabPostProcessing) {
+                slabGroup.add((SlabPostProcessing) postProcessing);
+                continue;
+            }
+            runSlabGroup(reader, writer, slabGroup, slabSize);
             postProcessing.compute(reader, writer);
         }
+        runSlabGroup(reader, writer, slabGroup, slabSize);
+    }
+
+    private static void runSlabGroup(NetcdfFile reader, NetcdfFileWriter writer, List<SlabPostProcessing> slabGroup, int slabSize) throws IOException, InvalidRangeException {
+        if (slabGroup.isEmpty()) {
+            return;
+        }
+        final int numSlabs = MatchupSlabLoop.run(reader, writer, slabGroup, slabSize);
+        logger.info(String.format("processed %d slab post-processings in %d slabs", slabGroup.size(), numSlabs));
+        slabGroup.clear();
     }
 
     // package access for testing only tb 2017-06-02
@@ -318,13 +353,12 @@ class PostProcessingTool {
         return variableNamesToRemove;
     }
 
-    private static NetcdfFileWriter createWriter(Path target, NetcdfFile reader) throws IOException {
+    private static NetcdfFileWriter createWriter(Path target, NetcdfFile reader, MmdChunking chunking) throws IOException {
         NetcdfFileWriter writer;
         final String absTarget = target.toAbsolutePath().toString();
         if (DataFormatType.NETCDF.name().equalsIgnoreCase(reader.getFileTypeId())) {
             writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, absTarget);
         } else {
-            final Nc4Chunking chunking = Nc4ChunkingDefault.factory(Nc4Chunking.Strategy.standard, 5, true);
             writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf4, absTarget, chunking);
         }
 
@@ -376,19 +410,21 @@ class PostProcessingTool {
         }
     }
 
-    private static void transferData(NetcdfFileWriter writer, Group oldGroup) throws IOException, InvalidRangeException {
+    private static void transferData(NetcdfFileWriter writer, Group oldGroup, InputVariableCache inputCache) throws IOException, InvalidRangeException {
         for (Variable v : oldGroup.getVariables()) {
 
             logger.info(String.format("write %s", v.getNameAndDimensions()));
             Variable nv = writer.findVariable(v.getFullName());
             if (nv != null) {
-                writer.write(nv, v.read());
+                final Array data = v.read();
+                writer.write(nv, data);
+                inputCache.pin(v, data);
             }
         }
 
         // recurse
         for (Group g : oldGroup.getGroups()) {
-            transferData(writer, g);
+            transferData(writer, g, inputCache);
         }
     }
 
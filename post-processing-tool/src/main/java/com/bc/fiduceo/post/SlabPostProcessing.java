@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+
+package com.bc.fiduceo.post;
+
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.NetcdfFileWriter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Optional API for post-processings working matchup by matchup. The plugin declares the input MMD variables it needs
+ * per matchup, the engine reads these variables slab-wise (a range of matchups at a time) and hands each slab to all
+ * consecutive slab post-processings of the configuration. Each input variable is thus read once per slab for all
+ * plugins, and only slab sized buffers are kept in memory.
+ * <p>
+ * Implementing classes extend {@link PostProcessing}; their compute() can delegate to {@link MatchupSlabLoop} so
+ * that they behave identically when run on their own.
+ */
+public interface SlabPostProcessing {
+
+    /**
+     * Returns the names of the input MMD variables needed per matchup. All variables must have matchup_count as
+     * first dimension.
+     *
+     * @return the variable names
+     */
+    List<String> getSlabVariableNames();
+
+    /**
+     * Processes the matchups of one slab and writes the results for these matchups to the target MMD.
+     *
+     * @param slab   the input data of the slab
+     * @param writer the NetcdfFileWriter opened on the target MMD, in write-mode
+     * @throws IOException           on disk access failures
+     * @throws InvalidRangeException on other occasions
+     */
+    void processSlab(MatchupSlab slab, NetcdfFileWriter writer) throws IOException, InvalidRangeException;
+}
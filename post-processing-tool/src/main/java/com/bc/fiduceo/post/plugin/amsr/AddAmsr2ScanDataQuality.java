@@ -1,7 +1,10 @@
 package com.bc.fiduceo.post.plugin.amsr;
 
 import com.bc.fiduceo.FiduceoConstants;
+import com.bc.fiduceo.post.MatchupSlab;
+import com.bc.fiduceo.post.MatchupSlabLoop;
 import com.bc.fiduceo.post.PostProcessing;
+import com.bc.fiduceo.post.SlabPostProcessing;
 import com.bc.fiduceo.reader.amsr.amsr2.AMSR2_Reader;
 import com.bc.fiduceo.util.NetCDFUtils;
 import ucar.ma2.Array;
@@ -17,9 +20,11 @@ import ucar.nc2.Variable;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
-class AddAmsr2ScanDataQuality extends PostProcessing {
+class AddAmsr2ScanDataQuality extends PostProcessing implements SlabPostProcessing {
 
     private Configuration configuration;
 
@@ -41,33 +46,34 @@ class AddAmsr2ScanDataQuality extends PostProcessing {
 
     @Override
     protected void compute(NetcdfFile reader, NetcdfFileWriter writer) throws IOException, InvalidRangeException {
-        final Variable fileNameVariable = NetCDFUtils.getVariable(reader, configuration.filenameVariableName);
-        final Variable processingVersionVariable = NetCDFUtils.getVariable(reader, configuration.processingVersionVariableName);
+        MatchupSlabLoop.run(reader, writer, Collections.singletonList(this), MatchupSlabLoop.DEFAULT_SLAB_SIZE);
+    }
 
-        final Variable yVariable = NetCDFUtils.getVariable(reader, configuration.yCoordinateVariableName);
-        final Array yArray = yVariable.read();
+    @Override
+    public List<String> getSlabVariableNames() {
+        return Arrays.asList(configuration.filenameVariableName, configuration.processingVersionVariableName, configuration.yCoordinateVariableName);
+    }
 
-        final int matchup_count = NetCDFUtils.getDimensionLength(FiduceoConstants.MATCHUP_COUNT, reader);
-        final int fileNameSize = NetCDFUtils.getDimensionLength(FiduceoConstants.FILE_NAME, reader);
-        final int processingVersionSize = NetCDFUtils.getDimensionLength(FiduceoConstants.PROCESSING_VERSION, reader);
+    @Override
+    public void processSlab(MatchupSlab slab, NetcdfFileWriter writer) throws IOException, InvalidRangeException {
+        final Array yArray = slab.get(configuration.yCoordinateVariableName);
         final Variable targetVariable = NetCDFUtils.getVariable(writer, configuration.targetVariableName);
 
-        final ArrayByte.D2 writeArray = new ArrayByte.D2(1, 512, false);
-        final int[] origin = new int[]{0, 0};
-        for (int i = 0; i < matchup_count; i++) {
-            final String fileName = NetCDFUtils.readString(fileNameVariable, i, fileNameSize);
-            final String processingVersion = NetCDFUtils.readString(processingVersionVariable, i, processingVersionSize);
+        final int length = slab.getLength();
+        final ArrayByte.D2 writeArray = new ArrayByte.D2(length, 512, false);
+        for (int i = 0; i < length; i++) {
+            final String fileName = slab.getString(configuration.filenameVariableName, i);
+            final String processingVersion = slab.getString(configuration.processingVersionVariableName, i);
 
             final AMSR2_Reader amsr2Reader = (AMSR2_Reader) readerCache.getReaderFor("amsr2-gcw1", Paths.get(fileName), processingVersion);
 
             final Array scan_data_quality = amsr2Reader.readScanDataQuality(yArray.getInt(i));
             for (int k = 0; k < 512; k++) {
-                writeArray.set(0, k, scan_data_quality.getByte(k));
+                writeArray.set(i, k, scan_data_quality.getByte(k));
             }
-
-            origin[0] = i;
-            writer.write(targetVariable, origin, writeArray);
         }
+
+        writer.write(targetVariable, new int[]{slab.getOffset(), 0}, writeArray);
     }
 
     @Override
@@ -4,6 +4,9 @@ class Configuration {
 
     private String nwpAuxDir;
     private String era5Collection;
+    private int cacheSizeMb;
+    private boolean memoryMapped;
+    private int readAheadSteps;
 
     private SatelliteFieldsConfiguration satelliteFields;
     private MatchupFieldsConfiguration matchupFields;
@@ -24,6 +27,30 @@ class Configuration {
         this.era5Collection = era5Collection;
     }
 
+    int getCacheSizeMb() {
+        return cacheSizeMb;
+    }
+
+    void setCacheSizeMb(int cacheSizeMb) {
+        this.cacheSizeMb = cacheSizeMb;
+    }
+
+    boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    int getReadAheadSteps() {
+        return readAheadSteps;
+    }
+
+    void setReadAheadSteps(int readAheadSteps) {
+        this.readAheadSteps = readAheadSteps;
+    }
+
     SatelliteFieldsConfiguration getSatelliteFields() {
         return satelliteFields;
     }
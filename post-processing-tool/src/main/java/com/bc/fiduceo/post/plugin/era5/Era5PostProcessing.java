@@ -1,6 +1,7 @@
 package com.bc.fiduceo.post.plugin.era5;
 
 import com.bc.fiduceo.FiduceoConstants;
+import com.bc.fiduceo.log.FiduceoLogger;
 import com.bc.fiduceo.post.PostProcessing;
 import org.esa.snap.core.util.StringUtils;
 import ucar.ma2.Array;
@@ -12,6 +13,7 @@ import ucar.nc2.NetcdfFileWriter;
 
 import java.awt.*;
 import java.io.IOException;
+import java.util.logging.Level;
 
 class Era5PostProcessing extends PostProcessing {
 
@@ -21,6 +23,8 @@ class Era5PostProcessing extends PostProcessing {
 
     private SatelliteFields satelliteFields;
     private MatchupFields matchupFields;
+    private VariableCache satelliteFieldsCache;
+    private VariableCache matchupFieldsCache;
 
     Era5PostProcessing(Configuration configuration) {
         super();
@@ -28,6 +32,8 @@ class Era5PostProcessing extends PostProcessing {
         this.configuration = configuration;
         satelliteFields = null;
         matchupFields = null;
+        satelliteFieldsCache = null;
+        matchupFieldsCache = null;
     }
 
     static int getEra5LatMin(float latMax) {
@@ -157,13 +163,19 @@ class Era5PostProcessing extends PostProcessing {
         final SatelliteFieldsConfiguration satFieldsConfig = configuration.getSatelliteFields();
         if (satFieldsConfig != null) {
             satelliteFields = new SatelliteFields();
-            satelliteFields.prepare(satFieldsConfig, reader, writer, collection);
+            satelliteFields.prepare(satFieldsConfig, reader, writer);
+            if (satelliteFieldsCache == null) {
+                satelliteFieldsCache = createVariableCache(configuration, collection, SatelliteFields.getCacheSize());
+            }
         }
 
         final MatchupFieldsConfiguration matchupFieldsConfig = configuration.getMatchupFields();
         if (matchupFieldsConfig != null) {
             matchupFields = new MatchupFields();
-            matchupFields.prepare(matchupFieldsConfig, reader, writer, collection);
+            matchupFields.prepare(matchupFieldsConfig, reader, writer);
+            if (matchupFieldsCache == null) {
+                matchupFieldsCache = createVariableCache(configuration, collection, MatchupFields.getCacheSize(matchupFieldsConfig));
+            }
         }
     }
 
@@ -187,14 +199,23 @@ class Era5PostProcessing extends PostProcessing {
         throw new IllegalArgumentException("Unable to detect ERA5 collection from datapath. Please configure explicitly.");
     }
 
+    // package access for testing only
+    static VariableCache createVariableCache(Configuration configuration, Era5Collection collection, int cacheSize) {
+        final Era5Archive era5Archive = new Era5Archive(configuration.getNWPAuxDir(), collection);
+
+        final int cacheSizeMb = configuration.getCacheSizeMb();
+        final long maxBytes = cacheSizeMb > 0 ? cacheSizeMb * 1024L * 1024L : Long.MAX_VALUE;
+        return new VariableCache(era5Archive, cacheSize, maxBytes, configuration.isMemoryMapped(), configuration.getReadAheadSteps());
+    }
+
     @Override
     protected void compute(NetcdfFile reader, NetcdfFileWriter writer) throws IOException, InvalidRangeException {
         if (satelliteFields != null) {
-            satelliteFields.compute(configuration, reader, writer);
+            satelliteFields.compute(configuration, reader, writer, satelliteFieldsCache);
         }
 
         if (matchupFields != null) {
-            matchupFields.compute(configuration, reader, writer);
+            matchupFields.compute(configuration, reader, writer, matchupFieldsCache);
         }
     }
 
@@ -203,6 +224,24 @@ class Era5PostProcessing extends PostProcessing {
         satelliteFields = null;
         matchupFields = null;
 
+        // the variable caches are shared by all MMD files of a processing run and released here
+        closeCache(satelliteFieldsCache);
+        satelliteFieldsCache = null;
+        closeCache(matchupFieldsCache);
+        matchupFieldsCache = null;
+
         super.dispose();
     }
+
+    private static void closeCache(VariableCache variableCache) {
+        if (variableCache == null) {
+            return;
+        }
+
+        try {
+            variableCache.close();
+        } catch (IOException e) {
+            FiduceoLogger.getLogger().log(Level.WARNING, "IO Exception while disposing the ERA-5 variable cache.", e);
+        }
+    }
 }
@@ -23,6 +23,21 @@ public class Era5PostProcessingPlugin implements PostProcessingPlugin {
             }
         }
 
+        final Element cacheSizeElement = rootElement.getChild("cache-size-mb");
+        if (cacheSizeElement != null) {
+            configuration.setCacheSizeMb(Integer.parseInt(getElementValueTrimmed(cacheSizeElement)));
+        }
+
+        final Element memoryMapElement = rootElement.getChild("memory-map");
+        if (memoryMapElement != null) {
+            configuration.setMemoryMapped(Boolean.parseBoolean(getElementValueTrimmed(memoryMapElement)));
+        }
+
+        final Element readAheadElement = rootElement.getChild("read-ahead-steps");
+        if (readAheadElement != null) {
+            configuration.setReadAheadSteps(Integer.parseInt(getElementValueTrimmed(readAheadElement)));
+        }
+
         parseSatelliteFields(rootElement, configuration);
         parseMatchupFields(rootElement, configuration);
 
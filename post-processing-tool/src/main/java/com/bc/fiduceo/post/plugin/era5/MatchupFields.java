@@ -21,7 +21,6 @@ class MatchupFields extends FieldsProcessor {
     private static final int SECS_PER_HOUR = 3600;
 
     private Map<String, TemplateVariable> variables;
-    private Era5Collection collection;
 
     private static Array createTimeArray(NetcdfFile reader, MatchupFieldsConfiguration matchupConfig, int numTimeSteps, Variable nwpTimeVariable) throws IOException, InvalidRangeException {
         final Array timeArray = VariableUtils.readTimeArray(matchupConfig.get_time_variable_name(), reader);
@@ -50,11 +49,9 @@ class MatchupFields extends FieldsProcessor {
         return targetTimeArray;
     }
 
-    void prepare(MatchupFieldsConfiguration matchupFieldsConfig, NetcdfFile reader, NetcdfFileWriter writer, Era5Collection collection) {
+    void prepare(MatchupFieldsConfiguration matchupFieldsConfig, NetcdfFile reader, NetcdfFileWriter writer) {
         matchupFieldsConfig.verify();
 
-        this.collection = collection;
-
         final List<Dimension> dimensions = getDimensions(matchupFieldsConfig, writer, reader);
 
         variables = getVariables(matchupFieldsConfig);
@@ -67,109 +64,110 @@ class MatchupFields extends FieldsProcessor {
         addTimeVariable(matchupFieldsConfig, dimensions, writer);
     }
 
-    void compute(Configuration config, NetcdfFile reader, NetcdfFileWriter writer) throws IOException, InvalidRangeException {
-        final Era5Archive era5Archive = new Era5Archive(config.getNWPAuxDir(), collection);
+    // the cache must be large enough to hold the time-series for one Era-5 variable
+    static int getCacheSize(MatchupFieldsConfiguration matchupConfig) {
+        return getNumTimeSteps(matchupConfig);
+    }
+
+    void compute(Configuration config, NetcdfFile reader, NetcdfFileWriter writer, VariableCache variableCache) throws IOException, InvalidRangeException {
         final MatchupFieldsConfiguration matchupConfig = config.getMatchupFields();
+        final int numTimeSteps = getNumTimeSteps(matchupConfig);
+
+        // open input time variable
+        // + read completely
+        // + convert to ERA-5 time stamps
+        // + calculate time past and future timestamps for each matchup
+        // + write to MMD
+        final Variable nwpTimeVariable = NetCDFUtils.getVariable(writer, matchupConfig.get_nwp_time_variable_name());
+        final Array targetTimeArray = createTimeArray(reader, matchupConfig, numTimeSteps, nwpTimeVariable);
+        writer.write(nwpTimeVariable, targetTimeArray);
+
+        // open longitude and latitude input variables
+        // + read 1/1 subset
+        // + scale if necessary
+        final com.bc.fiduceo.core.Dimension geoDimension = new com.bc.fiduceo.core.Dimension("geoloc", 1, 1);
+        final Array lonArray = readGeolocationVariable(geoDimension, reader, matchupConfig.get_longitude_variable_name());
+        final Array latArray = readGeolocationVariable(geoDimension, reader, matchupConfig.get_latitude_variable_name());
+
+        // for all nwp variables
+        // - get variable
+        // - get data array
+        final int numMatches = NetCDFUtils.getDimensionLength(FiduceoConstants.MATCHUP_COUNT, reader);
+        final int[] nwpShape = new int[]{1, 1, 1};
+        final int[] nwpOffset = new int[]{0, 0, 0};
+        final Index timeIndex = targetTimeArray.getIndex();
+        final Set<String> variableKeys = variables.keySet();
+        final HashMap<String, Array> targetArrays = allocateTargetData(writer, variables);
+
+        // iterate over matchups
+        for (final String variableKey : variableKeys) {
+            final Array targetArray = targetArrays.get(variableKey);
+            final Index targetIndex = targetArray.getIndex();
+
+            for (int m = 0; m < numMatches; m++) {
+                nwpOffset[0] = m;
+
+                final Array lonLayer = lonArray.section(nwpOffset, nwpShape);
+                final Array latLayer = latArray.section(nwpOffset, nwpShape);
+
+                final InterpolationContext interpolationContext = Era5PostProcessing.getInterpolationContext(lonLayer, latLayer);
+                final Rectangle layerRegion = interpolationContext.getEra5Region();
+                final int[] offset = new int[]{layerRegion.y, layerRegion.x};
+                final int[] shape = new int[]{layerRegion.height, layerRegion.width};
+
+                // iterate over time stamps
+                for (int t = 0; t < numTimeSteps; t++) {
+                    timeIndex.set(m, t);
+                    targetIndex.set(m, t);
+
+                    final int timeStamp = targetTimeArray.getInt(timeIndex);
+                    if (VariableUtils.isTimeFill(timeStamp)) {
+                        targetArray.setFloat(targetIndex, TemplateVariable.getFillValue());
+                        continue;
+                    }
 
-        // allocate cache large enough to hold the time-series for one Era-5 variable
-        final int numTimeSteps = matchupConfig.get_time_steps_future() + matchupConfig.get_time_steps_past() + 1;
-        final VariableCache variableCache = new VariableCache(era5Archive, numTimeSteps);
-
-        try {
-            // open input time variable
-            // + read completely
-            // + convert to ERA-5 time stamps
-            // + calculate time past and future timestamps for each matchup
-            // + write to MMD
-            final Variable nwpTimeVariable = NetCDFUtils.getVariable(writer, matchupConfig.get_nwp_time_variable_name());
-            final Array targetTimeArray = createTimeArray(reader, matchupConfig, numTimeSteps, nwpTimeVariable);
-            writer.write(nwpTimeVariable, targetTimeArray);
-
-            // open longitude and latitude input variables
-            // + read 1/1 subset
-            // + scale if necessary
-            final com.bc.fiduceo.core.Dimension geoDimension = new com.bc.fiduceo.core.Dimension("geoloc", 1, 1);
-            final Array lonArray = readGeolocationVariable(geoDimension, reader, matchupConfig.get_longitude_variable_name());
-            final Array latArray = readGeolocationVariable(geoDimension, reader, matchupConfig.get_latitude_variable_name());
-
-            // for all nwp variables
-            // - get variable
-            // - get data array
-            final int numMatches = NetCDFUtils.getDimensionLength(FiduceoConstants.MATCHUP_COUNT, reader);
-            final int[] nwpShape = new int[]{1, 1, 1};
-            final int[] nwpOffset = new int[]{0, 0, 0};
-            final Index timeIndex = targetTimeArray.getIndex();
-            final Set<String> variableKeys = variables.keySet();
-            final HashMap<String, Array> targetArrays = allocateTargetData(writer, variables);
-
-            // iterate over matchups
-            for (final String variableKey : variableKeys) {
-                final Array targetArray = targetArrays.get(variableKey);
-                final Index targetIndex = targetArray.getIndex();
-
-                for (int m = 0; m < numMatches; m++) {
-                    nwpOffset[0] = m;
-
-                    final Array lonLayer = lonArray.section(nwpOffset, nwpShape);
-                    final Array latLayer = latArray.section(nwpOffset, nwpShape);
-
-                    final InterpolationContext interpolationContext = Era5PostProcessing.getInterpolationContext(lonLayer, latLayer);
-                    final Rectangle layerRegion = interpolationContext.getEra5Region();
-                    final int[] offset = new int[]{layerRegion.y, layerRegion.x};
-                    final int[] shape = new int[]{layerRegion.height, layerRegion.width};
-
-                    // iterate over time stamps
-                    for (int t = 0; t < numTimeSteps; t++) {
-                        timeIndex.set(m, t);
-                        targetIndex.set(m, t);
-
-                        final int timeStamp = targetTimeArray.getInt(timeIndex);
-                        if (VariableUtils.isTimeFill(timeStamp)) {
-                            targetArray.setFloat(targetIndex, TemplateVariable.getFillValue());
-                            continue;
-                        }
-
-                        VariableCache.CacheEntry cacheEntry = variableCache.get(variableKey, timeStamp);
-
-                        // read and get rid of fake z-dimension
-                        Array subset = cacheEntry.array.section(offset, shape);
-                        subset = NetCDFUtils.scaleIfNecessary(cacheEntry.variable, subset);
-                        final Index subsetIndex = subset.getIndex();
-                        final BilinearInterpolator bilinearInterpolator = interpolationContext.get(0, 0);
-                        if (bilinearInterpolator == null) {
-                            targetArray.setFloat(targetIndex, TemplateVariable.getFillValue());
-                            continue;
-                        }
-
-                        subsetIndex.set(0, 0);
-                        final float c00 = subset.getFloat(subsetIndex);
-
-                        subsetIndex.set(0, 1);
-                        final float c10 = subset.getFloat(subsetIndex);
-
-                        subsetIndex.set(1, 0);
-                        final float c01 = subset.getFloat(subsetIndex);
-
-                        subsetIndex.set(1, 1);
-                        final float c11 = subset.getFloat(subsetIndex);
-                        final double interpolated = bilinearInterpolator.interpolate(c00, c10, c01, c11);
-
-                        targetArray.setFloat(targetIndex, (float) interpolated);
+                    VariableCache.CacheEntry cacheEntry = variableCache.get(variableKey, timeStamp);
+
+                    // read and get rid of fake z-dimension
+                    Array subset = cacheEntry.array.section(offset, shape);
+                    subset = NetCDFUtils.scaleIfNecessary(cacheEntry.variable, subset);
+                    final Index subsetIndex = subset.getIndex();
+                    final BilinearInterpolator bilinearInterpolator = interpolationContext.get(0, 0);
+                    if (bilinearInterpolator == null) {
+                        targetArray.setFloat(targetIndex, TemplateVariable.getFillValue());
+                        continue;
                     }
+
+                    subsetIndex.set(0, 0);
+                    final float c00 = subset.getFloat(subsetIndex);
+
+                    subsetIndex.set(0, 1);
+                    final float c10 = subset.getFloat(subsetIndex);
+
+                    subsetIndex.set(1, 0);
+                    final float c01 = subset.getFloat(subsetIndex);
+
+                    subsetIndex.set(1, 1);
+                    final float c11 = subset.getFloat(subsetIndex);
+                    final double interpolated = bilinearInterpolator.interpolate(c00, c10, c01, c11);
+
+                    targetArray.setFloat(targetIndex, (float) interpolated);
                 }
             }
+        }
 
-            for (final String variableKey : variableKeys) {
-                final TemplateVariable templateVariable = variables.get(variableKey);
-                final Variable targetVariable = writer.findVariable(NetCDFUtils.escapeVariableName(templateVariable.getName()));
-                final Array targetArray = targetArrays.get(variableKey);
-                writer.write(targetVariable, targetArray);
-            }
-        } finally {
-            variableCache.close();
+        for (final String variableKey : variableKeys) {
+            final TemplateVariable templateVariable = variables.get(variableKey);
+            final Variable targetVariable = writer.findVariable(NetCDFUtils.escapeVariableName(templateVariable.getName()));
+            final Array targetArray = targetArrays.get(variableKey);
+            writer.write(targetVariable, targetArray);
         }
     }
 
+    private static int getNumTimeSteps(MatchupFieldsConfiguration matchupConfig) {
+        return matchupConfig.get_time_steps_future() + matchupConfig.get_time_steps_past() + 1;
+    }
+
     private void addTimeVariable(MatchupFieldsConfiguration matchupFieldsConfig, List<Dimension> dimensions, NetcdfFileWriter writer) {
         final String timeVariableName = matchupFieldsConfig.get_nwp_time_variable_name();
 //        final String escapedName = NetCDFUtils.escapeVariableName(timeVariableName);
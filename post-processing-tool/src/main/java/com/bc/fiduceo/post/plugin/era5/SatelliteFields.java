@@ -23,7 +23,6 @@ class SatelliteFields extends FieldsProcessor {
     private List<Dimension> dimension2d;
     private List<Dimension> dimension3d;
     private Map<String, TemplateVariable> variables;
-    private Era5Collection collection;
 
     static Array readSubset(int numLayers, Rectangle era5RasterPosition, VariableCache.CacheEntry cacheEntry) throws IOException, InvalidRangeException {
         Array subset;
@@ -162,12 +161,10 @@ class SatelliteFields extends FieldsProcessor {
         return subset;
     }
 
-    void prepare(SatelliteFieldsConfiguration satFieldsConfig, NetcdfFile reader, NetcdfFileWriter writer, Era5Collection collection) {
+    void prepare(SatelliteFieldsConfiguration satFieldsConfig, NetcdfFile reader, NetcdfFileWriter writer) {
         satFieldsConfig.verify();
         setDimensions(satFieldsConfig, writer, reader);
 
-        this.collection = collection;
-
         variables = getVariables(satFieldsConfig);
         final Collection<TemplateVariable> values = variables.values();
         for (TemplateVariable template : values) {
@@ -180,80 +177,118 @@ class SatelliteFields extends FieldsProcessor {
         addTimeVariable(satFieldsConfig, writer);
     }
 
-    void compute(Configuration config, NetcdfFile reader, NetcdfFileWriter writer) throws IOException, InvalidRangeException {
+    static int getCacheSize() {
+        return 52; // 4 * 13 variables tb 2020-11-25
+    }
+
+    void compute(Configuration config, NetcdfFile reader, NetcdfFileWriter writer, VariableCache variableCache) throws IOException, InvalidRangeException {
         final SatelliteFieldsConfiguration satFieldsConfig = config.getSatelliteFields();
         final int numLayers = satFieldsConfig.get_z_dim();
-        final Era5Archive era5Archive = new Era5Archive(config.getNWPAuxDir(), collection);
-        final VariableCache variableCache = new VariableCache(era5Archive, 52); // 4 * 13 variables tb 2020-11-25
-
-        try {
-            // open input time variable
-            // + read completely
-            // + convert to ERA-5 time stamps
-            // + write to MMD
-            final Array timeArray = VariableUtils.readTimeArray(satFieldsConfig.get_time_variable_name(), reader);
-            final Array era5TimeArray = convertToEra5TimeStamp(timeArray);
-            final Variable targetTimeVariable = NetCDFUtils.getVariable(writer, satFieldsConfig.get_nwp_time_variable_name());
-            writer.write(targetTimeVariable, era5TimeArray);
-
-            // open longitude and latitude input variables
-            // + read completely or specified x/y subset
-            // + scale if necessary
-            final com.bc.fiduceo.core.Dimension geoDimension = new com.bc.fiduceo.core.Dimension("geoloc", satFieldsConfig.get_x_dim(), satFieldsConfig.get_y_dim());
-            final Array lonArray = readGeolocationVariable(geoDimension, reader, satFieldsConfig.get_longitude_variable_name());
-            final Array latArray = readGeolocationVariable(geoDimension, reader, satFieldsConfig.get_latitude_variable_name());
-
-            // prepare data
-            // + calculate dimensions
-            // + allocate target data arrays
-            final int numMatches = NetCDFUtils.getDimensionLength(FiduceoConstants.MATCHUP_COUNT, reader);
-            final int[] nwpShape = getNwpShape(geoDimension, lonArray.getShape());
-            final int[] nwpOffset = getNwpOffset(lonArray.getShape(), nwpShape);
-            final int[] nwpStride = {1, 1, 1};
-            final HashMap<String, Array> targetArrays = allocateTargetData(writer, variables);
-
-            // iterate over matchups
-            //   + convert geo-region to era-5 extract
-            //   + prepare interpolation context
-            final Index timeIndex = era5TimeArray.getIndex();
-            for (int m = 0; m < numMatches; m++) {
-                nwpOffset[0] = m;
-                nwpShape[0] = 1;
-
-                // get a subset of one matchup layer and convert to 2D dataset
-                final Array lonLayer = lonArray.sectionNoReduce(nwpOffset, nwpShape, nwpStride).reduce(0);
-                final Array latLayer = latArray.sectionNoReduce(nwpOffset, nwpShape, nwpStride).reduce(0);
-
-                final int[] shape = lonLayer.getShape();
-                final int width = shape[1];
-                final int height = shape[0];
-
-                final InterpolationContext interpolationContext = Era5PostProcessing.getInterpolationContext(lonLayer, latLayer);
-                final Rectangle layerRegion = interpolationContext.getEra5Region();
-
-                timeIndex.set(m);
-                final int era5Time = era5TimeArray.getInt(timeIndex);
-                final boolean isTimeFill = VariableUtils.isTimeFill(era5Time);
-
-                //   iterate over variables
-                //     + assemble variable file name
-                //     + read variable data extract
-                //     + interpolate (2d, 3d per layer)
-                //     - store to target raster
-                final Set<String> variableKeys = variables.keySet();
-                for (final String variableKey : variableKeys) {
-                    VariableCache.CacheEntry cacheEntry = variableCache.get(variableKey, era5Time);
-                    final Array subset = readSubset(numLayers, layerRegion, cacheEntry);
-                    final Index subsetIndex = subset.getIndex();
-
-                    final Array targetArray = targetArrays.get(variableKey);
-                    final Index targetIndex = targetArray.getIndex();
-
-                    final int rank = subset.getRank();
-                    if (rank == 2) {
+
+        // open input time variable
+        // + read completely
+        // + convert to ERA-5 time stamps
+        // + write to MMD
+        final Array timeArray = VariableUtils.readTimeArray(satFieldsConfig.get_time_variable_name(), reader);
+        final Array era5TimeArray = convertToEra5TimeStamp(timeArray);
+        final Variable targetTimeVariable = NetCDFUtils.getVariable(writer, satFieldsConfig.get_nwp_time_variable_name());
+        writer.write(targetTimeVariable, era5TimeArray);
+
+        // open longitude and latitude input variables
+        // + read completely or specified x/y subset
+        // + scale if necessary
+        final com.bc.fiduceo.core.Dimension geoDimension = new com.bc.fiduceo.core.Dimension("geoloc", satFieldsConfig.get_x_dim(), satFieldsConfig.get_y_dim());
+        final Array lonArray = readGeolocationVariable(geoDimension, reader, satFieldsConfig.get_longitude_variable_name());
+        final Array latArray = readGeolocationVariable(geoDimension, reader, satFieldsConfig.get_latitude_variable_name());
+
+        // prepare data
+        // + calculate dimensions
+        // + allocate target data arrays
+        final int numMatches = NetCDFUtils.getDimensionLength(FiduceoConstants.MATCHUP_COUNT, reader);
+        final int[] nwpShape = getNwpShape(geoDimension, lonArray.getShape());
+        final int[] nwpOffset = getNwpOffset(lonArray.getShape(), nwpShape);
+        final int[] nwpStride = {1, 1, 1};
+        final HashMap<String, Array> targetArrays = allocateTargetData(writer, variables);
+
+        // iterate over matchups
+        //   + convert geo-region to era-5 extract
+        //   + prepare interpolation context
+        final Index timeIndex = era5TimeArray.getIndex();
+        for (int m = 0; m < numMatches; m++) {
+            nwpOffset[0] = m;
+            nwpShape[0] = 1;
+
+            // get a subset of one matchup layer and convert to 2D dataset
+            final Array lonLayer = lonArray.sectionNoReduce(nwpOffset, nwpShape, nwpStride).reduce(0);
+            final Array latLayer = latArray.sectionNoReduce(nwpOffset, nwpShape, nwpStride).reduce(0);
+
+            final int[] shape = lonLayer.getShape();
+            final int width = shape[1];
+            final int height = shape[0];
+
+            final InterpolationContext interpolationContext = Era5PostProcessing.getInterpolationContext(lonLayer, latLayer);
+            final Rectangle layerRegion = interpolationContext.getEra5Region();
+
+            timeIndex.set(m);
+            final int era5Time = era5TimeArray.getInt(timeIndex);
+            final boolean isTimeFill = VariableUtils.isTimeFill(era5Time);
+
+            //   iterate over variables
+            //     + assemble variable file name
+            //     + read variable data extract
+            //     + interpolate (2d, 3d per layer)
+            //     - store to target raster
+            final Set<String> variableKeys = variables.keySet();
+            for (final String variableKey : variableKeys) {
+                VariableCache.CacheEntry cacheEntry = variableCache.get(variableKey, era5Time);
+                final Array subset = readSubset(numLayers, layerRegion, cacheEntry);
+                final Index subsetIndex = subset.getIndex();
+
+                final Array targetArray = targetArrays.get(variableKey);
+                final Index targetIndex = targetArray.getIndex();
+
+                final int rank = subset.getRank();
+                if (rank == 2) {
+                    for (int y = 0; y < height; y++) {
+                        for (int x = 0; x < width; x++) {
+                            targetIndex.set(m, y, x);
+                            if (isTimeFill) {
+                                targetArray.setFloat(targetIndex, TemplateVariable.getFillValue());
+                                continue;
+                            }
+
+                            final BilinearInterpolator interpolator = interpolationContext.get(x, y);
+                            if (interpolator == null) {
+                                targetArray.setFloat(targetIndex, TemplateVariable.getFillValue());
+                                continue;
+                            }
+
+                            final int offsetX = interpolator.getXMin() - layerRegion.x;
+                            final int offsetY = interpolator.getYMin() - layerRegion.y;
+
+                            subsetIndex.set(offsetY, offsetX);
+                            final float c00 = subset.getFloat(subsetIndex);
+
+                            subsetIndex.set(offsetY, offsetX + 1);
+                            final float c10 = subset.getFloat(subsetIndex);
+
+                            subsetIndex.set(offsetY + 1, offsetX);
+                            final float c01 = subset.getFloat(subsetIndex);
+
+                            subsetIndex.set(offsetY + 1, offsetX + 1);
+                            final float c11 = subset.getFloat(subsetIndex);
+
+                            final double interpolate = interpolator.interpolate(c00, c01, c10, c11);
+
+                            targetArray.setFloat(targetIndex, (float) interpolate);
+                        }
+                    }
+                } else if (rank == 3) {
+                    for (int z = 0; z < numLayers; z++) {
                         for (int y = 0; y < height; y++) {
                             for (int x = 0; x < width; x++) {
-                                targetIndex.set(m, y, x);
+                                targetIndex.set(m, z, y, x);
+
                                 if (isTimeFill) {
                                     targetArray.setFloat(targetIndex, TemplateVariable.getFillValue());
                                     continue;
@@ -268,16 +303,16 @@ class SatelliteFields extends FieldsProcessor {
                                 final int offsetX = interpolator.getXMin() - layerRegion.x;
                                 final int offsetY = interpolator.getYMin() - layerRegion.y;
 
-                                subsetIndex.set(offsetY, offsetX);
+                                subsetIndex.set(z, offsetY, offsetX);
                                 final float c00 = subset.getFloat(subsetIndex);
 
-                                subsetIndex.set(offsetY, offsetX + 1);
+                                subsetIndex.set(z, offsetY, offsetX + 1);
                                 final float c10 = subset.getFloat(subsetIndex);
 
-                                subsetIndex.set(offsetY + 1, offsetX);
+                                subsetIndex.set(z, offsetY + 1, offsetX);
                                 final float c01 = subset.getFloat(subsetIndex);
 
-                                subsetIndex.set(offsetY + 1, offsetX + 1);
+                                subsetIndex.set(z, offsetY + 1, offsetX + 1);
                                 final float c11 = subset.getFloat(subsetIndex);
 
                                 final double interpolate = interpolator.interpolate(c00, c01, c10, c11);
@@ -285,60 +320,19 @@ class SatelliteFields extends FieldsProcessor {
                                 targetArray.setFloat(targetIndex, (float) interpolate);
                             }
                         }
-                    } else if (rank == 3) {
-                        for (int z = 0; z < numLayers; z++) {
-                            for (int y = 0; y < height; y++) {
-                                for (int x = 0; x < width; x++) {
-                                    targetIndex.set(m, z, y, x);
-
-                                    if (isTimeFill) {
-                                        targetArray.setFloat(targetIndex, TemplateVariable.getFillValue());
-                                        continue;
-                                    }
-
-                                    final BilinearInterpolator interpolator = interpolationContext.get(x, y);
-                                    if (interpolator == null) {
-                                        targetArray.setFloat(targetIndex, TemplateVariable.getFillValue());
-                                        continue;
-                                    }
-
-                                    final int offsetX = interpolator.getXMin() - layerRegion.x;
-                                    final int offsetY = interpolator.getYMin() - layerRegion.y;
-
-                                    subsetIndex.set(z, offsetY, offsetX);
-                                    final float c00 = subset.getFloat(subsetIndex);
-
-                                    subsetIndex.set(z, offsetY, offsetX + 1);
-                                    final float c10 = subset.getFloat(subsetIndex);
-
-                                    subsetIndex.set(z, offsetY + 1, offsetX);
-                                    final float c01 = subset.getFloat(subsetIndex);
-
-                                    subsetIndex.set(z, offsetY + 1, offsetX + 1);
-                                    final float c11 = subset.getFloat(subsetIndex);
-
-                                    final double interpolate = interpolator.interpolate(c00, c01, c10, c11);
-
-                                    targetArray.setFloat(targetIndex, (float) interpolate);
-                                }
-                            }
-                        }
-                    } else {
-                        throw new IllegalStateException("Unexpected variable rank: " + rank + "  " + variableKey);
                     }
+                } else {
+                    throw new IllegalStateException("Unexpected variable rank: " + rank + "  " + variableKey);
                 }
             }
+        }
 
-            final Set<String> variableKeys = variables.keySet();
-            for (final String variableKey : variableKeys) {
-                final TemplateVariable templateVariable = variables.get(variableKey);
-                final Array targetArray = targetArrays.get(variableKey);
-                final Variable targetVariable = writer.findVariable(NetCDFUtils.escapeVariableName(templateVariable.getName()));
-                writer.write(targetVariable, targetArray);
-            }
-
-        } finally {
-            variableCache.close();
+        final Set<String> variableKeys = variables.keySet();
+        for (final String variableKey : variableKeys) {
+            final TemplateVariable templateVariable = variables.get(variableKey);
+            final Array targetArray = targetArrays.get(variableKey);
+            final Variable targetVariable = writer.findVariable(NetCDFUtils.escapeVariableName(templateVariable.getName()));
+            writer.write(targetVariable, targetArray);
         }
     }
 
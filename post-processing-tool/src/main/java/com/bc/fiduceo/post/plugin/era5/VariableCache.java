@@ -1,28 +1,68 @@
 package com.bc.fiduceo.post.plugin.era5;
 
+import com.bc.fiduceo.log.FiduceoLogger;
 import org.esa.snap.core.util.io.FileUtils;
 import ucar.ma2.Array;
 import ucar.nc2.NetcdfFile;
 import ucar.nc2.Variable;
+import ucar.unidata.io.MMapRandomAccessFile;
+import ucar.unidata.io.RandomAccessFile;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 class VariableCache {
 
+    private static final int SECONDS_PER_HOUR = 3600;
+
     private final Era5Archive archive;
-    private final HashMap<String, CacheContainer> cache;
+    private final LinkedHashMap<String, CacheContainer> cache;
+    private final HashMap<String, PendingLoad> pendingLoads;
     private final int cacheSize;
+    private final long maxBytes;
+    private final boolean memoryMapped;
+    private final int readAheadSteps;
 
+    private long cachedBytes;
+    private long pendingBytes;
+    private ExecutorService readAheadExecutor;
 
     VariableCache(Era5Archive archive, int cacheSize) {
+        this(archive, cacheSize, Long.MAX_VALUE, false, 0);
+    }
+
+    /**
+     * Creates a cache for fully read ERA-5 variables.
+     *
+     * @param archive        the ERA-5 archive to resolve file paths
+     * @param cacheSize      the maximal number of variables kept in memory
+     * @param maxBytes       the maximal number of data bytes kept in memory
+     * @param memoryMapped   if true, the ERA-5 NetCDF files are accessed via memory mapping
+     * @param readAheadSteps the number of subsequent hourly ERA-5 files loaded in background on a cache miss, 0 disables read-ahead
+     */
+    VariableCache(Era5Archive archive, int cacheSize, long maxBytes, boolean memoryMapped, int readAheadSteps) {
         this.archive = archive;
         this.cacheSize = cacheSize;
-        cache = new HashMap<>();
+        this.maxBytes = maxBytes;
+        this.memoryMapped = memoryMapped;
+        this.readAheadSteps = readAheadSteps;
+
+        // access-ordered map: the eldest entry is always the least recently used one
+        cache = new LinkedHashMap<>(16, 0.75f, true);
+        pendingLoads = new HashMap<>();
+        cachedBytes = 0;
+        pendingBytes = 0;
     }
 
     CacheEntry get(String variableKey, int era5TimeStamp) throws IOException {
@@ -30,39 +70,73 @@ class VariableCache {
         return cacheContainer.cacheEntry;
     }
 
+    long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    int getNumEntries() {
+        return cache.size();
+    }
+
     private CacheContainer getCacheContainer(String variableKey, int era5TimeStamp) throws IOException {
         final String filePath = archive.get(variableKey, era5TimeStamp);
-        final String variableName = getVariableName(variableKey);
-        final String key = FileUtils.getFilenameWithoutExtension(new File(filePath));
+        final String key = getKey(filePath);
 
         CacheContainer cacheContainer = cache.get(key);
         if (cacheContainer == null) {
-            final NetcdfFile netcdfFile = NetcdfFile.open(filePath);
-            final Variable variable = netcdfFile.findVariable(variableName);
-            if (variable == null) {
-                throw new IOException("variable not found: " + variableName + "  " + filePath);
+            final PendingLoad pendingLoad = pendingLoads.remove(key);
+            if (pendingLoad != null) {
+                pendingBytes -= pendingLoad.sizeInBytes;
+                cacheContainer = waitFor(pendingLoad.future);
             }
-            if (cache.size() == cacheSize) {
-                removeOldest();
+
+            if (cacheContainer == null) {
+                cacheContainer = load(filePath, getVariableName(variableKey));
             }
-            final Array array = variable.read().reduce();
 
-            cacheContainer = new CacheContainer(variable, netcdfFile, array, System.currentTimeMillis());
+            makeRoomFor(cacheContainer.sizeInBytes, 1, null);
             cache.put(key, cacheContainer);
+            cachedBytes += cacheContainer.sizeInBytes;
+
+            scheduleReadAhead(variableKey, era5TimeStamp, key, cacheContainer);
         }
 
-        cacheContainer.lastAccess = System.currentTimeMillis();
         return cacheContainer;
     }
 
     void close() throws IOException {
-        final Collection<CacheContainer> cacheEntries = cache.values();
-        for (CacheContainer cacheContainer : cacheEntries) {
-            cacheContainer.netcdfFile.close();
-            cacheContainer.netcdfFile = null;
+        if (readAheadExecutor != null) {
+            // queued loads are dropped, a running load is waited for to close its file
+            readAheadExecutor.shutdownNow();
+            awaitTermination(readAheadExecutor);
+            readAheadExecutor = null;
+        }
+
+        for (final PendingLoad pendingLoad : pendingLoads.values()) {
+            if (!pendingLoad.future.isDone()) {
+                // never started, get() would block forever
+                pendingLoad.future.cancel(false);
+                continue;
+            }
+
+            final CacheContainer cacheContainer = waitFor(pendingLoad.future);
+            if (cacheContainer != null) {
+                cacheContainer.close();
+            }
+        }
+        pendingLoads.clear();
+        pendingBytes = 0;
+
+        for (final CacheContainer cacheContainer : cache.values()) {
+            cacheContainer.close();
         }
 
         cache.clear();
+        cachedBytes = 0;
     }
 
     private String getVariableName(String variableKey) {
@@ -70,26 +144,120 @@ class VariableCache {
         return variableKey.substring(cutPoint + 1, variableKey.length());
     }
 
-    private void removeOldest() throws IOException {
-        long minTime = Long.MAX_VALUE;
-        String toRemove = null;
-        CacheContainer entryToRemove = null;
-        final Set<Map.Entry<String, CacheContainer>> cacheEntries = cache.entrySet();
-        for (Map.Entry<String, CacheContainer> cacheMapEntry : cacheEntries) {
-            final CacheContainer cacheContainer = cacheMapEntry.getValue();
-            if (cacheContainer.lastAccess < minTime) {
-                minTime = cacheContainer.lastAccess;
-                toRemove = cacheMapEntry.getKey();
-                entryToRemove = cacheContainer;
+    private static String getKey(String filePath) {
+        return FileUtils.getFilenameWithoutExtension(new File(filePath));
+    }
+
+    private CacheContainer load(String filePath, String variableName) throws IOException {
+        final NetcdfFile netcdfFile = open(filePath);
+        try {
+            final Variable variable = netcdfFile.findVariable(variableName);
+            if (variable == null) {
+                throw new IOException("variable not found: " + variableName + "  " + filePath);
+            }
+            final Array array = variable.read().reduce();
+
+            return new CacheContainer(variable, netcdfFile, array);
+        } catch (IOException | RuntimeException e) {
+            netcdfFile.close();
+            throw e;
+        }
+    }
+
+    private NetcdfFile open(String filePath) throws IOException {
+        if (!memoryMapped) {
+            return NetcdfFile.open(filePath);
+        }
+
+        final RandomAccessFile raf = new MMapRandomAccessFile(filePath, "r");
+        return NetcdfFile.open(raf, filePath, null, null);
+    }
+
+    /**
+     * Evicts least recently used entries until the cache has room for the number of entries and bytes. Pending
+     * read-ahead loads count against the byte budget. The entry with the protected key is never evicted.
+     *
+     * @return true if there is room for the bytes
+     */
+    private boolean makeRoomFor(long numBytes, int numEntries, String protectedKey) throws IOException {
+        final Iterator<Map.Entry<String, CacheContainer>> iterator = cache.entrySet().iterator();
+        while (iterator.hasNext() && (cache.size() + numEntries > cacheSize || cachedBytes + pendingBytes + numBytes > maxBytes)) {
+            final Map.Entry<String, CacheContainer> entry = iterator.next();
+            if (entry.getKey().equals(protectedKey)) {
+                break;
             }
+            iterator.remove();
+
+            final CacheContainer eldest = entry.getValue();
+            cachedBytes -= eldest.sizeInBytes;
+            eldest.close();
         }
+        return cachedBytes + pendingBytes + numBytes <= maxBytes;
+    }
 
-        if (entryToRemove != null) {
-            entryToRemove.cacheEntry = null;
-            entryToRemove.netcdfFile.close();
+    private void scheduleReadAhead(String variableKey, int era5TimeStamp, String currentKey, CacheContainer current) throws IOException {
+        if (readAheadSteps <= 0) {
+            return;
+        }
 
-            cache.remove(toRemove);
+        if (readAheadExecutor == null) {
+            readAheadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "era5-read-ahead");
+                thread.setDaemon(true);
+                return thread;
+            });
         }
+
+        // the hourly files of a variable all have the same size, estimate the read-ahead data from the current one
+        final Variable variable = current.cacheEntry.variable;
+        final long estimatedBytes = variable.getSize() * variable.getElementSize();
+
+        final String variableName = getVariableName(variableKey);
+        for (int step = 1; step <= readAheadSteps; step++) {
+            // never keep more pre-loaded variables than fit into the cache
+            if (pendingLoads.size() >= cacheSize) {
+                return;
+            }
+
+            final String filePath = archive.get(variableKey, era5TimeStamp + step * SECONDS_PER_HOUR);
+            final String key = getKey(filePath);
+            if (cache.containsKey(key) || pendingLoads.containsKey(key) || !new File(filePath).isFile()) {
+                continue;
+            }
+
+            // read-ahead only replaces entries older than the current one and keeps within the byte budget
+            if (!makeRoomFor(estimatedBytes, 0, currentKey)) {
+                return;
+            }
+
+            final Future<CacheContainer> future = readAheadExecutor.submit(() -> load(filePath, variableName));
+            pendingLoads.put(key, new PendingLoad(future, estimatedBytes));
+            pendingBytes += estimatedBytes;
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                FiduceoLogger.getLogger().fine("waiting for ERA-5 read-ahead to terminate");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CacheContainer waitFor(Future<CacheContainer> pendingLoad) {
+        try {
+            return pendingLoad.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // the file is read again on the calling thread, which reports the error properly
+            FiduceoLogger.getLogger().log(Level.FINE, "ERA-5 read-ahead failed", e.getCause());
+        } catch (CancellationException e) {
+            // ignore, the executor has been shut down
+        }
+        return null;
     }
 
     static class CacheEntry {
@@ -103,15 +271,33 @@ class VariableCache {
         }
     }
 
+    private static class PendingLoad {
+        final Future<CacheContainer> future;
+        final long sizeInBytes;
+
+        PendingLoad(Future<CacheContainer> future, long sizeInBytes) {
+            this.future = future;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+
     private static class CacheContainer {
         CacheEntry cacheEntry;
         NetcdfFile netcdfFile;
-        long lastAccess;
+        final long sizeInBytes;
 
-        CacheContainer(Variable variable, NetcdfFile netcdfFile, Array array, long lastAccess) {
+        CacheContainer(Variable variable, NetcdfFile netcdfFile, Array array) {
             this.cacheEntry = new CacheEntry(variable, array);
             this.netcdfFile = netcdfFile;
-            this.lastAccess = lastAccess;
+            this.sizeInBytes = array.getSizeBytes();
+        }
+
+        void close() throws IOException {
+            cacheEntry = null;
+            if (netcdfFile != null) {
+                netcdfFile.close();
+                netcdfFile = null;
+            }
         }
     }
 }
@@ -1,7 +1,10 @@
 package com.bc.fiduceo.post.plugin.gruan_uleic;
 
 import com.bc.fiduceo.FiduceoConstants;
+import com.bc.fiduceo.post.MatchupSlab;
+import com.bc.fiduceo.post.MatchupSlabLoop;
 import com.bc.fiduceo.post.PostProcessing;
+import com.bc.fiduceo.post.SlabPostProcessing;
 import com.bc.fiduceo.reader.insitu.gruan_uleic.GruanUleicInsituReader;
 import com.bc.fiduceo.util.JDomUtils;
 import com.bc.fiduceo.util.NetCDFUtils;
@@ -17,8 +20,11 @@ import ucar.nc2.Variable;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
-class AddGruanSource extends PostProcessing {
+class AddGruanSource extends PostProcessing implements SlabPostProcessing {
 
     private final Configuration configuration;
 
@@ -35,33 +41,34 @@ class AddGruanSource extends PostProcessing {
 
     @Override
     protected void compute(NetcdfFile reader, NetcdfFileWriter writer) throws IOException, InvalidRangeException {
-        final Variable fileNameVariable = NetCDFUtils.getVariable(reader, configuration.filenameVariableName);
-        final Variable processingVersionVariable = NetCDFUtils.getVariable(reader, configuration.processingVersionVariableName);
-        final Variable yVariable = NetCDFUtils.getVariable(reader, configuration.yCoordinateName);
+        MatchupSlabLoop.run(reader, writer, Collections.singletonList(this), MatchupSlabLoop.DEFAULT_SLAB_SIZE);
+    }
 
-        final Array yArray = yVariable.read();
+    @Override
+    public List<String> getSlabVariableNames() {
+        return Arrays.asList(configuration.filenameVariableName, configuration.processingVersionVariableName, configuration.yCoordinateName);
+    }
 
+    @Override
+    public void processSlab(MatchupSlab slab, NetcdfFileWriter writer) throws IOException, InvalidRangeException {
+        final Array yArray = slab.get(configuration.yCoordinateName);
         final Variable targetVariable = NetCDFUtils.getVariable(writer, configuration.targetVariableName);
 
-        final int matchup_count = NetCDFUtils.getDimensionLength(FiduceoConstants.MATCHUP_COUNT, reader);
-        final int fileNameSize = NetCDFUtils.getDimensionLength(FiduceoConstants.FILE_NAME, reader);
-        final int processingVersionSize = NetCDFUtils.getDimensionLength(FiduceoConstants.PROCESSING_VERSION, reader);
-
-        final Array targetArray = Array.factory(DataType.CHAR, new int[]{matchup_count, fileNameSize});
+        final int length = slab.getLength();
+        final int fileNameSize = targetVariable.getShape()[1];
+        final Array targetArray = Array.factory(DataType.CHAR, new int[]{length, fileNameSize});
 
-        for (int i = 0; i < matchup_count; i++) {
-            final String fileName = NetCDFUtils.readString(fileNameVariable, i, fileNameSize);
-            final String processingVersion = NetCDFUtils.readString(processingVersionVariable, i, processingVersionSize);
+        for (int i = 0; i < length; i++) {
+            final String fileName = slab.getString(configuration.filenameVariableName, i);
+            final String processingVersion = slab.getString(configuration.processingVersionVariableName, i);
 
             final GruanUleicInsituReader insituReader = (GruanUleicInsituReader) readerCache.getReaderFor("gruan-uleic", Paths.get(fileName), processingVersion);
             final int line = yArray.getInt(i);
             final String sourcePath = insituReader.readSourcePath(line);
-            final char[][] sourcePathChar = {sourcePath.toCharArray()};
-            final Array sourcePathArray = NetCDFUtils.create(sourcePathChar[0]);
+            final Array sourcePathArray = NetCDFUtils.create(sourcePath.toCharArray());
             Array.arraycopy(sourcePathArray, 0, targetArray, i * fileNameSize, (int) sourcePathArray.getSize());
-
         }
-        writer.write(targetVariable, targetArray);
+        writer.write(targetVariable, new int[]{slab.getOffset(), 0}, targetArray);
     }
 
     @Override
@@ -21,6 +21,8 @@ import java.util.List;
 
 class AddLandDistance extends PostProcessing {
 
+    private static final long SLAB_ELEMENTS = 1 << 20;
+
     private final Configuration configuration;
 
     private DistanceToLandMap distanceToLandMap;
@@ -53,30 +55,62 @@ class AddLandDistance extends PostProcessing {
     protected void compute(NetcdfFile reader, NetcdfFileWriter writer) throws IOException, InvalidRangeException {
         final Variable lonVariable = NetCDFUtils.getVariable(reader, configuration.lonVariableName);
         final Variable latVariable = NetCDFUtils.getVariable(reader, configuration.latVariableName);
-        final Array lonArray = NetCDFUtils.readAndScaleIfNecessary(lonVariable);
-        final Array latArray = NetCDFUtils.readAndScaleIfNecessary(latVariable);
+        final Variable targetVariable = NetCDFUtils.getVariable(writer, configuration.targetVariableName);
 
         initDistanceToLandMap();
 
-        final Array targetArray = Array.factory(DataType.FLOAT, lonArray.getShape());
-
         final float fillValue = NetCDFUtils.getDefaultFillValue(float.class).floatValue();
-        final long size = lonArray.getSize();
-        for (int i = 0; i < size; i++) {
-            final double longitude = lonArray.getDouble(i);
-            final double latitude = latArray.getDouble(i);
-
-            if (longitude >= -180.0 && longitude <= 180.0 && latitude >= -90.0 && latitude <= 90.0) {
-
-                final double distance = distanceToLandMap.getDistance(longitude, latitude);
-                targetArray.setFloat(i, (float) distance);
-            } else {
-                targetArray.setFloat(i, fillValue);
-            }
+        final double lonFillValue = getFillValue(lonVariable);
+        final double latFillValue = getFillValue(latVariable);
+
+        // process the geolocation in slabs along the first (matchup_count) dimension, so that large
+        // MMDs are not held in memory completely
+        final int[] shape = lonVariable.getShape();
+        final int slabSize = getSlabSize(shape);
+        final int[] origin = new int[shape.length];
+        final int[] slabShape = shape.clone();
+        for (int start = 0; start < shape[0]; start += slabSize) {
+            origin[0] = start;
+            slabShape[0] = Math.min(slabSize, shape[0] - start);
+
+            final double[] longitudes = readSlab(lonVariable, origin, slabShape, lonFillValue);
+            final double[] latitudes = readSlab(latVariable, origin, slabShape, latFillValue);
+            final float[] distances = new float[longitudes.length];
+            distanceToLandMap.getDistances(longitudes, latitudes, distances, fillValue);
+
+            writer.write(targetVariable, origin, Array.factory(DataType.FLOAT, slabShape, distances));
         }
+    }
 
-        final Variable targetVariable = NetCDFUtils.getVariable(writer, configuration.targetVariableName);
-        writer.write(targetVariable, targetArray);
+    // package access for testing only
+    static int getSlabSize(int[] shape) {
+        long elementsPerMatchup = 1;
+        for (int i = 1; i < shape.length; i++) {
+            elementsPerMatchup *= shape[i];
+        }
+        return (int) Math.max(1, SLAB_ELEMENTS / elementsPerMatchup);
+    }
+
+    private static double getFillValue(Variable variable) {
+        final Attribute fillValueAttribute = variable.findAttribute(NetCDFUtils.CF_FILL_VALUE_NAME);
+        if (fillValueAttribute == null || fillValueAttribute.getNumericValue() == null) {
+            return Double.NaN;
+        }
+        return fillValueAttribute.getNumericValue().doubleValue();
+    }
+
+    // reads the raw slab, fill values are replaced by NaN before scaling
+    private static double[] readSlab(Variable variable, int[] origin, int[] shape, double fillValue) throws IOException, InvalidRangeException {
+        final Array rawArray = variable.read(origin, shape);
+        final double scaleFactor = NetCDFUtils.getScaleFactor(variable);
+        final double offset = NetCDFUtils.getOffset(variable);
+
+        final double[] values = new double[(int) rawArray.getSize()];
+        for (int i = 0; i < values.length; i++) {
+            final double rawValue = rawArray.getDouble(i);
+            values[i] = rawValue == fillValue ? Double.NaN : rawValue * scaleFactor + offset;
+        }
+        return values;
     }
 
     // for testing only - to inject a mock tb 2017-06-28
@@ -25,7 +25,11 @@ import java.io.File;
 
 class Configuration {
 
+    static final String ENGINE_CDO = "cdo";
+    static final String ENGINE_JAVA = "java";
+
     private boolean deleteOnExit;
+    private String extractionEngine;
     private String CDOHome;
     private String NWPAuxDir;
 
@@ -34,6 +38,7 @@ class Configuration {
 
     Configuration() {
         deleteOnExit = true;
+        extractionEngine = ENGINE_CDO;
     }
 
     void setDeleteOnExit(boolean deleteOnExit) {
@@ -44,6 +49,18 @@ class Configuration {
         return deleteOnExit;
     }
 
+    void setExtractionEngine(String extractionEngine) {
+        this.extractionEngine = extractionEngine;
+    }
+
+    String getExtractionEngine() {
+        return extractionEngine;
+    }
+
+    boolean isJavaExtraction() {
+        return ENGINE_JAVA.equals(extractionEngine);
+    }
+
     void setCDOHome(String CDOHome) {
         this.CDOHome = CDOHome;
     }
@@ -85,9 +102,15 @@ class Configuration {
     }
 
     boolean verify() {
-        final File cdoDir = new File(CDOHome);
-        if (!cdoDir.isDirectory()) {
-            throw new RuntimeException("cdo executable directory does not exist");
+        if (!ENGINE_CDO.equals(extractionEngine) && !ENGINE_JAVA.equals(extractionEngine)) {
+            throw new RuntimeException("unsupported extraction engine: " + extractionEngine);
+        }
+
+        if (!isJavaExtraction()) {
+            final File cdoDir = new File(CDOHome);
+            if (!cdoDir.isDirectory()) {
+                throw new RuntimeException("cdo executable directory does not exist");
+            }
         }
 
         final File nwpDir = new File(NWPAuxDir);
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.post.plugin.nwp;
+
+import com.bc.fiduceo.util.NetCDFUtils;
+import org.esa.snap.core.util.math.FracIndex;
+import ucar.ma2.Array;
+import ucar.ma2.Index;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sensor extraction reading the ERA-Interim files directly, without creating intermediate files
+ * via CDO. The NWP data is interpolated bilinearly to the sub-sampled pixel locations and linearly in time.
+ * Spectral NWP data (the "spam" files) is supported only when it is already transformed to a lon/lat grid, otherwise
+ * the extraction fails before the MMD is written and the 'cdo' extraction engine must be used.
+ */
+class JavaSensorExtractionStrategy extends SensorExtractionStrategy {
+
+    @Override
+    void compute(Context context) throws IOException, InvalidRangeException {
+        final Configuration configuration = context.getConfiguration();
+        final SensorExtractConfiguration sensorExtractConfiguration = configuration.getSensorExtractConfiguration();
+
+        final NetcdfFile reader = context.getReader();
+        final List<String> nwpDataDirectories = extractNwpDataDirectories(sensorExtractConfiguration.getTimeVariableName(), reader);
+
+        final Variable lonVariable = NetCDFUtils.getVariable(reader, sensorExtractConfiguration.getLongitudeVariableName());
+        final Variable latVariable = NetCDFUtils.getVariable(reader, sensorExtractConfiguration.getLatitudeVariableName());
+        final float[] lons = extractPoints(NetCDFUtils.readAndScaleIfNecessary(lonVariable), sensorExtractConfiguration);
+        final float[] lats = extractPoints(NetCDFUtils.readAndScaleIfNecessary(latVariable), sensorExtractConfiguration);
+
+        final NetcdfFileWriter writer = context.getWriter();
+        final String targetTimeVariableName = sensorExtractConfiguration.getTimeVariableName();
+        final Variable targetTimeVariable = NetCDFUtils.getVariable(writer, targetTimeVariableName.replace(".", "\\."), false);
+        final Array targetTimes = targetTimeVariable.read();
+        final int targetTimeFillValue = NetCDFUtils.getFillValue(targetTimeVariable).intValue();
+
+        final String auxDir = configuration.getNWPAuxDir();
+        final NwpFields ggas = createFields(auxDir + "/ggas", nwpDataDirectories, "ggas[0-9]*.nc", 1, false, lons, lats);
+        final NwpFields ggam = createFields(auxDir + "/ggam", nwpDataDirectories, "ggam[0-9]*.grb", 1, false, lons, lats);
+        final NwpFields spam = createFields(auxDir + "/spam", nwpDataDirectories, "spam[0-9]*.grb", 1, false, lons, lats);
+        final NwpFields gafs = createFields(auxDir + "/gafs", nwpDataDirectories, "gafs[0-9]*[62].nc", -1, true, lons, lats);
+
+        try {
+            final TemplateVariables templateVariables = context.getTemplateVariables();
+            // reject non-gridded input before anything is written to the MMD
+            for (final TemplateVariable templateVariable : templateVariables.getSensorExtractVariables()) {
+                getSource(templateVariable.getOriginalName(), ggas, ggam, spam, gafs).verifyGrid(templateVariable.getOriginalName());
+            }
+
+            final FracIndex[] interpolationIndices = getInterpolationIndices(ggas.getTimeSteps(), targetTimes, targetTimeFillValue);
+
+            final int pointsPerMatchup = sensorExtractConfiguration.getX_Dimension() * sensorExtractConfiguration.getY_Dimension();
+            for (final TemplateVariable templateVariable : templateVariables.getSensorExtractVariables()) {
+                final NwpFields source = getSource(templateVariable.getOriginalName(), ggas, ggam, spam, gafs);
+                extractVariable(writer, templateVariable, source, ggas.getTimeSteps(), interpolationIndices, pointsPerMatchup);
+            }
+        } finally {
+            ggas.close();
+            ggam.close();
+            spam.close();
+            gafs.close();
+        }
+    }
+
+    // package access for testing only
+    static float[] extractPoints(Array geoArray, SensorExtractConfiguration config) {
+        final int x_dimension = config.getX_Dimension();
+        final int y_dimension = config.getY_Dimension();
+
+        final int[] shape = geoArray.getShape();
+        final int numMatchups = shape[0];
+        final int ny = shape[1];
+        final int nx = shape[2];
+        final int strideX = calculateStride(nx, x_dimension);
+        final int strideY = calculateStride(ny, y_dimension);
+
+        final int yOffset = (ny >> 1) - (y_dimension >> 1) * strideY;
+        final int xOffset = (nx >> 1) - (x_dimension >> 1) * strideX;
+
+        final float[] points = new float[numMatchups * y_dimension * x_dimension];
+        final Index index = geoArray.getIndex();
+        int pointIndex = 0;
+        for (int m = 0; m < numMatchups; m++) {
+            for (int y = 0; y < y_dimension; y++) {
+                for (int x = 0; x < x_dimension; x++) {
+                    index.set(m, yOffset + y * strideY, xOffset + x * strideX);
+                    points[pointIndex] = geoArray.getFloat(index);
+                    pointIndex++;
+                }
+            }
+        }
+        return points;
+    }
+
+    private static NwpFields createFields(String dirPath, List<String> subDirPaths, String pattern, int skip, boolean synopticHoursOnly,
+                                          float[] lons, float[] lats) throws IOException {
+        final List<File> files = NwpUtils.composeFiles(dirPath, subDirPaths, pattern, skip);
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(files, synopticHoursOnly);
+        return new NwpFields(timeSteps, lons, lats);
+    }
+
+    private static NwpFields getSource(String originalName, NwpFields ggas, NwpFields ggam, NwpFields spam, NwpFields gafs) {
+        switch (originalName) {
+            case "Q":
+            case "O3":
+            case "CLWC":
+            case "CIWC":
+                return ggam;
+            case "LNSP":
+            case "T":
+                return spam;
+            case "TP":
+                return gafs;
+            default:
+                return ggas;
+        }
+    }
+
+    private static FracIndex[] getInterpolationIndices(NwpTimeSteps timeSteps, Array targetTimes, int targetTimeFillValue) {
+        final Array nwpTimes = timeSteps.getTimesArray();
+        final FracIndex[] indices = new FracIndex[(int) targetTimes.getSize()];
+        for (int i = 0; i < indices.length; i++) {
+            final int targetTime = targetTimes.getInt(i);
+            if (targetTime == targetTimeFillValue) {
+                continue;
+            }
+            indices[i] = NwpUtils.getInterpolationIndex(nwpTimes, targetTime);
+        }
+        return indices;
+    }
+
+    private static void extractVariable(NetcdfFileWriter writer, TemplateVariable templateVariable, NwpFields source, NwpTimeSteps primaryTimeSteps,
+                                        FracIndex[] indices, int pointsPerMatchup) throws IOException, InvalidRangeException {
+        final Variable targetVariable = NetCDFUtils.getVariable(writer, templateVariable.getName());
+        final float fillValue = NetCDFUtils.getFillValue(targetVariable).floatValue();
+        final int[] targetShape = targetVariable.getShape();
+        final int numTargetLevels = targetShape.length == 4 ? targetShape[1] : 1;
+        final int valuesPerMatchup = numTargetLevels * pointsPerMatchup;
+
+        final float[] values = new float[indices.length * valuesPerMatchup];
+        Arrays.fill(values, Float.NaN);
+
+        int minStep = Integer.MAX_VALUE;
+        int maxStep = Integer.MIN_VALUE;
+        for (final FracIndex index : indices) {
+            if (index != null) {
+                minStep = Math.min(minStep, index.i);
+                maxStep = Math.max(maxStep, index.i + 1);
+            }
+        }
+
+        // Single pass over the time steps, each step is read only once. The value of the lower time step is
+        // stored in the target buffer until the upper step is read and both can be interpolated
+        final NwpTimeSteps sourceTimeSteps = source.getTimeSteps();
+        for (int step = minStep; step <= maxStep; step++) {
+            final int sourceStep = sourceTimeSteps.findStep(primaryTimeSteps.getTime(step));
+            if (sourceStep < 0) {
+                continue;
+            }
+
+            NwpFields.Field field = null;
+            for (int m = 0; m < indices.length; m++) {
+                final FracIndex index = indices[m];
+                if (index == null || (index.i != step && index.i + 1 != step)) {
+                    continue;
+                }
+
+                if (field == null) {
+                    field = source.read(templateVariable.getOriginalName(), sourceStep);
+                }
+
+                final boolean isUpper = index.i + 1 == step;
+                final int numLevels = Math.min(numTargetLevels, field.numLevels);
+                for (int level = 0; level < numLevels; level++) {
+                    for (int p = 0; p < pointsPerMatchup; p++) {
+                        final int valueIndex = m * valuesPerMatchup + level * pointsPerMatchup + p;
+                        final float value = field.sample(level, m * pointsPerMatchup + p);
+                        if (isUpper) {
+                            values[valueIndex] = interpolate(values[valueIndex], value, index.f);
+                        } else {
+                            values[valueIndex] = value;
+                        }
+                    }
+                }
+            }
+        }
+
+        final Array targetArray = Array.factory(targetVariable.getDataType(), targetShape);
+        for (int i = 0; i < values.length; i++) {
+            final float value = values[i];
+            targetArray.setFloat(i, Float.isNaN(value) ? fillValue : value);
+        }
+        writer.write(targetVariable, targetArray);
+    }
+
+    // package access for testing only
+    static float interpolate(float v1, float v2, double f) {
+        final boolean invalid1 = Float.isNaN(v1);
+        final boolean invalid2 = Float.isNaN(v2);
+        if (invalid1 && invalid2) {
+            return Float.NaN;
+        } else if (invalid1) {
+            return v2;
+        } else if (invalid2) {
+            return v1;
+        }
+        return (float) ((1.0 - f) * v1 + f * v2);
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.post.plugin.nwp;
+
+import com.bc.fiduceo.log.FiduceoLogger;
+import com.bc.fiduceo.util.NetCDFUtils;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static com.bc.fiduceo.post.plugin.nwp.Constants.CLWC_NAME;
+
+/**
+ * Time series extraction reading the ERA-Interim files directly, without creating intermediate files
+ * via CDO. The NWP data is interpolated bilinearly to the matchup locations, as "cdo remapbil" does.
+ * All variables must be located on a lon/lat grid, spectral NWP data is rejected before the MMD is written.
+ */
+class JavaTimeSeriesStrategy extends TimeSeriesStrategy {
+
+    @Override
+    void compute(Context context) throws IOException, InvalidRangeException {
+        final Configuration configuration = context.getConfiguration();
+        final TimeSeriesConfiguration timeSeriesConfiguration = configuration.getTimeSeriesConfiguration();
+
+        final NetcdfFile reader = context.getReader();
+        final List<String> nwpDataDirectories = extractNwpDataDirectories(timeSeriesConfiguration.getTimeVariableName(), reader);
+
+        final Array mmdTimes = FileMerger.extractCenterVector(NetCDFUtils.getVariable(reader, timeSeriesConfiguration.getTimeVariableName()));
+        final float[] lons = readCenterLocations(reader, timeSeriesConfiguration.getLongitudeVariableName());
+        final float[] lats = readCenterLocations(reader, timeSeriesConfiguration.getLatitudeVariableName());
+
+        final String auxDir = configuration.getNWPAuxDir();
+        final NetcdfFileWriter writer = context.getWriter();
+        final TemplateVariables templateVariables = context.getTemplateVariables();
+
+        final NwpFields ggas = createFields(auxDir + "/ggas", nwpDataDirectories, "ggas[0-9]*.nc", lons, lats);
+        final NwpFields ggam = createFields(auxDir + "/ggam", nwpDataDirectories, "ggam[0-9]*.grb", lons, lats);
+        final NwpFields gafs = createFields(auxDir + "/gafs", nwpDataDirectories, "gafs[0-9]*.nc", lons, lats);
+        final NwpFields ggfs = createFields(auxDir + "/ggfs", nwpDataDirectories, "ggfs[0-9]*.nc", lons, lats);
+        final NwpFields ggfm = createFields(auxDir + "/ggfm", nwpDataDirectories, "ggfm[0-9]*.grb", lons, lats);
+        try {
+            // reject non-gridded input before anything is written to the MMD
+            for (final TemplateVariable templateVariable : templateVariables.getTimeSeriesAnalysisVariables()) {
+                getAnalysisSource(templateVariable.getOriginalName(), ggas, ggam).verifyGrid(templateVariable.getOriginalName());
+            }
+            for (final TemplateVariable templateVariable : templateVariables.getTimeSeriesForecastVariables()) {
+                getForecastSource(templateVariable.getOriginalName(), gafs, ggfs, ggfm).verifyGrid(templateVariable.getOriginalName());
+            }
+
+            final int analysisSteps = timeSeriesConfiguration.getAnalysisSteps();
+            final int[] analysisStartSteps = getAnalysisStartSteps(ggas.getTimeSteps(), mmdTimes, analysisSteps);
+
+            for (final TemplateVariable templateVariable : templateVariables.getTimeSeriesAnalysisVariables()) {
+                final NwpFields source = getAnalysisSource(templateVariable.getOriginalName(), ggas, ggam);
+                extractTimeSeries(writer, templateVariable, source, ggas.getTimeSteps(), analysisStartSteps, analysisSteps);
+            }
+
+            final int[] analysisCenterTimes = getCenterTimes(ggas.getTimeSteps(), analysisStartSteps, NwpUtils.computePastTimeStepCount(analysisSteps), 0);
+            final Variable analysisVariable = NetCDFUtils.getVariable(writer, timeSeriesConfiguration.getAnCenterTimeName());
+            writer.write(analysisVariable, NetCDFUtils.create(analysisCenterTimes));
+
+            final int forecastSteps = timeSeriesConfiguration.getForecastSteps();
+            final int[] forecastStartSteps = getForecastStartSteps(gafs.getTimeSteps(), mmdTimes, forecastSteps);
+
+            for (final TemplateVariable templateVariable : templateVariables.getTimeSeriesForecastVariables()) {
+                final NwpFields source = getForecastSource(templateVariable.getOriginalName(), gafs, ggfs, ggfm);
+                extractTimeSeries(writer, templateVariable, source, gafs.getTimeSteps(), forecastStartSteps, forecastSteps);
+            }
+
+            final Variable forecastVariable = NetCDFUtils.getVariable(writer, timeSeriesConfiguration.getFcCenterTimeName());
+            final int forecastFillValue = NetCDFUtils.getFillValue(forecastVariable).intValue();
+            final int[] forecastCenterTimes = getCenterTimes(gafs.getTimeSteps(), forecastStartSteps, NwpUtils.computePastTimeStepCount(forecastSteps), forecastFillValue);
+            writer.write(forecastVariable, NetCDFUtils.create(forecastCenterTimes));
+        } finally {
+            ggas.close();
+            ggam.close();
+            gafs.close();
+            ggfs.close();
+            ggfm.close();
+        }
+    }
+
+    // package access for testing only
+    static int[] getAnalysisStartSteps(NwpTimeSteps timeSteps, Array mmdTimes, int analysisSteps) {
+        final int pastTimeStepCount = NwpUtils.computePastTimeStepCount(analysisSteps);
+        final int futureTimeStepCount = NwpUtils.computeFutureTimeStepCount(analysisSteps);
+        final Array nwpTimes = timeSteps.getTimesArray();
+
+        final int[] startSteps = new int[(int) mmdTimes.getSize()];
+        for (int i = 0; i < startSteps.length; i++) {
+            final int timeStep = NwpUtils.nearestTimeStep(nwpTimes, mmdTimes.getInt(i));
+            if (timeStep - pastTimeStepCount < 0 || timeStep + futureTimeStepCount > nwpTimes.getSize() - 1) {
+                throw new RuntimeException("Not enough time steps in NWP time series.");
+            }
+            startSteps[i] = timeStep - pastTimeStepCount;
+        }
+        return startSteps;
+    }
+
+    // package access for testing only
+    static int[] getForecastStartSteps(NwpTimeSteps timeSteps, Array mmdTimes, int forecastSteps) {
+        final int pastTimeStepCount = NwpUtils.computePastTimeStepCount(forecastSteps);
+        final Array nwpTimes = timeSteps.getTimesArray();
+        final Logger logger = FiduceoLogger.getLogger();
+
+        final int[] startSteps = new int[(int) mmdTimes.getSize()];
+        for (int i = 0; i < startSteps.length; i++) {
+            final int timeStep = NwpUtils.nearestTimeStep(nwpTimes, mmdTimes.getInt(i));
+            final int startIdx = timeStep - pastTimeStepCount;
+            if (startIdx < 0 || startIdx + forecastSteps > nwpTimes.getSize() - 1) {
+                logger.warning("Not enough time steps in NWP time series for matchup index " + i);
+                startSteps[i] = -1;
+                continue;
+            }
+            startSteps[i] = startIdx;
+        }
+        return startSteps;
+    }
+
+    private static NwpFields createFields(String dirPath, List<String> subDirPaths, String pattern, float[] lons, float[] lats) throws IOException {
+        final List<File> files = NwpUtils.composeFiles(dirPath, subDirPaths, pattern, 0);
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(files, false);
+        return new NwpFields(timeSteps, lons, lats);
+    }
+
+    private static NwpFields getAnalysisSource(String originalName, NwpFields ggas, NwpFields ggam) {
+        return CLWC_NAME.equals(originalName) ? ggam : ggas;
+    }
+
+    private static NwpFields getForecastSource(String originalName, NwpFields gafs, NwpFields ggfs, NwpFields ggfm) {
+        if (CLWC_NAME.equals(originalName)) {
+            return ggfm;
+        }
+
+        switch (originalName) {
+            case "SSTK":
+            case "MSL":
+            case "BLH":
+            case "U10":
+            case "V10":
+            case "TCWV":
+            case "T2":
+            case "D2":
+                return ggfs;
+            default:
+                return gafs;
+        }
+    }
+
+    // package access for testing only
+    static void extractTimeSeries(NetcdfFileWriter writer, TemplateVariable templateVariable, NwpFields source,
+                                  NwpTimeSteps primaryTimeSteps, int[] startSteps, int numSteps) throws IOException, InvalidRangeException {
+        final Variable targetVariable = NetCDFUtils.getVariable(writer, templateVariable.getName());
+        final float fillValue = NetCDFUtils.getFillValue(targetVariable).floatValue();
+
+        final int matchupCount = startSteps.length;
+        final float[] values = new float[matchupCount * numSteps];
+        Arrays.fill(values, fillValue);
+
+        int minStep = Integer.MAX_VALUE;
+        int maxStep = Integer.MIN_VALUE;
+        for (final int startStep : startSteps) {
+            if (startStep >= 0) {
+                minStep = Math.min(minStep, startStep);
+                maxStep = Math.max(maxStep, startStep + numSteps - 1);
+            }
+        }
+
+        // each NWP time step is read only once and sampled for all matchups that cover it
+        final NwpTimeSteps sourceTimeSteps = source.getTimeSteps();
+        for (int step = minStep; step <= maxStep; step++) {
+            final int sourceStep = sourceTimeSteps.findStep(primaryTimeSteps.getTime(step));
+            if (sourceStep < 0 || !isRequired(step, startSteps, numSteps)) {
+                continue;
+            }
+
+            final NwpFields.Field field = source.read(templateVariable.getOriginalName(), sourceStep);
+            for (int m = 0; m < matchupCount; m++) {
+                final int startStep = startSteps[m];
+                if (startStep < 0 || step < startStep || step >= startStep + numSteps) {
+                    continue;
+                }
+
+                final float value = field.sample(0, m);
+                if (!Float.isNaN(value)) {
+                    values[m * numSteps + step - startStep] = value;
+                }
+            }
+        }
+
+        final Array targetArray = Array.factory(targetVariable.getDataType(), new int[]{matchupCount, numSteps});
+        for (int i = 0; i < values.length; i++) {
+            targetArray.setFloat(i, values[i]);
+        }
+        writer.write(targetVariable, targetArray);
+    }
+
+    private static boolean isRequired(int step, int[] startSteps, int numSteps) {
+        for (final int startStep : startSteps) {
+            if (startStep >= 0 && step >= startStep && step < startStep + numSteps) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] getCenterTimes(NwpTimeSteps timeSteps, int[] startSteps, int pastTimeStepCount, int fillValue) {
+        final int[] centerTimes = new int[startSteps.length];
+        for (int i = 0; i < centerTimes.length; i++) {
+            final int startStep = startSteps[i];
+            centerTimes[i] = startStep < 0 ? fillValue : timeSteps.getTime(startStep + pastTimeStepCount);
+        }
+        return centerTimes;
+    }
+
+    private static float[] readCenterLocations(NetcdfFile reader, String variableName) throws IOException, InvalidRangeException {
+        final Variable variable = NetCDFUtils.getVariable(reader, variableName);
+        final Array centerArray = FileMerger.extractCenterVector(variable);
+
+        final float[] locations = new float[(int) centerArray.getSize()];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = centerArray.getFloat(i);
+        }
+        return locations;
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.post.plugin.nwp;
+
+import com.bc.fiduceo.util.NetCDFUtils;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Access to the fields of a series of ERA-Interim NWP files without the detour via CDO. Reads single time steps
+ * of a variable and provides the bilinear sampler for the target geo-locations. Only one NWP file is kept open
+ * at a time.
+ */
+class NwpFields {
+
+    // ECMWF GRIB table 128 parameter codes of the variables used by the plugin. Used to locate
+    // variables in GRIB files, where the variable names differ from the CDO short names
+    private static final Map<String, Integer> GRIB_CODES = new HashMap<>();
+
+    static {
+        GRIB_CODES.put("CI", 31);
+        GRIB_CODES.put("ASN", 32);
+        GRIB_CODES.put("SSTK", 34);
+        GRIB_CODES.put("T", 130);
+        GRIB_CODES.put("Q", 133);
+        GRIB_CODES.put("TCWV", 137);
+        GRIB_CODES.put("SSHF", 146);
+        GRIB_CODES.put("SLHF", 147);
+        GRIB_CODES.put("MSL", 151);
+        GRIB_CODES.put("LNSP", 152);
+        GRIB_CODES.put("BLH", 159);
+        GRIB_CODES.put("TCC", 164);
+        GRIB_CODES.put("U10", 165);
+        GRIB_CODES.put("V10", 166);
+        GRIB_CODES.put("T2", 167);
+        GRIB_CODES.put("D2", 168);
+        GRIB_CODES.put("SSRD", 169);
+        GRIB_CODES.put("AL", 174);
+        GRIB_CODES.put("STRD", 175);
+        GRIB_CODES.put("SSR", 176);
+        GRIB_CODES.put("STR", 177);
+        GRIB_CODES.put("EWSS", 180);
+        GRIB_CODES.put("NSSS", 181);
+        GRIB_CODES.put("E", 182);
+        GRIB_CODES.put("O3", 203);
+        GRIB_CODES.put("TP", 228);
+        GRIB_CODES.put("SKT", 235);
+        GRIB_CODES.put("CLWC", 246);
+        GRIB_CODES.put("CIWC", 247);
+    }
+
+    private final NwpTimeSteps timeSteps;
+    private final float[] lons;
+    private final float[] lats;
+    private final Map<String, NwpGridSampler> samplers;
+
+    private File currentFile;
+    private NetcdfFile currentNetcdfFile;
+
+    /**
+     * Creates the field access.
+     *
+     * @param timeSteps the merged time axis of the NWP files
+     * @param lons      the longitudes of the target points
+     * @param lats      the latitudes of the target points
+     */
+    NwpFields(NwpTimeSteps timeSteps, float[] lons, float[] lats) {
+        this.timeSteps = timeSteps;
+        this.lons = lons;
+        this.lats = lats;
+        samplers = new HashMap<>();
+    }
+
+    NwpTimeSteps getTimeSteps() {
+        return timeSteps;
+    }
+
+    /**
+     * Reads all levels of a variable at the time step given.
+     *
+     * @param originalName the CDO short name of the variable
+     * @param step         the index into the merged time axis
+     * @return the field, including the sampler for the target points
+     * @throws IOException on disk access failures or when the variable is not available on a lon/lat grid
+     */
+    Field read(String originalName, int step) throws IOException {
+        final NetcdfFile netcdfFile = open(timeSteps.getFile(step));
+        final Variable variable = findVariable(netcdfFile, originalName);
+
+        final float[] data = readField(variable, timeSteps.getTimeIndexInFile(step));
+        final NwpGridSampler sampler = getSampler(netcdfFile, variable);
+        return new Field(data, sampler, getNumLevels(variable));
+    }
+
+    /**
+     * Checks that the variable is located on a lon/lat grid in the first file of the series. The Java extraction
+     * engine does not transform spectral coefficients to grid points, such inputs must be processed with the
+     * 'cdo' extraction engine.
+     *
+     * @param originalName the CDO short name of the variable
+     * @throws IOException on disk access failures or when the variable is not available on a lon/lat grid
+     */
+    void verifyGrid(String originalName) throws IOException {
+        if (timeSteps.size() == 0) {
+            return;
+        }
+
+        final NetcdfFile netcdfFile = open(timeSteps.getFile(0));
+        final Variable variable = findVariable(netcdfFile, originalName);
+        getSampler(netcdfFile, variable);
+    }
+
+    void close() throws IOException {
+        if (currentNetcdfFile != null) {
+            currentNetcdfFile.close();
+            currentNetcdfFile = null;
+            currentFile = null;
+        }
+    }
+
+    private NetcdfFile open(File file) throws IOException {
+        if (!file.equals(currentFile)) {
+            close();
+            currentNetcdfFile = NetcdfFile.open(file.getAbsolutePath());
+            currentFile = file;
+        }
+        return currentNetcdfFile;
+    }
+
+    private NwpGridSampler getSampler(NetcdfFile netcdfFile, Variable variable) throws IOException {
+        final int rank = variable.getRank();
+        final String gridKey = variable.getDimension(rank - 2).getShortName() + "/" + variable.getDimension(rank - 1).getShortName();
+
+        NwpGridSampler sampler = samplers.get(gridKey);
+        if (sampler == null) {
+            final double[] gridLons = readLongitudes(netcdfFile, variable);
+            final double[] gridLats = readLatitudes(netcdfFile, variable);
+            sampler = new NwpGridSampler(gridLons, gridLats, lons, lats);
+            samplers.put(gridKey, sampler);
+        }
+        return sampler;
+    }
+
+    /**
+     * Locates the variable by CDO short name. Searches by exact name, case-insensitive name and finally by
+     * GRIB parameter code.
+     *
+     * @param netcdfFile   the NWP file
+     * @param originalName the CDO short name, e.g. "SSTK" or "var246"
+     * @return the variable
+     * @throws IOException if the variable cannot be found
+     */
+    static Variable findVariable(NetcdfFile netcdfFile, String originalName) throws IOException {
+        final Variable variable = netcdfFile.findVariable(originalName);
+        if (variable != null) {
+            return variable;
+        }
+
+        final List<Variable> variables = netcdfFile.getVariables();
+        for (final Variable candidate : variables) {
+            if (candidate.getShortName().equalsIgnoreCase(originalName)) {
+                return candidate;
+            }
+        }
+
+        final int gribCode = getGribCode(originalName);
+        if (gribCode > 0) {
+            for (final Variable candidate : variables) {
+                final Attribute parameterAttribute = candidate.findAttribute("Grib1_Parameter");
+                if (parameterAttribute != null && parameterAttribute.getNumericValue() != null
+                        && parameterAttribute.getNumericValue().intValue() == gribCode) {
+                    return candidate;
+                }
+            }
+        }
+
+        throw new IOException("Variable '" + originalName + "' not found in NWP file: " + netcdfFile.getLocation());
+    }
+
+    // package access for testing only
+    static int getGribCode(String originalName) {
+        final String upperCaseName = originalName.toUpperCase();
+        if (upperCaseName.startsWith("VAR")) {
+            try {
+                return Integer.parseInt(upperCaseName.substring(3));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        final Integer code = GRIB_CODES.get(upperCaseName);
+        if (code == null) {
+            return -1;
+        }
+        return code;
+    }
+
+    /**
+     * Reads the longitude axis of the variable, i.e. the coordinate variable of the last dimension.
+     *
+     * @param netcdfFile the NWP file
+     * @param variable   the data variable
+     * @return the longitudes
+     * @throws IOException on disk access failures or when the variable is not on a lon/lat grid
+     */
+    static double[] readLongitudes(NetcdfFile netcdfFile, Variable variable) throws IOException {
+        return readAxis(netcdfFile, variable, variable.getRank() - 1);
+    }
+
+    /**
+     * Reads the latitude axis of the variable, i.e. the coordinate variable of the second last dimension.
+     *
+     * @param netcdfFile the NWP file
+     * @param variable   the data variable
+     * @return the latitudes
+     * @throws IOException on disk access failures or when the variable is not on a lon/lat grid
+     */
+    static double[] readLatitudes(NetcdfFile netcdfFile, Variable variable) throws IOException {
+        return readAxis(netcdfFile, variable, variable.getRank() - 2);
+    }
+
+    /**
+     * Returns the number of vertical levels of the variable, i.e. the product of the dimensions between time and
+     * the horizontal grid dimensions.
+     *
+     * @param variable the data variable
+     * @return the number of levels
+     */
+    static int getNumLevels(Variable variable) {
+        final int[] shape = variable.getShape();
+        int numLevels = 1;
+        for (int i = 1; i < shape.length - 2; i++) {
+            numLevels *= shape[i];
+        }
+        return numLevels;
+    }
+
+    /**
+     * Reads all levels of one time step of the variable, applies scaling and converts fill values and values
+     * outside the valid range to NaN.
+     *
+     * @param variable  the data variable, dimensions (time, [level,] lat, lon)
+     * @param timeIndex the time index in the file
+     * @return the field data, levels stored consecutively
+     * @throws IOException on disk access failures
+     */
+    static float[] readField(Variable variable, int timeIndex) throws IOException {
+        final int[] origin = new int[variable.getRank()];
+        final int[] shape = variable.getShape();
+        origin[0] = timeIndex;
+        shape[0] = 1;
+
+        final Array rawArray;
+        try {
+            rawArray = variable.read(origin, shape);
+        } catch (InvalidRangeException e) {
+            throw new IOException(e.getMessage());
+        }
+
+        final double rawFill = NetCDFUtils.getFillValue(variable).doubleValue();
+        final double missingValue = NetCDFUtils.getAttributeDouble(variable, "missing_value", Double.NaN);
+        final double scaleFactor = NetCDFUtils.getScaleFactor(variable);
+        final double offset = NetCDFUtils.getOffset(variable);
+        final double validMin = NetCDFUtils.getAttributeDouble(variable, "valid_min", Double.NEGATIVE_INFINITY);
+        final double validMax = NetCDFUtils.getAttributeDouble(variable, "valid_max", Double.POSITIVE_INFINITY);
+
+        final int size = (int) rawArray.getSize();
+        final float[] field = new float[size];
+        for (int i = 0; i < size; i++) {
+            final double rawValue = rawArray.getDouble(i);
+            if (rawValue == rawFill || rawValue == missingValue) {
+                field[i] = Float.NaN;
+                continue;
+            }
+
+            final double value = rawValue * scaleFactor + offset;
+            if (value < validMin || value > validMax) {
+                field[i] = Float.NaN;
+            } else {
+                field[i] = (float) value;
+            }
+        }
+        return field;
+    }
+
+    private static double[] readAxis(NetcdfFile netcdfFile, Variable variable, int dimensionIndex) throws IOException {
+        if (dimensionIndex < 1) {
+            throw new IOException("Variable is not located on a lon/lat grid: " + variable.getShortName());
+        }
+
+        final Dimension dimension = variable.getDimension(dimensionIndex);
+        final Variable axisVariable = netcdfFile.findVariable(dimension.getShortName());
+        if (axisVariable == null || axisVariable.getRank() != 1) {
+            // e.g. spectral coefficients, which need to be transformed to grid points by CDO
+            throw new IOException("Variable is not located on a lon/lat grid: " + variable.getShortName() + " in " + netcdfFile.getLocation()
+                    + ". The 'java' extraction engine does not support spectral NWP data, use the 'cdo' extraction engine.");
+        }
+
+        final Array axisArray = axisVariable.read();
+        final double[] axis = new double[(int) axisArray.getSize()];
+        for (int i = 0; i < axis.length; i++) {
+            axis[i] = axisArray.getDouble(i);
+        }
+        return axis;
+    }
+
+    static class Field {
+
+        final float[] data;
+        final NwpGridSampler sampler;
+        final int numLevels;
+
+        Field(float[] data, NwpGridSampler sampler, int numLevels) {
+            this.data = data;
+            this.sampler = sampler;
+            this.numLevels = numLevels;
+        }
+
+        float sample(int level, int pointIndex) {
+            return sampler.sample(data, level * sampler.getLayerSize(), pointIndex);
+        }
+    }
+}
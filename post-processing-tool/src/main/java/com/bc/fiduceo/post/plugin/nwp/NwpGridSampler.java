@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.post.plugin.nwp;
+
+/**
+ * Bilinear re-mapping of a regular or Gaussian lon/lat NWP grid to a set of geo-locations, the
+ * in-memory replacement of "cdo remapbil". The interpolation weights are calculated once per grid and
+ * point set and can then be applied to any number of fields and levels.
+ */
+class NwpGridSampler {
+
+    private final int width;
+    private final int height;
+    private final int[] index00;
+    private final int[] index10;
+    private final int[] index01;
+    private final int[] index11;
+    private final double[] weightX;
+    private final double[] weightY;
+
+    /**
+     * Creates the sampler.
+     *
+     * @param gridLons  the longitude axis of the NWP grid, monotonically increasing
+     * @param gridLats  the latitude axis of the NWP grid, monotonically increasing or decreasing
+     * @param lons      the longitudes of the target points
+     * @param lats      the latitudes of the target points
+     */
+    NwpGridSampler(double[] gridLons, double[] gridLats, float[] lons, float[] lats) {
+        width = gridLons.length;
+        height = gridLats.length;
+
+        final int numPoints = lons.length;
+        index00 = new int[numPoints];
+        index10 = new int[numPoints];
+        index01 = new int[numPoints];
+        index11 = new int[numPoints];
+        weightX = new double[numPoints];
+        weightY = new double[numPoints];
+
+        final boolean isGlobal = isGlobal(gridLons);
+        for (int i = 0; i < numPoints; i++) {
+            final float lon = lons[i];
+            final float lat = lats[i];
+            if (!isValid(lon, lat)) {
+                index00[i] = -1;
+                continue;
+            }
+
+            final double gridLon = normalizeLongitude(lon, gridLons[0]);
+            int x0 = findLowerIndex(gridLons, gridLon);
+            int x1;
+            double wx;
+            if (x0 < 0 || x0 >= width - 1) {
+                if (!isGlobal) {
+                    index00[i] = -1;
+                    continue;
+                }
+                // point is located between the last and the first longitude of a global grid
+                x0 = width - 1;
+                x1 = 0;
+                final double lastLon = gridLons[width - 1];
+                wx = (gridLon - lastLon) / (gridLons[0] + 360.0 - lastLon);
+            } else {
+                x1 = x0 + 1;
+                wx = (gridLon - gridLons[x0]) / (gridLons[x1] - gridLons[x0]);
+            }
+
+            final int y0 = findLowerIndex(gridLats, lat);
+            if (y0 < 0 || y0 >= height - 1) {
+                index00[i] = -1;
+                continue;
+            }
+            final int y1 = y0 + 1;
+            final double wy = (lat - gridLats[y0]) / (gridLats[y1] - gridLats[y0]);
+
+            index00[i] = y0 * width + x0;
+            index10[i] = y0 * width + x1;
+            index01[i] = y1 * width + x0;
+            index11[i] = y1 * width + x1;
+            weightX[i] = wx;
+            weightY[i] = wy;
+        }
+    }
+
+    int getNumPoints() {
+        return index00.length;
+    }
+
+    int getLayerSize() {
+        return width * height;
+    }
+
+    /**
+     * Interpolates the field value at the point. Returns NaN if the point is located outside the grid or if one of
+     * the surrounding grid values is invalid (NaN).
+     *
+     * @param field       the field data, layers of (lat, lon) stored consecutively
+     * @param layerOffset the offset of the layer in the field data
+     * @param pointIndex  the index of the target point
+     * @return the interpolated value or NaN
+     */
+    float sample(float[] field, int layerOffset, int pointIndex) {
+        final int i00 = index00[pointIndex];
+        if (i00 < 0) {
+            return Float.NaN;
+        }
+
+        final double c00 = field[layerOffset + i00];
+        final double c10 = field[layerOffset + index10[pointIndex]];
+        final double c01 = field[layerOffset + index01[pointIndex]];
+        final double c11 = field[layerOffset + index11[pointIndex]];
+
+        final double wx = weightX[pointIndex];
+        final double wy = weightY[pointIndex];
+        final double upper = c00 + wx * (c10 - c00);
+        final double lower = c01 + wx * (c11 - c01);
+        // NaN values propagate through the arithmetic, no need to check explicitly
+        return (float) (upper + wy * (lower - upper));
+    }
+
+    // package access for testing only
+    static int findLowerIndex(double[] axis, double value) {
+        final int length = axis.length;
+        if (length < 2) {
+            return -1;
+        }
+
+        final boolean ascending = axis[length - 1] > axis[0];
+        int low = 0;
+        int high = length - 1;
+        if (ascending) {
+            if (value < axis[low] || value > axis[high]) {
+                return -1;
+            }
+        } else {
+            if (value > axis[low] || value < axis[high]) {
+                return -1;
+            }
+        }
+
+        while (high - low > 1) {
+            final int mid = (low + high) >>> 1;
+            final boolean isBelow = ascending ? axis[mid] <= value : axis[mid] >= value;
+            if (isBelow) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // package access for testing only
+    static double normalizeLongitude(double lon, double axisStart) {
+        double normalized = lon;
+        while (normalized < axisStart) {
+            normalized += 360.0;
+        }
+        while (normalized >= axisStart + 360.0) {
+            normalized -= 360.0;
+        }
+        return normalized;
+    }
+
+    private static boolean isGlobal(double[] gridLons) {
+        final int length = gridLons.length;
+        if (length < 2) {
+            return false;
+        }
+        final double increment = (gridLons[length - 1] - gridLons[0]) / (length - 1);
+        return Math.abs(gridLons[length - 1] - gridLons[0] + increment - 360.0) < 1e-3 * Math.abs(increment) + 1e-6;
+    }
+
+    private static boolean isValid(float lon, float lat) {
+        return lat >= -90.0f && lat <= 90.0f && lon >= -180.0f && lon <= 360.0f;
+    }
+}
@@ -49,12 +49,12 @@ class NwpPostProcessing extends PostProcessing {
 
         final Context context = createContext(reader, writer);
         if (configuration.isTimeSeriesExtraction()) {
-            final Strategy timeSeries = StrategyFactory.getTimeSeries();
+            final Strategy timeSeries = StrategyFactory.getTimeSeries(configuration);
             timeSeries.prepare(context);
         }
 
         if (configuration.isSensorExtraction()) {
-            final Strategy sensorExtracts = StrategyFactory.getSensorExtracts();
+            final Strategy sensorExtracts = StrategyFactory.getSensorExtracts(configuration);
             sensorExtracts.prepare(context);
         }
 
@@ -68,12 +68,12 @@ class NwpPostProcessing extends PostProcessing {
         final Context context = createContext(reader, writer);
 
         if (configuration.isTimeSeriesExtraction()) {
-            final Strategy timeSeries = StrategyFactory.getTimeSeries();
+            final Strategy timeSeries = StrategyFactory.getTimeSeries(configuration);
             timeSeries.compute(context);
         }
 
         if (configuration.isSensorExtraction()) {
-            final Strategy sensorExtracts = StrategyFactory.getSensorExtracts();
+            final Strategy sensorExtracts = StrategyFactory.getSensorExtracts(configuration);
             sensorExtracts.compute(context);
         }
 
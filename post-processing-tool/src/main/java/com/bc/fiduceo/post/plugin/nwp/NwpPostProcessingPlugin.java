@@ -39,8 +39,21 @@ public class NwpPostProcessingPlugin implements PostProcessingPlugin {
             configuration.setDeleteOnExit(Boolean.parseBoolean(deleteOnExitValue));
         }
 
-        final String cdoHomeValue = JDomUtils.getMandatoryChildTextTrim(rootElement, "cdo-home");
-        configuration.setCDOHome(cdoHomeValue);
+        final Element extractionEngineElement = rootElement.getChild("extraction-engine");
+        if (extractionEngineElement != null) {
+            configuration.setExtractionEngine(getElementValueTrimmed(extractionEngineElement));
+        }
+
+        // the pure Java extraction does not need a CDO installation
+        if (configuration.isJavaExtraction()) {
+            final Element cdoHomeElement = rootElement.getChild("cdo-home");
+            if (cdoHomeElement != null) {
+                configuration.setCDOHome(getElementValueTrimmed(cdoHomeElement));
+            }
+        } else {
+            final String cdoHomeValue = JDomUtils.getMandatoryChildTextTrim(rootElement, "cdo-home");
+            configuration.setCDOHome(cdoHomeValue);
+        }
 
         final String nwpAuxDirValue = JDomUtils.getMandatoryChildTextTrim(rootElement, "nwp-aux-dir");
         configuration.setNWPAuxDir(nwpAuxDirValue);
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.post.plugin.nwp;
+
+import com.bc.fiduceo.util.NetCDFUtils;
+import ucar.ma2.Array;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+import ucar.nc2.time.CalendarDateUnit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The merged time axis of a set of NWP files, the in-memory replacement of "cdo mergetime". Times are
+ * stored as seconds since 1970-01-01.
+ */
+class NwpTimeSteps {
+
+    private static final int SIX_HOURS_IN_SECONDS = 6 * 60 * 60;
+
+    private final List<TimeStep> timeSteps;
+
+    private NwpTimeSteps(List<TimeStep> timeSteps) {
+        this.timeSteps = timeSteps;
+    }
+
+    /**
+     * Reads the time axes of all files and merges them in ascending order.
+     *
+     * @param files             the NWP files
+     * @param synopticHoursOnly if true, only the time steps at 0, 6, 12 and 18 UTC are used ("cdo selhour,0,6,12,18")
+     * @return the time steps
+     * @throws IOException on disk access failures
+     */
+    static NwpTimeSteps create(List<File> files, boolean synopticHoursOnly) throws IOException {
+        final List<TimeStep> timeSteps = new ArrayList<>();
+        for (final File file : files) {
+            try (NetcdfFile netcdfFile = NetcdfFile.open(file.getAbsolutePath())) {
+                final int[] times = readTimes(netcdfFile);
+                for (int i = 0; i < times.length; i++) {
+                    if (synopticHoursOnly && times[i] % SIX_HOURS_IN_SECONDS != 0) {
+                        continue;
+                    }
+                    timeSteps.add(new TimeStep(file, i, times[i]));
+                }
+            }
+        }
+
+        timeSteps.sort(Comparator.comparingInt(timeStep -> timeStep.time));
+        return new NwpTimeSteps(timeSteps);
+    }
+
+    int size() {
+        return timeSteps.size();
+    }
+
+    int getTime(int step) {
+        return timeSteps.get(step).time;
+    }
+
+    File getFile(int step) {
+        return timeSteps.get(step).file;
+    }
+
+    int getTimeIndexInFile(int step) {
+        return timeSteps.get(step).timeIndex;
+    }
+
+    /**
+     * Finds the step with exactly the time given.
+     *
+     * @param time seconds since 1970
+     * @return the step index or -1 if there is no such time step
+     */
+    int findStep(int time) {
+        int low = 0;
+        int high = timeSteps.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midTime = timeSteps.get(mid).time;
+            if (midTime < time) {
+                low = mid + 1;
+            } else if (midTime > time) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    Array getTimesArray() {
+        final int[] times = new int[timeSteps.size()];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = timeSteps.get(i).time;
+        }
+        return NetCDFUtils.create(times);
+    }
+
+    // package access for testing only
+    static int[] readTimes(NetcdfFile netcdfFile) throws IOException {
+        final Variable timeVariable = findTimeVariable(netcdfFile);
+        if (timeVariable == null) {
+            throw new IOException("No time coordinate variable found in: " + netcdfFile.getLocation());
+        }
+
+        final String units = NetCDFUtils.getAttributeString(timeVariable, NetCDFUtils.CF_UNITS_NAME, null);
+        final String calendar = NetCDFUtils.getAttributeString(timeVariable, "calendar", null);
+        final CalendarDateUnit dateUnit = CalendarDateUnit.of(calendar, units);
+
+        final Array timeArray = timeVariable.read();
+        final int[] times = new int[(int) timeArray.getSize()];
+        for (int i = 0; i < times.length; i++) {
+            final long millis = dateUnit.makeCalendarDate(timeArray.getDouble(i)).getMillis();
+            times[i] = (int) (millis / 1000L);
+        }
+        return times;
+    }
+
+    static Variable findTimeVariable(NetcdfFile netcdfFile) {
+        for (final Variable variable : netcdfFile.getVariables()) {
+            if (variable.getRank() != 1 || !variable.isCoordinateVariable()) {
+                continue;
+            }
+
+            final String units = NetCDFUtils.getAttributeString(variable, NetCDFUtils.CF_UNITS_NAME, null);
+            if (units != null && units.contains(" since ")) {
+                return variable;
+            }
+        }
+        return null;
+    }
+
+    private static class TimeStep {
+        final File file;
+        final int timeIndex;
+        final int time;
+
+        TimeStep(File file, int timeIndex, int time) {
+            this.file = file;
+            this.timeIndex = timeIndex;
+            this.time = time;
+        }
+    }
+}
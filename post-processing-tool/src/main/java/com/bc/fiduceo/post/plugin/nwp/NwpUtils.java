@@ -41,6 +41,17 @@ class NwpUtils {
     // @todo 2 tb/tb write tests for this method 2017-01-10
     static String composeFilesString(final String dirPath, final List<String> subDirPaths, final String pattern, int skip) {
         final StringBuilder sb = new StringBuilder();
+        final List<File> files = composeFiles(dirPath, subDirPaths, pattern, skip);
+        for (final File file : files) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(file.getPath());
+        }
+        return sb.toString();
+    }
+
+    static List<File> composeFiles(final String dirPath, final List<String> subDirPaths, final String pattern, int skip) {
         final List<File> allFiles = new ArrayList<>();
         final FilenameFilter filter = (dir, name) -> name.matches(pattern);
         for (final String subDirPath : subDirPaths) {
@@ -61,14 +72,10 @@ class NwpUtils {
             m = 0;
             n = allFiles.size() + skip;
         }
-        for (int i = m; i < n; i++) {
-            final File file = allFiles.get(i);
-            if (sb.length() > 0) {
-                sb.append(' ');
-            }
-            sb.append(file.getPath());
+        if (m >= n) {
+            return new ArrayList<>();
         }
-        return sb.toString();
+        return new ArrayList<>(allFiles.subList(m, n));
     }
 
     // package public for testing
@@ -5,6 +5,30 @@ class StrategyFactory {
 
     private static Strategy timeSeriesStrategy;
     private static Strategy sensorExtractsStrategy;
+    private static Strategy javaTimeSeriesStrategy;
+    private static Strategy javaSensorExtractsStrategy;
+
+    static Strategy getTimeSeries(Configuration configuration) {
+        if (configuration.isJavaExtraction()) {
+            if (javaTimeSeriesStrategy == null) {
+                javaTimeSeriesStrategy = new JavaTimeSeriesStrategy();
+            }
+            return javaTimeSeriesStrategy;
+        }
+
+        return getTimeSeries();
+    }
+
+    static Strategy getSensorExtracts(Configuration configuration) {
+        if (configuration.isJavaExtraction()) {
+            if (javaSensorExtractsStrategy == null) {
+                javaSensorExtractsStrategy = new JavaSensorExtractionStrategy();
+            }
+            return javaSensorExtractsStrategy;
+        }
+
+        return getSensorExtracts();
+    }
 
     static Strategy getTimeSeries() {
         if (timeSeriesStrategy == null) {
@@ -32,8 +32,11 @@ import ucar.nc2.*;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.bc.fiduceo.util.NetCDFUtils.CF_FILL_VALUE_NAME;
 import static com.bc.fiduceo.util.NetCDFUtils.CF_UNITS_NAME;
@@ -87,31 +90,54 @@ class SstInsituTimeSeries extends PostProcessing {
         final Variable timeVar2D = writer.findVariable(NetCDFUtils.escapeVariableName("insitu.time"));
         final Variable dtimeVar2D = writer.findVariable(NetCDFUtils.escapeVariableName("insitu.dtime"));
 
+        // matchups are grouped by insitu file, so that each variable is read only once per file for the records of all its matchups
+        final Map<String, List<Integer>> matchupsPerFile = new LinkedHashMap<>();
         for (int i = 0; i < matchupCount; i++) {
             final String insituFileName = getSourceFileName(fileNameVariable, i, filenameFieldSize, FILE_NAME_PATTERN_D8_D8_NC);
-            final SSTInsituReader insituReader = (SSTInsituReader) readerCache.getReaderFor(sensorType, Paths.get(insituFileName), configuration.processingVersion);
-            Range range = computeInsituRange(y1D[i], insituReader);
-            final int[] origin1D = {range.min};
-            final int timeSeriesLength = getTimeSeriesLength(range);
-            final int[] shape1D = {timeSeriesLength};
-            final int[] origin2D = {i, 0};
-            final int[] shape2D = {1, timeSeriesLength};
+            matchupsPerFile.computeIfAbsent(insituFileName, fileName -> new ArrayList<>()).add(i);
+        }
+
+        for (final Map.Entry<String, List<Integer>> entry : matchupsPerFile.entrySet()) {
+            final SSTInsituReader insituReader = (SSTInsituReader) readerCache.getReaderFor(sensorType, Paths.get(entry.getKey()), configuration.processingVersion);
+            final List<Integer> matchups = entry.getValue();
+
+            final Range[] ranges = new Range[matchups.size()];
+            int minRecord = Integer.MAX_VALUE;
+            int maxRecord = Integer.MIN_VALUE;
+            for (int k = 0; k < ranges.length; k++) {
+                ranges[k] = computeInsituRange(y1D[matchups.get(k)], insituReader);
+                minRecord = Math.min(minRecord, ranges[k].min);
+                maxRecord = Math.max(maxRecord, ranges[k].max);
+            }
+            final Range fileRange = new Range(minRecord, maxRecord);
+
             final List<Variable> variables = insituReader.getVariables();
             for (Variable variable1D : variables) {
-                final Array fullSrcData1D = insituReader.getSourceArray(variable1D.getShortName());
-                final Array srcData1D = NetCDFUtils.section(fullSrcData1D, origin1D, shape1D);
+                final Array fileData1D = insituReader.getSourceArray(variable1D.getShortName(), fileRange.min, getTimeSeriesLength(fileRange));
                 final String validShortName = NetCDFUtils.escapeVariableName(variable1D.getShortName());
                 final Variable targetVar2D = writer.findVariable(validShortName);
-                final Array targetData2D = srcData1D.reshape(shape2D);
-                writer.write(targetVar2D, origin2D, targetData2D);
+                for (int k = 0; k < ranges.length; k++) {
+                    final Range range = ranges[k];
+                    final int timeSeriesLength = getTimeSeriesLength(range);
+                    final Array srcData1D = NetCDFUtils.section(fileData1D, new int[]{range.min - fileRange.min}, new int[]{timeSeriesLength});
+                    final Array targetData2D = srcData1D.reshape(new int[]{1, timeSeriesLength});
+                    writer.write(targetVar2D, new int[]{matchups.get(k), 0}, targetData2D);
+                }
             }
 
-            final Array y2D = createY2D(range, shape2D);
-            writer.write(yVariable2D, origin2D, y2D);
+            for (int k = 0; k < ranges.length; k++) {
+                final int i = matchups.get(k);
+                final Range range = ranges[k];
+                final int[] origin2D = {i, 0};
+                final int[] shape2D = {1, getTimeSeriesLength(range)};
+
+                final Array y2D = createY2D(range, shape2D);
+                writer.write(yVariable2D, origin2D, y2D);
 
-            final int satMatchupTime = satMatchup1978_1D[i];
-            final Array deltaTimes = createDeltaTime2D(satMatchupTime, timeVar2D, dtimeVar2D, origin2D, shape2D);
-            writer.write(dtimeVar2D, origin2D, deltaTimes);
+                final int satMatchupTime = satMatchup1978_1D[i];
+                final Array deltaTimes = createDeltaTime2D(satMatchupTime, timeVar2D, dtimeVar2D, origin2D, shape2D);
+                writer.write(dtimeVar2D, origin2D, deltaTimes);
+            }
         }
     }
 
@@ -155,24 +181,32 @@ class SstInsituTimeSeries extends PostProcessing {
     }
 
     Range computeInsituRange(final int matchupPos, SSTInsituReader insituReader) {
-        final String name = "insitu.time";
-        final Array sourceArray = insituReader.getSourceArray(name);
-        final int[] times = (int[]) sourceArray.getStorage();
-        final int matchupTime = times[matchupPos];
+        final int matchupTime = insituReader.getTime(matchupPos);
         final int minTime_ = matchupTime - (configuration.timeRangeSeconds / 2);
         final int maxTime = minTime_ + configuration.timeRangeSeconds;
         final int minTime = minTime_ < 0 ? 0 : minTime_;
+
+        if (insituReader.isTimeOrdered()) {
+            // the records within the time range are contiguous and contain the matchup record
+            final int[] records = insituReader.findRecordsInTimeRange(minTime, maxTime);
+            if (records.length == 0) {
+                return new Range(matchupPos, matchupPos);
+            }
+            return new Range(records[0], records[records.length - 1]);
+        }
+
         int minIdx = matchupPos;
         int maxIdx = matchupPos;
-        for (int i = matchupPos; i > 0; i--) {
-            if (minTime <= times[i]) {
+        for (int i = matchupPos; i >= 0; i--) {
+            if (minTime <= insituReader.getTime(i)) {
                 minIdx = i;
             } else {
                 break;
             }
         }
-        for (int i = matchupPos; i < times.length; i++) {
-            if (maxTime >= times[i]) {
+        final int numObservations = insituReader.getProductSize().getNy();
+        for (int i = matchupPos; i < numObservations; i++) {
+            if (maxTime >= insituReader.getTime(i)) {
                 maxIdx = i;
             } else {
                 break;
@@ -16,25 +16,27 @@
  */
 package com.bc.fiduceo.post.util;
 
+import com.bc.fiduceo.log.FiduceoLogger;
 import com.bc.fiduceo.util.NetCDFUtils;
 import ucar.ma2.Array;
-import ucar.ma2.Index;
 import ucar.nc2.NetcdfFile;
 import ucar.nc2.Variable;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 
 import static com.bc.fiduceo.util.NetCDFUtils.CF_SCALE_FACTOR_NAME;
 
 public class DistanceToLandMap {
 
+    private static final String TILE_FILE_EXTENSION = ".tiles";
+
     private static int instanceCount = 0;
     private final Path distancePath;
-    private static NetcdfFile ncFile;
-    private static Array array;
-    private static Index index;
+    private static TiledDistanceGrid grid;
     private static double lonF;
     private static double latF;
     private static int maxLonIdx;
@@ -54,23 +56,59 @@ public class DistanceToLandMap {
     public double getDistance(double longitude, double latitude) {
         int latIdx = getLatIdx(latitude);
         int lonIdx = getLonIdx(longitude);
-        index.set(latIdx, lonIdx);
-        return array.getDouble(index) * scaleFactor;
+        return grid.get(latIdx, lonIdx);
+    }
+
+    /**
+     * Batch version of getDistance(). The points are processed sorted by grid tile, so that each tile of the
+     * distance grid is touched only once per call. Points with invalid geo-location (fill values, out of range)
+     * are set to the fill value.
+     *
+     * @param longitudes the longitudes
+     * @param latitudes  the latitudes
+     * @param distances  the target array for the distances, same length as the geo-location arrays
+     * @param fillValue  the value for points with invalid geo-location
+     */
+    public void getDistances(double[] longitudes, double[] latitudes, float[] distances, float fillValue) {
+        final int tileSize = grid.getTileSize();
+        final int numTilesX = grid.getNumTilesX();
+
+        // sort key: tile index in the upper, point index in the lower 32 bits
+        final long[] sortKeys = new long[longitudes.length];
+        int numValid = 0;
+        for (int i = 0; i < longitudes.length; i++) {
+            final double longitude = longitudes[i];
+            final double latitude = latitudes[i];
+            if (!isValid(longitude, latitude)) {
+                distances[i] = fillValue;
+                continue;
+            }
+
+            final int latIdx = getLatIdx(latitude);
+            final int lonIdx = getLonIdx(longitude);
+            final long tileIndex = (long) (latIdx / tileSize) * numTilesX + lonIdx / tileSize;
+            sortKeys[numValid] = (tileIndex << 32) | i;
+            numValid++;
+        }
+        Arrays.sort(sortKeys, 0, numValid);
+
+        for (int k = 0; k < numValid; k++) {
+            final int i = (int) (sortKeys[k] & 0xFFFFFFFFL);
+            distances[i] = grid.get(getLatIdx(latitudes[i]), getLonIdx(longitudes[i]));
+        }
     }
 
     public void close() {
         instanceCount--;
         if (instanceCount == 0) {
-            try {
-                ncFile.close();
-            } catch (IOException e) {
-                throw new RuntimeException("Unable to close DistanceToLandMap.", e);
-            }
-            array = null;
-            index = null;
+            grid = null;
         }
     }
 
+    static boolean isValid(double longitude, double latitude) {
+        return longitude >= -180.0 && longitude <= 180.0 && latitude >= -90.0 && latitude <= 90.0;
+    }
+
     private int getLonIdx(double lon) {
         double shiftedLon = lon + 180;
         return Math.min(maxLonIdx, (int) Math.floor(shiftedLon * lonF));
@@ -83,23 +121,63 @@ public class DistanceToLandMap {
 
     private void init() {
         final String absolutePathString = distancePath.toAbsolutePath().toString();
-        try {
-            ncFile = NetCDFUtils.openReadOnly(absolutePathString);
+        try (NetcdfFile ncFile = NetCDFUtils.openReadOnly(absolutePathString)) {
             Variable distance_to_land = ncFile.findVariable(ncFile.getRootGroup(), "distance_to_land");
             scaleFactor = distance_to_land.findAttribute(CF_SCALE_FACTOR_NAME).getNumericValue().doubleValue();
-            array = distance_to_land.read();
-            index = array.getIndex();
             final int width = distance_to_land.getDimension(1).getLength();
             maxLonIdx = width - 1;
             lonF = width / 360.0;
             final int height = distance_to_land.getDimension(0).getLength();
             maxLatIdx = height - 1;
             latF = height / 180.0;
+
+            final File tileFile = getTileFile(distancePath.toFile(), width, height);
+            grid = TiledDistanceGrid.open(tileFile);
         } catch (IOException e) {
             throw new RuntimeException("Unable to initialize DistanceToLandMap.", e);
         }
     }
 
+    // The tiled grid is written once next to the NetCDF file and re-used by subsequent runs. The tile file is
+    // replaced atomically, an existing file is never truncated or deleted. If the aux-data directory is not
+    // writable, a temporary file is used instead
+    private File getTileFile(File ncFile, int width, int height) throws IOException {
+        final File tileFile = new File(ncFile.getAbsolutePath() + TILE_FILE_EXTENSION);
+        if (isUpToDate(tileFile, ncFile, width, height)) {
+            return tileFile;
+        }
+
+        final Array data = readDistances(ncFile);
+        if (isUpToDate(tileFile, ncFile, width, height)) {
+            // written by a concurrent process in the meantime
+            return tileFile;
+        }
+
+        try {
+            TiledDistanceGrid.write(tileFile, data, scaleFactor, TiledDistanceGrid.DEFAULT_TILE_SIZE);
+            return tileFile;
+        } catch (IOException e) {
+            FiduceoLogger.getLogger().info("Unable to write distance-to-land tiles to '" + tileFile.getAbsolutePath() + "', using temporary file");
+        }
+
+        final File tempFile = File.createTempFile("distance_to_land", TILE_FILE_EXTENSION);
+        tempFile.deleteOnExit();
+        TiledDistanceGrid.write(tempFile, data, scaleFactor, TiledDistanceGrid.DEFAULT_TILE_SIZE);
+        return tempFile;
+    }
+
+    private static boolean isUpToDate(File tileFile, File ncFile, int width, int height) throws IOException {
+        return tileFile.lastModified() >= ncFile.lastModified() &&
+                TiledDistanceGrid.isValidTileFile(tileFile, width, height, TiledDistanceGrid.DEFAULT_TILE_SIZE);
+    }
+
+    private static Array readDistances(File ncFile) throws IOException {
+        try (NetcdfFile netcdfFile = NetCDFUtils.openReadOnly(ncFile.getAbsolutePath())) {
+            final Variable distance_to_land = netcdfFile.findVariable(netcdfFile.getRootGroup(), "distance_to_land");
+            return distance_to_land.read();
+        }
+    }
+
     private void validatePath() {
         final String absolutePathString = distancePath.toAbsolutePath().toString();
         if (!Files.isRegularFile(distancePath)) {
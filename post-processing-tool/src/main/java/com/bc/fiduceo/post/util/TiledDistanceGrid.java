@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.fiduceo.post.util;
+
+import ucar.ma2.Array;
+import ucar.ma2.Index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A global lon/lat grid of float values, stored tile by tile in a memory mapped file. Neighbouring grid cells
+ * are located close to each other in memory, so lookups of spatially sorted points touch only few pages.
+ * <p>
+ * File layout: a header of four ints (magic, width, height, tileSize) followed by the tiles in row-major
+ * order, each tile storing tileSize x tileSize floats in row-major order. Edge tiles are padded.
+ */
+class TiledDistanceGrid {
+
+    static final int DEFAULT_TILE_SIZE = 256;
+
+    private static final int MAGIC = 0x46444c44;
+    private static final int HEADER_SIZE = 16;
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int numTilesX;
+    private final FloatBuffer[] tileRows;
+
+    private TiledDistanceGrid(int width, int height, int tileSize, FloatBuffer[] tileRows) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.numTilesX = (width + tileSize - 1) / tileSize;
+        this.tileRows = tileRows;
+    }
+
+    /**
+     * Opens and maps a tiled grid file.
+     *
+     * @param tileFile the tiled grid file
+     * @return the grid
+     * @throws IOException on disk access failures or if the file is not a tiled grid file
+     */
+    static TiledDistanceGrid open(File tileFile) throws IOException {
+        final int width;
+        final int height;
+        final int tileSize;
+        try (RandomAccessFile raf = new RandomAccessFile(tileFile, "r")) {
+            if (raf.readInt() != MAGIC) {
+                throw new IOException("Not a tiled distance grid file: " + tileFile.getAbsolutePath());
+            }
+            width = raf.readInt();
+            height = raf.readInt();
+            tileSize = raf.readInt();
+        }
+
+        if (tileFile.length() != getFileSize(width, height, tileSize)) {
+            throw new IOException("Tiled distance grid file is truncated: " + tileFile.getAbsolutePath());
+        }
+        return map(tileFile, width, height, tileSize);
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getTileSize() {
+        return tileSize;
+    }
+
+    int getNumTilesX() {
+        return numTilesX;
+    }
+
+    float get(int y, int x) {
+        final int tileY = y / tileSize;
+        final int tileX = x / tileSize;
+        final int offset = tileX * tileSize * tileSize + (y - tileY * tileSize) * tileSize + (x - tileX * tileSize);
+        return tileRows[tileY].get(offset);
+    }
+
+    static boolean isValidTileFile(File tileFile, int width, int height, int tileSize) throws IOException {
+        if (!tileFile.isFile() || tileFile.length() != getFileSize(width, height, tileSize)) {
+            return false;
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(tileFile, "r")) {
+            return raf.readInt() == MAGIC && raf.readInt() == width && raf.readInt() == height && raf.readInt() == tileSize;
+        }
+    }
+
+    private static long getFileSize(int width, int height, int tileSize) {
+        final long numTilesX = (width + tileSize - 1) / tileSize;
+        final long numTilesY = (height + tileSize - 1) / tileSize;
+        return HEADER_SIZE + numTilesX * numTilesY * tileSize * tileSize * 4L;
+    }
+
+    /**
+     * Writes the grid data tile by tile. The data is written to a temporary file in the target directory which
+     * is then atomically moved to the target, so concurrent readers never see a partially written file.
+     *
+     * @param tileFile    the target file
+     * @param data        the grid data (lat, lon), first row at 90 degrees north
+     * @param scaleFactor the scale factor applied to the data
+     * @param tileSize    the edge length of the tiles in grid cells
+     * @throws IOException on disk access failures
+     */
+    static void write(File tileFile, Array data, double scaleFactor, int tileSize) throws IOException {
+        final Path targetPath = tileFile.toPath().toAbsolutePath();
+        final Path tempPath = Files.createTempFile(targetPath.getParent(), tileFile.getName(), ".tmp");
+        try {
+            writeTiles(tempPath.toFile(), data, scaleFactor, tileSize);
+            Files.move(tempPath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private static void writeTiles(File tileFile, Array data, double scaleFactor, int tileSize) throws IOException {
+        final int[] shape = data.getShape();
+        final int height = shape[0];
+        final int width = shape[1];
+        final int numTilesX = (width + tileSize - 1) / tileSize;
+        final int numTilesY = (height + tileSize - 1) / tileSize;
+
+        final Index index = data.getIndex();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tileFile), 1 << 20))) {
+            out.writeInt(MAGIC);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(tileSize);
+
+            for (int tileY = 0; tileY < numTilesY; tileY++) {
+                for (int tileX = 0; tileX < numTilesX; tileX++) {
+                    for (int ty = 0; ty < tileSize; ty++) {
+                        final int y = tileY * tileSize + ty;
+                        for (int tx = 0; tx < tileSize; tx++) {
+                            final int x = tileX * tileSize + tx;
+                            if (y < height && x < width) {
+                                index.set(y, x);
+                                out.writeFloat((float) (data.getDouble(index) * scaleFactor));
+                            } else {
+                                out.writeFloat(Float.NaN);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static TiledDistanceGrid map(File tileFile, int width, int height, int tileSize) throws IOException {
+        final int numTilesX = (width + tileSize - 1) / tileSize;
+        final int numTilesY = (height + tileSize - 1) / tileSize;
+        final long tileRowBytes = (long) numTilesX * tileSize * tileSize * 4L;
+
+        // one mapping per row of tiles keeps each buffer well below the 2GB limit of a mapped buffer
+        final FloatBuffer[] tileRows = new FloatBuffer[numTilesY];
+        try (RandomAccessFile raf = new RandomAccessFile(tileFile, "r"); FileChannel channel = raf.getChannel()) {
+            for (int tileY = 0; tileY < numTilesY; tileY++) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + tileY * tileRowBytes, tileRowBytes);
+                buffer.order(ByteOrder.BIG_ENDIAN);
+                tileRows[tileY] = buffer.asFloatBuffer();
+            }
+        }
+        return new TiledDistanceGrid(width, height, tileSize, tileRows);
+    }
+}
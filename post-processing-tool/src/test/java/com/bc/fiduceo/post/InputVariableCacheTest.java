@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+
+package com.bc.fiduceo.post;
+
+import org.junit.Before;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.nc2.Variable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class InputVariableCacheTest {
+
+    private InputVariableCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new InputVariableCache(1000);
+    }
+
+    @Test
+    public void testPin() {
+        final Variable variable = createVariable(4);
+        final Array data = Array.factory(DataType.FLOAT, new int[]{10, 5});
+
+        assertTrue(cache.pin(variable, data));
+
+        verify(variable).setCachedData(same(data), eq(false));
+        assertEquals(1, cache.getNumPinned());
+        assertEquals(200, cache.getPinnedBytes());
+    }
+
+    @Test
+    public void testPin_exceedsBudget() {
+        final Variable first = createVariable(4);
+        final Variable second = createVariable(4);
+
+        assertTrue(cache.pin(first, Array.factory(DataType.FLOAT, new int[]{200})));
+        assertFalse(cache.pin(second, Array.factory(DataType.FLOAT, new int[]{51})));
+
+        verify(second, never()).setCachedData(any(), anyBoolean());
+        assertEquals(1, cache.getNumPinned());
+        assertEquals(800, cache.getPinnedBytes());
+    }
+
+    @Test
+    public void testPin_zeroBudget() {
+        cache = new InputVariableCache(0);
+        final Variable variable = createVariable(2);
+
+        assertFalse(cache.pin(variable, Array.factory(DataType.SHORT, new int[]{3})));
+        assertEquals(0, cache.getNumPinned());
+    }
+
+    @Test
+    public void testPin_skipsCachedAndVariableLength() {
+        final Variable cached = createVariable(4);
+        when(cached.hasCachedData()).thenReturn(true);
+        final Variable varLength = createVariable(4);
+        when(varLength.isVariableLength()).thenReturn(true);
+
+        assertFalse(cache.pin(cached, Array.factory(DataType.INT, new int[]{3})));
+        assertFalse(cache.pin(varLength, Array.factory(DataType.INT, new int[]{3})));
+
+        verify(cached, never()).setCachedData(any(), anyBoolean());
+        verify(varLength, never()).setCachedData(any(), anyBoolean());
+        assertEquals(0, cache.getNumPinned());
+    }
+
+    @Test
+    public void testRelease() {
+        final Variable first = createVariable(4);
+        final Variable second = createVariable(8);
+        cache.pin(first, Array.factory(DataType.INT, new int[]{10}));
+        cache.pin(second, Array.factory(DataType.DOUBLE, new int[]{10}));
+        assertEquals(120, cache.getPinnedBytes());
+
+        cache.release();
+
+        verify(first).invalidateCache();
+        verify(second).invalidateCache();
+        assertEquals(0, cache.getNumPinned());
+        assertEquals(0, cache.getPinnedBytes());
+    }
+
+    private static Variable createVariable(int elementSize) {
+        final Variable variable = mock(Variable.class);
+        when(variable.getElementSize()).thenReturn(elementSize);
+        return variable;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+
+package com.bc.fiduceo.post;
+
+import com.bc.fiduceo.IOTestRunner;
+import com.bc.fiduceo.TestUtil;
+import com.bc.fiduceo.util.NetCDFUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(IOTestRunner.class)
+public class InputVariableCache_IOTest {
+
+    private static final int NUM_MATCHUPS = 2000;
+    private static final int WINDOW_SIZE = 7;
+    private static final String[] WINDOW_VARIABLES = {"lon", "lat", "brightness_temp"};
+
+    private File mmdFile;
+
+    @Before
+    public void setUp() throws IOException, InvalidRangeException {
+        final File testDir = TestUtil.createTestDirectory();
+        mmdFile = new File(testDir, "synthetic_mmd.nc");
+        writeSyntheticMmd(mmdFile);
+    }
+
+    @After
+    public void tearDown() {
+        TestUtil.deleteTestDirectory();
+    }
+
+    @Test
+    public void testSeveralPluginsOnSameMmd_pinnedAndUnpinned() throws IOException, InvalidRangeException {
+        final double unpinnedResult;
+        try (NetcdfFile reader = NetCDFUtils.openReadOnly(mmdFile.getAbsolutePath())) {
+            unpinnedResult = runPlugins(reader);
+        }
+
+        final double pinnedResult;
+        try (NetcdfFile reader = NetCDFUtils.openReadOnly(mmdFile.getAbsolutePath())) {
+            final InputVariableCache cache = new InputVariableCache(64L * 1024 * 1024);
+            try {
+                // the transfer to the target file reads every variable once
+                for (final Variable variable : reader.getVariables()) {
+                    cache.pin(variable, variable.read());
+                }
+                assertEquals(WINDOW_VARIABLES.length + 2, cache.getNumPinned());
+
+                pinnedResult = runPlugins(reader);
+                // the plugins read from the pinned data, not from the file
+                for (final String variableName : WINDOW_VARIABLES) {
+                    assertEquals(true, reader.findVariable(variableName).hasCachedData());
+                }
+            } finally {
+                cache.release();
+            }
+        }
+
+        assertEquals(unpinnedResult, pinnedResult, 1e-8);
+    }
+
+    @Test
+    public void testRelease_readsFromFileAgain() throws IOException {
+        try (NetcdfFile reader = NetCDFUtils.openReadOnly(mmdFile.getAbsolutePath())) {
+            final Variable variable = reader.findVariable("lon");
+            final InputVariableCache cache = new InputVariableCache(64L * 1024 * 1024);
+
+            cache.pin(variable, variable.read());
+            assertEquals(true, variable.hasCachedData());
+
+            cache.release();
+            assertEquals(false, variable.hasCachedData());
+            assertEquals(0.25f, variable.read().getFloat(0), 1e-8);
+        }
+    }
+
+    // each plugin reads the centre pixel of the windows per matchup, as e.g. the angle and distance plugins do
+    private static double runPlugins(NetcdfFile reader) throws IOException, InvalidRangeException {
+        double sum = 0.0;
+        for (int plugin = 0; plugin < 3; plugin++) {
+            final Array x = reader.findVariable("x").read();
+            final Array y = reader.findVariable("y").read();
+            for (final String variableName : WINDOW_VARIABLES) {
+                final Variable variable = reader.findVariable(variableName);
+                final int[] shape = {1, 1, 1};
+                for (int i = 0; i < NUM_MATCHUPS; i++) {
+                    final int[] origin = {i, WINDOW_SIZE / 2, WINDOW_SIZE / 2};
+                    final Array centre = variable.read(origin, shape);
+                    sum += centre.getFloat(0) + x.getInt(i) - y.getInt(i);
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static void writeSyntheticMmd(File file) throws IOException, InvalidRangeException {
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, file.getAbsolutePath());
+        try {
+            final Dimension matchupDim = writer.addDimension(null, "matchup_count", NUM_MATCHUPS);
+            final Dimension yDim = writer.addDimension(null, "ny", WINDOW_SIZE);
+            final Dimension xDim = writer.addDimension(null, "nx", WINDOW_SIZE);
+
+            final List<Dimension> windowDims = new ArrayList<>();
+            windowDims.add(matchupDim);
+            windowDims.add(yDim);
+            windowDims.add(xDim);
+            for (final String variableName : WINDOW_VARIABLES) {
+                writer.addVariable(null, variableName, DataType.FLOAT, windowDims);
+            }
+            writer.addVariable(null, "x", DataType.INT, "matchup_count");
+            writer.addVariable(null, "y", DataType.INT, "matchup_count");
+            writer.create();
+
+            final Array window = Array.factory(DataType.FLOAT, new int[]{NUM_MATCHUPS, WINDOW_SIZE, WINDOW_SIZE});
+            for (int i = 0; i < window.getSize(); i++) {
+                window.setFloat(i, 0.25f * (i % 97 + 1));
+            }
+            for (final String variableName : WINDOW_VARIABLES) {
+                writer.write(writer.findVariable(variableName), window);
+            }
+
+            final Array x = Array.factory(DataType.INT, new int[]{NUM_MATCHUPS});
+            final Array y = Array.factory(DataType.INT, new int[]{NUM_MATCHUPS});
+            for (int i = 0; i < NUM_MATCHUPS; i++) {
+                x.setInt(i, i % 409);
+                y.setInt(i, i % 1201);
+            }
+            writer.write(writer.findVariable("x"), x);
+            writer.write(writer.findVariable("y"), y);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+
+package com.bc.fiduceo.post;
+
+import com.bc.fiduceo.IOTestRunner;
+import com.bc.fiduceo.TestUtil;
+import com.bc.fiduceo.util.NetCDFUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import ucar.ma2.Array;
+import ucar.ma2.ArrayChar;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(IOTestRunner.class)
+public class MatchupSlabLoop_IOTest {
+
+    private static final int NUM_MATCHUPS = 23;
+    private static final int FILE_NAME_SIZE = 40;
+
+    private File mmdFile;
+
+    @Before
+    public void setUp() throws IOException, InvalidRangeException {
+        final File testDir = TestUtil.createTestDirectory();
+        mmdFile = new File(testDir, "slab_mmd.nc");
+        writeMmd(mmdFile);
+    }
+
+    @After
+    public void tearDown() {
+        TestUtil.deleteTestDirectory();
+    }
+
+    @Test
+    public void testRun_twoPostProcessingsShareTheSlabs() throws IOException, InvalidRangeException {
+        final RecordingSlabPostProcessing fileNames = new RecordingSlabPostProcessing("file_name", "y");
+        final RecordingSlabPostProcessing windows = new RecordingSlabPostProcessing("y", "window");
+
+        try (NetcdfFile reader = NetCDFUtils.openReadOnly(mmdFile.getAbsolutePath())) {
+            final int numSlabs = MatchupSlabLoop.run(reader, null, Arrays.asList(fileNames, windows), 10);
+            assertEquals(3, numSlabs);
+
+            assertArrayEquals(new int[]{0, 10, 20}, fileNames.offsets.stream().mapToInt(Integer::intValue).toArray());
+            assertArrayEquals(new int[]{10, 10, 3}, fileNames.lengths.stream().mapToInt(Integer::intValue).toArray());
+            assertEquals(fileNames.offsets, windows.offsets);
+
+            final Variable fileNameVariable = reader.findVariable("file_name");
+            final Variable windowVariable = reader.findVariable("window");
+            for (int i = 0; i < NUM_MATCHUPS; i++) {
+                assertEquals(NetCDFUtils.readString(fileNameVariable, i, FILE_NAME_SIZE), fileNames.strings.get(i));
+                assertEquals(i * 3, fileNames.yValues.get(i).intValue());
+
+                final Array expected = windowVariable.read(new int[]{i, 0, 0}, new int[]{1, 3, 3});
+                assertArrayEquals((float[]) expected.get1DJavaArray(float.class), windows.windows.get(i), 1e-8f);
+            }
+        }
+    }
+
+    @Test
+    public void testRun_notAMatchupVariable() throws IOException, InvalidRangeException {
+        try (NetcdfFile reader = NetCDFUtils.openReadOnly(mmdFile.getAbsolutePath())) {
+            MatchupSlabLoop.run(reader, null, Arrays.asList(new RecordingSlabPostProcessing("constant")), 10);
+            fail("RuntimeException expected");
+        } catch (RuntimeException expected) {
+            assertEquals("Slab variable must have matchup_count as first dimension: constant", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testSlab_undeclaredVariable() {
+        final MatchupSlab slab = new MatchupSlab(0, 1);
+        try {
+            slab.get("y");
+            fail("RuntimeException expected");
+        } catch (RuntimeException expected) {
+            assertEquals("Variable not declared as slab variable: y", expected.getMessage());
+        }
+    }
+
+    private static void writeMmd(File file) throws IOException, InvalidRangeException {
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, file.getAbsolutePath());
+        try {
+            writer.addDimension(null, "matchup_count", NUM_MATCHUPS);
+            writer.addDimension(null, "file_name", FILE_NAME_SIZE);
+            writer.addDimension(null, "ny", 3);
+            writer.addDimension(null, "nx", 3);
+            writer.addDimension(null, "constant_dim", 2);
+            writer.addVariable(null, "file_name", DataType.CHAR, "matchup_count file_name");
+            writer.addVariable(null, "y", DataType.INT, "matchup_count");
+            writer.addVariable(null, "window", DataType.FLOAT, "matchup_count ny nx");
+            writer.addVariable(null, "constant", DataType.INT, "constant_dim");
+            writer.create();
+
+            final ArrayChar.D2 fileNames = new ArrayChar.D2(NUM_MATCHUPS, FILE_NAME_SIZE);
+            final Array y = Array.factory(DataType.INT, new int[]{NUM_MATCHUPS});
+            final Array window = Array.factory(DataType.FLOAT, new int[]{NUM_MATCHUPS, 3, 3});
+            for (int i = 0; i < NUM_MATCHUPS; i++) {
+                fileNames.setString(i, "source_file_" + (i % 4) + ".h5");
+                y.setInt(i, i * 3);
+            }
+            for (int i = 0; i < window.getSize(); i++) {
+                window.setFloat(i, 0.5f * i);
+            }
+            writer.write(writer.findVariable("file_name"), fileNames);
+            writer.write(writer.findVariable("y"), y);
+            writer.write(writer.findVariable("window"), window);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static class RecordingSlabPostProcessing implements SlabPostProcessing {
+
+        private final List<String> variableNames;
+        private final List<Integer> offsets = new ArrayList<>();
+        private final List<Integer> lengths = new ArrayList<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<Integer> yValues = new ArrayList<>();
+        private final List<float[]> windows = new ArrayList<>();
+
+        RecordingSlabPostProcessing(String... variableNames) {
+            this.variableNames = Arrays.asList(variableNames);
+        }
+
+        @Override
+        public List<String> getSlabVariableNames() {
+            return variableNames;
+        }
+
+        @Override
+        public void processSlab(MatchupSlab slab, NetcdfFileWriter writer) {
+            offsets.add(slab.getOffset());
+            lengths.add(slab.getLength());
+            for (int i = 0; i < slab.getLength(); i++) {
+                if (variableNames.contains("file_name")) {
+                    strings.add(slab.getString("file_name", i));
+                }
+                if (variableNames.contains("y")) {
+                    yValues.add(slab.get("y").getInt(i));
+                }
+                if (variableNames.contains("window")) {
+                    final Array window = slab.get("window");
+                    final float[] values = new float[9];
+                    for (int k = 0; k < 9; k++) {
+                        values[k] = window.getFloat(i * 9 + k);
+                    }
+                    windows.add(values);
+                }
+            }
+        }
+    }
+}
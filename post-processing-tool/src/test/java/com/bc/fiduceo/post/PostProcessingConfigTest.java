@@ -20,6 +20,7 @@
 package com.bc.fiduceo.post;
 
 import com.bc.fiduceo.post.plugin.DummyPostProcessingPlugin;
+import com.bc.fiduceo.util.MmdChunking;
 import org.jdom.Document;
 import org.jdom.Element;
 import org.jdom.output.Format;
@@ -146,6 +147,58 @@ public class PostProcessingConfigTest {
         assertThat(config.getOutputDirectory(), equalTo(null));
     }
 
+    @Test
+    public void testLoad_defaultNc4Chunking() throws Exception {
+        final MmdChunking chunking = getConfig().getNc4Chunking();
+
+        assertNotNull(chunking);
+        assertEquals(MmdChunking.Strategy.standard, chunking.getStrategy());
+    }
+
+    @Test
+    public void testLoad_nc4Chunking() throws Exception {
+        root.addContent(new Element(MmdChunking.TAG_NAME_NC4_CHUNKING)
+                                .setAttribute("strategy", "matchup")
+                                .setAttribute("matchup-chunk-size", "256"));
+
+        final MmdChunking chunking = getConfig().getNc4Chunking();
+
+        assertEquals(MmdChunking.Strategy.matchup, chunking.getStrategy());
+        assertEquals(256, chunking.getMatchupChunkSize());
+    }
+
+    @Test
+    public void testLoad_defaultInputCacheSize() throws Exception {
+        assertEquals(256L * 1024 * 1024, getConfig().getInputCacheBytes());
+    }
+
+    @Test
+    public void testLoad_inputCacheSize() throws Exception {
+        root.addContent(new Element(PostProcessingConfig.TAG_NAME_INPUT_CACHE_SIZE_MB).addContent("12"));
+
+        assertEquals(12L * 1024 * 1024, getConfig().getInputCacheBytes());
+    }
+
+    @Test
+    public void testLoad_negativeInputCacheSize() throws Exception {
+        root.addContent(new Element(PostProcessingConfig.TAG_NAME_INPUT_CACHE_SIZE_MB).addContent("-1"));
+
+        try {
+            getConfig();
+            fail("RuntimeException expected");
+        } catch (RuntimeException expected) {
+            assertEquals("Tag <input-cache-size-mb> must not be negative.", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testLoad_matchupSlabSize() throws Exception {
+        assertEquals(MatchupSlabLoop.DEFAULT_SLAB_SIZE, getConfig().getMatchupSlabSize());
+
+        root.addContent(new Element(PostProcessingConfig.TAG_NAME_MATCHUP_SLAB_SIZE).addContent("512"));
+        assertEquals(512, getConfig().getMatchupSlabSize());
+    }
+
     @Test
     public void testLoad_overrideAndNewFilesAreNotAllowedAtTheSameTime() throws Exception {
         root.addContent(new Element(OVERWRITE));
@@ -19,6 +19,7 @@
 
 package com.bc.fiduceo.post;
 
+import com.bc.fiduceo.FiduceoConstants;
 import com.bc.fiduceo.post.plugin.DummyPostProcessingPlugin;
 import com.bc.fiduceo.util.TimeUtils;
 import org.apache.commons.cli.CommandLine;
@@ -33,6 +34,7 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import ucar.nc2.Attribute;
+import ucar.nc2.Dimension;
 import ucar.nc2.Group;
 import ucar.nc2.NetcdfFile;
 import ucar.nc2.NetcdfFileWriter;
@@ -51,14 +53,17 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.same;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 public class PostProcessingToolTest {
 
@@ -185,6 +190,46 @@ public class PostProcessingToolTest {
         inOrder.verify(p2, times(1)).compute(same(reader), same(writer));
     }
 
+    @Test
+    public void testCompute_fusesConsecutiveSlabPostProcessings() throws Exception {
+        final Dimension matchupDimension = mock(Dimension.class);
+        when(matchupDimension.getLength()).thenReturn(10);
+        final NetcdfFile reader = mock(NetcdfFile.class);
+        when(reader.findDimension(FiduceoConstants.MATCHUP_COUNT)).thenReturn(matchupDimension);
+
+        final NetcdfFileWriter writer = mock(NetcdfFileWriter.class);
+        final PostProcessing p1 = mock(PostProcessing.class);
+        final PostProcessing s1 = mock(PostProcessing.class, withSettings().extraInterfaces(SlabPostProcessing.class));
+        final PostProcessing s2 = mock(PostProcessing.class, withSettings().extraInterfaces(SlabPostProcessing.class));
+        final PostProcessing p2 = mock(PostProcessing.class);
+
+        PostProcessingTool.compute(reader, writer, Arrays.asList(p1, s1, s2, p2), 4);
+
+        final InOrder inOrder = inOrder(p1, s1, s2, p2);
+        inOrder.verify(p1, times(1)).compute(same(reader), same(writer));
+        for (int i = 0; i < 3; i++) {
+            inOrder.verify((SlabPostProcessing) s1, times(1)).processSlab(any(MatchupSlab.class), same(writer));
+            inOrder.verify((SlabPostProcessing) s2, times(1)).processSlab(any(MatchupSlab.class), same(writer));
+        }
+        inOrder.verify(p2, times(1)).compute(same(reader), same(writer));
+        verify(s1, never()).compute(any(), any());
+        verify(s2, never()).compute(any(), any());
+    }
+
+    @Test
+    public void testCompute_slabSizeZero() throws Exception {
+        final NetcdfFile reader = mock(NetcdfFile.class);
+        final NetcdfFileWriter writer = mock(NetcdfFileWriter.class);
+        final PostProcessing p1 = mock(PostProcessing.class);
+        final PostProcessing s1 = mock(PostProcessing.class, withSettings().extraInterfaces(SlabPostProcessing.class));
+
+        PostProcessingTool.compute(reader, writer, Arrays.asList(p1, s1), 0);
+
+        verify(p1, times(1)).compute(same(reader), same(writer));
+        verify(s1, times(1)).compute(same(reader), same(writer));
+        verify((SlabPostProcessing) s1, never()).processSlab(any(), any());
+    }
+
     @Test
     public void addPostProcessingConfig_newAttribute() throws Exception {
         final String attName = "post-processing-configuration";
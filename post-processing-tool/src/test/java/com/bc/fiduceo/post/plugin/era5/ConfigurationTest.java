@@ -3,7 +3,9 @@ package com.bc.fiduceo.post.plugin.era5;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class ConfigurationTest {
 
@@ -42,4 +44,36 @@ public class ConfigurationTest {
         config.setMatchupFields(matchupFields);
         assertSame(matchupFields, config.getMatchupFields());
     }
+
+    @Test
+    public void testSetGetCacheSizeMb() {
+        final Configuration config = new Configuration();
+        config.setCacheSizeMb(2048);
+        assertEquals(2048, config.getCacheSizeMb());
+    }
+
+    @Test
+    public void testSetIsMemoryMapped() {
+        final Configuration config = new Configuration();
+        config.setMemoryMapped(true);
+        assertTrue(config.isMemoryMapped());
+
+        config.setMemoryMapped(false);
+        assertFalse(config.isMemoryMapped());
+    }
+
+    @Test
+    public void testSetGetReadAheadSteps() {
+        final Configuration config = new Configuration();
+        config.setReadAheadSteps(3);
+        assertEquals(3, config.getReadAheadSteps());
+    }
+
+    @Test
+    public void testDefaultValues() {
+        final Configuration config = new Configuration();
+        assertEquals(0, config.getCacheSizeMb());
+        assertFalse(config.isMemoryMapped());
+        assertEquals(0, config.getReadAheadSteps());
+    }
 }
@@ -49,6 +49,22 @@ public class Era5PostProcessingPluginTest {
         assertEquals("/where/the/data/is", configuration.getNWPAuxDir());
     }
 
+    @Test
+    public void testCreateConfiguration_cacheSettings() throws JDOMException, IOException {
+        final String XML = "<era5>" +
+                "    <nwp-aux-dir>/where/the/data/is</nwp-aux-dir>" +
+                "    <cache-size-mb>4096</cache-size-mb>" +
+                "    <memory-map>true</memory-map>" +
+                "    <read-ahead-steps>2</read-ahead-steps>" +
+                "</era5>";
+        final Element rootElement = TestUtil.createDomElement(XML);
+
+        final Configuration configuration = Era5PostProcessingPlugin.createConfiguration(rootElement);
+        assertEquals(4096, configuration.getCacheSizeMb());
+        assertTrue(configuration.isMemoryMapped());
+        assertEquals(2, configuration.getReadAheadSteps());
+    }
+
     @Test
     public void testCreateConfiguration_satelliteFields() throws JDOMException, IOException {
         final String XML = "<era5>" +
@@ -95,4 +95,128 @@ public class VariableCacheTest {
 
         assertNotSame(cached_u10, cached_u10_new);
     }
+
+    @Test
+    public void testGet_removeFunctionalityOnByteLimit() throws IOException {
+        final File testDataDirectory = TestUtil.getTestDataDirectory();
+        final File era5RootDir = new File(testDataDirectory, "era-5" + File.separator + "v1");
+        final Era5Archive era5Archive = new Era5Archive(era5RootDir.getAbsolutePath(), Era5Collection.ERA_5);
+
+        // one surface variable is 1440 * 721 shorts, about 2 MB
+        final VariableCache byteLimitedCache = new VariableCache(era5Archive, 52, 3 * 1024 * 1024, false, 0);
+        try {
+            final VariableCache.CacheEntry cached_u10 = byteLimitedCache.get("an_sfc_u10", 1212400800);
+            assertEquals(1, byteLimitedCache.getNumEntries());
+            assertEquals(cached_u10.array.getSizeBytes(), byteLimitedCache.getCachedBytes());
+
+            byteLimitedCache.get("an_sfc_v10", 1212400800);
+            assertEquals(1, byteLimitedCache.getNumEntries());
+
+            final VariableCache.CacheEntry cached_u10_new = byteLimitedCache.get("an_sfc_u10", 1212400800);
+            assertNotSame(cached_u10, cached_u10_new);
+        } finally {
+            byteLimitedCache.close();
+        }
+        assertEquals(0, byteLimitedCache.getNumEntries());
+        assertEquals(0, byteLimitedCache.getCachedBytes());
+    }
+
+    @Test
+    public void testGet_readAheadCountsAgainstByteLimit() throws IOException {
+        final File testDataDirectory = TestUtil.getTestDataDirectory();
+        final File era5RootDir = new File(testDataDirectory, "era-5" + File.separator + "v1");
+        final Era5Archive era5Archive = new Era5Archive(era5RootDir.getAbsolutePath(), Era5Collection.ERA_5);
+
+        // one surface variable is about 2 MB, a read-ahead of the next hour does not fit next to it
+        final long maxBytes = 3 * 1024 * 1024;
+        final VariableCache byteLimitedCache = new VariableCache(era5Archive, 52, maxBytes, false, 3);
+        try {
+            byteLimitedCache.get("an_sfc_u10", 1212400800);
+            assertEquals(0, byteLimitedCache.getPendingBytes());
+            assertTrue(byteLimitedCache.getCachedBytes() <= maxBytes);
+
+            byteLimitedCache.get("an_sfc_v10", 1212400800);
+            assertEquals(0, byteLimitedCache.getPendingBytes());
+            assertTrue(byteLimitedCache.getCachedBytes() <= maxBytes);
+        } finally {
+            byteLimitedCache.close();
+        }
+        assertEquals(0, byteLimitedCache.getPendingBytes());
+    }
+
+    @Test
+    public void testGet_readAheadStaysWithinByteLimit() throws IOException {
+        final File testDataDirectory = TestUtil.getTestDataDirectory();
+        final File era5RootDir = new File(testDataDirectory, "era-5" + File.separator + "v1");
+        final Era5Archive era5Archive = new Era5Archive(era5RootDir.getAbsolutePath(), Era5Collection.ERA_5);
+
+        final long maxBytes = 5 * 1024 * 1024;
+        final VariableCache byteLimitedCache = new VariableCache(era5Archive, 52, maxBytes, false, 4);
+        try {
+            for (final String variableKey : new String[]{"an_sfc_u10", "an_sfc_v10", "an_sfc_siconc", "an_sfc_u10"}) {
+                byteLimitedCache.get(variableKey, 1212400800);
+                assertTrue(byteLimitedCache.getCachedBytes() + byteLimitedCache.getPendingBytes() <= maxBytes);
+            }
+        } finally {
+            byteLimitedCache.close();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testClose_withQueuedReadAheadLoads() throws IOException {
+        final File testDataDirectory = TestUtil.getTestDataDirectory();
+        final File era5RootDir = new File(testDataDirectory, "era-5" + File.separator + "v1");
+        final Era5Archive era5Archive = new Era5Archive(era5RootDir.getAbsolutePath(), Era5Collection.ERA_5);
+
+        // the single read-ahead thread loads one file at a time, the other loads are still queued on close
+        final VariableCache readAheadCache = new VariableCache(era5Archive, 52, Long.MAX_VALUE, false, 4);
+        try {
+            for (final String variableKey : new String[]{"an_sfc_u10", "an_sfc_v10", "an_sfc_siconc", "an_sfc_msl"}) {
+                readAheadCache.get(variableKey, 1212400800);
+            }
+            assertTrue(readAheadCache.getPendingBytes() > 0);
+        } finally {
+            readAheadCache.close();
+        }
+        assertEquals(0, readAheadCache.getPendingBytes());
+        assertEquals(0, readAheadCache.getNumEntries());
+
+        // the cache is usable again after closing
+        final VariableCache.CacheEntry cacheEntry = readAheadCache.get("an_sfc_u10", 1212400800);
+        assertEquals("time latitude longitude", cacheEntry.variable.getDimensionsString());
+        readAheadCache.close();
+    }
+
+    @Test
+    public void testGet_leastRecentlyUsedIsRemoved() throws IOException {
+        final VariableCache.CacheEntry cached_u10 = variableCache.get("an_sfc_u10", 1212400800);
+        final VariableCache.CacheEntry cached_v10 = variableCache.get("an_sfc_v10", 1212400800);
+        variableCache.get("an_sfc_siconc", 1212400800);
+
+        // access u10 again, now v10 is the least recently used entry
+        variableCache.get("an_sfc_u10", 1212400800);
+        variableCache.get("an_sfc_msl", 1212400800);
+
+        assertSame(cached_u10, variableCache.get("an_sfc_u10", 1212400800));
+        assertNotSame(cached_v10, variableCache.get("an_sfc_v10", 1212400800));
+    }
+
+    @Test
+    public void testGet_memoryMapped() throws IOException {
+        final File testDataDirectory = TestUtil.getTestDataDirectory();
+        final File era5RootDir = new File(testDataDirectory, "era-5" + File.separator + "v1");
+        final Era5Archive era5Archive = new Era5Archive(era5RootDir.getAbsolutePath(), Era5Collection.ERA_5);
+
+        final VariableCache mappedCache = new VariableCache(era5Archive, 3, Long.MAX_VALUE, true, 1);
+        try {
+            final VariableCache.CacheEntry mappedEntry = mappedCache.get("an_ml_lnsp", 1212145200);
+            final VariableCache.CacheEntry entry = variableCache.get("an_ml_lnsp", 1212145200);
+
+            assertArrayEquals(entry.array.getShape(), mappedEntry.array.getShape());
+            assertEquals(entry.array.getShort(1023), mappedEntry.array.getShort(1023));
+            assertEquals(entry.array.getShort(207765), mappedEntry.array.getShort(207765));
+        } finally {
+            mappedCache.close();
+        }
+    }
 }
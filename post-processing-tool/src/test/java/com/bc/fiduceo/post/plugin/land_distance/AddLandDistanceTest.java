@@ -135,10 +135,11 @@ public class AddLandDistanceTest {
         final Array latArray = NetCDFUtils.create(latitudes);
 
         final Variable lonVariable = mock(Variable.class);
-        when(lonVariable.read()).thenReturn(lonArray);
+        when(lonVariable.getShape()).thenReturn(new int[]{5});
+        when(lonVariable.read(any(int[].class), any(int[].class))).thenReturn(lonArray);
 
         final Variable latVariable = mock(Variable.class);
-        when(latVariable.read()).thenReturn(latArray);
+        when(latVariable.read(any(int[].class), any(int[].class))).thenReturn(latArray);
 
         final NetcdfFile reader = mock(NetcdfFile.class);
         when(reader.findVariable(null, "longitude")).thenReturn(lonVariable);
@@ -149,7 +150,6 @@ public class AddLandDistanceTest {
         when(writer.findVariable(configuration.targetVariableName)).thenReturn(targetVariable);
 
         final DistanceToLandMap distanceToLandMap = mock(DistanceToLandMap.class);
-        when(distanceToLandMap.getDistance(anyDouble(), anyDouble())).thenReturn(14.8);
 
         final AddLandDistance plugin = new AddLandDistance(configuration);
         plugin.setDistanceToLandMap(distanceToLandMap);
@@ -157,11 +157,19 @@ public class AddLandDistanceTest {
         plugin.compute(reader, writer);
 
         verify(reader, times(1)).findVariable(null, "longitude");
-        verify(lonVariable, times(1)).read();
+        verify(lonVariable, times(1)).read(new int[]{0}, new int[]{5});
         verify(reader, times(1)).findVariable(null, "latitude");
-        verify(latVariable, times(1)).read();
+        verify(latVariable, times(1)).read(new int[]{0}, new int[]{5});
         verify(writer, times(1)).findVariable("distance_to_land");
-        verify(writer, times(1)).write(any(Variable.class), any());
+        verify(writer, times(1)).write(any(Variable.class), any(int[].class), any(Array.class));
+        verify(distanceToLandMap, times(1)).getDistances(any(double[].class), any(double[].class), any(float[].class), anyFloat());
         verifyNoMoreInteractions(reader, writer);
     }
+
+    @Test
+    public void testGetSlabSize() {
+        assertEquals(1 << 20, AddLandDistance.getSlabSize(new int[]{5000000}));
+        assertEquals(21399, AddLandDistance.getSlabSize(new int[]{100000, 7, 7}));
+        assertEquals(1, AddLandDistance.getSlabSize(new int[]{12, 2000, 2000}));
+    }
 }
@@ -33,6 +33,7 @@ import ucar.nc2.NetcdfFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -115,8 +116,7 @@ public class AddLandDistance_IntegrationTest {
     }
 
     private void writeConfiguration_singleSensor() throws IOException {
-        final File testDataDirectory = TestUtil.getTestDataDirectory();
-        final File distanceToLandFile = new File(testDataDirectory, "distance_to_land_map/Globolakes-static_distance_to_land_Map-300m-P5Y-2005-ESACCI_WB-fv1.0_RES120.nc");
+        final File distanceToLandFile = copyDistanceToLandFile();
         final String postProcessingConfig = "<post-processing-config>\n" +
                 "    <create-new-files>\n" +
                 "        <output-directory>\n" +
@@ -141,8 +141,7 @@ public class AddLandDistance_IntegrationTest {
     }
 
     private void writeConfiguration_bothSensors() throws IOException {
-        final File testDataDirectory = TestUtil.getTestDataDirectory();
-        final File distanceToLandFile = new File(testDataDirectory, "distance_to_land_map/Globolakes-static_distance_to_land_Map-300m-P5Y-2005-ESACCI_WB-fv1.0_RES120.nc");
+        final File distanceToLandFile = copyDistanceToLandFile();
         final String postProcessingConfig = "<post-processing-config>\n" +
                 "    <create-new-files>\n" +
                 "        <output-directory>\n" +
@@ -176,4 +175,18 @@ public class AddLandDistance_IntegrationTest {
         final File testDataDirectory = TestUtil.getTestDataDirectory();
         return new File(testDataDirectory, "post-processing/mmd06_sst");
     }
+
+    // the plugin writes a tile file next to the aux file, keep it out of the shared test data directory
+    private File copyDistanceToLandFile() throws IOException {
+        final String fileName = "Globolakes-static_distance_to_land_Map-300m-P5Y-2005-ESACCI_WB-fv1.0_RES120.nc";
+        final File sourceFile = new File(TestUtil.getTestDataDirectory(), "distance_to_land_map/" + fileName);
+        final File auxDir = new File(testDirectory, "aux");
+        if (!auxDir.isDirectory() && !auxDir.mkdir()) {
+            fail("unable to create test directory: " + auxDir.getAbsolutePath());
+        }
+
+        final File targetFile = new File(auxDir, fileName);
+        Files.copy(sourceFile.toPath(), targetFile.toPath());
+        return targetFile;
+    }
 }
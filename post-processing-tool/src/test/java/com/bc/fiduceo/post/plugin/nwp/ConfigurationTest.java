@@ -98,9 +98,22 @@ public class ConfigurationTest {
         assertFalse(config.isSensorExtraction());
     }
 
+    @Test
+    public void testSetGetExtractionEngine() {
+        config.setExtractionEngine("java");
+        assertEquals("java", config.getExtractionEngine());
+        assertTrue(config.isJavaExtraction());
+
+        config.setExtractionEngine("cdo");
+        assertEquals("cdo", config.getExtractionEngine());
+        assertFalse(config.isJavaExtraction());
+    }
+
     @Test
     public void testDefaultValues() {
         assertTrue(config.isDeleteOnExit());
+        assertEquals("cdo", config.getExtractionEngine());
+        assertFalse(config.isJavaExtraction());
         assertNull(config.getCDOHome());
         assertNull(config.getNWPAuxDir());
 
@@ -92,4 +92,32 @@ public class Configuration_IO_Test {
         } catch (RuntimeException expected) {
         }
     }
+
+    @Test
+    public void testVerify_javaEngine_noCdoRequired() {
+        final File nwpDir = createDirectory(testDir, "nwp");
+
+        final Configuration configuration = new Configuration();
+        configuration.setExtractionEngine("java");
+        configuration.setNWPAuxDir(nwpDir.getAbsolutePath());
+
+        assertTrue(configuration.verify());
+    }
+
+    @Test
+    public void testVerify_invalidEngine() {
+        final File cdoDir = createDirectory(testDir, "cdo_exec");
+        final File nwpDir = createDirectory(testDir, "nwp");
+
+        final Configuration configuration = new Configuration();
+        configuration.setExtractionEngine("fortran");
+        configuration.setCDOHome(cdoDir.getAbsolutePath());
+        configuration.setNWPAuxDir(nwpDir.getAbsolutePath());
+
+        try {
+            configuration.verify();
+            fail("RuntimeException expected");
+        } catch (RuntimeException expected) {
+        }
+    }
 }
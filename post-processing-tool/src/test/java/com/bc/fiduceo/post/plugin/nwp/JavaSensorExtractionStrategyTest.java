@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.post.plugin.nwp;
+
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JavaSensorExtractionStrategyTest {
+
+    @Test
+    public void testInterpolate() {
+        assertEquals(12.5f, JavaSensorExtractionStrategy.interpolate(10.f, 20.f, 0.25), 1e-6);
+        assertEquals(10.f, JavaSensorExtractionStrategy.interpolate(10.f, 20.f, 0.0), 1e-6);
+    }
+
+    @Test
+    public void testInterpolate_invalidValues() {
+        assertEquals(20.f, JavaSensorExtractionStrategy.interpolate(Float.NaN, 20.f, 0.25), 1e-6);
+        assertEquals(10.f, JavaSensorExtractionStrategy.interpolate(10.f, Float.NaN, 0.25), 1e-6);
+        assertTrue(Float.isNaN(JavaSensorExtractionStrategy.interpolate(Float.NaN, Float.NaN, 0.25)));
+    }
+
+    @Test
+    public void testExtractPoints() {
+        // two matchups of 5 x 5 pixels, value = matchup * 100 + y * 10 + x
+        final Array geoArray = Array.factory(DataType.FLOAT, new int[]{2, 5, 5});
+        for (int i = 0; i < geoArray.getSize(); i++) {
+            final int m = i / 25;
+            final int y = (i % 25) / 5;
+            final int x = i % 5;
+            geoArray.setFloat(i, m * 100 + y * 10 + x);
+        }
+
+        final SensorExtractConfiguration config = new SensorExtractConfiguration();
+        config.setX_Dimension(3);
+        config.setY_Dimension(3);
+
+        // stride 2 in both directions, the window covers the full 5 x 5 pixels
+        final float[] points = JavaSensorExtractionStrategy.extractPoints(geoArray, config);
+        assertEquals(18, points.length);
+        assertEquals(0.f, points[0], 1e-6);
+        assertEquals(2.f, points[1], 1e-6);
+        assertEquals(20.f, points[3], 1e-6);
+        assertEquals(44.f, points[8], 1e-6);
+        assertEquals(122.f, points[13], 1e-6);
+    }
+}
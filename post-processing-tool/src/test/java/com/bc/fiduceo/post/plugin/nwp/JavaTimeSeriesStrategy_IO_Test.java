@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.post.plugin.nwp;
+
+import com.bc.fiduceo.IOTestRunner;
+import com.bc.fiduceo.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@RunWith(IOTestRunner.class)
+public class JavaTimeSeriesStrategy_IO_Test {
+
+    private static final float FILL_VALUE = -999.f;
+
+    private File testDir;
+
+    @Before
+    public void setUp() {
+        testDir = TestUtil.getTestDir();
+        if (!testDir.mkdirs()) {
+            fail("unable to create test directory");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TestUtil.deleteTestDirectory();
+    }
+
+    @Test
+    public void testGetAnalysisStartSteps() throws IOException, InvalidRangeException {
+        final File nwpFile = writeNwpFile("ggas_01.nc", new double[]{0.0, 6.0, 12.0, 18.0, 24.0});
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(nwpFile), false);
+
+        // nearest time steps are 6h and 18h, three steps have no past and future margin
+        final Array mmdTimes = Array.factory(DataType.INT, new int[]{2}, new int[]{7 * 3600, 17 * 3600});
+        final int[] startSteps = JavaTimeSeriesStrategy.getAnalysisStartSteps(timeSteps, mmdTimes, 3);
+        assertArrayEquals(new int[]{1, 3}, startSteps);
+    }
+
+    @Test
+    public void testGetAnalysisStartSteps_notEnoughTimeSteps() throws IOException, InvalidRangeException {
+        final File nwpFile = writeNwpFile("ggas_01.nc", new double[]{0.0, 6.0, 12.0});
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(nwpFile), false);
+
+        // nine steps require five past time steps
+        final Array mmdTimes = Array.factory(DataType.INT, new int[]{1}, new int[]{12 * 3600});
+        try {
+            JavaTimeSeriesStrategy.getAnalysisStartSteps(timeSteps, mmdTimes, 9);
+            fail("RuntimeException expected");
+        } catch (RuntimeException expected) {
+        }
+    }
+
+    @Test
+    public void testGetForecastStartSteps() throws IOException, InvalidRangeException {
+        final File nwpFile = writeNwpFile("gafs_01.nc", new double[]{0.0, 6.0, 12.0, 18.0, 24.0});
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(nwpFile), false);
+
+        // the second matchup is too close to the end of the series and is marked invalid
+        final Array mmdTimes = Array.factory(DataType.INT, new int[]{2}, new int[]{6 * 3600, 24 * 3600});
+        final int[] startSteps = JavaTimeSeriesStrategy.getForecastStartSteps(timeSteps, mmdTimes, 3);
+        assertArrayEquals(new int[]{1, -1}, startSteps);
+    }
+
+    @Test
+    public void testExtractTimeSeries() throws IOException, InvalidRangeException {
+        final File nwpFile = writeNwpFile("ggas_01.nc", new double[]{0.0, 6.0, 12.0, 18.0});
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(nwpFile), false);
+        final NwpFields fields = new NwpFields(timeSteps, new float[]{45.f, 135.f, 45.f}, new float[]{22.5f, -22.5f, 22.5f});
+
+        final TemplateVariable templateVariable = new TemplateVariable("nwp_sstk", "SSTK", DataType.FLOAT, "matchup_count nwp_steps");
+        final File mmdFile = new File(testDir, "mmd.nc");
+        final NetcdfFileWriter writer = createMmdWriter(mmdFile, 3, 3);
+        try {
+            fields.verifyGrid("SSTK");
+            JavaTimeSeriesStrategy.extractTimeSeries(writer, templateVariable, fields, timeSteps, new int[]{0, 1, -1}, 3);
+        } finally {
+            fields.close();
+            writer.close();
+        }
+
+        // grid value = 100 * step + 10 * y + x, the target points are located in the centre of grid cells
+        final float[] values = readMmdValues(mmdFile);
+        assertArrayEquals(new float[]{
+                5.5f, 105.5f, 205.5f,
+                116.5f, 216.5f, 316.5f,
+                FILL_VALUE, FILL_VALUE, FILL_VALUE
+        }, values, 1e-5f);
+    }
+
+    @Test
+    public void testExtractTimeSeries_sourceWithFewerTimeSteps() throws IOException, InvalidRangeException {
+        final File primaryFile = writeNwpFile("ggas_01.nc", new double[]{0.0, 6.0, 12.0, 18.0});
+        final File sourceFile = writeNwpFile("ggam_01.nc", new double[]{0.0, 12.0});
+        final NwpTimeSteps primaryTimeSteps = NwpTimeSteps.create(Collections.singletonList(primaryFile), false);
+        final NwpTimeSteps sourceTimeSteps = NwpTimeSteps.create(Collections.singletonList(sourceFile), false);
+        final NwpFields fields = new NwpFields(sourceTimeSteps, new float[]{45.f}, new float[]{22.5f});
+
+        final TemplateVariable templateVariable = new TemplateVariable("nwp_sstk", "SSTK", DataType.FLOAT, "matchup_count nwp_steps");
+        final File mmdFile = new File(testDir, "mmd.nc");
+        final NetcdfFileWriter writer = createMmdWriter(mmdFile, 1, 4);
+        try {
+            JavaTimeSeriesStrategy.extractTimeSeries(writer, templateVariable, fields, primaryTimeSteps, new int[]{0}, 4);
+        } finally {
+            fields.close();
+            writer.close();
+        }
+
+        // the source file contains the 0h and 12h fields only, as steps 0 and 1 of the file
+        final float[] values = readMmdValues(mmdFile);
+        assertArrayEquals(new float[]{5.5f, FILL_VALUE, 105.5f, FILL_VALUE}, values, 1e-5f);
+    }
+
+    private NetcdfFileWriter createMmdWriter(File file, int matchupCount, int numSteps) throws IOException {
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, file.getAbsolutePath());
+        final Dimension matchupDimension = writer.addDimension(null, "matchup_count", matchupCount);
+        final Dimension stepDimension = writer.addDimension(null, "nwp_steps", numSteps);
+        final Variable variable = writer.addVariable(null, "nwp_sstk", DataType.FLOAT, Arrays.asList(matchupDimension, stepDimension));
+        variable.addAttribute(new Attribute("_FillValue", FILL_VALUE));
+        writer.create();
+        return writer;
+    }
+
+    private static float[] readMmdValues(File file) throws IOException {
+        try (NetcdfFile netcdfFile = NetcdfFile.open(file.getAbsolutePath())) {
+            final Variable variable = netcdfFile.findVariable("nwp_sstk");
+            return (float[]) variable.read().get1DJavaArray(DataType.FLOAT);
+        }
+    }
+
+    private File writeNwpFile(String fileName, double[] hours) throws IOException, InvalidRangeException {
+        final File file = new File(testDir, fileName);
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, file.getAbsolutePath());
+        try {
+            final Dimension timeDimension = writer.addDimension(null, "time", hours.length);
+            final Dimension latDimension = writer.addDimension(null, "lat", 3);
+            final Dimension lonDimension = writer.addDimension(null, "lon", 4);
+
+            final Variable time = writer.addVariable(null, "time", DataType.DOUBLE, Collections.singletonList(timeDimension));
+            time.addAttribute(new Attribute("units", "hours since 1970-01-01 00:00:00"));
+            time.addAttribute(new Attribute("calendar", "proleptic_gregorian"));
+            final Variable lat = writer.addVariable(null, "lat", DataType.DOUBLE, Collections.singletonList(latDimension));
+            final Variable lon = writer.addVariable(null, "lon", DataType.DOUBLE, Collections.singletonList(lonDimension));
+            final Variable sstk = writer.addVariable(null, "SSTK", DataType.FLOAT, Arrays.asList(timeDimension, latDimension, lonDimension));
+            writer.create();
+
+            writer.write(time, Array.factory(DataType.DOUBLE, new int[]{hours.length}, hours));
+            writer.write(lat, Array.factory(DataType.DOUBLE, new int[]{3}, new double[]{45.0, 0.0, -45.0}));
+            writer.write(lon, Array.factory(DataType.DOUBLE, new int[]{4}, new double[]{0.0, 90.0, 180.0, 270.0}));
+
+            final Array sstkData = Array.factory(DataType.FLOAT, new int[]{hours.length, 3, 4});
+            for (int step = 0; step < hours.length; step++) {
+                for (int y = 0; y < 3; y++) {
+                    for (int x = 0; x < 4; x++) {
+                        sstkData.setFloat(step * 12 + y * 4 + x, 100 * step + 10 * y + x);
+                    }
+                }
+            }
+            writer.write(sstk, sstkData);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.post.plugin.nwp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NwpGridSamplerTest {
+
+    // global 90 degree grid, latitudes descending as in the ERA-Interim files
+    private static final double[] GRID_LONS = {0.0, 90.0, 180.0, 270.0};
+    private static final double[] GRID_LATS = {45.0, 0.0, -45.0};
+
+    // value = lon index + 10 * lat index
+    private static final float[] FIELD = {
+            0.f, 1.f, 2.f, 3.f,
+            10.f, 11.f, 12.f, 13.f,
+            20.f, 21.f, 22.f, 23.f
+    };
+
+    @Test
+    public void testSample_gridPoints() {
+        final NwpGridSampler sampler = new NwpGridSampler(GRID_LONS, GRID_LATS, new float[]{90.f, 180.f}, new float[]{0.f, -45.f});
+
+        assertEquals(2, sampler.getNumPoints());
+        assertEquals(12, sampler.getLayerSize());
+        assertEquals(11.f, sampler.sample(FIELD, 0, 0), 1e-6);
+        assertEquals(22.f, sampler.sample(FIELD, 0, 1), 1e-6);
+    }
+
+    @Test
+    public void testSample_bilinear() {
+        final NwpGridSampler sampler = new NwpGridSampler(GRID_LONS, GRID_LATS, new float[]{45.f, 135.f}, new float[]{22.5f, -11.25f});
+
+        assertEquals(5.5f, sampler.sample(FIELD, 0, 0), 1e-6);
+        assertEquals(14.f, sampler.sample(FIELD, 0, 1), 1e-6);
+    }
+
+    @Test
+    public void testSample_wrapAroundDateline() {
+        final NwpGridSampler sampler = new NwpGridSampler(GRID_LONS, GRID_LATS, new float[]{315.f, -45.f}, new float[]{0.f, 0.f});
+
+        assertEquals(11.5f, sampler.sample(FIELD, 0, 0), 1e-6);
+        assertEquals(11.5f, sampler.sample(FIELD, 0, 1), 1e-6);
+    }
+
+    @Test
+    public void testSample_secondLayer() {
+        final float[] twoLayers = new float[24];
+        System.arraycopy(FIELD, 0, twoLayers, 12, 12);
+
+        final NwpGridSampler sampler = new NwpGridSampler(GRID_LONS, GRID_LATS, new float[]{90.f}, new float[]{0.f});
+
+        assertEquals(0.f, sampler.sample(twoLayers, 0, 0), 1e-6);
+        assertEquals(11.f, sampler.sample(twoLayers, 12, 0), 1e-6);
+    }
+
+    @Test
+    public void testSample_outsideAndInvalid() {
+        final NwpGridSampler sampler = new NwpGridSampler(GRID_LONS, GRID_LATS, new float[]{90.f, 90.f, -32768.f}, new float[]{60.f, -90.1f, 0.f});
+
+        assertTrue(Float.isNaN(sampler.sample(FIELD, 0, 0)));
+        assertTrue(Float.isNaN(sampler.sample(FIELD, 0, 1)));
+        assertTrue(Float.isNaN(sampler.sample(FIELD, 0, 2)));
+    }
+
+    @Test
+    public void testSample_invalidGridValuePropagates() {
+        final float[] field = FIELD.clone();
+        field[5] = Float.NaN;
+
+        final NwpGridSampler sampler = new NwpGridSampler(GRID_LONS, GRID_LATS, new float[]{45.f, 225.f}, new float[]{22.5f, 22.5f});
+
+        assertTrue(Float.isNaN(sampler.sample(field, 0, 0)));
+        assertEquals(7.5f, sampler.sample(field, 0, 1), 1e-6);
+    }
+
+    @Test
+    public void testSample_regionalGrid_noWrap() {
+        final double[] lons = {0.0, 10.0, 20.0};
+        final double[] lats = {0.0, 10.0};
+        final NwpGridSampler sampler = new NwpGridSampler(lons, lats, new float[]{25.f}, new float[]{5.f});
+
+        assertTrue(Float.isNaN(sampler.sample(new float[6], 0, 0)));
+    }
+
+    @Test
+    public void testFindLowerIndex_ascending() {
+        final double[] axis = {0.0, 1.0, 2.0, 3.0};
+
+        assertEquals(0, NwpGridSampler.findLowerIndex(axis, 0.0));
+        assertEquals(1, NwpGridSampler.findLowerIndex(axis, 1.5));
+        assertEquals(2, NwpGridSampler.findLowerIndex(axis, 2.99));
+        assertEquals(-1, NwpGridSampler.findLowerIndex(axis, -0.1));
+        assertEquals(-1, NwpGridSampler.findLowerIndex(axis, 3.1));
+    }
+
+    @Test
+    public void testFindLowerIndex_descending() {
+        final double[] axis = {3.0, 2.0, 1.0, 0.0};
+
+        assertEquals(0, NwpGridSampler.findLowerIndex(axis, 3.0));
+        assertEquals(1, NwpGridSampler.findLowerIndex(axis, 1.5));
+        assertEquals(2, NwpGridSampler.findLowerIndex(axis, 0.01));
+        assertEquals(-1, NwpGridSampler.findLowerIndex(axis, 3.1));
+        assertEquals(-1, NwpGridSampler.findLowerIndex(axis, -0.1));
+    }
+
+    @Test
+    public void testNormalizeLongitude() {
+        assertEquals(10.0, NwpGridSampler.normalizeLongitude(10.0, 0.0), 1e-8);
+        assertEquals(350.0, NwpGridSampler.normalizeLongitude(-10.0, 0.0), 1e-8);
+        assertEquals(-10.0, NwpGridSampler.normalizeLongitude(350.0, -180.0), 1e-8);
+        assertEquals(0.0, NwpGridSampler.normalizeLongitude(360.0, 0.0), 1e-8);
+    }
+}
@@ -90,6 +90,19 @@ public class NwpPostProcessingPluginTest {
         }
     }
 
+    @Test
+    public void testCreateConfiguration_javaEngine_noCdoHome() throws JDOMException, IOException {
+        final String XML = "<nwp>" +
+                "    <extraction-engine>java</extraction-engine>" +
+                "    <nwp-aux-dir>we need this, its mandatory</nwp-aux-dir>" +
+                "</nwp>";
+        final Element rootElement = TestUtil.createDomElement(XML);
+
+        final Configuration configuration = NwpPostProcessingPlugin.createConfiguration(rootElement);
+        assertEquals("java", configuration.getExtractionEngine());
+        assertTrue(configuration.isJavaExtraction());
+    }
+
     @Test
     public void testCreateConfiguration_TimeSeriesExtract_allRelevantVariables() throws JDOMException, IOException {
         final String XML = "<nwp>" +
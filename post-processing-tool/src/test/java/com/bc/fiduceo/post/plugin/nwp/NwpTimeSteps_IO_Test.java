@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ *
+ */
+
+package com.bc.fiduceo.post.plugin.nwp;
+
+import com.bc.fiduceo.IOTestRunner;
+import com.bc.fiduceo.TestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.Dimension;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(IOTestRunner.class)
+public class NwpTimeSteps_IO_Test {
+
+    private File testDir;
+
+    @Before
+    public void setUp() {
+        testDir = TestUtil.getTestDir();
+        if (!testDir.mkdirs()) {
+            fail("unable to create test directory");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TestUtil.deleteTestDirectory();
+    }
+
+    @Test
+    public void testCreate_mergesAndSorts() throws IOException, InvalidRangeException {
+        final File laterFile = writeNwpFile("ggas_02.nc", new double[]{18.0, 24.0});
+        final File earlierFile = writeNwpFile("ggas_01.nc", new double[]{6.0, 12.0});
+
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Arrays.asList(laterFile, earlierFile), false);
+        assertEquals(4, timeSteps.size());
+        assertEquals(6 * 3600, timeSteps.getTime(0));
+        assertEquals(24 * 3600, timeSteps.getTime(3));
+
+        assertEquals(earlierFile, timeSteps.getFile(1));
+        assertEquals(1, timeSteps.getTimeIndexInFile(1));
+        assertEquals(laterFile, timeSteps.getFile(2));
+        assertEquals(0, timeSteps.getTimeIndexInFile(2));
+
+        final Array timesArray = timeSteps.getTimesArray();
+        assertEquals(4, timesArray.getSize());
+        assertEquals(18 * 3600, timesArray.getInt(2));
+    }
+
+    @Test
+    public void testCreate_synopticHoursOnly() throws IOException, InvalidRangeException {
+        final File file = writeNwpFile("gafs_01.nc", new double[]{3.0, 6.0, 9.0, 12.0});
+
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(file), true);
+        assertEquals(2, timeSteps.size());
+        assertEquals(6 * 3600, timeSteps.getTime(0));
+        assertEquals(1, timeSteps.getTimeIndexInFile(0));
+        assertEquals(12 * 3600, timeSteps.getTime(1));
+        assertEquals(3, timeSteps.getTimeIndexInFile(1));
+    }
+
+    @Test
+    public void testFindStep() throws IOException, InvalidRangeException {
+        final File file = writeNwpFile("ggas_01.nc", new double[]{0.0, 6.0, 12.0});
+
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(file), false);
+        assertEquals(0, timeSteps.findStep(0));
+        assertEquals(2, timeSteps.findStep(12 * 3600));
+        assertEquals(-1, timeSteps.findStep(3 * 3600));
+    }
+
+    @Test
+    public void testFields_read() throws IOException, InvalidRangeException {
+        final File file = writeNwpFile("ggas_01.nc", new double[]{0.0, 6.0});
+
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(file), false);
+        final NwpFields fields = new NwpFields(timeSteps, new float[]{225.f, 10.f}, new float[]{22.5f, 60.f});
+        try {
+            final NwpFields.Field field = fields.read("SSTK", 1);
+            assertEquals(1, field.numLevels);
+            // raw values 100 + index + 10 * step, scale 0.5, offset 200
+            assertEquals(255.f, field.data[0], 1e-6);
+            assertTrue(Float.isNaN(field.data[5]));
+            assertEquals(257.25f, field.sample(0, 0), 1e-6);
+            assertTrue(Float.isNaN(field.sample(0, 1)));
+        } finally {
+            fields.close();
+        }
+    }
+
+    @Test
+    public void testFields_findVariableByGribCode() throws IOException, InvalidRangeException {
+        final File file = writeNwpFile("ggam_01.nc", new double[]{0.0});
+
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(file), false);
+        final NwpFields fields = new NwpFields(timeSteps, new float[]{0.f}, new float[]{0.f});
+        try {
+            final NwpFields.Field field = fields.read("CLWC", 0);
+            assertEquals(2, field.numLevels);
+            assertEquals(24, field.data.length);
+            assertEquals(1.f, field.data[12], 1e-6);
+        } finally {
+            fields.close();
+        }
+    }
+
+    @Test
+    public void testFields_variableNotPresent() throws IOException, InvalidRangeException {
+        final File file = writeNwpFile("ggas_01.nc", new double[]{0.0});
+
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(file), false);
+        final NwpFields fields = new NwpFields(timeSteps, new float[]{0.f}, new float[]{0.f});
+        try {
+            fields.read("O3", 0);
+            fail("IOException expected");
+        } catch (IOException expected) {
+        } finally {
+            fields.close();
+        }
+    }
+
+    @Test
+    public void testFields_verifyGrid() throws IOException, InvalidRangeException {
+        final File file = writeNwpFile("ggas_01.nc", new double[]{0.0});
+
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(file), false);
+        final NwpFields fields = new NwpFields(timeSteps, new float[]{0.f}, new float[]{0.f});
+        try {
+            fields.verifyGrid("SSTK");
+            fields.verifyGrid("CLWC");
+        } finally {
+            fields.close();
+        }
+    }
+
+    @Test
+    public void testFields_verifyGrid_spectralData() throws IOException, InvalidRangeException {
+        final File file = writeSpectralFile("spam_01.nc");
+
+        final NwpTimeSteps timeSteps = NwpTimeSteps.create(Collections.singletonList(file), false);
+        final NwpFields fields = new NwpFields(timeSteps, new float[]{0.f}, new float[]{0.f});
+        try {
+            fields.verifyGrid("T");
+            fail("IOException expected");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("use the 'cdo' extraction engine"));
+        } finally {
+            fields.close();
+        }
+    }
+
+    private File writeSpectralFile(String fileName) throws IOException, InvalidRangeException {
+        final File file = new File(testDir, fileName);
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, file.getAbsolutePath());
+        try {
+            final Dimension timeDimension = writer.addDimension(null, "time", 1);
+            final Dimension levDimension = writer.addDimension(null, "lev", 2);
+            final Dimension spcDimension = writer.addDimension(null, "spc", 6);
+
+            final Variable time = writer.addVariable(null, "time", DataType.DOUBLE, Collections.singletonList(timeDimension));
+            time.addAttribute(new Attribute("units", "hours since 1970-01-01 00:00:00"));
+            writer.addVariable(null, "T", DataType.FLOAT, Arrays.asList(timeDimension, levDimension, spcDimension));
+            writer.create();
+
+            writer.write(time, Array.factory(DataType.DOUBLE, new int[]{1}, new double[]{0.0}));
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private File writeNwpFile(String fileName, double[] hours) throws IOException, InvalidRangeException {
+        final File file = new File(testDir, fileName);
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, file.getAbsolutePath());
+        try {
+            final Dimension timeDimension = writer.addDimension(null, "time", hours.length);
+            final Dimension levDimension = writer.addDimension(null, "lev", 2);
+            final Dimension latDimension = writer.addDimension(null, "lat", 3);
+            final Dimension lonDimension = writer.addDimension(null, "lon", 4);
+
+            final Variable time = writer.addVariable(null, "time", DataType.DOUBLE, Collections.singletonList(timeDimension));
+            time.addAttribute(new Attribute("units", "hours since 1970-01-01 00:00:00"));
+            time.addAttribute(new Attribute("calendar", "proleptic_gregorian"));
+            final Variable lat = writer.addVariable(null, "lat", DataType.DOUBLE, Collections.singletonList(latDimension));
+            final Variable lon = writer.addVariable(null, "lon", DataType.DOUBLE, Collections.singletonList(lonDimension));
+
+            final Variable sstk = writer.addVariable(null, "SSTK", DataType.SHORT, Arrays.asList(timeDimension, latDimension, lonDimension));
+            sstk.addAttribute(new Attribute("scale_factor", 0.5));
+            sstk.addAttribute(new Attribute("add_offset", 200.0));
+            sstk.addAttribute(new Attribute("_FillValue", (short) -32767));
+
+            final Variable clwc = writer.addVariable(null, "var246", DataType.FLOAT, Arrays.asList(timeDimension, levDimension, latDimension, lonDimension));
+            clwc.addAttribute(new Attribute("Grib1_Parameter", 246));
+            writer.create();
+
+            writer.write(time, Array.factory(DataType.DOUBLE, new int[]{hours.length}, hours));
+            writer.write(lat, Array.factory(DataType.DOUBLE, new int[]{3}, new double[]{45.0, 0.0, -45.0}));
+            writer.write(lon, Array.factory(DataType.DOUBLE, new int[]{4}, new double[]{0.0, 90.0, 180.0, 270.0}));
+
+            final Array sstkData = Array.factory(DataType.SHORT, new int[]{hours.length, 3, 4});
+            for (int step = 0; step < hours.length; step++) {
+                for (int i = 0; i < 12; i++) {
+                    sstkData.setShort(step * 12 + i, (short) (100 + i + 10 * step));
+                }
+                sstkData.setShort(step * 12 + 5, (short) -32767);
+            }
+            writer.write(sstk, sstkData);
+
+            final Array clwcData = Array.factory(DataType.FLOAT, new int[]{hours.length, 2, 3, 4});
+            for (int step = 0; step < hours.length; step++) {
+                for (int i = 0; i < 24; i++) {
+                    clwcData.setFloat(step * 24 + i, i < 12 ? 0.f : 1.f);
+                }
+            }
+            writer.write(clwc, clwcData);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+}
@@ -26,4 +26,26 @@ public class StrategyFactoryTest {
         final Strategy strategy_2 = StrategyFactory.getSensorExtracts();
         assertSame(strategy, strategy_2);
     }
+
+    @Test
+    public void testGetStrategies_javaEngine() {
+        final Configuration configuration = new Configuration();
+        configuration.setExtractionEngine("java");
+
+        final Strategy timeSeries = StrategyFactory.getTimeSeries(configuration);
+        assertTrue(timeSeries instanceof JavaTimeSeriesStrategy);
+        assertSame(timeSeries, StrategyFactory.getTimeSeries(configuration));
+
+        final Strategy sensorExtracts = StrategyFactory.getSensorExtracts(configuration);
+        assertTrue(sensorExtracts instanceof JavaSensorExtractionStrategy);
+        assertSame(sensorExtracts, StrategyFactory.getSensorExtracts(configuration));
+    }
+
+    @Test
+    public void testGetStrategies_cdoEngine() {
+        final Configuration configuration = new Configuration();
+
+        assertSame(StrategyFactory.getTimeSeries(), StrategyFactory.getTimeSeries(configuration));
+        assertSame(StrategyFactory.getSensorExtracts(), StrategyFactory.getSensorExtracts(configuration));
+    }
 }
@@ -25,10 +25,15 @@ import com.bc.fiduceo.util.SobolSequenceGenerator;
 import com.google.common.jimfs.Configuration;
 import com.google.common.jimfs.Jimfs;
 import org.esa.snap.core.util.StopWatch;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.file.FileSystem;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import static org.hamcrest.Matchers.is;
@@ -38,11 +43,23 @@ import static org.junit.Assert.*;
 @RunWith(IOTestRunner.class)
 public class DistanceToLandMapTest {
 
+    private static final String DISTANCE_FILE_NAME = "Globolakes-static_distance_to_land_Map-300m-P5Y-2005-ESACCI_WB-fv1.0_RES120.nc";
+
+    private File testDir;
+
+    @Before
+    public void setUp() {
+        testDir = TestUtil.createTestDirectory();
+    }
+
+    @After
+    public void tearDown() {
+        TestUtil.deleteTestDirectory();
+    }
+
     @Test
     public void getDistance() throws Exception {
-        final Path path = TestUtil.getTestDataDirectory().toPath()
-                .resolve("distance_to_land_map")
-                .resolve("Globolakes-static_distance_to_land_Map-300m-P5Y-2005-ESACCI_WB-fv1.0_RES120.nc");
+        final Path path = copyToTestDir();
         final DistanceToLandMap map = new DistanceToLandMap(path);
 
         try {
@@ -72,6 +89,44 @@ public class DistanceToLandMapTest {
         }
     }
 
+    @Test
+    public void getDistances() throws Exception {
+        final Path path = copyToTestDir();
+        final DistanceToLandMap map = new DistanceToLandMap(path);
+
+        try {
+            final double[] longitudes = {10.0, -42.737256, 7.882718, -32768.0, 1.865498};
+            final double[] latitudes = {53.55, 33.194949, 54.000474, -32768.0, 57.873503};
+            final float[] distances = new float[5];
+
+            map.getDistances(longitudes, latitudes, distances, -1.f);
+
+            assertEquals(0.0, distances[0], 1e-7);
+            assertEquals(1236.700, distances[1], 1e-3);
+            assertEquals(19.100, distances[2], 1e-4);
+            assertEquals(-1.0, distances[3], 1e-7);
+            assertEquals(219.200, distances[4], 1e-4);
+
+            final int numPoints = 100000;
+            final double[] lons = new double[numPoints];
+            final double[] lats = new double[numPoints];
+            final SobolSequenceGenerator sobolSequenceGenerator = new SobolSequenceGenerator(2);
+            for (int i = 0; i < numPoints; i++) {
+                final double[] doubles = sobolSequenceGenerator.nextVector();
+                lons[i] = 360 * doubles[0] - 180;
+                lats[i] = 180 * doubles[1] - 90;
+            }
+            final float[] batchDistances = new float[numPoints];
+            map.getDistances(lons, lats, batchDistances, -1.f);
+
+            for (int i = 0; i < numPoints; i += 997) {
+                assertEquals(map.getDistance(lons[i], lats[i]), batchDistances[i], 1e-7);
+            }
+        } finally {
+            map.close();
+        }
+    }
+
     @Test
     public void fileDoesNotExist() {
         final FileSystem fileSystem = Jimfs.newFileSystem(Configuration.unix());
@@ -83,4 +138,14 @@ public class DistanceToLandMapTest {
             assertEquals("Missing file: '/work/not/existing/path'", expected.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // the tile file is written next to the NetCDF file, keep it out of the shared test data directory
+    private Path copyToTestDir() throws IOException {
+        final Path sourcePath = TestUtil.getTestDataDirectory().toPath()
+                .resolve("distance_to_land_map")
+                .resolve(DISTANCE_FILE_NAME);
+        final Path targetPath = testDir.toPath().resolve(DISTANCE_FILE_NAME);
+        Files.copy(sourcePath, targetPath);
+        return targetPath;
+    }
+}
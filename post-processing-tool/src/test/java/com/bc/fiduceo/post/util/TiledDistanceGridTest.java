@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2021 Brockmann Consult GmbH
+ * This code was developed for the EC project "Fidelity and Uncertainty in
+ * Climate Data Records from Earth Observations (FIDUCEO)".
+ * Grant Agreement: 638822
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * A copy of the GNU General Public License should have been supplied along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.fiduceo.post.util;
+
+import com.bc.fiduceo.TestUtil;
+import com.bc.fiduceo.util.SobolSequenceGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TiledDistanceGridTest {
+
+    private File testDir;
+
+    @Before
+    public void setUp() {
+        testDir = TestUtil.createTestDirectory();
+    }
+
+    @After
+    public void tearDown() {
+        TestUtil.deleteTestDirectory();
+    }
+
+    @Test
+    public void testWriteAndOpen() throws IOException {
+        final Array data = createSyntheticGrid(10, 7);
+        final File tileFile = new File(testDir, "grid.tiles");
+
+        TiledDistanceGrid.write(tileFile, data, 0.5, 4);
+        final TiledDistanceGrid grid = TiledDistanceGrid.open(tileFile);
+
+        assertEquals(10, grid.getWidth());
+        assertEquals(7, grid.getHeight());
+        assertEquals(4, grid.getTileSize());
+        assertEquals(3, grid.getNumTilesX());
+
+        for (int y = 0; y < 7; y++) {
+            for (int x = 0; x < 10; x++) {
+                assertEquals(0.5f * (y * 1000 + x), grid.get(y, x), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testIsValidTileFile() throws IOException {
+        final File tileFile = new File(testDir, "grid.tiles");
+        assertFalse(TiledDistanceGrid.isValidTileFile(tileFile, 10, 7, 4));
+
+        TiledDistanceGrid.write(tileFile, createSyntheticGrid(10, 7), 1.0, 4);
+        assertTrue(TiledDistanceGrid.isValidTileFile(tileFile, 10, 7, 4));
+        assertFalse(TiledDistanceGrid.isValidTileFile(tileFile, 10, 7, 8));
+        assertFalse(TiledDistanceGrid.isValidTileFile(tileFile, 11, 7, 4));
+    }
+
+    @Test
+    public void testOpen_invalidFile() throws IOException {
+        final File file = TestUtil.createFileInTestDir("no_tiles.bin");
+        TestUtil.writeStringTo(file, "this is not a tile file");
+
+        try {
+            TiledDistanceGrid.open(file);
+            fail("IOException expected");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testWrite_replacesInvalidFileAtomically() throws IOException {
+        final File tileFile = TestUtil.createFileInTestDir("grid.tiles");
+        TestUtil.writeStringTo(tileFile, "this is not a tile file");
+
+        TiledDistanceGrid.write(tileFile, createSyntheticGrid(10, 7), 1.0, 4);
+
+        assertTrue(TiledDistanceGrid.isValidTileFile(tileFile, 10, 7, 4));
+        final String[] fileNames = testDir.list();
+        assertNotNull(fileNames);
+        assertEquals(1, fileNames.length);
+        assertEquals("grid.tiles", fileNames[0]);
+    }
+
+    @Test
+    public void testGet_syntheticGlobalGrid() throws IOException {
+        // 0.1 degree global grid, approx. 26 MB tile file
+        final int width = 3600;
+        final int height = 1800;
+        final File tileFile = new File(testDir, "grid.tiles");
+        TiledDistanceGrid.write(tileFile, createSyntheticGrid(width, height), 1.0, TiledDistanceGrid.DEFAULT_TILE_SIZE);
+        final TiledDistanceGrid grid = TiledDistanceGrid.open(tileFile);
+
+        final int numPoints = 100000;
+        final SobolSequenceGenerator sobolSequenceGenerator = new SobolSequenceGenerator(2);
+        for (int i = 0; i < numPoints; i++) {
+            final double[] doubles = sobolSequenceGenerator.nextVector();
+            final int x = (int) (doubles[0] * width);
+            final int y = (int) (doubles[1] * height);
+            assertEquals(y * 1000 + x, grid.get(y, x), 1e-6);
+        }
+    }
+
+    private static Array createSyntheticGrid(int width, int height) {
+        final Array data = Array.factory(DataType.INT, new int[]{height, width});
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                data.setInt(y * width + x, y * 1000 + x);
+            }
+        }
+        return data;
+    }
+}